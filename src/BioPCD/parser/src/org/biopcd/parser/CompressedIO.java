@@ -0,0 +1,250 @@
+/*
+ * CompressedIO.java
+ *
+ * Created on October 18, 2026, 9:45 PM
+ */
+
+package org.biopcd.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Opens files for canvas I/O, transparently handling gzip compression.</p>
+ *
+ * <p>When reading, gzip-compressed data is detected by its magic number (the
+ * bytes 0x1f 0x8b at the beginning of the file), rather than by the file name,
+ * and is decompressed as it is read (the whole file is never decompressed into
+ * memory, or onto the disk).  Files compressed by bgzip are also read, because
+ * a bgzip file is a series of concatenated gzip members.  Uncompressed files
+ * are read as usual.</p>
+ *
+ * <p>When writing, compression is selected by the file format name.  A format
+ * name ending in ".gz" (for example, "genbank.gz") denotes the same format as
+ * the name without the suffix, but compressed with gzip.  PCD canvases are
+ * always passed the format name without the suffix (see baseFormat).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public final class CompressedIO {
+
+    /**
+     * The format name suffix which selects gzip compression.
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+    /**
+     * The size of the buffers used for reading and writing files.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The first byte of the gzip magic number.
+     */
+    private static final int GZIP_MAGIC1 = 0x1f;
+    /**
+     * The second byte of the gzip magic number.
+     */
+    private static final int GZIP_MAGIC2 = 0x8b;
+
+    /**
+     * This class only contains static methods, so it should not be
+     * instantiated.
+     */
+    private CompressedIO() {
+    }
+
+    /**
+     * Opens a file for reading, decompressing it if it is gzip-compressed.
+     **
+     * @param  file         the file to read.
+     * @return a reader for the (decompressed) contents of the file.
+     * @throws IOException  if the file cannot be opened.
+     */
+    public static Reader openReader(File file) throws IOException {
+        return new InputStreamReader(openInputStream(file));
+    }
+
+    /**
+     * Opens a file for reading, decompressing it if it is gzip-compressed.
+     **
+     * @param  file         the file to read.
+     * @return a buffered stream of the (decompressed) contents of the file.
+     * @throws IOException  if the file cannot be opened.
+     */
+    public static InputStream openInputStream(File file) throws IOException {
+        // The stream to read the file with.
+        final InputStream in = new FileInputStream(file);
+
+        try {
+            return decompress(in);
+        } catch (IOException ioe) {
+            in.close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Wraps an input stream, decompressing its contents if they are
+     * gzip-compressed.  The first two bytes of the stream are examined (and
+     * then replayed) to detect compression.
+     **
+     * @param  in           the stream to read.
+     * @return a buffered stream of the (decompressed) contents of the stream.
+     * @throws IOException  if the stream cannot be read.
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        // The buffered stream used to examine the magic number.
+        InputStream result = new BufferedInputStream(in, BUFFER_SIZE);
+
+        if (isGzip(result)) {
+            result = new BufferedInputStream(
+                    new GZIPInputStream(result, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return result;
+    }
+
+    /**
+     * Tests whether a file is gzip-compressed (by its magic number).
+     **
+     * @param  file         the file to test.
+     * @return whether the file is gzip-compressed.
+     * @throws IOException  if the file cannot be read.
+     */
+    public static boolean isGzip(File file) throws IOException {
+        // The stream used to read the magic number.
+        final InputStream in = new FileInputStream(file);
+
+        try {
+            return in.read() == GZIP_MAGIC1 && in.read() == GZIP_MAGIC2;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Opens a file for writing.  Uncompressed files are written through a
+     * buffered NIO channel writer.
+     **
+     * @param  file         the file to write.
+     * @param  compress     whether to compress the contents using gzip.
+     * @return a buffered writer for the file.
+     * @throws IOException  if the file cannot be opened.
+     */
+    public static Writer openWriter(File file, boolean compress)
+                                                        throws IOException {
+        // The stream used to write the file.
+        final FileOutputStream out = new FileOutputStream(file);
+        // The writer for the file.
+        final Writer result;
+
+        if (compress) {
+            result = new OutputStreamWriter(openOutputStream(out, true));
+        } else {
+            // Uncompressed files are written straight to the file's channel.
+            // The writer encodes characters into its own byte buffer, and
+            // writes the buffer to the channel whenever it is full (so no
+            // separate output stream buffer is needed).  Unmappable characters
+            // are replaced, as they are by OutputStreamWriter.
+            result = Channels.newWriter(out.getChannel(),
+                    Charset.defaultCharset().newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE),
+                    BUFFER_SIZE);
+        }
+        return result;
+    }
+
+    /**
+     * Opens a file for writing binary data (e.g. 2bit files).
+     **
+     * @param  file         the file to write.
+     * @param  compress     whether to compress the contents using gzip.
+     * @return a buffered stream for the file.
+     * @throws IOException  if the file cannot be opened.
+     */
+    public static OutputStream openOutputStream(File file, boolean compress)
+                                                        throws IOException {
+        return openOutputStream(new FileOutputStream(file), compress);
+    }
+
+    /**
+     * Determines whether a file format name selects gzip compression.
+     **
+     * @param  format   the file format name (e.g. "genbank.gz").
+     * @return whether the name ends with ".gz".
+     */
+    public static boolean isCompressed(String format) {
+        return format != null && format.toLowerCase().endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Removes the compression suffix (if any) from a file format name.
+     **
+     * @param  format   the file format name (e.g. "genbank.gz").
+     * @return the name without the ".gz" suffix (e.g. "genbank").
+     */
+    public static String baseFormat(String format) {
+        return (isCompressed(format)
+                ? format.substring(0, format.length() - GZIP_SUFFIX.length())
+                : format);
+    }
+
+    /**
+     * Wraps a file output stream, buffering it (and compressing it, if
+     * requested).  The file stream is closed if the compressor cannot be
+     * created.
+     **
+     * @param  out          the file stream to wrap.
+     * @param  compress     whether to compress the contents using gzip.
+     * @return a buffered stream for the file.
+     * @throws IOException  if the gzip header cannot be written.
+     */
+    private static OutputStream openOutputStream(FileOutputStream out,
+                                    boolean compress) throws IOException {
+        // The stream used to write the file.
+        OutputStream result = out;
+
+        if (compress) {
+            try {
+                result = new GZIPOutputStream(out, BUFFER_SIZE);
+            } catch (IOException ioe) {
+                out.close();
+                throw ioe;
+            }
+        }
+        return new BufferedOutputStream(result, BUFFER_SIZE);
+    }
+
+    /**
+     * Tests whether a buffered stream begins with the gzip magic number.  The
+     * stream is reset to its beginning afterwards.
+     **
+     * @param  in           the stream to test (must support mark/reset).
+     * @return whether the stream is gzip-compressed.
+     * @throws IOException  if the stream cannot be read.
+     */
+    private static boolean isGzip(InputStream in) throws IOException {
+        // Whether the magic number was found.
+        final boolean result;
+
+        in.mark(2);
+        result = (in.read() == GZIP_MAGIC1 && in.read() == GZIP_MAGIC2);
+        in.reset();
+        return result;
+    }
+}
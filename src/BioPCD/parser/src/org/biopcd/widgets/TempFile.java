@@ -7,9 +7,9 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import javax.swing.AbstractAction;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -25,6 +25,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JTextField;
+import org.biopcd.parser.CompressedIO;
 import org.biopcd.parser.PCDIO;
 
 /**
@@ -60,7 +61,9 @@ public class TempFile extends SimpleWidget {
      */
     private boolean overwrite = false;
     /**
-     * Stores the file format of the file (used for translation).
+     * Stores the file format of the file (used for translation).  A format
+     * ending in ".gz" (e.g. "genbank.gz") causes the file to be written with
+     * gzip compression (see CompressedIO).
      */
     private String format = null;
     /**
@@ -152,6 +155,11 @@ public class TempFile extends SimpleWidget {
      * does not exist, then this function creates a file to use for IO.  This
      * function also writes the initial contents to the file, if the input flag
      * is set.</p>
+     *
+     * <p>If the format ends in ".gz", the file is written with gzip
+     * compression.  Output files are decompressed when they are read back
+     * into the canvas, if (and only if) they begin with the gzip magic
+     * number, regardless of the format.</p>
      **
      * @return a widget instance (which contains the filename to use for
      *         command line substitution) for usage in the current menu.
@@ -181,11 +189,14 @@ public class TempFile extends SimpleWidget {
             // If the input flag is set and the format is not null, then write
             // the contents from the canvas to the temporary file.
             if (input && format != null) {
-                // Create the file writer object to write the file with.
-                FileWriter writer = new FileWriter(currentFile);
+                // Create the file writer object to write the file with
+                // (compressing the file if the format ends in ".gz").
+                Writer writer = CompressedIO.openWriter(currentFile,
+                        CompressedIO.isCompressed(format));
 
                 // Write the contents of the canvas to the file.
-                canvas.writeFile(format, writer, forceall);
+                canvas.writeFile(CompressedIO.baseFormat(format), writer,
+                        forceall);
 
                 // Flush and close the file writer buffer to ensure that
                 // the file is written to.  (If you do not flush the buffer,
@@ -246,9 +257,17 @@ public class TempFile extends SimpleWidget {
                         // Make sure that the format is NOT null.
                         if (format != null) {
                             try {
-                                // Read the file into the canvas.
-                                canvas.readFile(format,
-                                        new FileReader(closeFile), overwrite, forceall);
+                                // Read the file into the canvas
+                                // (decompressing it, if necessary).
+                                Reader reader
+                                        = CompressedIO.openReader(closeFile);
+                                try {
+                                    canvas.readFile(
+                                            CompressedIO.baseFormat(format),
+                                            reader, overwrite, forceall);
+                                } finally {
+                                    reader.close();
+                                }
                             } catch (IOException ioe) {
                                 ioe.printStackTrace(System.err);
                             }
@@ -0,0 +1,163 @@
+/*
+ * ColourMaskBenchmark.java
+ *
+ * Created on October 19, 2026, 6:15 AM
+ */
+package org.biolegato.sequence.canvas;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.biolegato.sequence.data.BenchData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmarks drawing sequences with each type of colour mask (character,
+ * position and quality score masks).</p>
+ *
+ * <p>Each benchmark call draws ROWS rows of random residues (with random
+ * quality scores, see BenchData) into an offscreen BufferedImage, using the
+ * canvas's default font; this is roughly the work done to paint one screen of
+ * the sequence text area.  The benchmark runs in a headless JVM.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ColourMaskBenchmark {
+
+    /**
+     * The number of rows drawn by each benchmark call.
+     */
+    private static final int ROWS = 40;
+    /**
+     * The type of colour mask to draw with.
+     */
+    @Param({"character", "position", "quality"})
+    public String mask;
+    /**
+     * The number of residues drawn in each row.
+     */
+    @Param({"80", "1000"})
+    public int columns;
+    /**
+     * The colour mask to draw with.
+     */
+    private ColourMask colourMask;
+    /**
+     * The offscreen image to draw into.
+     */
+    private BufferedImage image;
+    /**
+     * The graphics object used to draw into the image.
+     */
+    private Graphics2D gfx;
+    /**
+     * The residues of each row.
+     */
+    private char[][] rows;
+    /**
+     * The quality scores of each row.
+     */
+    private byte[][] scores;
+    /**
+     * The height of each row (in pixels).
+     */
+    private int height;
+
+    /**
+     * Generates the rows, creates the colour mask and the image.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        // The font to draw with.
+        final Font font = SequenceCanvas.DEFAULT_FONT;
+        // The width of each character (in pixels).
+        final int width;
+
+        rows = BenchData.rows(ROWS, columns, BenchData.SEED);
+        scores = BenchData.scores(ROWS, columns, BenchData.SEED);
+
+        if ("quality".equals(mask)) {
+            colourMask = ColourMask.QUALITY_MASK;
+        } else if ("position".equals(mask)) {
+            colourMask = new ColourMask(ColourMask.MaskType.POSITION,
+                    "benchmark", colours(columns));
+        } else {
+            colourMask = new ColourMask(ColourMask.MaskType.CHARACTER,
+                    "benchmark", colours(ColourMask.HASH_SIZE));
+        }
+
+        // Measure the font, to size the image.
+        image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        gfx = image.createGraphics();
+        gfx.setFont(font);
+        height = gfx.getFontMetrics().getHeight();
+        width = gfx.getFontMetrics().charWidth('G');
+        gfx.dispose();
+
+        image = new BufferedImage(columns * width, ROWS * height,
+                BufferedImage.TYPE_INT_RGB);
+        gfx = image.createGraphics();
+        gfx.setFont(font);
+    }
+
+    /**
+     * Generates the colours of a character or position mask, by cycling
+     * through the standard mask colours.
+     **
+     * @param  count the number of colours.
+     * @return the colours of the mask.
+     */
+    private static Color[] colours(int count) {
+        // The colours of the mask.
+        final Color[] result = new Color[count];
+
+        for (int x = 0; x < result.length; x++) {
+            result[x] = ColourMask.STDCOLOURS[
+                    x % ColourMask.STDCOLOURS.length];
+        }
+        return result;
+    }
+
+    /**
+     * Releases the graphics object.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gfx.dispose();
+    }
+
+    /**
+     * Draws every row into the image.
+     **
+     * @return the image drawn into.
+     */
+    @Benchmark
+    public BufferedImage drawString() {
+        for (int y = 0; y < ROWS; y++) {
+            colourMask.drawString(gfx, rows[y], scores[y], 0, columns, 0,
+                    (y + 1) * height);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * BenchData.java
+ *
+ * Created on October 19, 2026, 6:00 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+/**
+ * Generates the synthetic sequence data used by all of the benchmarks (the
+ * sequences, data models, and rows of residues and quality scores).  The data
+ * is generated from fixed seeds, so every run (and every release) benchmarks
+ * exactly the same sequences.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public final class BenchData {
+
+    /**
+     * The seed used to generate the benchmark data.
+     */
+    public static final long SEED = 1;
+    /**
+     * The seed used to generate the positions of the benchmark edits.
+     */
+    public static final long EDIT_SEED = 2;
+    /**
+     * The residues used to generate the sequences.
+     */
+    private static final char[] RESIDUES = "ACGT".toCharArray();
+    /**
+     * The residues used to generate the rows drawn (including ambiguous
+     * residues and gaps).
+     */
+    private static final char[] ROW_RESIDUES = "ACGTN-".toCharArray();
+    /**
+     * The number of distinct quality scores generated.
+     */
+    private static final int SCORES = 42;
+    /**
+     * The number of residues per line in the generated FastA text.
+     */
+    private static final int LINE_LENGTH = 60;
+
+    /**
+     * Prevents the class from being instantiated.
+     */
+    private BenchData() {
+    }
+
+    /**
+     * Generates random DNA sequences, in FastA format.
+     **
+     * @param  sequences the number of sequences to generate.
+     * @param  length    the number of residues in each sequence.
+     * @param  seed      the seed for the random number generator.
+     * @return the FastA text of the sequences.
+     */
+    public static String fasta(int sequences, int length, long seed) {
+        // The random number generator used to pick the residues.
+        final Random random = new Random(seed);
+        // The FastA text.
+        final StringBuilder text = new StringBuilder(
+                sequences * (length + length / LINE_LENGTH + 32));
+
+        for (int y = 0; y < sequences; y++) {
+            text.append(">seq").append(y).append(" benchmark sequence ")
+                    .append(y).append('\n');
+            for (int x = 0; x < length; x++) {
+                text.append(RESIDUES[random.nextInt(RESIDUES.length)]);
+                if ((x + 1) % LINE_LENGTH == 0 || x == length - 1) {
+                    text.append('\n');
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Generates a data model of random DNA sequences.
+     **
+     * @param  sequences    the number of sequences to generate.
+     * @param  length       the number of residues in each sequence.
+     * @param  seed         the seed for the random number generator.
+     * @return the data model (not associated with any canvas).
+     * @throws IOException  if the generated text cannot be parsed.
+     */
+    public static Dataset generate(int sequences, int length, long seed)
+                                                        throws IOException {
+        // The data model to store the sequences in.
+        final Dataset result = new Dataset();
+
+        DataFormat.FASTA.convertFrom(result,
+                new StringReader(fasta(sequences, length, seed)), 0, 0);
+        return result;
+    }
+
+    /**
+     * Generates rows of random residues (with ambiguous residues and gaps),
+     * as drawn by the canvas.
+     **
+     * @param  rows     the number of rows to generate.
+     * @param  columns  the number of residues in each row.
+     * @param  seed     the seed for the random number generator.
+     * @return the residues of each row.
+     */
+    public static char[][] rows(int rows, int columns, long seed) {
+        // The random number generator used to pick the residues.
+        final Random random = new Random(seed);
+        // The residues of each row.
+        final char[][] result = new char[rows][columns];
+
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                result[y][x] = ROW_RESIDUES[random.nextInt(
+                        ROW_RESIDUES.length)];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generates rows of random quality scores (between 0 and 41, as in
+     * Illumina 1.8+ FASTQ files).
+     **
+     * @param  rows     the number of rows to generate.
+     * @param  columns  the number of scores in each row.
+     * @param  seed     the seed for the random number generator.
+     * @return the quality scores of each row.
+     */
+    public static byte[][] scores(int rows, int columns, long seed) {
+        // The random number generator used to pick the scores.
+        final Random random = new Random(seed);
+        // The quality scores of each row.
+        final byte[][] result = new byte[rows][columns];
+
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                result[y][x] = (byte) random.nextInt(SCORES);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * DatasetBenchmark.java
+ *
+ * Created on October 19, 2026, 6:10 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmarks editing the data model: inserting residues, deleting
+ * residues (in single rows, and in blocks of ROWS rows at once), and removing
+ * sequences.</p>
+ *
+ * <p>Each edit changes the data model, so the edits cannot be repeated
+ * indefinitely on the same data.  Instead, each iteration starts from a newly
+ * generated data model (see BenchData), and measures the time taken to make
+ * EDITS edits at random positions (the positions are generated from a fixed
+ * seed, so each iteration makes the same edits).  The data model keeps its
+ * default undo history, as it does in the canvas.</p>
+ *
+ * <p>The protected edits check the residues inserted or deleted against the
+ * sequences' protections before making the edit.  Alignment and ambiguous
+ * residues are protected, and unambiguous residues are not; thus, every
+ * residue is tested, and every edit is still made.  Because the residues
+ * deleted are tested within the sequence's buffer, the edits are measured
+ * both against freshly read (packed) sequences, and against sequences which
+ * have already been edited PIECES times (so the buffer's piece table must be
+ * searched).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = DatasetBenchmark.EDITS)
+@Measurement(iterations = 10, batchSize = DatasetBenchmark.EDITS)
+@Fork(1)
+public class DatasetBenchmark {
+
+    /**
+     * The number of edits made in each iteration.
+     */
+    static final int EDITS = 1000;
+    /**
+     * The text inserted by each insertion (and the number of residues removed
+     * by each deletion).
+     */
+    private static final char[] TEXT = "ACGT".toCharArray();
+    /**
+     * The number of rows edited by each multiple row edit.
+     */
+    private static final int ROWS = 16;
+    /**
+     * The number of single residue insertions made into each sequence before
+     * the piece table benchmarks (each insertion splits a piece in two).
+     */
+    private static final int PIECES = 100;
+    /**
+     * The number of sequences in the data model (at least EDITS, so there are
+     * enough sequences to remove).
+     */
+    @Param({"1000", "10000"})
+    public int sequences;
+    /**
+     * The number of residues in each sequence.
+     */
+    @Param({"1000"})
+    public int length;
+    /**
+     * The state of the sequence buffers before the edits: "packed" (as read
+     * from a file), or "pieces" (already edited PIECES times).
+     */
+    @Param({"packed", "pieces"})
+    public String buffers;
+    /**
+     * The data model to edit.
+     */
+    private Dataset data;
+    /**
+     * The random number generator used to pick the positions of the edits.
+     */
+    private Random random;
+    /**
+     * The rows edited by the current multiple row edit.
+     */
+    private final int[] rows = new int[ROWS];
+
+    /**
+     * Generates a new data model for the iteration.
+     **
+     * @throws IOException if the data model cannot be generated.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        // The sequence currently being prepared.
+        Seq seq;
+
+        data = BenchData.generate(sequences, length, BenchData.SEED);
+        random = new Random(BenchData.EDIT_SEED);
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            seq.protect_align = true;
+            seq.protect_ambig = true;
+            seq.protect_unambig = false;
+
+            // Split the buffer into pieces, without recording the edits in
+            // the undo history (the edits are made at the same positions in
+            // every row, so every row has the same length).
+            if ("pieces".equals(buffers)) {
+                for (int edit = 0; edit < PIECES; edit++) {
+                    seq.sequence.insert((edit * 7919) % length, TEXT, 0, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts residues at a random position.
+     **
+     * @return whether the residues were inserted.
+     */
+    @Benchmark
+    public boolean insert() {
+        return data.insert(random.nextInt(length), random.nextInt(sequences),
+                TEXT, 0, TEXT.length, false);
+    }
+
+    /**
+     * Deletes residues from a random position (in the first half of a
+     * sequence, so the position is always within the sequence).
+     **
+     * @return whether the residues were deleted.
+     */
+    @Benchmark
+    public boolean delete() {
+        return data.delete(random.nextInt(length / 2),
+                random.nextInt(sequences), TEXT.length, false);
+    }
+
+    /**
+     * Inserts residues at a random position, testing the sequence's
+     * protections first.
+     **
+     * @return whether the residues were inserted.
+     */
+    @Benchmark
+    public boolean insertProtected() {
+        return data.insert(random.nextInt(length), random.nextInt(sequences),
+                TEXT, 0, TEXT.length, true);
+    }
+
+    /**
+     * Deletes residues from a random position, testing the sequence's
+     * protections first.
+     **
+     * @return whether the residues were deleted.
+     */
+    @Benchmark
+    public boolean deleteProtected() {
+        return data.delete(random.nextInt(length / 2),
+                random.nextInt(sequences), TEXT.length, true);
+    }
+
+    /**
+     * Inserts residues at a random position into a random block of rows,
+     * testing the sequences' protections first.
+     **
+     * @return whether the residues were inserted.
+     */
+    @Benchmark
+    public boolean insertRows() {
+        return data.insert(random.nextInt(length), pickRows(), TEXT, 0,
+                TEXT.length, true);
+    }
+
+    /**
+     * Deletes residues from a random position in a random block of rows,
+     * testing the sequences' protections first.
+     **
+     * @return whether the residues were deleted.
+     */
+    @Benchmark
+    public boolean deleteRows() {
+        return data.delete(random.nextInt(length / 2), pickRows(),
+                TEXT.length, true);
+    }
+
+    /**
+     * Removes a random sequence (if any sequences remain).
+     **
+     * @return the number of sequences remaining.
+     */
+    @Benchmark
+    public int removeSequences() {
+        if (data.getSize() > 0) {
+            data.removeSequences(new int[] {random.nextInt(data.getSize())});
+        }
+        return data.getSize();
+    }
+
+    /**
+     * Picks a random block of ROWS consecutive rows to edit.
+     **
+     * @return the rows to edit.
+     */
+    private int[] pickRows() {
+        // The first row of the block.
+        final int first = random.nextInt(sequences - ROWS + 1);
+
+        for (int index = 0; index < ROWS; index++) {
+            rows[index] = first + index;
+        }
+        return rows;
+    }
+}
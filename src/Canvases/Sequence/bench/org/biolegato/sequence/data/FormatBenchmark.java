@@ -0,0 +1,117 @@
+/*
+ * FormatBenchmark.java
+ *
+ * Created on October 19, 2026, 6:05 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmarks parsing and writing each of the text file formats (GenBank,
+ * GDE, GDE flat and FastA), for several numbers of sequences.</p>
+ *
+ * <p>The text parsed is generated, once per trial, by writing a set of random
+ * sequences (see BenchData) in the format being benchmarked.  Parsing reads
+ * the text into a new data model (as a file is read into the canvas); writing
+ * converts every sequence of the data model into a StringBuilder (as the
+ * canvas does when saving a file).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+
+    /**
+     * The PCD name of the file format to benchmark.
+     */
+    @Param({"genbank", "gde", "flat", "fasta"})
+    public String format;
+    /**
+     * The number of sequences to parse or write.
+     */
+    @Param({"10", "1000", "10000"})
+    public int sequences;
+    /**
+     * The number of residues in each sequence.
+     */
+    @Param({"1000"})
+    public int length;
+    /**
+     * The file format to benchmark.
+     */
+    private DataFormat dataformat;
+    /**
+     * The sequences to write.
+     */
+    private Dataset data;
+    /**
+     * The text to parse (the sequences, in the file format benchmarked).
+     */
+    private String text;
+
+    /**
+     * Generates the sequences, and converts them to the file format.
+     **
+     * @throws IOException if the sequences cannot be generated.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataformat = DataFormat.getFormat(format);
+        data = BenchData.generate(sequences, length, BenchData.SEED);
+        text = write().toString();
+    }
+
+    /**
+     * Parses the text into a new data model.
+     **
+     * @return the data model.
+     * @throws IOException if the text cannot be parsed.
+     */
+    @Benchmark
+    public Dataset parse() throws IOException {
+        // The data model to parse the text into.
+        final Dataset result = new Dataset();
+
+        dataformat.convertFrom(result, new StringReader(text), 0, 0);
+        return result;
+    }
+
+    /**
+     * Writes every sequence, in the file format, to a StringBuilder.
+     **
+     * @return the text written.
+     * @throws IOException if a sequence cannot be written.
+     */
+    @Benchmark
+    public StringBuilder write() throws IOException {
+        // The text written.
+        final StringBuilder result = new StringBuilder(
+                text != null ? text.length() : 0);
+
+        for (int y = 0; y < data.getSize(); y++) {
+            dataformat.convertTo(result, data, y);
+        }
+        return result;
+    }
+}
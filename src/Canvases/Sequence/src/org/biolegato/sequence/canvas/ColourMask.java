@@ -184,7 +184,7 @@ public final class ColourMask {
      * (i.e. is it a character or position based mask)
      */
     public static enum MaskType {
-        POSITION, CHARACTER;
+        POSITION, CHARACTER, QUALITY;
     }
     
     /**
@@ -196,6 +196,26 @@ public final class ColourMask {
      * NOTE: 36 hash size = 26 letters + 10 numerical digits (0 to 9).
      */
     public static final int HASH_SIZE = 36;
+    /**
+     * The range of Phred quality scores represented by each colour of a
+     * quality-based colour mask (e.g. scores 0 to 9 are drawn using the
+     * first colour).
+     */
+    public static final int QUALITY_BIN = 10;
+    /**
+     * <p>The quality-based colour mask.  This colour mask determines the
+     * colour of each residue from the residue's quality score (e.g. the
+     * Phred scores read from a FASTQ file), in bins of QUALITY_BIN: red for
+     * scores below 10, orange for 10 to 19, dark yellow for 20 to 29, green
+     * for 30 to 39, and blue for 40 and above.</p>
+     *
+     * <p>Residues without quality scores are drawn in the default foreground
+     * colour (FOREG).</p>
+     */
+    public static final ColourMask QUALITY_MASK = new ColourMask(
+            MaskType.QUALITY, "Quality scores", new Color[]{
+                STDCOLOURS[0], STDCOLOURS[1], STDCOLOURS[11], STDCOLOURS[4],
+                STDCOLOURS[2]});
 
     /**
      * Creates a new instance of a colour mask
@@ -225,6 +245,26 @@ public final class ColourMask {
      */
     public void drawString (Graphics gfx, char[] array, int offset,
                             int length, int xstart, int ystart) {
+        drawString(gfx, array, null, offset, length, xstart, ystart);
+    }
+
+    /**
+     * Draws a character string using the character colour coding specified by
+     * the ColourMask object.  Quality-based colour masks colour each character
+     * using its quality score (characters without quality scores are drawn in
+     * the default foreground colour).
+     **
+     * @param gfx    the Graphics object to draw the text string to.
+     * @param array  the array of characters to draw in colour.
+     * @param scores the quality scores of the characters in the array (null
+     *               if the characters have no quality scores).
+     * @param offset the offset, within the array, to begin drawing characters.
+     * @param length the number of characters, within the array, to draw.
+     * @param xstart the X-coordinate to begin drawing characters at.
+     * @param ystart the Y-coordinate to begin drawing characters at.
+     */
+    public void drawString (Graphics gfx, char[] array, byte[] scores,
+                    int offset, int length, int xstart, int ystart) {
         // The hash key to find the colour of the current character.
         int hash_key = 0;
         // Obtain the width of the character (assuming a fixed width font,
@@ -246,6 +286,14 @@ public final class ColourMask {
                 hash_key = Character.digit(array[index], HASH_SIZE);
             }
 
+            // Handle quality based colour masks (the highest colour is used
+            // for all scores above the range of the mask).
+            if (type == MaskType.QUALITY) {
+                hash_key = (scores != null && index < scores.length
+                        ? Math.min(scores[index] / QUALITY_BIN,
+                                   colours.length - 1) : -1);
+            }
+
             // Obtain the colour from the mask based on the hash_key.
             // If the hash_key is out of bounds (e.g. the string is longer than
             // the maximum position in a position-based colour mask), then just
@@ -262,6 +310,16 @@ public final class ColourMask {
         }
     }
 
+    /**
+     * Returns the type of the colour mask (i.e. is it a position, character
+     * or quality based mask).
+     **
+     * @return the type of the colour mask.
+     */
+    public MaskType getType() {
+        return type;
+    }
+
     /**
      * <p>Returns the name of the colour mask.</p>
      *
@@ -0,0 +1,265 @@
+/*
+ * FileImport.java
+ *
+ * Created on October 18, 2026, 9:20 PM
+ */
+package org.biolegato.sequence.canvas;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import org.biolegato.sequence.data.DataFormat;
+import org.biolegato.sequence.data.Dataset;
+import org.biolegato.sequence.data.Seq;
+
+/**
+ * <p>Imports a set of files into the sequence canvas in parallel.</p>
+ *
+ * <p>Each file is parsed on a worker thread (from a fixed-size pool, with one
+ * thread per processor) into its own StagingDataset object.  The staging
+ * Dataset does not store the sequences; instead, it passes them on in
+ * batches, every Dataset.LOAD_BATCH sequences or Dataset.LOAD_DELAY
+ * milliseconds (whichever comes first).  The batches are merged into the
+ * canvas's data model, on the Swing event thread, in the same order as the
+ * files were selected; all of the batches waiting to be merged are added with
+ * a single addSequences call.  Thus, the sequences appear in the canvas while
+ * the files are read, in the same order as they would if the files were read
+ * one after another, and the user interface is never blocked while the files
+ * are parsed.</p>
+ *
+ * <p>A progress monitor shows the number of sequences and files read so far.
+ * If the user cancels the import, the files are no longer parsed, and no
+ * further batches are merged into the data model (batches which have already
+ * been merged are kept).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.canvas.SequenceCanvas#readFile(org.biolegato.sequence.data.DataFormat, java.io.File, org.biolegato.sequence.data.Dataset)
+ */
+final class FileImport extends SwingWorker<Void, List<Seq>> {
+
+    /**
+     * The number of milliseconds between updates of the progress monitor.
+     */
+    private static final int UPDATE_DELAY = 200;
+    /**
+     * Marks the end of the batches of a file.
+     */
+    private static final List<Seq> END = new ArrayList<Seq>(0);
+    /**
+     * The canvas to read the files into.
+     */
+    private final SequenceCanvas canvas;
+    /**
+     * The data model to merge the sequences into.
+     */
+    private final Dataset datamodel;
+    /**
+     * The files to read (in the order their sequences are to be added).
+     */
+    private final List<File> files = new ArrayList<File>();
+    /**
+     * The file format of the files (null to auto-detect the format of each
+     * file).
+     */
+    private final DataFormat format;
+    /**
+     * The number of files which have been parsed.
+     */
+    private final AtomicInteger parsed = new AtomicInteger(0);
+    /**
+     * The number of sequences which have been parsed.
+     */
+    private final AtomicInteger sequences = new AtomicInteger(0);
+    /**
+     * The worker threads used to parse the files.
+     */
+    private final ExecutorService pool;
+    /**
+     * The progress monitor shown to the user.
+     */
+    private final ProgressMonitor monitor;
+    /**
+     * The timer used to update the progress monitor (and to check whether the
+     * user has cancelled the import).
+     */
+    private final Timer timer;
+
+    /**
+     * Creates a new file import.  Directories, empty files and files which do
+     * not exist are skipped.
+     **
+     * @param canvas    the canvas to read the files into.
+     * @param datamodel the data model to merge the sequences into.
+     * @param files     the files to read.
+     * @param format    the file format of the files (null to auto-detect the
+     *                  format of each file).
+     */
+    FileImport(SequenceCanvas canvas, Dataset datamodel, File[] files,
+            DataFormat format) {
+        this.canvas = canvas;
+        this.datamodel = datamodel;
+        this.format = format;
+
+        // Ensure that each file exists and is a file (i.e. skip directories
+        // and non-existent files).
+        for (File file : files) {
+            if (file != null && file.exists() && file.isFile()
+                    && file.length() > 0) {
+                this.files.add(file);
+            }
+        }
+
+        pool = Executors.newFixedThreadPool(Math.max(1, Math.min(
+                this.files.size(), Runtime.getRuntime().availableProcessors())));
+        monitor = new ProgressMonitor(canvas.getJFrame(), "Opening files...",
+                "0 sequences read (0 of " + this.files.size() + " files)", 0,
+                Math.max(1, this.files.size()));
+        timer = new Timer(UPDATE_DELAY, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                update();
+            }
+        });
+    }
+
+    /**
+     * Starts the import (this method should be called from the Swing event
+     * thread).
+     */
+    void start() {
+        timer.start();
+        execute();
+    }
+
+    /**
+     * Parses the files on the worker threads, and publishes the parsed
+     * batches in the order of the files.
+     **
+     * @return null.
+     * @throws Exception never (errors are printed for each file).
+     */
+    @Override
+    protected Void doInBackground() throws Exception {
+        // The batches parsed from each file.
+        final List<BlockingQueue<List<Seq>>> batches =
+                new ArrayList<BlockingQueue<List<Seq>>>();
+        // The current batch to publish.
+        List<Seq> batch;
+
+        // Submit all of the files to the worker threads.
+        for (final File file : files) {
+            final BlockingQueue<List<Seq>> queue =
+                    new LinkedBlockingQueue<List<Seq>>();
+
+            batches.add(queue);
+            pool.execute(new Runnable() {
+                public void run() {
+                    // The staging data model to read the file into (its
+                    // batches are placed on the file's queue).
+                    final StagingDataset staging = new StagingDataset(
+                            FileImport.this, sequences) {
+                        void deliver(List<Seq> batch) {
+                            queue.add(batch);
+                        }
+                    };
+
+                    try {
+                        canvas.readFile(format, file, staging);
+                        staging.flush();
+                    } catch (CancellationException ce) {
+                        // The import was cancelled.
+                    } catch (Throwable th) {
+                        // Print a stack trace if any error occurs (the
+                        // sequences read before the error are kept).
+                        th.printStackTrace(System.err);
+                        staging.flush();
+                    } finally {
+                        parsed.incrementAndGet();
+                        queue.add(END);
+                    }
+                }
+            });
+        }
+
+        // Publish the batches, in order, as they are parsed.
+        try {
+            for (int index = 0; index < batches.size() && !isCancelled();
+                    index++) {
+                while ((batch = batches.get(index).take()) != END
+                        && !isCancelled()) {
+                    publish(batch);
+                }
+            }
+        } catch (InterruptedException ie) {
+            // The import was cancelled.
+        }
+        return null;
+    }
+
+    /**
+     * Merges parsed batches into the data model (on the Swing event thread).
+     * All of the batches published since the last merge are added by a single
+     * addSequences call.
+     **
+     * @param chunks the batches to merge.
+     */
+    @Override
+    protected void process(List<List<Seq>> chunks) {
+        // The sequences to add to the data model.
+        final List<Seq> seqs = new ArrayList<Seq>();
+
+        if (!isCancelled()) {
+            for (List<Seq> batch : chunks) {
+                seqs.addAll(batch);
+            }
+            if (!seqs.isEmpty()) {
+                // Loading files is not recorded in the undo history.
+                datamodel.beginLoad();
+                try {
+                    datamodel.addSequences(datamodel.getSize(), seqs);
+                } finally {
+                    datamodel.endLoad();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the progress monitor, and stops the worker threads, once the
+     * import has finished (or has been cancelled).
+     */
+    @Override
+    protected void done() {
+        timer.stop();
+        pool.shutdownNow();
+        monitor.close();
+    }
+
+    /**
+     * Updates the progress monitor, and cancels the import if the user has
+     * pressed the progress monitor's cancel button.
+     */
+    private void update() {
+        // The number of files parsed.
+        final int count = parsed.get();
+
+        if (monitor.isCanceled()) {
+            cancel(true);
+        } else {
+            monitor.setNote(sequences.get() + " sequences read (" + count
+                    + " of " + files.size() + " files)");
+            monitor.setProgress(count);
+        }
+    }
+}
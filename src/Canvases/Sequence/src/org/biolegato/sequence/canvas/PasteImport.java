@@ -0,0 +1,210 @@
+/*
+ * PasteImport.java
+ *
+ * Created on October 19, 2026, 3:20 AM
+ */
+package org.biolegato.sequence.canvas;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import org.biolegato.sequence.data.DataFormat;
+import org.biolegato.sequence.data.Seq;
+
+/**
+ * <p>Pastes text (e.g. the contents of the clipboard, or text dropped onto the
+ * canvas) into the sequence canvas.  The text is read from a Reader, so data
+ * copied from a sequence canvas can be streamed (see SequenceSelection).</p>
+ *
+ * <p>The format of the text is auto-detected, and the text is parsed on a
+ * worker thread into a StagingDataset object, which passes the sequences on
+ * in batches (every Dataset.LOAD_BATCH sequences or Dataset.LOAD_DELAY
+ * milliseconds).  The batches are inserted into the canvas object, on the
+ * Swing event thread, through the Insertion object obtained from the canvas
+ * object when the paste was started; all of the batches waiting to be
+ * inserted are inserted together.  Thus, pasting a large alignment never
+ * blocks the user interface.</p>
+ *
+ * <p>A progress monitor shows the amount of text parsed so far.  If the user
+ * cancels the paste, the text is no longer parsed, and no further batches are
+ * inserted (batches which have already been inserted are kept).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.canvas.SequenceCanvasObject#beginInsert(boolean)
+ */
+final class PasteImport extends SwingWorker<Void, List<Seq>> {
+
+    /**
+     * The number of milliseconds between updates of the progress monitor.
+     */
+    private static final int UPDATE_DELAY = 200;
+    /**
+     * The text to paste.
+     */
+    private final Reader data;
+    /**
+     * The insertion object used to insert the sequences into the canvas.
+     */
+    private final SequenceCanvasObject.Insertion target;
+    /**
+     * The number of characters of the text which have been parsed.
+     */
+    private final AtomicInteger position = new AtomicInteger(0);
+    /**
+     * The number of sequences which have been parsed.
+     */
+    private final AtomicInteger sequences = new AtomicInteger(0);
+    /**
+     * The progress monitor shown to the user.
+     */
+    private final ProgressMonitor monitor;
+    /**
+     * The timer used to update the progress monitor (and to check whether the
+     * user has cancelled the paste).
+     */
+    private final Timer timer;
+
+    /**
+     * Creates a new paste.
+     **
+     * @param canvas the canvas to paste the text into.
+     * @param data   the text to paste.
+     * @param length the number of characters of text (-1 if unknown; the
+     *               progress monitor then only shows the number of sequences
+     *               read).
+     * @param target the insertion object used to insert the sequences.
+     */
+    PasteImport(SequenceCanvas canvas, Reader data, int length,
+            SequenceCanvasObject.Insertion target) {
+        this.data = data;
+        this.target = target;
+
+        monitor = new ProgressMonitor(canvas.getJFrame(), "Pasting...",
+                "0 sequences read", 0, Math.max(1, length));
+        timer = new Timer(UPDATE_DELAY, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                update();
+            }
+        });
+    }
+
+    /**
+     * Starts the paste (this method should be called from the Swing event
+     * thread).
+     */
+    void start() {
+        timer.start();
+        execute();
+    }
+
+    /**
+     * Auto-detects the format of the text, and parses it, publishing the
+     * sequences in batches.
+     **
+     * @return null.
+     * @throws Exception never (errors are printed).
+     */
+    @Override
+    protected Void doInBackground() throws Exception {
+        // The staging data model to parse the text into (its batches are
+        // published to the Swing event thread).
+        final StagingDataset staging = new StagingDataset(this, sequences) {
+            void deliver(List<Seq> batch) {
+                publish(batch);
+            }
+        };
+        // The reader used to auto-detect the format of the text (the prefix
+        // examined is pushed back into this reader, so it can be passed to the
+        // data format parser afterwards).  The characters read from the text
+        // are counted, for the progress monitor.
+        final PushbackReader sniff = new PushbackReader(
+                new FilterReader(data) {
+                    @Override
+                    public int read(char[] cbuf, int off, int len)
+                                                        throws IOException {
+                        // The number of characters read.
+                        final int count = super.read(cbuf, off, len);
+
+                        if (count > 0) {
+                            position.addAndGet(count);
+                        }
+                        return count;
+                    }
+                }, DataFormat.SNIFF_SIZE);
+        // The format of the text.
+        DataFormat format;
+
+        try {
+            // Obtain the data format of the text via autodetection.  As long
+            // as the format is understood, parse the text using the correct
+            // data format parser.
+            format = DataFormat.autodetect(sniff);
+            if (format != null) {
+                format.convertFrom(staging, sniff, 0, 0);
+                staging.flush();
+            }
+        } catch (CancellationException ce) {
+            // The paste was cancelled.
+        } catch (IOException ioe) {
+            ioe.printStackTrace(System.err);
+            staging.flush();
+        } finally {
+            data.close();
+        }
+        return null;
+    }
+
+    /**
+     * Inserts parsed batches into the canvas (on the Swing event thread).
+     **
+     * @param chunks the batches to insert.
+     */
+    @Override
+    protected void process(List<List<Seq>> chunks) {
+        // The sequences to insert.
+        final List<Seq> seqs = new ArrayList<Seq>();
+
+        if (!isCancelled()) {
+            for (List<Seq> batch : chunks) {
+                seqs.addAll(batch);
+            }
+            if (!seqs.isEmpty()) {
+                target.insert(seqs);
+            }
+        }
+    }
+
+    /**
+     * Closes the progress monitor once the paste has finished (or has been
+     * cancelled).
+     */
+    @Override
+    protected void done() {
+        timer.stop();
+        monitor.close();
+    }
+
+    /**
+     * Updates the progress monitor, and cancels the paste if the user has
+     * pressed the progress monitor's cancel button.
+     */
+    private void update() {
+        if (monitor.isCanceled()) {
+            cancel(true);
+        } else {
+            monitor.setNote(sequences.get() + " sequences read");
+            monitor.setProgress(position.get());
+        }
+    }
+}
@@ -14,36 +14,53 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Toolkit;
 import java.awt.datatransfer.DataFlavor;
-import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.dnd.DnDConstants;
+import java.awt.dnd.DropTarget;
+import java.awt.dnd.DropTargetAdapter;
+import java.awt.dnd.DropTargetDropEvent;
 import java.awt.event.ActionEvent;
 import java.io.Reader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.Writer;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackReader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import javax.swing.AbstractAction;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JSplitPane;
+import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import org.biolegato.main.BLMain;
 import org.biolegato.main.DataCanvas;
+import org.biopcd.parser.CompressedIO;
 import org.biopcd.parser.PCD;
+import org.biolegato.sequence.data.ColumnStatistics;
 import org.biolegato.sequence.data.Dataset;
 import org.biolegato.sequence.data.DataFormat;
+import org.biolegato.sequence.data.FastAFile;
+import org.biolegato.sequence.data.GenBankFile2008;
+import org.biolegato.sequence.data.IndexedFastAFile;
+import org.biolegato.sequence.data.MotifSearch;
+import org.biolegato.sequence.data.Seq;
+import org.biolegato.sequence.data.TwoBitFile;
 
 /**
  * <p>The BioLegato sequence-based canvas class (based on GDE).</p>
@@ -116,7 +133,7 @@ public final class SequenceCanvas extends DataCanvas
      *  org.biolegato.sequence.data.DataFormat.autodetect
      **
      * @see org.biolegato.sequence.data.DataFormat
-     * @see org.biolegato.sequence.data.DataFormat#autodetect(java.util.Scanner)
+     * @see org.biolegato.sequence.data.DataFormat#autodetect(java.io.PushbackReader)
      */
     public final AbstractAction openAction = new AbstractAction("Open...") {
         /**
@@ -142,12 +159,14 @@ public final class SequenceCanvas extends DataCanvas
          **
          * @param evt ignored by this method.
          * @see org.biolegato.sequence.data.DataFormat
-         * @see org.biolegato.sequence.data.DataFormat#autodetect(java.util.Scanner)
+         * @see org.biolegato.sequence.data.DataFormat#autodetect(java.io.PushbackReader)
          */
         public void actionPerformed(java.awt.event.ActionEvent evt) {
             // A variable for storing all of the files the user selects inside
             // the JFileChooser window.
             File[] openFiles;
+            // The regions to read from indexed FastA files.
+            String regions;
             // The JFileChooser windwow, from which the user selects the file
             // to open.
             JFileChooser openDlg = new JFileChooser();
@@ -179,33 +198,42 @@ public final class SequenceCanvas extends DataCanvas
 
                 // Prevent parsing a null value for openFiles.
                 if (openFiles != null) {
-                    // Iterate through all of the files selected in the
-                    // JFileChooser object.
-                    for (File opf : openFiles) {
-                        // Ensure that the file exists and is a file (i.e. skip
-                        // directories and non-existent files).
-                        if (opf.exists() && opf.isFile() && opf.length() > 0) {
-                            try {
-                                // Branch.  If a file filter was selected, then
-                                // use the file filter object to parse the file.
-                                // (All file filters in the JFileChooser are
-                                // DataFormat objects, which have code to parse
-                                // their files.)
-                                if (openDlg.getFileFilter() != null
-                                        && !openDlg.getFileFilter().equals(
-                                        openDlg.getAcceptAllFileFilter())) {
-                                    readFile((DataFormat)
-                                            openDlg.getFileFilter(),
-                                            new FileReader(opf), false,false);
-                                } else {
-                                    // Autodetect the file type.
-                                    readFile("", new FileReader(opf), false,false);
-                                }
-                            } catch (Throwable e) {
-                                // Print a stack trace if any error occurs.
-                                e.printStackTrace(System.err);
-                            }
+                    // Branch.  If a file filter was selected, then use the
+                    // file filter object to parse the files.  (All file
+                    // filters in the JFileChooser are DataFormat objects,
+                    // which have code to parse their files.)  Otherwise,
+                    // autodetect the file type of each file.
+                    //
+                    // The files are parsed in parallel, on worker threads,
+                    // so the canvas remains usable while they are read (see
+                    // FileImport).
+                    //
+                    // For indexed FastA and 2bit files, the user is asked which
+                    // regions to read (a blank list reads every sequence).
+                    if (openDlg.getFileFilter() instanceof IndexedFastAFile
+                            || openDlg.getFileFilter() instanceof TwoBitFile) {
+                        regions = javax.swing.JOptionPane.showInputDialog(
+                                getJFrame(), "Regions to read (e.g."
+                                + " chr1:1000-2000 chr2), or blank for all"
+                                + " sequences:");
+                        if (regions != null) {
+                            new FileImport(canvasSelf, datamodel, openFiles,
+                                    (openDlg.getFileFilter()
+                                        instanceof TwoBitFile
+                                    ? ((TwoBitFile) openDlg.getFileFilter()
+                                        ).forRegions(regions)
+                                    : ((IndexedFastAFile) openDlg
+                                        .getFileFilter()).forRegions(regions))
+                                    ).start();
                         }
+                    } else if (openDlg.getFileFilter() != null
+                            && !openDlg.getFileFilter().equals(
+                            openDlg.getAcceptAllFileFilter())) {
+                        new FileImport(canvasSelf, datamodel, openFiles,
+                                (DataFormat) openDlg.getFileFilter()).start();
+                    } else {
+                        new FileImport(canvasSelf, datamodel, openFiles,
+                                null).start();
                     }
                 }
 
@@ -287,18 +315,45 @@ public final class SequenceCanvas extends DataCanvas
                         != javax.swing.JOptionPane.CANCEL_OPTION)) {
                 // Write to the actual file.
                 try {
-                    // Create a file writer object to write to the file.
-                    FileWriter writer
-                            = new FileWriter(saveDialog.getSelectedFile());
-
-                    // Write the actual data to the file.
-                    writeFile(((DataFormat) saveDialog.getFileFilter()),
-                            writer, true);
-
-                    // Flush and close the file writer buffer, to ensure that
-                    // the file is written properly to disk.
-                    writer.flush();
-                    writer.close();
+                    // 2bit files are binary, so they are written to an output
+                    // stream, rather than through a writer.
+                    if (saveDialog.getFileFilter() instanceof TwoBitFile) {
+                        OutputStream out = CompressedIO.openOutputStream(
+                                saveDialog.getSelectedFile(),
+                                CompressedIO.isCompressed(
+                                    saveDialog.getSelectedFile().getName()));
+                        try {
+                            ((TwoBitFile) saveDialog.getFileFilter()
+                                    ).writeFile(datamodel, out);
+                        } finally {
+                            out.close();
+                        }
+                    } else {
+                        // Create a file writer object to write to the file (if
+                        // the file name ends in ".gz", the file is compressed
+                        // using gzip).
+                        Writer writer = CompressedIO.openWriter(
+                                saveDialog.getSelectedFile(),
+                                CompressedIO.isCompressed(
+                                    saveDialog.getSelectedFile().getName()));
+
+                        // Write the actual data to the file.
+                        writeFile(((DataFormat) saveDialog.getFileFilter()),
+                                writer, true);
+
+                        // Flush and close the file writer buffer, to ensure
+                        // that the file is written properly to disk.
+                        writer.flush();
+                        writer.close();
+                    }
+                } catch (IOException ioe) {
+                    // Tell the user the file was not saved (e.g. because the
+                    // original header of a GenBank record could not be read).
+                    ioe.printStackTrace(System.err);
+                    javax.swing.JOptionPane.showMessageDialog(null,
+                            "Could not save " + saveDialog.getSelectedFile()
+                            + ":\n" + ioe.getMessage(), "Save",
+                            javax.swing.JOptionPane.ERROR_MESSAGE);
                 } catch (Throwable e) {
                     // Print a stack trace if any error occurs.
                     e.printStackTrace(System.err);
@@ -542,6 +597,125 @@ public final class SequenceCanvas extends DataCanvas
         }
     };
     
+    /**
+     * Action for undoing the most recent edit made to the canvas's sequences.
+     **
+     * @see org.biolegato.sequence.data.Dataset#undo()
+     */
+    public final AbstractAction undoAction = new AbstractAction("Undo") {
+
+        /**
+         * Serialization number - required for no warnings
+         */
+        private static final long serialVersionUID = 7526472295622777034L;
+
+        /**
+         * Sets the mnemonic for the event.
+         */
+        {
+            putValue(MNEMONIC_KEY,
+                    Integer.valueOf(java.awt.event.KeyEvent.VK_U));
+        }
+
+        /**
+         * The "Undo" menu item action.  Undoes the most recent edit (a word
+         * typed, a deletion, a paste, a grouping, etc.) made to the sequences.
+         **
+         * @param evt ignored by this method.
+         */
+        public void actionPerformed(java.awt.event.ActionEvent evt) {
+            datamodel.undo();
+        }
+    };
+
+    /**
+     * Action for redoing the most recently undone edit.
+     **
+     * @see org.biolegato.sequence.data.Dataset#redo()
+     */
+    public final AbstractAction redoAction = new AbstractAction("Redo") {
+
+        /**
+         * Serialization number - required for no warnings
+         */
+        private static final long serialVersionUID = 7526472295622777035L;
+
+        /**
+         * Sets the mnemonic for the event.
+         */
+        {
+            putValue(MNEMONIC_KEY,
+                    Integer.valueOf(java.awt.event.KeyEvent.VK_R));
+        }
+
+        /**
+         * The "Redo" menu item action.  Redoes the most recently undone edit.
+         **
+         * @param evt ignored by this method.
+         */
+        public void actionPerformed(java.awt.event.ActionEvent evt) {
+            datamodel.redo();
+        }
+    };
+
+    /**
+     * Action for searching every sequence in the canvas for a motif.  The hits
+     * found are highlighted in the sequence text area(s), and the sequences
+     * containing them are selected in the sequence list.
+     **
+     * @see org.biolegato.sequence.data.MotifSearch
+     */
+    public final AbstractAction findMotifAction
+            = new AbstractAction("Find motif...") {
+
+        /**
+         * Serialization number - required for no warnings
+         */
+        private static final long serialVersionUID = 7526472295622777039L;
+
+        /**
+         * Sets the mnemonic for the event.
+         */
+        {
+            putValue(MNEMONIC_KEY,
+                    Integer.valueOf(java.awt.event.KeyEvent.VK_F));
+        }
+
+        /**
+         * The "Find motif..." menu item action.  Prompts for a motif (which may
+         * contain IUPAC degenerate symbols), then starts searching for it.
+         **
+         * @param evt ignored by this method.
+         */
+        public void actionPerformed(java.awt.event.ActionEvent evt) {
+            // The panel containing the motif search options.
+            final Box panel = new Box(BoxLayout.PAGE_AXIS);
+            // The text field used to enter the motif.
+            final JTextField patternField = new JTextField(
+                    motifSearch != null ? motifSearch.getPattern() : "");
+            // The check box used to choose whether to skip over gaps.
+            final JCheckBox gapBox = new JCheckBox("Ignore gaps", true);
+
+            panel.add(new JLabel("Motif (IUPAC symbols allowed):"));
+            panel.add(patternField);
+            panel.add(gapBox);
+
+            if (javax.swing.JOptionPane.showConfirmDialog(getJFrame(), panel,
+                    "Find motif", javax.swing.JOptionPane.OK_CANCEL_OPTION,
+                    javax.swing.JOptionPane.PLAIN_MESSAGE)
+                    == javax.swing.JOptionPane.OK_OPTION) {
+                try {
+                    findMotif(new MotifSearch(patternField.getText().trim(),
+                            gapBox.isSelected()));
+                } catch (IllegalArgumentException iae) {
+                    javax.swing.JOptionPane.showMessageDialog(getJFrame(),
+                            iae.getMessage(), "Find motif",
+                            javax.swing.JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
+    };
+
     /**
      * Action for splitting the text area portion of the canvas into two.  The
      * split is accomplished by creating a second text area, then displaying
@@ -571,6 +745,8 @@ public final class SequenceCanvas extends DataCanvas
 
             // Create the new sequence text area.
             altDataCollector = new SequenceTextArea(canvasSelf, datamodel);
+            new DropTarget(altDataCollector, DnDConstants.ACTION_COPY,
+                    dropHandler);
 
             // Remove the old sequence text area from the canvas pane and
             // replace it with a JSplitPane (containing both text areas; each
@@ -774,6 +950,37 @@ public final class SequenceCanvas extends DataCanvas
      * Reference pointer to self.
      */
     private final SequenceCanvas canvasSelf = this;
+    /**
+     * Handles files and text dropped onto the sequence list and the sequence
+     * text areas.  Dropped data is imported in the same way as pasted data
+     * (see importData); text is inserted into the canvas object it was dropped
+     * onto.
+     **
+     * @see org.biolegato.sequence.canvas.SequenceCanvas#importData(java.awt.datatransfer.Transferable, org.biolegato.sequence.canvas.SequenceCanvasObject)
+     */
+    private final DropTargetAdapter dropHandler = new DropTargetAdapter() {
+        /**
+         * Imports the data dropped onto a canvas object.
+         **
+         * @param event the drop event.
+         */
+        public void drop(DropTargetDropEvent event) {
+            // Whether the data was imported.
+            boolean result = false;
+
+            event.acceptDrop(DnDConstants.ACTION_COPY);
+            try {
+                result = importData(event.getTransferable(),
+                        (SequenceCanvasObject) event.getDropTargetContext()
+                            .getComponent());
+            } catch (UnsupportedFlavorException e) {
+                e.printStackTrace(System.err);
+            } catch (IOException e) {
+                e.printStackTrace(System.err);
+            }
+            event.dropComplete(result);
+        }
+    };
     /**
      * The caret position portion of the canvas status bar: this label tracks
      * the row and column position of the text caret, within the sequence text
@@ -785,6 +992,29 @@ public final class SequenceCanvas extends DataCanvas
      * tracks the insertion status of the sequence text area.
      */
     private final JLabel insertStatus = new JLabel("     ");
+    /**
+     * The motif search portion of the canvas status bar: this label shows the
+     * progress and number of hits of the most recent motif search.
+     */
+    private final JLabel motifStatus = new JLabel("");
+    /**
+     * The most recent motif search (null if no search has been performed).
+     **
+     * @see org.biolegato.sequence.canvas.SequenceCanvas#findMotif(org.biolegato.sequence.data.MotifSearch)
+     */
+    private MotifSearch motifSearch = null;
+    /**
+     * The hits of the most recent motif search, grouped by sequence.  This map
+     * is only accessed from the event dispatch thread.
+     */
+    private final IdentityHashMap<Seq, List<MotifSearch.Hit>> motifHits
+            = new IdentityHashMap<Seq, List<MotifSearch.Hit>>();
+    /**
+     * The modification count of the Dataset when the most recent motif search
+     * was started.  If the Dataset is modified, the hits are discarded (their
+     * positions would no longer be accurate).
+     */
+    private int motifStamp = -1;
     /**
      * A menu item object for the "Select sequence by name" action.
      * See SequenceList.selectByNameAction for the actual function and its
@@ -836,6 +1066,15 @@ public final class SequenceCanvas extends DataCanvas
      * easily reading its value).
      */
     final boolean editable = !"true".equalsIgnoreCase(getProperty("readonly"));
+    /**
+     * Stores whether the statistics of the column under the text caret
+     * (consensus, conservation and gap fraction) are shown in the status bar
+     * (this is read from the "seq.colstats" property).
+     **
+     * @see org.biolegato.sequence.data.ColumnStatistics
+     */
+    private final boolean showColumnStats
+            = "true".equalsIgnoreCase(getProperty("seq.colstats"));
     /**
      * The default font for the canvas (12pt monospaced).
      */
@@ -863,6 +1102,8 @@ public final class SequenceCanvas extends DataCanvas
      * files will be treated as character colour masks.  For more informaton on
      * the character colour mask specification, please see:
      *          ColourMask.readCharMaskFile
+     * The quality-based colour mask (ColourMask.QUALITY_MASK) is always added
+     * to the end of the list.
      **
      * @see org.biolegato.sequence.canvas.ColourMask#readCharMaskFile(java.io.File) 
      */
@@ -882,6 +1123,10 @@ public final class SequenceCanvas extends DataCanvas
                     th.printStackTrace(System.err);
                 }
             }
+
+            // Add the quality-based colour mask (for sequences with quality
+            // scores, e.g. sequences read from FASTQ files).
+            add(ColourMask.QUALITY_MASK);
         }
 
         /**
@@ -962,7 +1207,10 @@ public final class SequenceCanvas extends DataCanvas
             //       variable length menus or simple re-ordering of choices.
             // NOTE: the parameter 1 is used to ensure that the Edit menu is
             //       inserted just left of the File menu.
-            addMenuHeading(1,"Edit").insert(new JMenuItem(cutAct), mcount++);
+            addMenuHeading(1,"Edit").insert(new JMenuItem(undoAction),
+                    mcount++);
+            addMenuHeading("Edit").insert(new JMenuItem(redoAction), mcount++);
+            addMenuHeading("Edit").insert(new JMenuItem(cutAct), mcount++);
             addMenuHeading("Edit").insert(new JMenuItem(copyAct), mcount++);
             addMenuHeading("Edit").insert(new JMenuItem(pasteAct), mcount++);
         }
@@ -977,6 +1225,29 @@ public final class SequenceCanvas extends DataCanvas
         addMenuHeading("Edit").insert(new JMenuItem(changeCaseAction),
                 mcount++);
         addMenuHeading("Edit").insert(selectByNameMenuItem, mcount++);
+        addMenuHeading("Edit").insert(new JMenuItem(findMotifAction), mcount++);
+
+        // Keep the sequence residues in a memory-mapped scratch file, rather
+        // than on the Java heap, if the "seq.scratchdir" property is set.
+        if (!"".equals(getProperty("seq.scratchdir"))) {
+            try {
+                datamodel.setScratchDirectory(
+                        new File(getProperty("seq.scratchdir")));
+            } catch (IOException ioe) {
+                ioe.printStackTrace(System.err);
+            }
+        }
+
+        // Limit the memory used by the undo history, if the "seq.undolimit"
+        // property is set (a value of zero disables undo).
+        try {
+            if (!"".equals(getProperty("seq.undolimit"))) {
+                datamodel.setUndoLimit(Long.parseLong(
+                        getProperty("seq.undolimit").trim()));
+            }
+        } catch (NumberFormatException nfe) {
+            nfe.printStackTrace(System.err);
+        }
 
         // Create a new text area object.
         dataCollector = new SequenceTextArea(canvasSelf, datamodel);
@@ -984,6 +1255,11 @@ public final class SequenceCanvas extends DataCanvas
         // Setup listeners for the sequence list.
         nameList.addListSelectionListener(canvasSelf);
 
+        // Accept files and text dropped onto the sequence list and the text
+        // area.
+        new DropTarget(nameList, DnDConstants.ACTION_COPY, dropHandler);
+        new DropTarget(dataCollector, DnDConstants.ACTION_COPY, dropHandler);
+
         // Add the split text area menu item to the main text area's popup menu.
         dataCollector.popup.add(splitMenuItem);
 
@@ -1019,6 +1295,7 @@ public final class SequenceCanvas extends DataCanvas
         statusBar.setAlignmentX(Box.LEFT_ALIGNMENT);
         statusBar.add(status);
         statusBar.add(insertStatus);
+        statusBar.add(motifStatus);
 
         // Add the main split pane (which splits the sequence list from the
         // sequence text area), a separator, and the status bar to the canvas.
@@ -1052,6 +1329,7 @@ public final class SequenceCanvas extends DataCanvas
      *             all program text referring to it.
      * @deprecated vestigial code from a previous BioLegato framework structure.
      */
+    @Deprecated
     public String getPluginName() {
         return "Sequence";
     }
@@ -1067,7 +1345,19 @@ public final class SequenceCanvas extends DataCanvas
      *               sequence text area.
      */
     public void cursorChange(int column, int row) {
-        status.setText("Row: " + (row + 1) + " Col: " + (column + 1));
+        // The column statistics for the canvas's sequences.
+        ColumnStatistics stats;
+
+        if (showColumnStats) {
+            stats = datamodel.getColumnStatistics();
+            status.setText("Row: " + (row + 1) + " Col: " + (column + 1)
+                    + "  Consensus: " + stats.getConsensus(column)
+                    + " (" + Math.round(stats.getConservation(column) * 100)
+                    + "%)  Gaps: " + Math.round(stats.getGapFraction(column)
+                    * 100) + "%");
+        } else {
+            status.setText("Row: " + (row + 1) + " Col: " + (column + 1));
+        }
     }
 
     /**
@@ -1216,6 +1506,128 @@ public final class SequenceCanvas extends DataCanvas
         }
     }
 
+    /**
+     * Starts searching every sequence in the canvas for a motif.  Any previous
+     * search is cancelled, and its hits are cleared.  The hits are added to
+     * the canvas as they are found (the search itself runs in the background).
+     **
+     * @param search the motif to search for.
+     */
+    public void findMotif(final MotifSearch search) {
+        // Cancel the previous search, and clear its hits.
+        if (motifSearch != null) {
+            motifSearch.cancel();
+        }
+        motifSearch = search;
+        motifHits.clear();
+        motifStamp = datamodel.getModificationCount();
+        nameList.clearSelection();
+        repaintTextAreas();
+        motifStatus.setText("  Searching for " + search.getPattern() + "...");
+
+        search.start(datamodel, new MotifSearch.Listener() {
+            /**
+             * Adds the hits found to the canvas (on the event dispatch
+             * thread).
+             **
+             * @param hits the hits found within a block of sequences.
+             */
+            public void found(final List<MotifSearch.Hit> hits) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        addMotifHits(search, hits);
+                    }
+                });
+            }
+
+            /**
+             * Displays the number of hits found in the status bar (on the
+             * event dispatch thread).
+             **
+             * @param total     the total number of hits found.
+             * @param cancelled whether the search was cancelled.
+             */
+            public void finished(final int total, final boolean cancelled) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        if (motifSearch == search) {
+                            motifStatus.setText("  " + search.getPattern()
+                                    + ": " + total + " match"
+                                    + (total == 1 ? "" : "es")
+                                    + (cancelled ? " (search cancelled)"
+                                                 : ""));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Adds motif search hits to the canvas.  The hits are highlighted in the
+     * sequence text area(s), and the sequences containing them are selected in
+     * the sequence list.  Hits from old searches, or from sequences which were
+     * since moved, are ignored.
+     **
+     * @param search the search the hits were found by.
+     * @param hits   the hits to add.
+     */
+    private void addMotifHits(MotifSearch search, List<MotifSearch.Hit> hits) {
+        // The list of hits for the sequence of the current hit.
+        List<MotifSearch.Hit> seqHits;
+
+        if (motifSearch == search
+                && datamodel.getModificationCount() == motifStamp) {
+            for (MotifSearch.Hit hit : hits) {
+                seqHits = motifHits.get(hit.sequence);
+                if (seqHits == null) {
+                    seqHits = new ArrayList<MotifSearch.Hit>();
+                    motifHits.put(hit.sequence, seqHits);
+                    if (hit.row < datamodel.getSize()
+                            && datamodel.getElementAt(hit.row)
+                                == hit.sequence) {
+                        nameList.addSelectionInterval(hit.row, hit.row);
+                    }
+                }
+                seqHits.add(hit);
+            }
+            repaintTextAreas();
+        }
+    }
+
+    /**
+     * Returns the motif search hits within a sequence.  If the sequences were
+     * modified since the search was started, the hits are discarded.
+     **
+     * @param row the row number of the sequence.
+     * @return the hits within the sequence (or null if there are none).
+     */
+    List<MotifSearch.Hit> getMotifHits(int row) {
+        // The hits within the sequence.
+        List<MotifSearch.Hit> result = null;
+
+        if (!motifHits.isEmpty()) {
+            if (datamodel.getModificationCount() != motifStamp) {
+                motifHits.clear();
+            } else if (row >= 0 && row < datamodel.getSize()) {
+                result = motifHits.get(datamodel.getElementAt(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Repaints the sequence text area(s).
+     */
+    private void repaintTextAreas() {
+        if (dataCollector != null) {
+            dataCollector.repaint();
+        }
+        if (altDataCollector != null) {
+            altDataCollector.repaint();
+        }
+    }
+
     /**
      * Coordinates text length changes between split text areas.  This method is
      * called by the Dataset sequence object container's insert and delete
@@ -1278,7 +1690,9 @@ public final class SequenceCanvas extends DataCanvas
      * Writes data out from the canvas to an Appendable object.  This method
      * just converts the file format from a string to a DataFormat object
      * (using DataFormat.getFormat), then calls: writeFile(DataFormat,
-     * Appendable, boolean).
+     * Appendable, boolean).  The only exception is the "colstats" format,
+     * which writes the canvas's column statistics table (see
+     * ColumnStatistics.writeTable).
      **
      * @param  formatString the file format to use for writing the file.
      * @param  out          the "file" (or stream) to write out to.
@@ -1290,7 +1704,19 @@ public final class SequenceCanvas extends DataCanvas
      */
     public void writeFile(String formatString, Appendable out, boolean forceall)
                                                             throws IOException {
-        writeFile(DataFormat.getFormat(formatString), out, forceall);
+        // Ignore any compression suffix (e.g. "genbank.gz"); compression is
+        // handled by whoever opened the Appendable (see CompressedIO).
+        formatString = CompressedIO.baseFormat(formatString);
+
+        // The "colstats" format writes the column statistics table for the
+        // whole canvas (rather than the sequences themselves); this allows PCD
+        // commands to obtain the consensus, conservation and gap fractions of
+        // the alignment without computing them from an exported file.
+        if ("colstats".equals(formatString)) {
+            datamodel.getColumnStatistics().writeTable(out);
+        } else {
+            writeFile(DataFormat.getFormat(formatString), out, forceall);
+        }
     }
     
     /**
@@ -1302,7 +1728,7 @@ public final class SequenceCanvas extends DataCanvas
      *                     instead of just the currently selected
      *                     sequences in the canvas.
      * @throws IOException if an error occurs while writing
-     * @see org.biolegato.sequence.data.DataFormat#autodetect(java.util.Scanner)
+     * @see org.biolegato.sequence.data.DataFormat#autodetect(java.io.PushbackReader)
      * @see org.biolegato.sequence.data.DataFormat#convertTo(java.lang.Appendable, org.biolegato.sequence.data.Dataset, int)
      * @see org.biolegato.sequence.canvas.SequenceCanvasObject#writeOut(org.biolegato.sequence.data.DataFormat, java.lang.Appendable) 
      */
@@ -1352,6 +1778,10 @@ public final class SequenceCanvas extends DataCanvas
      */
     public void readFile(String formatString, Reader in, boolean overwrite, boolean forceall)
                                                             throws IOException {
+        // Ignore any compression suffix (e.g. "genbank.gz"); the reader passed
+        // is already decompressed (see CompressedIO).
+        formatString = CompressedIO.baseFormat(formatString);
+
         // Handles autodetection.  Whenever a blank or null format string is
         // passed to this method, autodetection will be performed; however, the
         // null value behaviour should remain undocumented, because "" is the
@@ -1378,38 +1808,185 @@ public final class SequenceCanvas extends DataCanvas
      *                      being imported by this function/method.
      * @throws IOException  if an error occurs while reading
      * @see java.util.Scanner
-     * @see org.biolegato.sequence.data.DataFormat#autodetect(java.util.Scanner)
+     * @see org.biolegato.sequence.data.DataFormat#autodetect(java.io.PushbackReader)
      * @see org.biolegato.sequence.data.DataFormat#convertFrom(org.biolegato.sequence.data.Dataset, java.util.Scanner, int, int)
      * @see org.biolegato.sequence.canvas.SequenceCanvasObject#readIn(org.biolegato.sequence.data.DataFormat, java.util.Scanner, boolean)
      */
     private void readFile(DataFormat format, Reader in, boolean overwrite, boolean forceall)
                                                             throws IOException {
-        Scanner scanner = null;
-
-        // Create a scanner object to pass to the data format parser, thereby
-        // simplifying the whole parsing process.  This scanner will read the
-        // file in a similar manner to the BufferedReader class, except that the
-        // scanner can use different delimiters and pattern matching.  Be sure
-        // to always set your delimiter within parsing methods.
-        scanner = new Scanner(in);
+        // The reader used for format autodetection (the prefix of the data
+        // examined by autodetect is pushed back into this reader, so it can
+        // be passed to the data format parser afterwards).
+        PushbackReader sniff;
 
         // Perform format autodetection, if the format parameter is null.
         if (format == null) {
-            format = DataFormat.autodetect(scanner);
+            sniff = new PushbackReader(in, DataFormat.SNIFF_SIZE);
+            format = DataFormat.autodetect(sniff);
+            in = sniff;
         }
 
-        // Handle the overwrite parameter.  If the overwrite flag parameter is
-        // set to true, the current selection should be overwritten (via.
-        // calling the current canvas pane's read method).  If the overwrite
-        // flag is set to false, then the sequences should, instead, be added to
-        // the end of the data storage model.
+        // Handle the overwrite parameter.  If the overwrite flag parameter
+        // is set to true, the current selection should be overwritten
+        // (via. calling the current canvas pane's read method, through a
+        // scanner object).  If the overwrite flag is set to false, then the
+        // sequences should, instead, be added to the end of the data storage
+        // model (the reader is passed directly to the data format parser, so
+        // streaming parsers, such as the FastA parser, do not have to read the
+        // file through a scanner).
         if (overwrite) {
-            currentPane.readIn(format, scanner, overwrite);
+            currentPane.readIn(format, new Scanner(in), overwrite);
+        } else {
+            // Loading a file is not recorded in the undo history.
+            datamodel.beginLoad();
+            try {
+                format.convertFrom(datamodel, in, 0, datamodel.getSize());
+            } finally {
+                datamodel.endLoad();
+            }
+        }
+    }
+
+    /**
+     * <p>Reads a file, adding the sequences to the end of a data model.</p>
+     *
+     * <p>If the file is a FastA file, and is at least as large as the
+     * "seq.lazysize" property (in bytes), the file is indexed rather than
+     * parsed (see FastAFile.readIndexed).  Indexing only reads the names and
+     * lengths of the sequences, so the sequences appear in the canvas almost
+     * immediately; the residues of each sequence are only read from the file
+     * when they are first displayed or used.  If the file is a GenBank file,
+     * and the "seq.gbheaderfile" property is true, only the location of each
+     * record's original header within the file is kept in memory (see
+     * GenBankFile2008.readFile).  Otherwise, the file is parsed normally, by
+     * the format's convertFrom method.</p>
+     *
+     * <p>Gzip-compressed files (detected by their magic number) are
+     * decompressed as they are parsed.  Compressed files are never indexed, and
+     * their GenBank headers are always kept in memory, because neither can be
+     * read back from the file by offset.</p>
+     *
+     * <p>This method does not access the canvas's own data model (unless it
+     * is passed as the target); thus, it may be called from a worker thread to
+     * read a file into a private data model (see FileImport).</p>
+     **
+     * @param  format       the file format to use for parsing the file.  If
+     *                      the null value is passed, then the data format
+     *                      should be auto detected.
+     * @param  file         the file to read in from.
+     * @param  target       the data model to add the sequences to.
+     * @throws IOException  if an error occurs while reading
+     * @see org.biolegato.sequence.data.FastAFile#readIndexed(org.biolegato.sequence.data.Dataset, java.io.File, int)
+     * @see org.biolegato.sequence.data.GenBankFile2008#readFile(org.biolegato.sequence.data.Dataset, java.io.File, int)
+     * @see org.biolegato.sequence.data.IndexedFastAFile#readFile(org.biolegato.sequence.data.Dataset, java.io.File, int)
+     * @see org.biolegato.sequence.data.TwoBitFile#readFile(org.biolegato.sequence.data.Dataset, java.io.File, int)
+     */
+    void readFile(DataFormat format, File file, Dataset target)
+                                                            throws IOException {
+        // Whether the file is gzip-compressed.
+        final boolean compressed = CompressedIO.isGzip(file);
+        // The minimum size (in bytes) of files to index rather than parse.
+        long lazysize = -1;
+        // Whether to keep only the location of GenBank original headers.
+        final boolean headerfile = !compressed
+                && "true".equalsIgnoreCase(getProperty("seq.gbheaderfile"));
+        // The reader used to auto-detect the file format.
+        PushbackReader detect;
+        // The reader used to parse the file.
+        Reader in;
+
+        // Parse the "seq.lazysize" property (a blank or invalid value
+        // disables indexing, as does compression).
+        try {
+            if (!compressed && !"".equals(getProperty("seq.lazysize"))) {
+                lazysize = Long.parseLong(getProperty("seq.lazysize").trim());
+            }
+        } catch (NumberFormatException nfe) {
+            nfe.printStackTrace(System.err);
+        }
+
+        // 2bit files are binary, so they are detected by their signature
+        // (at the byte level), rather than by text auto-detection.
+        if (format == null && !compressed && TwoBitFile.isTwoBit(file)) {
+            format = DataFormat.TWOBIT;
+        }
+
+        // Only auto-detect the file format here if the file is large enough to
+        // be indexed, or may be a GenBank file whose headers are left in the
+        // file (otherwise, auto-detection is done while parsing).
+        if (format == null && (headerfile
+                || (lazysize >= 0 && file.length() >= lazysize))) {
+            detect = new PushbackReader(CompressedIO.openReader(file),
+                    DataFormat.SNIFF_SIZE);
+            try {
+                format = DataFormat.autodetect(detect);
+            } finally {
+                detect.close();
+            }
+        }
+
+        if (format instanceof TwoBitFile && !compressed) {
+            ((TwoBitFile) format).readFile(target, file, target.getSize());
+        } else if (format instanceof IndexedFastAFile && !compressed) {
+            ((IndexedFastAFile) format).readFile(target, file,
+                    target.getSize());
+        } else if (format instanceof FastAFile
+                && !(format instanceof IndexedFastAFile) && lazysize >= 0
+                && file.length() >= lazysize) {
+            ((FastAFile) format).readIndexed(target, file, target.getSize());
+        } else if (format instanceof GenBankFile2008 && headerfile) {
+            ((GenBankFile2008) format).readFile(target, file,
+                    target.getSize());
+        } else {
+            in = CompressedIO.openReader(file);
+            try {
+                // Perform format autodetection, if the format is not yet
+                // known (the prefix examined is pushed back into the reader,
+                // so the same reader can be passed to the data format parser).
+                if (format == null) {
+                    detect = new PushbackReader(in, DataFormat.SNIFF_SIZE);
+                    format = DataFormat.autodetect(detect);
+                    in = detect;
+                }
+                format.convertFrom(target, in, 0, target.getSize());
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a list of files (e.g. the files specified on the command line)
+     * into the canvas.  If the "seq.asyncload" property is true, the files are
+     * read in the background (see FileImport), and their sequences are added
+     * to the canvas in batches as they are read; this method must then be
+     * called from the Swing event thread.  Otherwise, the files are read one
+     * after another, before this method returns.
+     **
+     * @param files the files to read.
+     * @see org.biolegato.sequence.canvas.FileImport
+     */
+    @Override
+    public void readFiles(List<File> files) {
+        if (isBackgroundLoad()) {
+            new FileImport(this, datamodel, files.toArray(new File[0]), null
+                    ).start();
         } else {
-            format.convertFrom(datamodel, scanner, 0, datamodel.getSize());
+            super.readFiles(files);
         }
     }
 
+    /**
+     * Determines whether the canvas reads files in the background (i.e.
+     * whether the "seq.asyncload" property is true).
+     **
+     * @return whether readFiles reads the files in the background.
+     */
+    @Override
+    public boolean isBackgroundLoad() {
+        return "true".equalsIgnoreCase(getProperty("seq.asyncload"));
+    }
+
     /**
      * Displays the canvas.  This is done by returning the SequenceCanvas class
      * variable 'mainDisplay'.
@@ -1421,6 +1998,19 @@ public final class SequenceCanvas extends DataCanvas
         return mainDisplay;
     }
 
+    /**
+     * Releases the resources held by the canvas when it is destroyed (i.e.
+     * when its window is closed).  This closes and deletes the data model's
+     * scratch file, if the "seq.scratchdir" property is set.
+     **
+     * @see org.biolegato.sequence.data.Dataset#close()
+     */
+    @Override
+    public void destroy() {
+        datamodel.close();
+        super.destroy();
+    }
+
 ///////////////////////////
 //***********************//
 //* CLIPBOARD FUNCTIONS *//
@@ -1429,93 +2019,120 @@ public final class SequenceCanvas extends DataCanvas
     /**
      * Pastes the current contents of the clipboard (null if empty) into the
      * canvas at the current cursor position (within either the text area or
-     * the sequence list).
+     * the sequence list).  The clipboard data is parsed in the background (see
+     * importData).
      **
-     * @see org.biolegato.sequence.data.DataFormat#autodetect(java.util.Scanner)
-     * @see org.biolegato.sequence.data.DataFormat#convertFrom(org.biolegato.sequence.data.Dataset, java.util.Scanner, int, int)
-     * @see org.biolegato.sequence.canvas.SequenceCanvasObject#readIn(org.biolegato.sequence.data.DataFormat, java.util.Scanner, boolean)
+     * @see org.biolegato.sequence.canvas.SequenceCanvas#importData(java.awt.datatransfer.Transferable, org.biolegato.sequence.canvas.SequenceCanvasObject)
      */
     public void pasteClipboard() {
-        // The format parser to use for the clipboard data with.
-        DataFormat format;
-        // The scanner object to pass to the data format parser.  This is used
-        // to simplify the parsing methods, such as auto-detection.
-        Scanner scanner;
-        // The transferrable object to assist in retrieving information from
-        // the clipboard.
-        Transferable t;
+        // Obtain the Transferrable object to help read from the clipboard.
+        // Transferrable objects are used by java to perform both clipboard
+        // and drag-and-drop operations.
+        try {
+            importData(Toolkit.getDefaultToolkit().getSystemClipboard()
+                    .getContents(null), currentPane);
+        } catch (UnsupportedFlavorException e) {
+            e.printStackTrace(System.err);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * <p>Imports data from the clipboard, or from a drag-and-drop operation,
+     * into the canvas.  This method is shared by pasteClipboard and the
+     * canvas's drop targets.</p>
+     *
+     * <p>If the data is a list of files, the files are read into the canvas
+     * in the background, as if they were opened from the File menu (see
+     * FileImport).  Otherwise, if the data is text, its format is auto-detected
+     * and it is parsed in the background (data copied from a sequence canvas
+     * is streamed from the snapshot copied, rather than read as a String),
+     * and the sequences are inserted into the canvas object in batches, as
+     * they are read (see PasteImport).  Text
+     * is inserted at the canvas object's current cursor position; any text
+     * selected in a text area is overwritten (but sequences selected in the
+     * sequence list are not).</p>
+     **
+     * @param  data     the data to import (null if none).
+     * @param  pane     the canvas object to insert text into.
+     * @return whether the data was imported.
+     * @throws UnsupportedFlavorException if the data cannot be retrieved.
+     * @throws IOException if the data cannot be retrieved.
+     * @see org.biolegato.sequence.canvas.FileImport
+     * @see org.biolegato.sequence.canvas.PasteImport
+     */
+    private boolean importData(Transferable data, SequenceCanvasObject pane)
+                            throws UnsupportedFlavorException, IOException {
+        // Whether the data was imported.
+        boolean result = false;
+        // The text to import.
+        String text;
 
         // Handle the read only property (i.e. prevent any possible
         // data manipulation if readonly is set to true!)
-        if (editable) {
-            // Obtain the Transferrable object to help read from the clipboard.
-            // Transferrable objects are used by java to perform both clipboard
-            // and drag-and-drop operations.
-            t = Toolkit.getDefaultToolkit()
-                    .getSystemClipboard().getContents(null);
-
-            try {
-                // Ensure that the Transferrable object is not null
-                if (t != null) {
-                    if (t.isDataFlavorSupported(DataFlavor.stringFlavor)) {
-                        // Create a new scanner object to parse the clipboard
-                        // data with.
-                        scanner = new Scanner((String)
-                                t.getTransferData(DataFlavor.stringFlavor));
-
-                        // TODO: add caret position update functionality?
-
-                        // Obtain the data format of the clipboard data
-                        // via autodetection.
-                        format = DataFormat.autodetect(scanner);
-
-                        // As long as we understand (can dected) the format
-                        // properly, read in the file using the correct
-                        // data format parser.  (If we didn't detect an
-                        // understandable data format, the "format"
-                        // variable will be null.)
-                        if (format != null) {
-                            // DO NOT OVERWRITE SELECTIONS IN THE SEQUENCE LIST!
-                            // (TODO: evaluate whether this should be changed.)
-                            currentPane.readIn(format, scanner,
-                                    (currentPane != nameList));
-                        }
-                    }
-                }
-            } catch (UnsupportedFlavorException e) {
-            } catch (IOException e) {
+        if (editable && data != null) {
+            if (data.isDataFlavorSupported(DataFlavor.javaFileListFlavor)) {
+                new FileImport(canvasSelf, datamodel, getFiles(data),
+                        null).start();
+                result = true;
+            } else if (data.isDataFlavorSupported(
+                    SequenceSelection.READER_FLAVOR)) {
+                // Stream data copied from a sequence canvas, rather than
+                // converting all of it to a String.
+                // DO NOT OVERWRITE SELECTIONS IN THE SEQUENCE LIST!
+                // (TODO: evaluate whether this should be changed.)
+                new PasteImport(canvasSelf, (Reader) data.getTransferData(
+                        SequenceSelection.READER_FLAVOR), -1,
+                        pane.beginInsert(pane != nameList)).start();
+                result = true;
+            } else if (data.isDataFlavorSupported(DataFlavor.stringFlavor)) {
+                text = (String) data.getTransferData(DataFlavor.stringFlavor);
+                new PasteImport(canvasSelf, new StringReader(text),
+                        text.length(), pane.beginInsert(pane != nameList)
+                        ).start();
+                result = true;
             }
         }
+        return result;
+    }
+
+    /**
+     * Retrieves the list of files from a Transferable object (e.g. files
+     * dropped onto the canvas).  The list is copied into an array of File
+     * objects, so its elements are type-checked, rather than casting the
+     * list to List&lt;File&gt;.
+     **
+     * @param  data     the Transferable object containing the list of files.
+     * @return the files.
+     * @throws UnsupportedFlavorException if the data is not a list of files.
+     * @throws IOException if the data cannot be retrieved.
+     */
+    private static File[] getFiles(Transferable data)
+                            throws UnsupportedFlavorException, IOException {
+        // The list of files.
+        final List<?> files = (List<?>) data.getTransferData(
+                DataFlavor.javaFileListFlavor);
+
+        return files.toArray(new File[files.size()]);
     }
 
     /**
      * Copies the currently selected sequences or text from the sequence canvas
      * to the clipboard.  The format used for copying data to the clipboard is
      * the GenBANK format.  This is to ensure that as many features as possible
-     * are preserved when copying.
+     * are preserved when copying.  Only a snapshot of the selection is copied;
+     * the selection is converted to the GenBANK format when the data is
+     * requested from the clipboard (see SequenceSelection), so copying a very
+     * large selection is immediate.
      **
      * @see org.biolegato.sequence.data.DataFormat#GENBANK
      * @see org.biolegato.sequence.data.GenBankFile2008
-     * @see org.biolegato.sequence.canvas.SequenceCanvasObject#writeOut(org.biolegato.sequence.data.DataFormat, java.lang.Appendable)
+     * @see org.biolegato.sequence.canvas.SequenceCanvasObject#getSelection(org.biolegato.sequence.data.DataFormat)
      */
     public void copyClipboard() {
-        // The string builder used to store the convertd canvas data (instead
-        // of a file stream) from the writeOut method.  This data is later
-        // passed to the clipboard.  The StringBuilder object was chosen because
-        // of its speed, and because it implements the Appendable interface.
-        StringBuilder result = new StringBuilder();
-
-        try {
-            // Write the canvas data to the StringBuilder object.
-            currentPane.writeOut(DataFormat.GENBANK, result);
-
-            // Update the clipboard to store the same data in the StringBuilder
-            // object.
-            Toolkit.getDefaultToolkit().getSystemClipboard()
-                    .setContents(new StringSelection(result.toString()), null);
-        } catch (IOException ioe) {
-            ioe.printStackTrace(System.err);
-        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
+                currentPane.getSelection(DataFormat.GENBANK), null);
     }
 
     /**
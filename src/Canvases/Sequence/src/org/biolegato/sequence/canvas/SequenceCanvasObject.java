@@ -9,9 +9,12 @@
 
 package org.biolegato.sequence.canvas;
 
+import java.awt.datatransfer.Transferable;
+import java.util.List;
 import java.util.Scanner;
 import java.io.IOException;
 import org.biolegato.sequence.data.DataFormat;
+import org.biolegato.sequence.data.Seq;
 
 /**
  * An interface for abstracting the two canvas objects (SequenceTextArea and
@@ -39,6 +42,17 @@ public interface SequenceCanvasObject {
      */
     public void writeOut(DataFormat format, Appendable dest) throws IOException;
 
+    /**
+     * Returns a Transferable for copying the current contents of the canvas
+     * object to the clipboard.  The contents are converted to the file format
+     * when the data is requested from the Transferable (see
+     * SequenceSelection), rather than when this method is called.
+     **
+     * @param  format   the format to copy the data in.
+     * @return the Transferable containing the selected data.
+     */
+    public Transferable getSelection(DataFormat format);
+
     /**
      * Reads contents into the current sequence canvas object.
      **
@@ -52,6 +66,21 @@ public interface SequenceCanvasObject {
     public void readIn(DataFormat format, Scanner source, boolean overwrite)
                                                             throws IOException;
 
+    /**
+     * Starts reading sequences into the current sequence canvas object, in
+     * batches (e.g. sequences pasted into the canvas, which are parsed in the
+     * background).  The insertion point is taken from the current selection
+     * (or text caret) when this method is called; if the overwrite parameter
+     * is true, the data currently selected is deleted first.
+     **
+     * @param  overwrite    whether to overwrite the data currently selected
+     *                      in the canvas object.
+     * @return the insertion object used to insert each batch of sequences
+     *         read into the canvas object.
+     * @see org.biolegato.sequence.canvas.PasteImport
+     */
+    public Insertion beginInsert(boolean overwrite);
+
     /**
      * <dl><dt>Changes the case of the currently selected sequence.  If the
      * sequence is of inconsistent case, the case of the first character as the
@@ -61,4 +90,23 @@ public interface SequenceCanvasObject {
      * </dl>
      */
     public void changeCase ();
+
+    /**
+     * Inserts batches of sequences into a sequence canvas object, at the
+     * insertion point chosen when the insertion was started (see beginInsert).
+     * The batches must be inserted in order, on the Swing event thread.  The
+     * insertion point follows the sequences it was chosen at, rather than
+     * their rows, so the user may keep editing while the batches arrive.  The
+     * batches (and any data overwritten when the insertion was started) are
+     * undone as a single step, unless other edits are made between them.
+     */
+    public interface Insertion {
+
+        /**
+         * Inserts the next batch of sequences.
+         **
+         * @param seqs the sequences to insert.
+         */
+        public void insert(List<Seq> seqs);
+    }
 }
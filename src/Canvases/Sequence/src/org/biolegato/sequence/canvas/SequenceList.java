@@ -5,11 +5,14 @@
 package org.biolegato.sequence.canvas;
 
 import java.awt.Color;
+import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -24,6 +27,7 @@ import javax.swing.JPopupMenu;
 import javax.swing.JTextField;
 import org.biolegato.sequence.data.DataFormat;
 import org.biolegato.sequence.data.Dataset;
+import org.biolegato.sequence.data.Seq;
 import org.biolegato.sequence.data.SequenceWindow;
 
 /**
@@ -97,6 +101,7 @@ public final class SequenceList extends JList implements SequenceCanvasObject {
                 if (group != null) {
                     // set the selection indicies
                     setSelectedIndices(group);
+                    break;
                 }
             }
         }
@@ -466,35 +471,43 @@ public final class SequenceList extends JList implements SequenceCanvasObject {
         // The sequence data to process.
         char[] data = null;
 
-        // Iterate through every sequence selected.
-        for (int sequenceNumber : getSelectedIndices()) {
-            // Obtain the length of the current sequence to alter.
-            length = datamodel.getSequenceLength(sequenceNumber);
+        // Change the case of all of the sequences as a single batch (so the
+        // sequence text area is only repainted once).
+        datamodel.beginEdit();
+        try {
+            // Iterate through every sequence selected.
+            for (int sequenceNumber : getSelectedIndices()) {
+                // Obtain the length of the current sequence to alter.
+                length = datamodel.getSequenceLength(sequenceNumber);
             
-            // Only update the size of the data array (the array to contain the
-            // sequence characters, which will have their case altered), if the
-            // length of the data array is less than the length of the current
-            // sequence (i.e., the sequence we wish to extract into 'data').
-            if (data == null || data.length < length) {
-                // Create a new array to contain the sequence data.
-                data   = new char[length];
-            }
+                // Only update the size of the data array (the array to contain
+                // the sequence characters, which will have their case altered),
+                // if the length of the data array is less than the length of
+                // the current sequence (i.e., the sequence we wish to extract
+                // into 'data').
+                if (data == null || data.length < length) {
+                    // Create a new array to contain the sequence data.
+                    data   = new char[length];
+                }
             
-            // Extract the characters for the current sequence from the Dataset
-            // sequence object container.
-            datamodel.getSequence(data, sequenceNumber, 0, length);
-
-            // invert the case of the sequence
-            for (int count = 0; count < length; count++) {
-                data[count] = (Character.isUpperCase(data[count])
-                    ? Character.toLowerCase(data[count])
-                    : Character.toUpperCase(data[count]));
-            }
+                // Extract the characters for the current sequence from the
+                // Dataset sequence object container.
+                datamodel.getSequence(data, sequenceNumber, 0, length);
+
+                // invert the case of the sequence
+                for (int count = 0; count < length; count++) {
+                    data[count] = (Character.isUpperCase(data[count])
+                        ? Character.toLowerCase(data[count])
+                        : Character.toUpperCase(data[count]));
+                }
 
-            // Delete the old version of the sequence, then insert the modified
-            // (case changed) version -- i.e. alter by replacement.
-            datamodel.delete(0, sequenceNumber, length, false);
-            datamodel.insert(0, sequenceNumber, data, 0, length, false);
+                // Delete the old version of the sequence, then insert the
+                // modified (case changed) version -- i.e. alter by replacement.
+                datamodel.delete(0, sequenceNumber, length, false);
+                datamodel.insert(0, sequenceNumber, data, 0, length, false);
+            }
+        } finally {
+            datamodel.endEdit();
         }
     }
 
@@ -552,6 +565,93 @@ public final class SequenceList extends JList implements SequenceCanvasObject {
                                               datamodel.getSize(), true);
         }
     }
+
+    /**
+     * Starts reading sequences into the sequence list, in batches.  As with
+     * readIn, the first sequences read are inserted at the selected sequences
+     * (which are deleted first, if the overwrite flag is set), and the rest are
+     * added to the end of the list.
+     **
+     * @param  overwrite    whether to overwrite the sequences currently
+     *                      selected in the sequence list.
+     * @return the insertion object used to insert each batch of sequences.
+     */
+    public Insertion beginInsert(boolean overwrite) {
+        // Stores the list of selected indices within the SequenceList.
+        final int[] selected_rows = getSelectedIndices();
+        // The sequence to insert each of the first sequences read before (the
+        // sequence at each selected row, or the first sequence after it which
+        // is not overwritten; null for the end of the list).  The sequences
+        // are tracked, rather than their rows, so the rows added or removed
+        // while the paste is in progress do not move the insertion points.
+        final Seq[] anchors = new Seq[selected_rows.length];
+        // The undo step of the paste (the deletion and all of the batches are
+        // undone as a single step).
+        final int step = datamodel.newUndoStep();
+        // The row of the current anchor sequence.
+        int anchor;
+
+        // Sort the selected_rows array.
+        Arrays.sort(selected_rows);
+
+        // Find the anchor sequence of each selected row.
+        for (int index = 0; index < selected_rows.length; index++) {
+            anchor = selected_rows[index];
+            for (int skip = index; overwrite && skip < selected_rows.length
+                    && selected_rows[skip] == anchor; skip++) {
+                anchor++;
+            }
+            anchors[index] = (Seq) datamodel.getElementAt(anchor);
+        }
+
+        // Overwrite the sequences if the overwrite flag is set.
+        if (overwrite && selected_rows.length > 0) {
+            datamodel.beginEdit(step);
+            try {
+                datamodel.removeSequences(selected_rows);
+            } finally {
+                datamodel.endEdit();
+            }
+        }
+
+        return new Insertion() {
+            /**
+             * The current index to process within the anchors array.
+             */
+            private int index = 0;
+
+            public void insert(List<Seq> seqs) {
+                // The current sequence to insert within the batch.
+                int position = 0;
+                // The row to insert the current sequence at.
+                int y;
+
+                datamodel.beginEdit(step);
+                try {
+                    // Insert sequences at the selected rows, while there are
+                    // selected rows left (if an anchor sequence was removed,
+                    // its sequence is added to the end of the list).
+                    while (position < seqs.size() && index < anchors.length) {
+                        y = datamodel.indexOf(anchors[index]);
+                        datamodel.add((y >= 0 ? y : datamodel.getSize()),
+                                seqs.get(position));
+                        position++;
+                        index++;
+                    }
+
+                    // Add the rest of the batch to the end of the list at
+                    // once.
+                    if (position < seqs.size()) {
+                        datamodel.addSequences(datamodel.getSize(),
+                                new ArrayList<Seq>(seqs.subList(position,
+                                    seqs.size())));
+                    }
+                } finally {
+                    datamodel.endEdit();
+                }
+            }
+        };
+    }
     /**
      * Writes the selected sequences out to an appendable object
      **
@@ -566,5 +666,16 @@ public final class SequenceList extends JList implements SequenceCanvasObject {
             fmt.convertTo(dest, datamodel, lineNumber);
         }
     }
+
+    /**
+     * Returns a Transferable for copying the selected sequences.
+     **
+     * @param  fmt  the format to copy the data in.
+     * @return the Transferable containing the selected sequences.
+     */
+    public Transferable getSelection(DataFormat fmt) {
+        return new SequenceSelection(datamodel, getSelectedIndices(), 0, -1,
+                fmt);
+    }
     
 }
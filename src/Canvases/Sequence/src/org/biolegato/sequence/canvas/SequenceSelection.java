@@ -0,0 +1,196 @@
+/*
+ * SequenceSelection.java
+ *
+ * Created on October 19, 2026, 4:10 AM
+ */
+package org.biolegato.sequence.canvas;
+
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+import java.io.Reader;
+import org.biolegato.sequence.data.DataFormat;
+import org.biolegato.sequence.data.Dataset;
+
+/**
+ * <p>A Transferable which copies a selection of the sequence canvas to the
+ * clipboard.</p>
+ *
+ * <p>Rather than converting the selection to text when it is copied, the
+ * Transferable only stores the coordinates of the selection (the range of
+ * columns to copy), and a snapshot of the selected sequences (see
+ * Dataset.snapshot; the snapshot is cheap to take, even for very long
+ * sequences).  The selection is converted to the chosen file format when the
+ * receiver requests the data.  The data may be requested either as a String,
+ * or as a Reader (READER_FLAVOR), which converts one sequence at a time, as
+ * the text is read; thus, copying and pasting a large selection does not
+ * require the whole selection to be held in memory as text.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.Dataset#snapshot(int[])
+ */
+final class SequenceSelection implements Transferable {
+
+    /**
+     * The data flavor used to read the selection as a stream of plain text.
+     */
+    static final DataFlavor READER_FLAVOR = new DataFlavor(
+            "text/plain;class=java.io.Reader", "Plain text");
+    /**
+     * The data flavors supported by the Transferable (in order of preference).
+     */
+    private static final DataFlavor[] FLAVORS = new DataFlavor[] {
+        READER_FLAVOR, DataFlavor.stringFlavor
+    };
+    /**
+     * The snapshot of the selected sequences.
+     */
+    private final Dataset snapshot;
+    /**
+     * The X-coordinate (column) of the first residue to copy from each
+     * sequence.
+     */
+    private final int offset;
+    /**
+     * The number of residues to copy from each sequence (a negative value
+     * copies the entire length of each sequence).
+     */
+    private final int length;
+    /**
+     * The file format to copy the selection in.
+     */
+    private final DataFormat format;
+
+    /**
+     * Creates a new Transferable for a selection.
+     **
+     * @param datamodel the data model containing the selected sequences.
+     * @param rows      the line numbers of the selected sequences.
+     * @param offset    the X-coordinate (column) of the first residue to copy
+     *                  from each sequence.
+     * @param length    the number of residues to copy from each sequence (a
+     *                  negative value copies the entire sequences).
+     * @param format    the file format to copy the selection in.
+     */
+    SequenceSelection(Dataset datamodel, int[] rows, int offset, int length,
+            DataFormat format) {
+        this.snapshot = datamodel.snapshot(rows);
+        this.offset = offset;
+        this.length = length;
+        this.format = format;
+    }
+
+    /**
+     * Returns the data flavors supported by the Transferable.
+     **
+     * @return the Reader and String flavors.
+     */
+    public DataFlavor[] getTransferDataFlavors() {
+        return FLAVORS.clone();
+    }
+
+    /**
+     * Determines whether a data flavor is supported by the Transferable.
+     **
+     * @param  flavor the data flavor to test.
+     * @return whether the flavor is supported.
+     */
+    public boolean isDataFlavorSupported(DataFlavor flavor) {
+        return READER_FLAVOR.equals(flavor)
+                || DataFlavor.stringFlavor.equals(flavor);
+    }
+
+    /**
+     * Converts the selection to text, in the requested data flavor.
+     **
+     * @param  flavor   the data flavor requested.
+     * @return a Reader (for READER_FLAVOR), or a String (for the string
+     *         flavor), containing the selection in the chosen file format.
+     * @throws UnsupportedFlavorException if the flavor is not supported.
+     * @throws IOException if the selection cannot be converted.
+     */
+    public Object getTransferData(DataFlavor flavor)
+                            throws UnsupportedFlavorException, IOException {
+        // The text of the selection.
+        final StringBuilder text;
+        // The data requested.
+        Object result;
+
+        if (READER_FLAVOR.equals(flavor)) {
+            result = new SelectionReader();
+        } else if (DataFlavor.stringFlavor.equals(flavor)) {
+            text = new StringBuilder();
+            for (int y = 0; y < snapshot.getSize(); y++) {
+                format.convertTo(text, snapshot, y, offset, length);
+            }
+            result = text.toString();
+        } else {
+            throw new UnsupportedFlavorException(flavor);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the selection, in the chosen file format, one sequence at a time.
+     */
+    private final class SelectionReader extends Reader {
+
+        /**
+         * The text of the current sequence.
+         */
+        private final StringBuilder buffer = new StringBuilder();
+        /**
+         * The position of the next character to read within the buffer.
+         */
+        private int position = 0;
+        /**
+         * The line number of the next sequence to convert.
+         */
+        private int y = 0;
+
+        /**
+         * Reads characters from the selection, converting the next sequence
+         * whenever the current sequence has been read.
+         **
+         * @param  cbuf the destination buffer.
+         * @param  off  the offset in the buffer to store characters at.
+         * @param  len  the maximum number of characters to read.
+         * @return the number of characters read (-1 at the end of the
+         *         selection).
+         * @throws IOException if a sequence cannot be converted.
+         */
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            // The number of characters read.
+            int count = -1;
+
+            // Convert the next sequence, once the buffer has been read.
+            while (position >= buffer.length() && y < snapshot.getSize()) {
+                buffer.setLength(0);
+                position = 0;
+                format.convertTo(buffer, snapshot, y, offset, length);
+                y++;
+            }
+
+            // Copy the characters from the buffer.
+            if (position < buffer.length()) {
+                count = Math.min(len, buffer.length() - position);
+                buffer.getChars(position, position + count, cbuf, off);
+                position += count;
+            }
+            return count;
+        }
+
+        /**
+         * Closes the reader (no further sequences are converted).
+         */
+        @Override
+        public void close() {
+            y = snapshot.getSize();
+            buffer.setLength(0);
+            position = 0;
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Rectangle;
+import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
@@ -22,6 +23,7 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
 import javax.swing.JMenuItem;
@@ -30,6 +32,8 @@ import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import org.biolegato.main.BLMain;
 import org.biolegato.sequence.data.DataFormat;
+import org.biolegato.sequence.data.MotifSearch;
+import org.biolegato.sequence.data.Seq;
 
 /**
  * <p>A general canvas with more functionality support than JTextArea.</p>
@@ -317,6 +321,12 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
      * The background colour of selected text.
      */
     public static final Color SELECTBG = Color.BLUE;
+    /**
+     * The background colour of motif search hits.
+     **
+     * @see org.biolegato.sequence.canvas.SequenceCanvas#findMotifAction
+     */
+    public static final Color MOTIFBG = Color.YELLOW;
     /**
      * This constant is used for serialization purposes.  Also, this value is
      * required to compile this class without warnings.
@@ -462,7 +472,15 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
             int curr_y = ystart;
             int datalength = -1;
             char[] print = new char[collength];
+            // The buffer for the quality scores of the characters printed
+            // (only allocated if a sequence is drawn with a quality-based
+            // colour mask).
+            byte[] scores = null;
+            // The quality scores of the characters printed in the current row
+            // (null if the row has no quality scores).
+            byte[] quality = null;
             ColourMask mask = null;
+            List<MotifSearch.Hit> hits = null;
 
             try {
                 // Print the normal background first.  This must be done because
@@ -477,6 +495,26 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
                         collength * colWidth,
                         (stoprow - startrow + 1) * rowHeight);
 
+                // Paint the background for any motif search hits (the yellow
+                // part).  This is done before the selection background, so
+                // the selected text remains visible.
+                gfx.setColor(MOTIFBG);
+                for (curr_row = startrow; curr_row <= stoprow; curr_row++) {
+                    hits = canvas.getMotifHits(curr_row);
+                    if (hits != null) {
+                        for (MotifSearch.Hit hit : hits) {
+                            if (hit.end > startcol
+                                    && hit.start < startcol + collength) {
+                                gfx.fillRect(hit.start * colWidth,
+                                        curr_row * rowHeight
+                                        + (fontcenterYmod / 2),
+                                        (hit.end - hit.start) * colWidth,
+                                        rowHeight);
+                            }
+                        }
+                    }
+                }
+
                 // Paint the background for any selected text (the blue part).
                 if (startSelectX >= 0 && startSelectX < endSelectX
                         && maxsy >= startrow && minsy <= stoprow) {
@@ -514,6 +552,21 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
                         // default sequence colour mask.
                         mask = datamodel.getMask(curr_row);
 
+                        // Extract the quality scores of the characters to
+                        // print, if the colour mask is quality-based (the
+                        // scores array is only allocated once per repaint).
+                        quality = null;
+                        if (mask != null && mask.getType()
+                                == ColourMask.MaskType.QUALITY) {
+                            if (scores == null) {
+                                scores = new byte[collength];
+                            }
+                            if (datamodel.getQuality(scores, curr_row,
+                                    startcol, collength) >= datalength) {
+                                quality = scores;
+                            }
+                        }
+
                         // Check whether the segment of the current row
                         // to be drawn contains a portion of selected text.
                         // If so, we must draw the selected text differently
@@ -534,7 +587,7 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
                                 if (mask != null) {
                                     // If a colour mask for the sequence is
                                     // available, use it.
-                                    mask.drawString(gfx, print, 0,
+                                    mask.drawString(gfx, print, quality, 0,
                                             Math.min(datalength, minsxcol),
                                             xstart, curr_y);
 	                        } else if (canvas.DEFAULT_MASK != null) {
@@ -584,8 +637,8 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
                                 if (mask != null) {
                                     // If a colour mask for the sequence is
                                     // available, use it.
-                                    mask.drawString(gfx, print, maxsxcol,
-                                            datalength - maxsxcol,
+                                    mask.drawString(gfx, print, quality,
+                                            maxsxcol, datalength - maxsxcol,
                                             endSelectX, curr_y);
 	                        } else if (canvas.DEFAULT_MASK != null) {
                                     // If no colour mask is available for the
@@ -608,7 +661,7 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
                             // Since no text is selected, just print the text.
                             // Because a colour mask is available, use it when
                             // printing the text.
-                            mask.drawString(gfx, print, 0,
+                            mask.drawString(gfx, print, quality, 0,
                                     datalength, xstart, curr_y);
                         } else if (canvas.DEFAULT_MASK != null) {
                             // Since no text is selected, just print the text.
@@ -707,6 +760,9 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
     public void keyTyped(KeyEvent event) {
         boolean canInsert = true;
 
+        // Make the edit within a coalescing batch, so consecutive keystrokes
+        // are undone as a single step.
+        datamodel.beginEdit(true);
         try {
             switch (event.getKeyChar()) {
                 ////////////////////////////////////////////
@@ -768,6 +824,8 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
         } catch (Throwable e) {
             // Print a stack trace if there were any errors.
             e.printStackTrace(System.err);
+        } finally {
+            datamodel.endEdit();
         }
         // Consume the key event object, such that it is not handled twice.
         event.consume();
@@ -794,7 +852,15 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
         // will be zero, so backspacing from the first row will not move the
         // cursor.
         int bspcol = 0;
-
+        // Whether the key edits the sequences (i.e. BACKSPACE or DELETE).
+        // Such edits are made within a coalescing batch, so consecutive
+        // deletions are undone as a single step.
+        final boolean edit = (event.getKeyChar() == KeyEvent.VK_BACK_SPACE
+                || event.getKeyChar() == KeyEvent.VK_DELETE);
+
+        if (edit) {
+            datamodel.beginEdit(true);
+        }
         try {
             switch (event.getKeyChar()) {
                 ////////////////////////////////////////////
@@ -1019,6 +1085,10 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
         } catch (Throwable e) {
             // Print a stack trace if there were any errors.
             e.printStackTrace(System.err);
+        } finally {
+            if (edit) {
+                datamodel.endEdit();
+            }
         }
         // Consume the key event object, such that it is not handled twice.
         event.consume();
@@ -1193,27 +1263,36 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
             // Create a new array to use for extracting the sequence data.
             data = new char[maxsx - minsx];
 
-            // Iterate through each line in the selected text.
-            for (int y = minsy; y <= maxsy; y++) {
-                // Determine the length of text selected on the current line.
-                length = datamodel.getSequence(data, y, minsx, maxsx - minsx);
-
-                // If there is text selected on the current line, then alter its
-                // case (from upper to lower, or lower to upper).
-                if (length > 0) {
+            // Change the case of all of the lines as a single batch (so the
+            // text area is only repainted once).
+            datamodel.beginEdit();
+            try {
+                // Iterate through each line in the selected text.
+                for (int y = minsy; y <= maxsy; y++) {
+                    // Determine the length of text selected on the current
+                    // line.
+                    length = datamodel.getSequence(data, y, minsx,
+                            maxsx - minsx);
+
+                    // If there is text selected on the current line, then alter
+                    // its case (from upper to lower, or lower to upper).
+                    if (length > 0) {
+
+                        // Invert the case of the sequence data selected.
+                        for (int count = 0; count < length; count++) {
+                            data[count] = (Character.isUpperCase(data[count])
+                                ? Character.toLowerCase(data[count])
+                                : Character.toUpperCase(data[count]));
+                        }
 
-                    // Invert the case of the sequence data selected.
-                    for (int count = 0; count < length; count++) {
-                        data[count] = (Character.isUpperCase(data[count])
-                            ? Character.toLowerCase(data[count])
-                            : Character.toUpperCase(data[count]));
+                        // Replace the original text with the altered-case
+                        // version of the text selected.
+                        datamodel.delete(minsx, y, length, false);
+                        datamodel.insert(minsx, y, data, 0, length, false);
                     }
-
-                    // Replace the original text with the altered-case version
-                    // of the text selected.
-                    datamodel.delete(minsx, y, length, false);
-                    datamodel.insert(minsx, y, data, 0, length, false);
                 }
+            } finally {
+                datamodel.endEdit();
             }
         }
     }
@@ -1238,18 +1317,18 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
                        final boolean groupinsert) {
         // The list of sequences within the same group as the sequence at the
         // line (row) number specified by the variable 'y'.  This list will be
-        // null if the sequence at 'y' is not part of any sequence group.
-        int[] group = datamodel.getgroup(y);
+        // null if the sequence at 'y' is not part of any sequence group (or if
+        // the text is not being inserted into the whole group).
+        int[] group = (groupinsert ? datamodel.getgroup(y) : null);
 
         // Branch!  If the text is to be inserted into all sequences in the same
         // group as 'y', and 'y' is actually in a group, then we insert the text
         // into all sequences in the group.  Otherwise, we just insert the text
         // into sequence 'y' only.
         if (groupinsert && group != null) {
-            // Iterate through the group and perform the mass insertion.
-            for (int number : group) {
-                insert(x, number, text, false);
-            }
+            // Perform the mass insertion as a single batch (so the text area
+            // is only repainted once for the whole group).
+            datamodel.insert(x, group, text, 0, text.length, true);
         } else {
             datamodel.insert(x, y, text, 0, text.length, true);
         }
@@ -1286,54 +1365,68 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
         // the sequence length of the successful deletion).
         boolean result = false;
 
-        // Iterate through every sequence in the deletion zone (x, y, w, h)
-        for (int count = y; count <= max; count++) {
-            // If group deletions are turned on, add all of the sequences in the
-            // same group to the set of grouped sequences to delete.  We do this
-            // in case any of the sequences in the zone are part of the same
-            // sequence (which would cause the sequence to be deleted from
-            // twice!)
-            if (groupdel) {
-                // Obtain a list of sequences which are in the same group as
-                // sequence number 'count'.
-                int[] groupedseq = datamodel.getgroup(count);
-                
-                // If no sequences are in the same group as 'count', then we
-                // skip the code below.  This is to avoid null pointer
-                // exceptions -- i.e. when no sequences are in the same group
-                // as 'count', the function 'getgroup' will return null.
+        // Perform all of the deletions as a single batch (so the text area is
+        // only repainted once, rather than once per sequence).
+        datamodel.beginEdit();
+        try {
+            // Iterate through every sequence in the deletion zone (x, y, w, h)
+            for (int count = y; count <= max; count++) {
+                // If group deletions are turned on, add all of the sequences in
+                // the same group to the set of grouped sequences to delete.  We
+                // do this in case any of the sequences in the zone are part of
+                // the same sequence (which would cause the sequence to be
+                // deleted from twice!)
                 //
-                // In contrast, if sequences are in the same group as 'count',
-                // we add them to our 'group' set.  We use a set in this case
-                // to avoid duplication -- i.e. if two sequences selected for
-                // modification are in the same group.
-                if (groupedseq != null) {
-                    for (int gln : groupedseq) {
-                        group.add(gln);
+                // If the sequence is already in the 'group' set, then its group
+                // has already been added to the set, and need not be added
+                // again.
+                if (groupdel && !group.contains(count)) {
+                    // Obtain a list of sequences which are in the same group as
+                    // sequence number 'count'.
+                    int[] groupedseq = datamodel.getgroup(count);
+                
+                    // If no sequences are in the same group as 'count', then we
+                    // skip the code below.  This is to avoid null pointer
+                    // exceptions -- i.e. when no sequences are in the same
+                    // group as 'count', the function 'getgroup' will return
+                    // null.
+                    //
+                    // In contrast, if sequences are in the same group as
+                    // 'count', we add them to our 'group' set.  We use a set in
+                    // this case to avoid duplication -- i.e. if two sequences
+                    // selected for modification are in the same group.
+                    if (groupedseq != null) {
+                        for (int gln : groupedseq) {
+                            group.add(gln);
+                        }
                     }
                 }
+                result |= datamodel.delete(x, count, w, true);
             }
-            result |= datamodel.delete(x, count, w, true);
-        }
 
-        // If we are performing a group deletion, and there are sequences to
-        // delete (i.e. at least one grouped sequence), then we need to execute
-        // more code (to delete from the sequences in the same group).
-        if (groupdel && !group.isEmpty()) {
-            // itterate through the group and perform the mass insertion
-            for (int gln : group) {
-                // Ensure that the sequence number is valid.  Note that the
-                // number of sequences should NOT change, because we are only
-                // deleting characters from the sequences (and not removing any
-                // actual full sequences from the Dataset object!)
-                if ((gln < y || gln > max)
-                        && gln < datamodel.getSize()) {
-                    result |= datamodel.delete(x, gln, w, true);
-                } else if (gln >= datamodel.getSize()) {
-                    System.err.println("Sequence text area -"
-                            + " Invalid row number: " + gln);
+            // If we are performing a group deletion, and there are sequences to
+            // delete (i.e. at least one grouped sequence), then we need to
+            // execute more code (to delete from the sequences in the same
+            // group).
+            if (groupdel && !group.isEmpty()) {
+                // itterate through the group and perform the mass insertion
+                for (int gln : group) {
+                    // Ensure that the sequence number is valid.  Note that the
+                    // number of sequences should NOT change, because we are
+                    // only deleting characters from the sequences (and not
+                    // removing any actual full sequences from the Dataset
+                    // object!)
+                    if ((gln < y || gln > max)
+                            && gln < datamodel.getSize()) {
+                        result |= datamodel.delete(x, gln, w, true);
+                    } else if (gln >= datamodel.getSize()) {
+                        System.err.println("Sequence text area -"
+                                + " Invalid row number: " + gln);
+                    }
                 }
             }
+        } finally {
+            datamodel.endEdit();
         }
 
         // Return the deletion status boolean.
@@ -1864,14 +1957,83 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
      */
     public void readIn(DataFormat format, Scanner source, boolean overwrite)
                                                             throws IOException {
+        // Delete the selection and read in the new data as a single batch (so
+        // pasting into a rectangular selection only repaints the text area
+        // once).
+        datamodel.beginEdit();
+        try {
+            // If the overwrite parameter is set to true, delete any text
+            // currently selected.
+            if (overwrite) {
+                deleteSelection(false);
+            }
+
+            // Read in the new data.
+            format.convertFrom(datamodel, source, col, row);
+        } finally {
+            datamodel.endEdit();
+        }
+    }
+
+    /**
+     * Starts reading sequences into the text area, in batches.  As with
+     * readIn, the residues of each sequence are inserted into the existing
+     * sequences, starting at the text caret (after the selection is deleted,
+     * if the overwrite flag is set); sequences beyond the end of the text area
+     * are added to the end of the text area.
+     **
+     * @param  overwrite    whether to overwrite the text currently selected.
+     * @return the insertion object used to insert each batch of sequences.
+     */
+    public Insertion beginInsert(boolean overwrite) {
+        // The undo step of the paste (the deletion and all of the batches are
+        // undone as a single step).
+        final int step = datamodel.newUndoStep();
+
         // If the overwrite parameter is set to true, delete any text currently
         // selected.
         if (overwrite) {
-            deleteSelection(false);
+            datamodel.beginEdit(step);
+            try {
+                deleteSelection(false);
+            } finally {
+                datamodel.endEdit();
+            }
         }
 
-        // Read in the new data.
-        format.convertFrom(datamodel, source, col, row);
+        return new Insertion() {
+            /**
+             * The column to insert the residues at.
+             */
+            private final int x = col;
+            /**
+             * The sequence to insert the next sequence into (null once the
+             * sequences are added to the end of the text area).  The sequence
+             * is tracked, rather than its row, so the rows added or removed
+             * while the paste is in progress do not move the insertion point.
+             */
+            private Seq next = (Seq) datamodel.getElementAt(row);
+
+            public void insert(List<Seq> seqs) {
+                // The row to insert the next sequence at (if the sequence was
+                // removed, the rest of the paste is added to the end).
+                int y = datamodel.indexOf(next);
+
+                if (y < 0) {
+                    y = datamodel.getSize();
+                }
+
+                // Insert the batch as a single edit (so the text area is only
+                // repainted once for each batch).
+                datamodel.beginEdit(step);
+                try {
+                    datamodel.insertSequences(x, y, seqs);
+                } finally {
+                    datamodel.endEdit();
+                }
+                next = (Seq) datamodel.getElementAt(y + seqs.size());
+            }
+        };
     }
     /**
      * Writes the current contents of the canvas object to an Appendable object.
@@ -1890,4 +2052,21 @@ public class SequenceTextArea extends JComponent implements ListDataListener,
             fmt.convertTo(dest, datamodel, lineNumber, minsx, length);
         }
     }
+
+    /**
+     * Returns a Transferable for copying the text currently selected.
+     **
+     * @param  fmt  the format to copy the data in.
+     * @return the Transferable containing the text selected.
+     */
+    public Transferable getSelection(DataFormat fmt) {
+        // The line numbers of the selected sequences.
+        final int[] rows = new int[Math.max(0, maxsy - minsy + 1)];
+
+        for (int index = 0; index < rows.length; index++) {
+            rows[index] = minsy + index;
+        }
+        return new SequenceSelection(datamodel, rows, minsx, maxsx - minsx,
+                fmt);
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * StagingDataset.java
+ *
+ * Created on October 19, 2026, 3:05 AM
+ */
+package org.biolegato.sequence.canvas;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.biolegato.sequence.data.Dataset;
+import org.biolegato.sequence.data.Seq;
+import org.biolegato.sequence.data.SequenceSink;
+
+/**
+ * <p>A data model used to pass sequences read on a worker thread on to the
+ * Swing event thread, in batches (see FileImport and PasteImport).</p>
+ *
+ * <p>The sequences added to the staging data model are not stored; instead,
+ * they are collected until there are Dataset.LOAD_BATCH sequences, or
+ * Dataset.LOAD_DELAY milliseconds have passed since the last batch, and are
+ * then delivered as a batch.  The size of the staging data model is the total
+ * number of sequences added to it (see SequenceSink).  If the background task
+ * is cancelled, adding a sequence throws a CancellationException, which stops
+ * the parser.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.canvas.FileImport
+ * @see org.biolegato.sequence.canvas.PasteImport
+ */
+abstract class StagingDataset extends SequenceSink {
+
+    /**
+     * The background task reading the sequences.
+     */
+    private final Future<?> task;
+    /**
+     * The number of sequences read by the background task (shared by all of
+     * the task's staging data models).
+     */
+    private final AtomicInteger count;
+    /**
+     * The sequences collected since the last batch.
+     */
+    private List<Seq> pending = new ArrayList<Seq>();
+    /**
+     * The time the last batch was delivered.
+     */
+    private long flushed = System.currentTimeMillis();
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777134L;
+
+    /**
+     * Creates a new staging data model.
+     **
+     * @param task  the background task reading the sequences.
+     * @param count the number of sequences read by the background task.
+     */
+    StagingDataset(Future<?> task, AtomicInteger count) {
+        this.task = task;
+        this.count = count;
+    }
+
+    /**
+     * Delivers a batch of sequences (called on the worker thread).
+     **
+     * @param batch the sequences, in the order they were added.
+     */
+    abstract void deliver(List<Seq> batch);
+
+    /**
+     * Collects sequences added to the staging data model, and delivers them
+     * once a batch is full (or the batch delay has passed).
+     **
+     * @param seqs the sequences added.
+     */
+    @Override
+    protected void accept(Collection<Seq> seqs) {
+        if (task.isCancelled()) {
+            throw new CancellationException("sequence import cancelled");
+        }
+        pending.addAll(seqs);
+        count.addAndGet(seqs.size());
+        if (pending.size() >= Dataset.LOAD_BATCH
+                || System.currentTimeMillis() - flushed
+                    >= Dataset.LOAD_DELAY) {
+            flush();
+        }
+    }
+
+    /**
+     * Delivers the sequences collected since the last batch.
+     */
+    void flush() {
+        if (!pending.isEmpty()) {
+            deliver(pending);
+            pending = new ArrayList<Seq>();
+        }
+        flushed = System.currentTimeMillis();
+    }
+}
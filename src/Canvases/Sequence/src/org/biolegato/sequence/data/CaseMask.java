@@ -0,0 +1,225 @@
+/*
+ * CaseMask.java
+ *
+ * Created on October 21, 2026, 10:15 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>Records which residues of a packed residue store are lower-case.</p>
+ *
+ * <p>The packed nucleotide and amino acid alphabets store lower-case letters
+ * using the codes of their upper-case forms; thus, the case of the residues
+ * is kept separately, as a sorted list of runs of lower-case residues (as in
+ * the mask blocks of the UCSC 2bit format).  Lower-case residues usually
+ * occur in a few long runs (e.g. a GenBank ORIGIN section is entirely
+ * lower-case, and soft-masked repeats cover whole regions), so a mask holds
+ * only a handful of runs, rather than a bit per residue.</p>
+ *
+ * <p>Runs never overlap or touch (touching runs are merged).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.PackedSequence
+ */
+final class CaseMask implements Serializable {
+
+    /**
+     * The bounds of each lower-case run, in order: the position of the first
+     * residue of the run, followed by the position after its last residue.
+     */
+    private int[] bounds = new int[2];
+    /**
+     * The number of runs in the mask.
+     */
+    private int runs = 0;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777135L;
+
+    /**
+     * Determines whether the mask contains any lower-case runs.
+     **
+     * @return whether the mask is empty.
+     */
+    boolean isEmpty() {
+        return runs == 0;
+    }
+
+    /**
+     * Determines whether a residue is lower-case.
+     **
+     * @param  index the position of the residue.
+     * @return whether the residue is lower-case.
+     */
+    boolean isLower(int index) {
+        final int run = find(index);
+
+        return run < runs && bounds[2 * run] <= index;
+    }
+
+    /**
+     * Restores the case of residues decoded into a character array.
+     **
+     * @param start    the position of the first residue decoded.
+     * @param end      the position after the last residue decoded.
+     * @param dst      the array containing the decoded (upper-case) residues.
+     * @param dstBegin the index of the first decoded residue within the array.
+     */
+    void apply(int start, int end, char[] dst, int dstBegin) {
+        // The range of the current run, within the decoded residues.
+        int from;
+        int to;
+
+        for (int run = find(start); run < runs && bounds[2 * run] < end;
+                run++) {
+            from = Math.max(bounds[2 * run], start);
+            to = Math.min(bounds[2 * run + 1], end);
+            for (int pos = from; pos < to; pos++) {
+                dst[dstBegin + pos - start] = Character.toLowerCase(
+                        dst[dstBegin + pos - start]);
+            }
+        }
+    }
+
+    /**
+     * Marks a range of residues as lower-case.
+     **
+     * @param start the position of the first lower-case residue.
+     * @param end   the position after the last lower-case residue.
+     */
+    void mark(int start, int end) {
+        // The first run which overlaps or touches the range.
+        final int first = find(start - 1);
+        // The run after the last run which overlaps or touches the range.
+        int last = first;
+
+        if (start < end) {
+            // Merge the range with any runs it overlaps or touches.
+            while (last < runs && bounds[2 * last] <= end) {
+                start = Math.min(start, bounds[2 * last]);
+                end = Math.max(end, bounds[2 * last + 1]);
+                last++;
+            }
+
+            // Replace the merged runs with a single run.
+            if (2 * (runs - (last - first) + 1) > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            System.arraycopy(bounds, 2 * last, bounds, 2 * (first + 1),
+                    2 * (runs - last));
+            bounds[2 * first] = start;
+            bounds[2 * first + 1] = end;
+            runs += 1 - (last - first);
+        }
+    }
+
+    /**
+     * Opens a gap of upper-case residues within the mask (i.e. shifts the
+     * runs after an insertion point).  Any run containing the insertion point
+     * is split around the gap.
+     **
+     * @param index the position of the gap.
+     * @param count the number of residues in the gap.
+     */
+    void open(int index, int count) {
+        // The first run which ends after the insertion point.
+        int run = find(index);
+
+        if (count > 0) {
+            // Split the run containing the insertion point (if any).
+            if (run < runs && bounds[2 * run] < index) {
+                if (2 * (runs + 1) > bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                System.arraycopy(bounds, 2 * run + 1, bounds, 2 * run + 3,
+                        2 * (runs - run) - 1);
+                bounds[2 * run + 1] = index;
+                bounds[2 * run + 2] = index;
+                runs++;
+                run++;
+            }
+
+            // Shift the runs after the insertion point.
+            for (int pos = 2 * run; pos < 2 * runs; pos++) {
+                bounds[pos] += count;
+            }
+        }
+    }
+
+    /**
+     * Removes a range of residues from the mask (i.e. shifts the runs after a
+     * deletion).  Runs which become empty are dropped, and runs which come to
+     * touch are merged.
+     **
+     * @param start the position of the first residue deleted.
+     * @param end   the position after the last residue deleted.
+     */
+    void cut(int start, int end) {
+        // The number of residues deleted.
+        final int removed = end - start;
+        // The number of runs kept (runs before the deletion are unaffected).
+        int kept = find(start);
+        // The bounds of the current run, after the deletion.
+        int from;
+        int to;
+
+        if (removed > 0) {
+            for (int run = kept; run < runs; run++) {
+                from = bounds[2 * run];
+                to = bounds[2 * run + 1];
+                from = (from < start ? from
+                        : (from < end ? start : from - removed));
+                to = (to < end ? Math.min(to, start) : to - removed);
+                if (from < to) {
+                    if (kept > 0 && bounds[2 * kept - 1] == from) {
+                        bounds[2 * kept - 1] = to;
+                    } else {
+                        bounds[2 * kept] = from;
+                        bounds[2 * kept + 1] = to;
+                        kept++;
+                    }
+                }
+            }
+            runs = kept;
+        }
+    }
+
+    /**
+     * Releases any unused capacity held by the mask.
+     */
+    void trimToSize() {
+        if (2 * runs < bounds.length) {
+            bounds = Arrays.copyOf(bounds, Math.max(2, 2 * runs));
+        }
+    }
+
+    /**
+     * Finds the first run which ends after a given position.
+     **
+     * @param  index the position to search for.
+     * @return the index of the first run ending after the position (or the
+     *         number of runs, if no run ends after the position).
+     */
+    private int find(int index) {
+        // The range of runs to search.
+        int low = 0;
+        int high = runs;
+        // The middle of the range to search.
+        int mid;
+
+        while (low < high) {
+            mid = (low + high) >>> 1;
+            if (bounds[2 * mid + 1] > index) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * ColumnStatistics.java
+ *
+ * Created on October 18, 2026, 5:20 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * <p>Per-column residue statistics for the sequences in a Dataset.</p>
+ *
+ * <p>The statistics object keeps a count of each residue within each column
+ * of the alignment.  Residues are counted case-insensitively; the letters A
+ * to Z each have their own count, and every other non-gap character (e.g.
+ * '*') shares a single count.  Gap characters ('-', '.', '~' and spaces), and
+ * the columns past the end of each sequence, are counted as gaps.</p>
+ *
+ * <p>The counts are built once, when the statistics are first requested
+ * from the Dataset (see Dataset.getColumnStatistics); afterwards, they are
+ * updated incrementally by the Dataset whenever residues are inserted or
+ * deleted, or sequences are added or removed.</p>
+ *
+ * <p>An insertion or deletion shifts every residue after it, so the counts
+ * of each edited sequence are updated lazily.  The first edit to a sequence
+ * takes a snapshot of the residues counted for it, and marks the sequence as
+ * counted correctly only up to the column of the edit (later edits further
+ * along the sequence cost nothing).  When a column is queried, only the
+ * columns up to the one queried are brought up to date, by comparing each
+ * marked sequence with its snapshot (columns whose residue did not change,
+ * such as runs of gaps, are skipped).  Thus, typing in a sequence, while
+ * querying the column being edited, only updates the columns typed.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.Dataset#getColumnStatistics()
+ */
+public final class ColumnStatistics {
+
+    /**
+     * The number of residue symbols counted for each column (the letters A
+     * to Z, and one symbol shared by all other non-gap characters).
+     */
+    private static final int SYMBOLS = 27;
+    /**
+     * The symbol shared by all non-gap characters which are not letters.
+     */
+    private static final int OTHER = 26;
+    /**
+     * The symbol returned for gap characters (and for columns past the end of
+     * a sequence).  Gaps are not counted directly; instead, they are derived
+     * from the number of rows and the number of residues in each column.
+     */
+    private static final int GAP = -1;
+    /**
+     * The number of residues read from a sequence at a time.
+     */
+    private static final int CHUNK_SIZE = 4096;
+    /**
+     * The symbol of each ASCII character (the last entry holds the symbol of
+     * all non-ASCII characters).
+     */
+    private static final byte[] SYMBOL_TABLE = new byte[129];
+
+    static {
+        Arrays.fill(SYMBOL_TABLE, (byte) OTHER);
+        for (char c = 'A'; c <= 'Z'; c++) {
+            SYMBOL_TABLE[c] = (byte) (c - 'A');
+            SYMBOL_TABLE[Character.toLowerCase(c)] = (byte) (c - 'A');
+        }
+        for (char c : "-.~ \t\r\n".toCharArray()) {
+            SYMBOL_TABLE[c] = (byte) GAP;
+        }
+    }
+    /**
+     * The residue counts for each column (the count of symbol 's' within
+     * column 'c' is stored at index c * SYMBOLS + s).
+     */
+    private int[] counts = new int[0];
+    /**
+     * The number of residues (i.e. non-gap characters) in each column.
+     */
+    private int[] residues = new int[0];
+    /**
+     * The number of columns allocated within the count arrays.
+     */
+    private int columns = 0;
+    /**
+     * The number of rows (sequences) counted.
+     */
+    private int rows = 0;
+    /**
+     * The sequences whose counts are not up to date (see Pending).
+     */
+    private final Map<Seq, Pending> pending =
+            new IdentityHashMap<Seq, Pending>();
+    /**
+     * The first column whose counts may not be up to date (i.e. the lowest
+     * column of any pending sequence).
+     */
+    private int dirty = Integer.MAX_VALUE;
+    /**
+     * The buffers used to read residues from the sequences.
+     */
+    private final char[] chunk = new char[CHUNK_SIZE];
+    private final char[] replacement = new char[CHUNK_SIZE];
+
+    /**
+     * Creates a new statistics object, counting the residues of a collection
+     * of sequences.
+     **
+     * @param seqs the sequences to count.
+     */
+    ColumnStatistics(Collection<Seq> seqs) {
+        for (Seq seq : seqs) {
+            addRow(seq);
+        }
+    }
+
+///////////////
+//***********//
+//* QUERIES *//
+//***********//
+///////////////
+    /**
+     * Returns the number of rows (sequences) counted.
+     **
+     * @return the number of rows counted.
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Returns the width of the alignment (i.e. the number of columns up to,
+     * and including, the last column which contains a residue).
+     **
+     * @return the width of the alignment.
+     */
+    public int getWidth() {
+        // The width of the alignment.
+        int width;
+
+        resolve(Integer.MAX_VALUE);
+        width = columns;
+        while (width > 0 && residues[width - 1] == 0) {
+            width--;
+        }
+        return width;
+    }
+
+    /**
+     * Returns the number of residues (non-gap characters) within a column.
+     **
+     * @param  column the column to query.
+     * @return the number of residues within the column.
+     */
+    public int getResidueCount(int column) {
+        resolve(column);
+        return (column >= 0 && column < columns ? residues[column] : 0);
+    }
+
+    /**
+     * Returns the number of times a residue occurs within a column.  Letters
+     * are counted case-insensitively; all other non-gap characters share a
+     * single count.
+     **
+     * @param  column  the column to query.
+     * @param  residue the residue to count.
+     * @return the number of times the residue occurs within the column.
+     */
+    public int getCount(int column, char residue) {
+        // The symbol for the residue.
+        final int symbol = symbol(residue);
+
+        resolve(column);
+        return (column >= 0 && column < columns && symbol != GAP
+                ? counts[column * SYMBOLS + symbol] : 0);
+    }
+
+    /**
+     * Returns the fraction of the rows which have a gap within a column
+     * (including rows which are shorter than the column).
+     **
+     * @param  column the column to query.
+     * @return the gap fraction of the column (between 0 and 1).
+     */
+    public double getGapFraction(int column) {
+        return (rows > 0 ? 1.0 - ((double) getResidueCount(column)) / rows
+                : 0.0);
+    }
+
+    /**
+     * Returns the consensus residue of a column (the most frequent letter
+     * within the column, in upper case).  If the column contains no letters,
+     * a gap ('-') is returned.
+     **
+     * @param  column the column to query.
+     * @return the consensus residue of the column.
+     */
+    public char getConsensus(int column) {
+        // The symbol of the consensus residue.
+        final int symbol = consensusSymbol(column);
+
+        return (symbol != GAP ? (char) ('A' + symbol) : '-');
+    }
+
+    /**
+     * Returns the conservation of a column: the fraction of the residues
+     * within the column which match the consensus residue (gaps are not
+     * included).
+     **
+     * @param  column the column to query.
+     * @return the conservation of the column (between 0 and 1).
+     */
+    public double getConservation(int column) {
+        // The symbol of the consensus residue.
+        final int symbol = consensusSymbol(column);
+
+        return (symbol != GAP ? ((double) counts[column * SYMBOLS + symbol])
+                / residues[column] : 0.0);
+    }
+
+    /**
+     * Writes the statistics as a tab-delimited table (one line per column),
+     * for use by external programs.  Each line contains the column number
+     * (starting at 1), the consensus residue, the conservation, the gap
+     * fraction, and the count of each letter (A to Z) and of all other
+     * residues.
+     **
+     * @param  out         the destination to write the table to.
+     * @throws IOException if an error occurs while writing.
+     */
+    public void writeTable(Appendable out) throws IOException {
+        // The width of the alignment.
+        final int width = getWidth();
+
+        // Write the table header.
+        out.append("#column\tconsensus\tconservation\tgaps");
+        for (char c = 'A'; c <= 'Z'; c++) {
+            out.append('\t').append(c);
+        }
+        out.append("\tother\n");
+
+        // Write one line for each column.
+        for (int column = 0; column < width; column++) {
+            out.append(String.valueOf(column + 1)).append('\t')
+                    .append(getConsensus(column)).append('\t')
+                    .append(String.format("%.4f", getConservation(column)))
+                    .append('\t')
+                    .append(String.format("%.4f", getGapFraction(column)));
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                out.append('\t').append(String.valueOf(
+                        counts[column * SYMBOLS + symbol]));
+            }
+            out.append('\n');
+        }
+    }
+
+///////////////
+//***********//
+//* UPDATES *//
+//***********//
+///////////////
+    /**
+     * Counts the residues of a sequence added to the Dataset.
+     **
+     * @param seq the sequence added.
+     */
+    void addRow(Seq seq) {
+        count(seq.sequence, 0, Integer.MAX_VALUE, 1);
+        rows++;
+    }
+
+    /**
+     * Removes the residues of a sequence removed from the Dataset.
+     **
+     * @param seq the sequence removed.
+     */
+    void removeRow(Seq seq) {
+        // The pending edits to the sequence (if any).
+        final Pending edits = pending.remove(seq);
+
+        if (edits != null) {
+            count(seq.sequence, 0, edits.from, -1);
+            count(edits.counted, edits.from, Integer.MAX_VALUE, -1);
+        } else {
+            count(seq.sequence, 0, Integer.MAX_VALUE, -1);
+        }
+        rows--;
+    }
+
+    /**
+     * <p>Records an insertion or deletion within a sequence.  Edits must be
+     * reported before the residues are inserted or deleted.</p>
+     *
+     * <p>The counts are not updated immediately; instead, the sequence is
+     * marked as counted correctly only up to the column of the edit (see
+     * Pending), and the columns after the edit are updated when they are next
+     * queried.  If the sequence was already marked at or before the column,
+     * the edit costs nothing.</p>
+     **
+     * @param seq the sequence edited.
+     * @param x   the column of the edit.
+     */
+    void edit(Seq seq, int x) {
+        // The pending edits to the sequence (if any).
+        final Pending edits = pending.get(seq);
+
+        if (edits == null) {
+            pending.put(seq, new Pending(seq.sequence.snapshot(), x));
+        } else if (x < edits.from) {
+            // The columns between the edit and the column marked were
+            // brought up to date by a query; return them to the residues of
+            // the snapshot, which the mark refers to.
+            exchange(seq.sequence, edits.counted, x, edits.from);
+            edits.from = x;
+        }
+        dirty = Math.min(dirty, x);
+    }
+
+    /**
+     * Brings the counts of every column, up to and including a given column,
+     * up to date.
+     **
+     * @param column the last column to bring up to date.
+     */
+    private void resolve(int column) {
+        // The pending edits to the current sequence.
+        Pending edits;
+        // The iterator over the pending sequences.
+        Iterator<Map.Entry<Seq, Pending>> iterator;
+        // The current pending sequence.
+        Map.Entry<Seq, Pending> entry;
+        // The column after the last column of the current sequence (in
+        // either its counted or current residues).
+        int end;
+        // The column after the last column to bring up to date.
+        int stop;
+
+        if (column >= dirty) {
+            dirty = Integer.MAX_VALUE;
+            iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                entry = iterator.next();
+                edits = entry.getValue();
+                end = Math.max(edits.counted.length(),
+                        entry.getKey().sequence.length());
+                if (edits.from <= column) {
+                    stop = (column < end ? column + 1 : end);
+                    exchange(edits.counted, entry.getKey().sequence,
+                            edits.from, stop);
+                    edits.from = stop;
+                }
+                if (edits.from >= end) {
+                    iterator.remove();
+                } else {
+                    dirty = Math.min(dirty, edits.from);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the residues of one version of a sequence with those of
+     * another version, within a range of columns.  Columns whose residue is
+     * the same in both versions are skipped.
+     **
+     * @param remove the version of the sequence to subtract.
+     * @param add    the version of the sequence to add.
+     * @param start  the first column to update.
+     * @param end    the column after the last column to update.
+     */
+    private void exchange(CharSequence remove, CharSequence add, int start,
+            int end) {
+        // The number of columns read from the sequences at a time.
+        int amount;
+        // The number of residues available from each version in the current
+        // chunk (the columns past the end of a version are gaps).
+        int removed;
+        int added;
+        // The symbols of the residues in each version.
+        int before;
+        int after;
+
+        ensureColumns(Math.min(end, add.length()));
+        for (int column = start; column < end; column += amount) {
+            amount = Math.min(CHUNK_SIZE, end - column);
+            removed = Math.max(0, Math.min(amount, remove.length() - column));
+            added = Math.max(0, Math.min(amount, add.length() - column));
+            if (removed > 0) {
+                getChars(remove, column, column + removed, chunk);
+            }
+            if (added > 0) {
+                getChars(add, column, column + added, replacement);
+            }
+
+            for (int count = 0; count < amount; count++) {
+                before = (count < removed ? symbol(chunk[count]) : GAP);
+                after = (count < added ? symbol(replacement[count]) : GAP);
+
+                if (before != after) {
+                    adjust(column + count, before, -1);
+                    adjust(column + count, after, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds (or subtracts) the residues of a sequence, within a range of
+     * columns, to the counts.
+     **
+     * @param seq   the residues of the sequence.
+     * @param start the first column to count.
+     * @param end   the column after the last column to count.
+     * @param sign  1 to add the residues, or -1 to subtract them.
+     */
+    private void count(CharSequence seq, int start, int end, int sign) {
+        // The number of residues read from the sequence at a time.
+        int amount;
+
+        end = (seq != null ? Math.min(end, seq.length()) : 0);
+        ensureColumns(end);
+        for (int column = start; column < end; column += amount) {
+            amount = Math.min(CHUNK_SIZE, end - column);
+            getChars(seq, column, column + amount, chunk);
+            for (int count = 0; count < amount; count++) {
+                adjust(column + count, symbol(chunk[count]), sign);
+            }
+        }
+    }
+
+    /**
+     * Adjusts the count of a single symbol within a column.
+     **
+     * @param column the column to adjust.
+     * @param symbol the symbol to adjust (gaps are ignored).
+     * @param delta  the amount to adjust the count by.
+     */
+    private void adjust(int column, int symbol, int delta) {
+        if (symbol != GAP) {
+            counts[column * SYMBOLS + symbol] += delta;
+            residues[column] += delta;
+        }
+    }
+
+    /**
+     * Determines the symbol of the most frequent letter within a column.
+     **
+     * @param  column the column to query.
+     * @return the symbol of the most frequent letter (or GAP if the column
+     *         contains no letters).
+     */
+    private int consensusSymbol(int column) {
+        // The symbol of the most frequent letter.
+        int result = GAP;
+        // The count of the most frequent letter.
+        int best = 0;
+
+        resolve(column);
+        if (column >= 0 && column < columns) {
+            for (int symbol = 0; symbol < OTHER; symbol++) {
+                if (counts[column * SYMBOLS + symbol] > best) {
+                    best = counts[column * SYMBOLS + symbol];
+                    result = symbol;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ensures that the count arrays have room for a number of columns.
+     **
+     * @param size the number of columns required.
+     */
+    private void ensureColumns(int size) {
+        if (size > columns) {
+            size = Math.max(size, columns + (columns >> 1));
+            counts = Arrays.copyOf(counts, size * SYMBOLS);
+            residues = Arrays.copyOf(residues, size);
+            columns = size;
+        }
+    }
+
+    /**
+     * Returns the symbol of a character.
+     **
+     * @param  c the character.
+     * @return the symbol of the character (or GAP for gap characters).
+     */
+    private static int symbol(char c) {
+        return SYMBOL_TABLE[Math.min(c, SYMBOL_TABLE.length - 1)];
+    }
+
+    /**
+     * Copies a range of residues from a sequence into a buffer.
+     **
+     * @param seq   the sequence to copy from.
+     * @param start the position of the first residue to copy.
+     * @param end   the position after the last residue to copy.
+     * @param dst   the buffer to copy into.
+     */
+    private static void getChars(CharSequence seq, int start, int end,
+            char[] dst) {
+        if (seq instanceof SequenceBuffer) {
+            ((SequenceBuffer) seq).getChars(start, end, dst, 0);
+        } else {
+            for (int count = start; count < end; count++) {
+                dst[count - start] = seq.charAt(count);
+            }
+        }
+    }
+
+    /**
+     * <p>The pending edits to a sequence, whose counts are not up to date.</p>
+     *
+     * <p>The columns before 'from' count the sequence's current residues,
+     * and the columns from 'from' onwards count the residues of 'counted' (a
+     * snapshot of the sequence, taken before it was first edited).</p>
+     */
+    private static final class Pending {
+
+        /**
+         * The residues counted from 'from' onwards.
+         */
+        final SequenceBuffer counted;
+        /**
+         * The first column which counts the residues of 'counted'.
+         */
+        int from;
+
+        /**
+         * Records the pending edits to a sequence.
+         **
+         * @param counted the residues counted for the sequence.
+         * @param from    the first column which counts 'counted'.
+         */
+        Pending(SequenceBuffer counted, int from) {
+            this.counted = counted;
+            this.from = from;
+        }
+    }
+}
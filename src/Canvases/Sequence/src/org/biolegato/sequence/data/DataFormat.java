@@ -9,6 +9,10 @@
 package org.biolegato.sequence.data;
 
 import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.util.Scanner;
 import javax.swing.filechooser.FileFilter;
 
@@ -58,11 +62,53 @@ public abstract class DataFormat extends FileFilter {
      * and for general file translation
      */
     public static final DataFormat FASTA   = new FastAFile();
+    /**
+     * A static final object used for handling FASTQ files.
+     **
+     * This object is used for JOptionPane file chooser drop downs,
+     * and for general file translation
+     */
+    public static final DataFormat FASTQ   = new FastQFile();
+    /**
+     * A static final object used for handling indexed FastA files.
+     **
+     * This object is used for JOptionPane file chooser drop downs,
+     * and for general file translation
+     */
+    public static final DataFormat FASTAINDEX = new IndexedFastAFile();
+    /**
+     * A static final object used for handling UCSC 2bit files.
+     **
+     * This object is used for JOptionPane file chooser drop downs,
+     * and for general file translation
+     */
+    public static final DataFormat TWOBIT  = new TwoBitFile();
     /**
      * The list of available file formats
      */
     public static final DataFormat[] FORMAT_LIST = new DataFormat[]{
-        GENBANK, GDEFILE, GDEFLAT, FASTA
+        GENBANK, GDEFILE, GDEFLAT, FASTA, FASTQ, FASTAINDEX, TWOBIT
+    };
+    /**
+     * The maximum number of characters examined by autodetect.  Readers
+     * passed to autodetect must be able to push back at least this many
+     * characters.
+     */
+    public static final int SNIFF_SIZE = 4096;
+    /**
+     * The size of the output buffer used by the writers (convertTo).
+     */
+    static final int WRITE_BUFFER_SIZE = 8192;
+    /**
+     * The output buffer used by the writers (one buffer is kept for each
+     * thread, so sequences can be exported from several threads at once).
+     */
+    private static final ThreadLocal<char[]> WRITE_BUFFER
+            = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[WRITE_BUFFER_SIZE];
+        }
     };
 
     /**
@@ -178,6 +224,28 @@ public abstract class DataFormat extends FileFilter {
         }
     }
 
+    /**
+     * <p>Converts data from a reader in the given file format into the
+     * BioLegato internal format.</p>
+     *
+     * <p>This implementation wraps the reader in a Scanner object, and calls
+     * the Scanner version of convertFrom.  File formats with streaming parsers
+     * (e.g. FastA) override this method to parse the reader directly.</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Reader object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    public void convertFrom(Dataset datamodel, Reader data, int x, int y)
+                                                            throws IOException {
+        convertFrom(datamodel, new Scanner(data), x, y);
+    }
+
     /**
      * <p>Converts a single sequence from a scanner into BioLegato.</p>
      * <p>Please be sure to set the delimiter for the scanner object before
@@ -205,50 +273,219 @@ public abstract class DataFormat extends FileFilter {
 
     /**
      * <p>Used as part of the DataFormat auto-detection algorithm.  This method
-     *    tests if the data represented in a scanner can be parsed by the
-     *    current DataFormat object.</p>
-     * <p>Please be sure to set the delimiter for the scanner object before
-     *    using it.</p>
+     *    tests if the data represented by a prefix of the input can be parsed
+     *    by the current DataFormat object.</p>
+     * <p>The test should only examine the characters of the prefix (it must
+     *    not assume that the prefix contains the whole input, or even the
+     *    whole of the first line).</p>
      **
-     * @param  test the Scanner object to parse and determine if it contains
-     *              data which can be parsed by this DataFormat object.
-     * @throws IOException  returns any possible I/O exceptions
-     *                      (such as mark not supported)
+     * @param  prefix the first characters of the input (starting at the first
+     *                character which is not whitespace).
+     * @param  length the number of characters in the prefix.
      * @return whether the format can be parsed by this DataFormat object
      */
-    protected abstract boolean isFormat(Scanner test) throws IOException;
+    protected abstract boolean isFormat(char[] prefix, int length);
 
     /**
      * <p>Used to auto-detect file formats.</p>
-     * <p>Please be sure to set the delimiter for the scanner object before
-     *    using it.</p>
+     * <p>Any leading whitespace is skipped (it is consumed from the reader).
+     *    Then, at most SNIFF_SIZE characters are read into a buffer, tested by
+     *    each file format, and pushed back into the reader; thus, the reader
+     *    may be passed directly to the parser of the format detected.  The
+     *    cost of detection is the same regardless of the length of the lines
+     *    of the input.</p>
      **
-     * @param  data the string to detect the file format of.
-     * @return The resulting sequences.
+     * @param  data the reader to detect the file format of (this reader must
+     *              be able to push back at least SNIFF_SIZE characters).
+     * @return the file format detected (GDEFLAT, if no other format matches).
+     * @throws IOException  if the reader cannot be read.
      */
-    public static DataFormat autodetect(Scanner data) throws IOException {
+    public static DataFormat autodetect(PushbackReader data) throws IOException {
         DataFormat result = DataFormat.GDEFLAT;
-
-        // skip any leading whitespace
-        data.skip("[\\s\n\r]*");
+        // The buffer to read the prefix of the input into.
+        final char[] prefix = new char[SNIFF_SIZE];
+        // The number of characters in the prefix.
+        int length;
+        // The index of the first character in the prefix which is not
+        // whitespace.
+        int start;
 
         // ensure the data we are using is not null
         if (data != null) {
+            // skip any leading whitespace (one buffer at a time, so the amount
+            // of whitespace does not affect the amount of memory used).
+            do {
+                length = read(data, prefix);
+                start = 0;
+                while (start < length && Character.isWhitespace(prefix[start])) {
+                    start++;
+                }
+            } while (start == length && length == prefix.length);
+
+            // Read the prefix of the input, starting from the first character
+            // which is not whitespace.
+            data.unread(prefix, start, length - start);
+            length = read(data, prefix);
+
             // Iterate through all file formats.
             // (I just implemented this as a large if-statement because there
-            // are only four (4) file formats, and it is not expected that any
+            // are only a few file formats, and it is not expected that many
             // further formats will be added to BioLegato).
-            if (DataFormat.GENBANK.isFormat(data)) {
+            if (DataFormat.TWOBIT.isFormat(prefix, length)) {
+                result = DataFormat.TWOBIT;
+            } else if (DataFormat.GENBANK.isFormat(prefix, length)) {
                 result = DataFormat.GENBANK;
-            } else if (DataFormat.GDEFILE.isFormat(data)) {
+            } else if (DataFormat.GDEFILE.isFormat(prefix, length)) {
                 result = DataFormat.GDEFILE;
-            } else if (DataFormat.FASTA.isFormat(data)) {
+
+                // Skip any text before the first '{' character on the first
+                // line (as in previous versions of BioLegato).
+                start = 0;
+                while (prefix[start] != '{') {
+                    start++;
+                }
+            } else if (DataFormat.FASTA.isFormat(prefix, length)) {
                 result = DataFormat.FASTA;
+            } else if (DataFormat.FASTQ.isFormat(prefix, length)) {
+                result = DataFormat.FASTQ;
+            }
+
+            // Replay the prefix into the reader, for the parser.
+            if (result != DataFormat.GDEFILE) {
+                start = 0;
             }
+            data.unread(prefix, start, length - start);
         }
         return result;
     }
 
+    /**
+     * Reads characters from a reader until a buffer is full, or the end of
+     * the reader is reached.
+     **
+     * @param  in     the reader to read from.
+     * @param  buffer the buffer to read into.
+     * @return the number of characters read.
+     * @throws IOException  if the reader cannot be read.
+     */
+    private static int read(Reader in, char[] buffer) throws IOException {
+        // The total number of characters read.
+        int length = 0;
+        // The number of characters read by the last read operation.
+        int read = 0;
+
+        while (length < buffer.length && read >= 0) {
+            read = in.read(buffer, length, buffer.length - length);
+            if (read > 0) {
+                length += read;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the calling thread's output buffer.  The writers (convertTo)
+     * format their output into this buffer, rather than creating a String
+     * for each field or line, so exporting does not create any garbage.
+     **
+     * @return the output buffer for the current thread.
+     */
+    static char[] writeBuffer() {
+        return WRITE_BUFFER.get();
+    }
+
+    /**
+     * Writes characters from a buffer to an Appendable object, without
+     * creating any intermediate String objects (Writer and StringBuilder
+     * objects are written to directly).
+     **
+     * @param  out          the destination to write to.
+     * @param  buffer       the characters to write.
+     * @param  length       the number of characters to write.
+     * @throws IOException  if an error occurs while writing to the destination.
+     */
+    static void write(Appendable out, char[] buffer, int length)
+                                                        throws IOException {
+        if (out instanceof Writer) {
+            ((Writer) out).write(buffer, 0, length);
+        } else if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(buffer, 0, length);
+        } else {
+            out.append(CharBuffer.wrap(buffer, 0, length));
+        }
+    }
+
+    /**
+     * Writes part of a sequence to an Appendable object.  The residues are
+     * copied through the output buffer, one buffer at a time (rather than
+     * converting the whole range into a String).
+     **
+     * @param  out          the destination to write to.
+     * @param  sequence     the sequence to write.
+     * @param  start        the position of the first residue to write.
+     * @param  end          the position after the last residue to write.
+     * @throws IOException  if an error occurs while writing to the destination.
+     */
+    static void write(Appendable out, SequenceBuffer sequence, int start,
+                                            int end) throws IOException {
+        // The output buffer.
+        final char[] buffer = writeBuffer();
+        // The number of residues to copy into the buffer.
+        int amount;
+
+        while (start < end) {
+            amount = Math.min(end - start, buffer.length);
+            sequence.getChars(start, start + amount, buffer, 0);
+            write(out, buffer, amount);
+            start += amount;
+        }
+    }
+
+    /**
+     * Formats a number into a character array, right-aligned within a field
+     * of spaces (this is the same as String.format("%<width>d"), but without
+     * creating any objects).  If the number has more digits than the width
+     * of the field, the field is widened to fit the number.
+     **
+     * @param  value    the number to format.
+     * @param  width    the minimum width of the field.
+     * @param  buffer   the array to format the number into.
+     * @param  position the position in the array to start the field at.
+     * @return the position in the array after the end of the field.
+     */
+    static int formatNumber(long value, int width, char[] buffer,
+                                                            int position) {
+        // The magnitude of the number (negative, so Long.MIN_VALUE works).
+        long magnitude = (value < 0 ? value : -value);
+        // The number of characters needed for the number.
+        int digits = (value < 0 ? 2 : 1);
+        // The end of the field.
+        final int end;
+
+        // Count the digits in the number.
+        for (long rest = magnitude / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        end = position + Math.max(width, digits);
+
+        // Pad the field with spaces.
+        while (position < end - digits) {
+            buffer[position] = ' ';
+            position++;
+        }
+
+        // Write the sign, and then the digits (from right to left).
+        if (value < 0) {
+            buffer[position] = '-';
+            position++;
+        }
+        for (int index = end - 1; index >= position; index--) {
+            buffer[index] = (char) ('0' - (magnitude % 10));
+            magnitude /= 10;
+        }
+        return end;
+    }
+
 ////////////////////////
 //********************//
 //* STATIC FUNCTIONS *//
@@ -268,7 +505,7 @@ public abstract class DataFormat extends FileFilter {
 
         // Find the DataFormat object which corresponds to the hash name.
         // (I just implemented this as a large if-statement because there
-        // are only four (4) file formats, and it is not expected that any
+        // are only a few file formats, and it is not expected that many
         // further formats will be added to BioLegato).
         if ("genbank".equals(hashname)) {
             found = DataFormat.GENBANK;
@@ -276,6 +513,12 @@ public abstract class DataFormat extends FileFilter {
             found = DataFormat.GDEFILE;
         } else if ("fasta".equals(hashname)) {
             found = DataFormat.FASTA;
+        } else if ("fastq".equals(hashname)) {
+            found = DataFormat.FASTQ;
+        } else if ("faidx".equals(hashname)) {
+            found = DataFormat.FASTAINDEX;
+        } else if ("2bit".equals(hashname)) {
+            found = DataFormat.TWOBIT;
         }
         return found;
     }
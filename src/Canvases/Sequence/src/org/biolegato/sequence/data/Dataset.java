@@ -8,9 +8,12 @@
  */
 package org.biolegato.sequence.data;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,7 +36,8 @@ import org.biolegato.sequence.canvas.SequenceCanvas;
 public class Dataset extends AbstractListModel {
 
     /**
-     * The parent canvas for the Dataset sequence object container.
+     * The parent canvas for the Dataset sequence object container (null if the
+     * Dataset is not displayed by any canvas).
      */
     private SequenceCanvas canvas;
     /**
@@ -50,18 +54,109 @@ public class Dataset extends AbstractListModel {
      * Keeps track of the maximum groupID number in usage.  This is used to
      * ensure that there are no groupID number collisions.
      */
-    private static int maxGroup = 0;
+    private int maxGroup = 0;
     /**
      * The maximum number of groups to support.  The value of this variable sets
      * the group array size.
      */
     private final static int DEFAULT_MAX_GROUPS = 30;
     /**
-     * A pseudo-hash table (array) used to map all groups (by number) to the
-     * sequence objects which are in the group.  Each index in the array
-     * corresponds to a groupID number.
+     * A pseudo-hash table (list) used to map all groups (by number) to the
+     * sequence objects which are in the group.  Each index in the list
+     * corresponds to a groupID number (the entry is null if the group is not
+     * in use).  Each Dataset has its own groups; the
+     * line numbers of the sequences in a group are obtained from each
+     * sequence's 'row' field (which is kept current by the Dataset).
+     **
+     * @see org.biolegato.sequence.data.Seq#row
+     */
+    private final List<Set<Seq>> group2seq = new ArrayList<Set<Seq>>(
+            Collections.<Set<Seq>>nCopies(DEFAULT_MAX_GROUPS, null));
+    /**
+     * The minimum length of a sequence for its residues to be moved into the
+     * scratch file.  Shorter sequences are kept on the Java heap, because the
+     * space saved would not be worth the overhead.
+     */
+    private static final int SCRATCH_MIN_LENGTH = 4096;
+    /**
+     * The maximum number of sequences read from a file before they are added
+     * to the Dataset.  While a large file is read, the sequences are added in
+     * batches of this size (rather than all at once, when the file has been
+     * read), so they appear in the canvas as the file is read.
+     */
+    public static final int LOAD_BATCH = 1000;
+    /**
+     * The maximum amount of time (in milliseconds) to hold sequences read from
+     * a file before they are added to the Dataset (for files whose sequences
+     * are too large to fill a batch of LOAD_BATCH sequences quickly).
+     */
+    public static final int LOAD_DELAY = 100;
+    /**
+     * The memory-mapped scratch file used to store the residues of the
+     * sequences in the Dataset outside of the Java heap (null if all residues
+     * should be kept on the heap).  Only the sequence names, metadata, and
+     * recently edited residues are kept on the heap when the scratch file is
+     * in use.
+     **
+     * @see org.biolegato.sequence.data.Dataset#setScratchDirectory(java.io.File)
      */
-    private static Set<Seq>[] group2seq = new Set[DEFAULT_MAX_GROUPS];
+    private ScratchFile scratch = null;
+    /**
+     * The number of edit batches currently open (zero if no batch is open).
+     * While a batch is open, text changes are not reported to the canvas
+     * individually; instead, a single change event is fired for all of the
+     * rows modified, when the outermost batch is closed.
+     **
+     * @see org.biolegato.sequence.data.Dataset#beginEdit()
+     * @see org.biolegato.sequence.data.Dataset#endEdit()
+     */
+    private int batchDepth = 0;
+    /**
+     * The first row modified within the current edit batch (-1 if no rows
+     * have been modified).
+     */
+    private int batchFirst = -1;
+    /**
+     * The last row modified within the current edit batch (-1 if no rows
+     * have been modified).
+     */
+    private int batchLast = -1;
+    /**
+     * The number of text changes made within the current edit batch.
+     */
+    private int batchEdits = 0;
+    /**
+     * The column and length of the most recent text change made within the
+     * current edit batch.  If the batch only contains one change, it is
+     * reported to the canvas as an ordinary text length change when the batch
+     * is closed (this allows the canvas to shift the row on screen, rather than
+     * repainting it).
+     */
+    private int batchX = 0;
+    private int batchLength = 0;
+    /**
+     * The undo/redo history of the Dataset.
+     **
+     * @see org.biolegato.sequence.data.Dataset#undo()
+     * @see org.biolegato.sequence.data.Dataset#redo()
+     */
+    private final UndoJournal journal = new UndoJournal();
+    /**
+     * The per-column residue statistics for the Dataset (null until they are
+     * first requested; afterwards, they are kept up to date as the Dataset is
+     * modified).
+     **
+     * @see org.biolegato.sequence.data.Dataset#getColumnStatistics()
+     */
+    private ColumnStatistics statistics = null;
+    /**
+     * The number of modifications made to the Dataset.  This is incremented
+     * before the residues or rows of the Dataset are modified, so background
+     * readers (such as motif searches) may detect concurrent modifications.
+     **
+     * @see org.biolegato.sequence.data.MotifSearch
+     */
+    private volatile int modCount = 0;
 
     /**
      * Creates a new instance of the Dataset object.
@@ -73,6 +168,18 @@ public class Dataset extends AbstractListModel {
         this.canvas = canvas;
     }
 
+    /**
+     * Creates a new instance of the Dataset object, which is not associated
+     * with any sequence canvas.  Changes to the text of the Dataset are not
+     * reported to any canvas; thus, the Dataset may be used without a display
+     * (e.g. by the command-line format converter, see FormatConverter).
+     **
+     * @see org.biolegato.sequence.data.FormatConverter
+     */
+    public Dataset() {
+        this(null);
+    }
+
 ////////////////////////////////
 //****************************//
 //* DIRECT DATA MODIFICATION *//
@@ -98,7 +205,18 @@ public class Dataset extends AbstractListModel {
         // Ensure that the parameters passed to this function are appropriate.
         if (seq != null && y >= 0 && y <= getSize()) {
             // Insert the sequence and notify all listener methods.
+            modCount++;
+            spill(seq);
             lines.add(y, seq);
+            register(seq);
+            renumber(y);
+            if (statistics != null) {
+                statistics.addRow(seq);
+            }
+            if (journal.isRecording()) {
+                journal.record(new UndoJournal.AddRows(y,
+                        Collections.singletonList(seq)));
+            }
             fireIntervalAdded(this, y, y);
             result = true;
         }
@@ -138,6 +256,9 @@ public class Dataset extends AbstractListModel {
             int length, boolean protect) {
         Seq current;
         boolean result = false;
+        // The column where the text is actually inserted (text inserted past
+        // the end of the sequence is appended to the sequence).
+        int position;
 
         // Ensure that the parameters passed to this function are appropriate.
         // (Particularly the Y-coordinate/line offset, and the sequence text.)
@@ -147,18 +268,39 @@ public class Dataset extends AbstractListModel {
             // Check the sequence's protection settings if
             if (!protect || !Dataset.isProtectionsOn(current.type,
                     current.protect_align, current.protect_ambig,
-                    current.protect_unambig, text, 0, text.length)) {
+                    current.protect_unambig, text, offset, offset + length)) {
                 // BRANCH
                 // if we are at the end of the sequence, we are appending
                 // characters to the sequence; otherwise, we are inserting
                 // characters.  This branch mainly has to do with performance
                 // and avoiding possible exceptions.
+                position = Math.min(x, current.sequence.length());
+
+                // Update the column statistics (if they are in use).  This is
+                // done before the insertion, so the statistics can keep the
+                // residues counted before the edit.
+                if (statistics != null) {
+                    statistics.edit(current, position);
+                }
+                modCount++;
                 if (current.sequence.length() > x) {
                     current.sequence.insert(x, text, offset, length);
                 } else {
                     current.sequence.append(text, offset, length);
                 }
 
+                // Keep the quality scores (if any) parallel to the residues;
+                // the residues inserted have no quality scores.
+                if (current.quality != null) {
+                    current.quality.insert(position, null, 0, length);
+                }
+
+                // Record the insertion in the undo history.
+                if (journal.isRecording()) {
+                    journal.record(new UndoJournal.Insert(position, y,
+                            Arrays.copyOfRange(text, offset, offset + length)));
+                }
+
                 // Deletes GenBank original copies of the sequence
                 // this is because we are modifying the sequence, so we do not
                 // want the original sequence to be exported
@@ -166,7 +308,8 @@ public class Dataset extends AbstractListModel {
 
                 // Call the canvas and notify it that the sequence length has
                 // changed.  This is essential for repainting the text area.
-                SequenceCanvas.textLengthChanged(x, y, text.length);
+                textChanged(position, y, length);
+                result = true;
             }
         }
         return result;
@@ -201,6 +344,9 @@ public class Dataset extends AbstractListModel {
     public boolean delete(int x, int y, int length, boolean protect) {
         Seq curr;
         char[] text = null;
+        // The quality scores of the residues deleted (recorded in the undo
+        // history, if the sequence has quality scores).
+        byte[] scores = null;
         final int xend = x + length;
         boolean pseq   = false;
         boolean result = false;
@@ -220,23 +366,38 @@ public class Dataset extends AbstractListModel {
             if (xend <= curr.sequence.length()) {
                 // do any character protection tests (if necessary)
                 // to ensure that we are not deleting any protected characters
+                // (the characters are tested within the sequence's buffer, so
+                // they do not need to be extracted).
                 if (protect) {
-                    // Create an array of the characters to be deleted.  This
-                    // array will be used to test characters for protection
-                    // status.
-                    text = new char[length];
-                    curr.sequence.getChars(x, xend, text, 0);
-
-                    // test protection status
-                    pseq = isProtectionsOn(curr.type, curr.protect_align,
-                        curr.protect_ambig,
-                        curr.protect_unambig, text, 0, xend + 1);
+                    pseq = isProtectionsOn(curr, x, xend);
                 }
 
                 // if the characters deleted from the sequence are
                 // not protected, then delete them.
                 if (!pseq) {
+                    // Record the deletion in the undo history.
+                    if (journal.isRecording()) {
+                        text = new char[length];
+                        curr.sequence.getChars(x, xend, text, 0);
+                        if (curr.quality != null) {
+                            scores = new byte[length];
+                            curr.quality.getScores(x, xend, scores, 0);
+                        }
+                        journal.record(new UndoJournal.Delete(x, y, text,
+                                scores));
+                    }
+
+                    // Update the column statistics (if they are in use).
+                    // This is done before the deletion, so the statistics can
+                    // keep the residues counted before the edit.
+                    if (statistics != null) {
+                        statistics.edit(curr, x);
+                    }
+                    modCount++;
                     curr.sequence.delete(x, x + length);
+                    if (curr.quality != null) {
+                        curr.quality.delete(x, xend);
+                    }
 
                     // Deletes GenBank original copies of the sequence
                     // this is because we are modifying the sequence, so we do
@@ -247,7 +408,7 @@ public class Dataset extends AbstractListModel {
                     // has changed (+ a positive length indicates an insertion;
                     // - a negative length indicates a deletion) hence we negate
                     // the length.
-                    SequenceCanvas.textLengthChanged(x, y, 0 - length);
+                    textChanged(x, y, 0 - length);
                     result = true;
                 }
             }
@@ -280,14 +441,143 @@ public class Dataset extends AbstractListModel {
         // ensure that the parameters are appropriate
         if (seqs != null && seqs.size() > 0 && y >= 0 && y <= getSize()) {
             // insert the sequences and notify all listener methods.
+            modCount++;
+            for (Seq seq : seqs) {
+                spill(seq);
+            }
             result = lines.addAll(y, seqs);
             if (result) {
+                for (Seq seq : seqs) {
+                    register(seq);
+                    if (statistics != null) {
+                        statistics.addRow(seq);
+                    }
+                }
+                renumber(y);
+                if (journal.isRecording()) {
+                    journal.record(new UndoJournal.AddRows(y, seqs));
+                }
                 fireIntervalAdded(this, y, y + seqs.size() - 1);
             }
         }
         return result;
     }
 
+    /**
+     * Moves all of the sequences from another Dataset object into this Dataset
+     * (e.g. a batch of sequences which was read into a private Dataset on a
+     * worker thread).  The sequences are added, as a single batch, by
+     * addSequences; the other Dataset should not be used afterwards.
+     **
+     * @param  y     the line index number to insert the sequences at.
+     * @param  batch the Dataset containing the sequences to add.
+     * @return true if the insertion was successful, otherwise false.
+     */
+    public boolean addAll(int y, Dataset batch) {
+        return addSequences(y, Arrays.asList(batch.toArray()));
+    }
+
+    /**
+     * Inserts a batch of parsed sequences (e.g. sequences pasted into the
+     * canvas) into the Dataset, as the data format parsers do.  The residues of
+     * each sequence whose line number is within the Dataset are inserted into
+     * the existing sequence at the X-coordinate specified (obeying the existing
+     * sequence's protections); if the existing sequence has quality scores, the
+     * inserted residues are given the parsed sequence's quality scores.  All
+     * other sequences are added to the end of the Dataset, with a single
+     * addSequences call.
+     **
+     * @param  x    the X-coordinate (character offset) to insert the residues
+     *              of the sequences at.
+     * @param  y    the line number of the first sequence in the batch.
+     * @param  seqs the sequences to insert.
+     */
+    public void insertSequences(int x, int y, List<Seq> seqs) {
+        // The sequences to add to the end of the Dataset.
+        final List<Seq> added = new ArrayList<Seq>();
+
+        for (Seq seq : seqs) {
+            if (y < getSize()) {
+                insertSequence(x, y, seq);
+            } else {
+                added.add(seq);
+            }
+            y++;
+        }
+
+        // Add the remaining sequences to the end of the Dataset at once.
+        if (!added.isEmpty()) {
+            addSequences(getSize(), added);
+        }
+    }
+
+    /**
+     * Inserts the residues of a parsed sequence into an existing sequence in
+     * the Dataset (obeying the existing sequence's protections).  If the
+     * existing sequence has quality scores, the quality scores of the parsed
+     * sequence replace the UNKNOWN scores given to the residues inserted.
+     * This is shared by insertSequences and the data format parsers.
+     **
+     * @param  x    the X-coordinate (character offset) to insert the residues
+     *              at.
+     * @param  y    the Y-coordinate (line) of the existing sequence.
+     * @param  seq  the parsed sequence.
+     * @return true if the insertion was successful, otherwise false.
+     */
+    boolean insertSequence(int x, int y, Seq seq) {
+        // The residues to insert.
+        final char[] text = new char[seq.sequence.length()];
+        // The quality scores of the residues inserted.
+        byte[] scores;
+        // Whether the residues were inserted.
+        final boolean result;
+
+        seq.sequence.getChars(0, text.length, text, 0);
+        result = insert(x, y, text, 0, text.length, true);
+
+        // Text inserted past the end of the sequence is appended, so the
+        // scores are placed before the end of the sequence.
+        if (result && seq.quality != null) {
+            scores = new byte[seq.quality.length()];
+            seq.quality.getScores(0, scores.length, scores, 0);
+            setQuality(Math.min(x, getSequenceLength(y) - text.length), y,
+                    scores);
+        }
+        return result;
+    }
+
+    /**
+     * Takes a snapshot of a set of sequences in the Dataset (e.g. for copying
+     * the sequences to the clipboard).  The snapshot is a new Dataset object,
+     * containing a snapshot of each sequence (see Seq.snapshot), in the order
+     * given; the snapshot is not affected by later edits to this Dataset.  Only
+     * the piece table of each sequence's residues is copied, so a snapshot of
+     * very long sequences may be taken on the Swing event thread.  The
+     * snapshot Dataset should not be edited.
+     **
+     * @param  rows the line numbers of the sequences (invalid line numbers
+     *              are skipped).
+     * @return the snapshot Dataset.
+     */
+    public Dataset snapshot(int[] rows) {
+        // The snapshot Dataset.
+        final Dataset result = new Dataset();
+        // The snapshots of the sequences.
+        final List<Seq> seqs = new ArrayList<Seq>(rows.length);
+        // The current sequence.
+        Seq seq;
+
+        for (int row : rows) {
+            seq = getLine(row);
+            if (seq != null) {
+                seqs.add(seq.snapshot());
+            }
+        }
+        result.setUndoLimit(0);
+        result.addSequences(0, seqs);
+        return result;
+    }
+
     /**
      * Removes multiple sequences from the Dataset sequence object container.
      **
@@ -302,6 +592,9 @@ public class Dataset extends AbstractListModel {
         // we are currently exploring within the line numbers array.
         int low_idx = high_idx;
 
+        // The sequences removed (recorded in the undo history).
+        Seq[] removed;
+
         // Sort the Y-coordinate values/line numbers.  This is done so we can
         // iterate backwards through a sorted list.  This will be explained
         // below.
@@ -309,6 +602,25 @@ public class Dataset extends AbstractListModel {
 
         // Ensure that there are height to delete.
         if (!lines.isEmpty() && indices != null) {
+            modCount++;
+
+            // Record the removal in the undo history.
+            if (journal.isRecording()) {
+                removed = new Seq[indices.length];
+                for (int count = 0; count < indices.length; count++) {
+                    removed[count] = lines.get(indices[count]);
+                }
+                journal.record(new UndoJournal.RemoveRows(indices.clone(),
+                        removed));
+            }
+
+            // Remove the sequences from the column statistics.
+            if (statistics != null) {
+                for (int y : indices) {
+                    statistics.removeRow(lines.get(y));
+                }
+            }
+
             // Iterate backwards through each sequence y number and delete it
             // this ensures that when deleting a line number, other line number
             // indices will not change when deleting.
@@ -387,15 +699,416 @@ public class Dataset extends AbstractListModel {
                 fireIntervalRemoved(this, indices[low_idx], indices[high_idx]);
                 low_idx--;
             }
+
+            // Update the row numbers of the sequences after the first
+            // sequence removed.
+            if (indices.length > 0) {
+                renumber(indices[0]);
+            }
+        }
+    }
+
+    /**
+     * <p>Moves the residues of all of the sequences in the Dataset (and any
+     * sequences added afterwards) into a memory-mapped scratch file.  This
+     * allows alignments larger than the Java heap to be opened; only the
+     * portions of the scratch file which are read (e.g. the rows and columns
+     * visible in the sequence text area) are paged into memory.</p>
+     *
+     * <p>Please note that the scratch file is deleted when the Dataset is
+     * closed (see close), or when BioLegato exits.</p>
+     **
+     * @param  directory   the directory to create the scratch file in.
+     * @throws IOException if the scratch file could not be created.
+     */
+    public void setScratchDirectory(File directory) throws IOException {
+        if (scratch == null) {
+            scratch = new ScratchFile(directory);
+
+            // Move the residues of the sequences already in the Dataset.
+            for (Seq seq : lines) {
+                spill(seq);
+            }
+        }
+    }
+
+    /**
+     * Releases the resources held by the Dataset (i.e. closes and deletes the
+     * scratch file, if the Dataset is using one).  This should be called when
+     * the Dataset is no longer needed (e.g. when its canvas is closed); the
+     * sequences in the Dataset must not be read afterwards.
+     */
+    public void close() {
+        if (scratch != null) {
+            scratch.close();
+            scratch = null;
+        }
+    }
+
+    /**
+     * Moves the residues of a sequence into the scratch file, if the Dataset
+     * is using a scratch file, and the sequence is long enough to warrant it.
+     **
+     * @param seq the sequence to move into the scratch file.
+     */
+    private void spill(Seq seq) {
+        if (scratch != null && seq.sequence != null
+                && seq.sequence.length() >= SCRATCH_MIN_LENGTH) {
+            seq.sequence.spill(scratch);
+        }
+    }
+
+/////////////////////
+//*****************//
+//* BATCH EDITING *//
+//*****************//
+/////////////////////
+    /**
+     * <p>Opens an edit batch.  Until the batch is closed (by calling endEdit),
+     * text insertions and deletions are not reported to the sequence canvas
+     * one at a time; instead, the Dataset records the range of rows modified,
+     * and fires a single change event for the range when the batch is closed.
+     * Thus, an edit spanning thousands of rows (such as inserting a gap into
+     * a column of an alignment) causes one repaint, rather than thousands.
+     * </p>
+     *
+     * <p>Batches may be nested; the change event is only fired when the
+     * outermost batch is closed.  Every call to beginEdit must be matched by a
+     * call to endEdit (preferably within a finally block).</p>
+     *
+     * <p>All of the modifications made within the batch are undone as a
+     * single step.</p>
+     **
+     * @see org.biolegato.sequence.data.Dataset#endEdit()
+     */
+    public void beginEdit() {
+        beginEdit(false);
+    }
+
+    /**
+     * Opens an edit batch, which may be merged with the previous step in the
+     * undo history.  This is used for typing, so that consecutive keystrokes
+     * (e.g. a word typed into a sequence, or a run of backspaces) are undone
+     * as one step, rather than one character at a time.  The batch is only
+     * merged if it continues the previous step (e.g. the text is inserted
+     * immediately after the text inserted by the previous keystroke).
+     **
+     * @param coalesce whether the batch may be merged with the previous step
+     *                 in the undo history.
+     * @see org.biolegato.sequence.data.Dataset#beginEdit()
+     */
+    public void beginEdit(boolean coalesce) {
+        batchDepth++;
+        journal.begin(coalesce);
+    }
+
+    /**
+     * Opens an edit batch belonging to an undo step, so the batch is undone
+     * together with the other batches of the step (see newUndoStep).
+     **
+     * @param step the ID of the undo step (obtained from newUndoStep).
+     * @see org.biolegato.sequence.data.Dataset#newUndoStep()
+     */
+    public void beginEdit(int step) {
+        batchDepth++;
+        journal.begin(false, step);
+    }
+
+    /**
+     * Closes an edit batch.  If this closes the outermost batch, a single
+     * change event is fired for all of the rows modified within the batch.
+     **
+     * @see org.biolegato.sequence.data.Dataset#beginEdit()
+     */
+    public void endEdit() {
+        // The range of rows modified within the batch.
+        final int first = batchFirst;
+        final int last = batchLast;
+
+        if (batchDepth > 0) {
+            batchDepth--;
+            journal.end();
+
+            // Fire the coalesced change event (the range is reset first, in
+            // case a listener modifies the Dataset).
+            if (batchDepth == 0 && first >= 0) {
+                batchFirst = -1;
+                batchLast = -1;
+                if (batchEdits == 1) {
+                    batchEdits = 0;
+                    lengthChanged(batchX, first, batchLength);
+                } else {
+                    batchEdits = 0;
+                    fireContentsChanged(this, first,
+                            Math.min(last, getSize() - 1));
+                }
+            }
         }
     }
 
+    /**
+     * <p>Inserts the same text into multiple sequences, within a single edit
+     * batch (so only one change event is fired for all of the rows).</p>
+     *
+     * <p>Because the same text is inserted into every row, the protection
+     * test only depends on each sequence's type and protection settings.
+     * Thus, the text is tested once for each distinct combination of type and
+     * protection settings, rather than once for every row.</p>
+     **
+     * @param x       the X-coordinate to insert the sequence text.
+     * @param rows    the Y-coordinates of the sequences to insert the text into.
+     * @param text    the sequence text to insert.
+     * @param offset  the offset within the array to insert.
+     * @param length  the length in characters of data from the array to insert.
+     * @param protect whether to test the protections of the sequences, already
+     *                in the Dataset, before inserting the text.
+     * @return true if the text was inserted into at least one sequence.
+     * @see org.biolegato.sequence.data.Dataset#insert(int, int, char[], int, int, boolean)
+     */
+    public boolean insert(int x, int[] rows, char[] text, int offset,
+            int length, boolean protect) {
+        // The protection test results for each combination of sequence type
+        // and protection settings (null if the combination is not yet tested).
+        final Boolean[] tested = new Boolean[Seq.Type.values().length * 8];
+        // The current sequence to insert the text into.
+        Seq current;
+        // The index of the current sequence's combination of type and
+        // protection settings within the 'tested' array.
+        int key = 0;
+        // Whether any of the insertions were successful.
+        boolean result = false;
+
+        if (text != null && rows != null) {
+            beginEdit();
+            try {
+                for (int y : rows) {
+                    current = getLine(y);
+
+                    if (current != null) {
+                        // Test the protections for the sequence (reusing the
+                        // result for any previous sequence with the same type
+                        // and protection settings).
+                        if (protect) {
+                            key = current.type.ordinal() * 8
+                                    + (current.protect_align   ? 4 : 0)
+                                    + (current.protect_ambig   ? 2 : 0)
+                                    + (current.protect_unambig ? 1 : 0);
+                            if (tested[key] == null) {
+                                tested[key] = Boolean.valueOf(isProtectionsOn(
+                                        current.type, current.protect_align,
+                                        current.protect_ambig,
+                                        current.protect_unambig, text,
+                                        offset, offset + length));
+                            }
+                        }
+
+                        // Insert the text if it is not protected.
+                        if (!protect || !tested[key].booleanValue()) {
+                            insert(x, y, text, offset, length, false);
+                            result = true;
+                        }
+                    }
+                }
+            } finally {
+                endEdit();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deletes the same range of columns from multiple sequences, within a
+     * single edit batch (so only one change event is fired for all of the
+     * rows).
+     **
+     * @param x       the X-coordinate to begin the the sequence text deletion.
+     * @param rows    the Y-coordinates of the sequences to delete text from.
+     * @param length  is the length (number of characters) of text to delete.
+     * @param protect whether to test the protections of the sequences, already
+     *                in the Dataset, before deleting the text.
+     * @return true if the deletion was successful for at least one sequence.
+     * @see org.biolegato.sequence.data.Dataset#delete(int, int, int, boolean)
+     */
+    public boolean delete(int x, int[] rows, int length, boolean protect) {
+        // Whether any of the deletions were successful.
+        boolean result = false;
+
+        if (rows != null) {
+            beginEdit();
+            try {
+                for (int y : rows) {
+                    result |= delete(x, y, length, protect);
+                }
+            } finally {
+                endEdit();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Notifies the sequence canvas that the length of a sequence has changed.
+     * If an edit batch is open, the row is instead added to the range of rows
+     * to report when the batch is closed.
+     **
+     * @param x      the X-coordinate (column) where the change occurred.
+     * @param y      the Y-coordinate (row) where the change occurred.
+     * @param length the change in length (negative for deletions).
+     */
+    private void textChanged(int x, int y, int length) {
+        if (batchDepth > 0) {
+            batchFirst = (batchFirst < 0 ? y : Math.min(batchFirst, y));
+            batchLast = Math.max(batchLast, y);
+            batchX = x;
+            batchLength = length;
+            batchEdits++;
+        } else {
+            lengthChanged(x, y, length);
+        }
+    }
+
+    /**
+     * Reports a change in the length of a sequence to the canvas (if any),
+     * so the text area can shift the rest of the row on screen.
+     **
+     * @param x      the X-coordinate (column) where the change occurred.
+     * @param y      the Y-coordinate (row) where the change occurred.
+     * @param length the change in length (negative for deletions).
+     */
+    void lengthChanged(int x, int y, int length) {
+        if (canvas != null) {
+            SequenceCanvas.textLengthChanged(x, y, length);
+        }
+    }
+
+/////////////////////
+//*****************//
+//* UNDO AND REDO *//
+//*****************//
+/////////////////////
+    /**
+     * Undoes the most recent modification (or edit batch) made to the
+     * Dataset.  Undo is not available while an edit batch is open.
+     **
+     * @return whether there was a modification to undo.
+     */
+    public boolean undo() {
+        return replay(false);
+    }
+
+    /**
+     * Redoes the most recently undone modification (or edit batch).  The
+     * redo history is cleared whenever a new modification is made.
+     **
+     * @return whether there was a modification to redo.
+     */
+    public boolean redo() {
+        return replay(true);
+    }
+
+    /**
+     * Sets the maximum amount of memory the undo history may use.  When the
+     * history exceeds this limit, the oldest steps are discarded.
+     **
+     * @param bytes the maximum size of the undo history, in bytes (zero
+     *              disables undo).
+     */
+    public void setUndoLimit(long bytes) {
+        journal.setLimit(bytes);
+    }
+
+    /**
+     * <p>Starts loading sequences into the Dataset (e.g. reading a file).
+     * Until the matching call to endLoad, the sequences added are not recorded
+     * in the undo history.  Loading a file is not an edit; recording it would
+     * only let the user undo the load, and would keep every sequence loaded
+     * in the undo history once it was undone.</p>
+     *
+     * <p>Sequences may only be added to the end of the Dataset while loading
+     * (so the rows of the steps already in the undo history are unaffected).
+     * Every call to beginLoad must be matched by a call to endLoad (preferably
+     * within a finally block).</p>
+     **
+     * @see org.biolegato.sequence.data.Dataset#endLoad()
+     */
+    public void beginLoad() {
+        journal.beginLoad();
+    }
+
+    /**
+     * Ends loading sequences into the Dataset (see beginLoad).
+     **
+     * @see org.biolegato.sequence.data.Dataset#beginLoad()
+     */
+    public void endLoad() {
+        journal.endLoad();
+    }
+
+    /**
+     * <p>Creates a new step in the undo history which may span several edit
+     * batches (e.g. a paste, whose sequences are inserted in batches as they
+     * are parsed in the background).  Each batch of the step is opened by
+     * passing the step's ID to beginEdit.</p>
+     *
+     * <p>Each batch is recorded in the undo history as soon as it is closed,
+     * so the user may keep editing (and may undo or redo) between the
+     * batches; however, a batch which directly follows another batch of the
+     * same step in the undo history is merged into it, so all of the batches
+     * are undone as a single step.  An edit made between two batches is never
+     * merged into the step (the step is split around it instead).</p>
+     **
+     * @return the ID of the new undo step.
+     * @see org.biolegato.sequence.data.Dataset#beginEdit(int)
+     */
+    public int newUndoStep() {
+        return journal.newStep();
+    }
+
+    /**
+     * Undoes or redoes a step from the undo history, within a single edit
+     * batch (so only one change event is fired).
+     **
+     * @param  forward true to redo a step, false to undo a step.
+     * @return whether there was a step to undo or redo.
+     */
+    private boolean replay(boolean forward) {
+        // Whether there was a step to undo or redo.
+        boolean result = false;
+
+        if (batchDepth == 0) {
+            journal.setReplaying(true);
+            beginEdit();
+            try {
+                result = (forward ? journal.redo(this) : journal.undo(this));
+            } finally {
+                endEdit();
+                journal.setReplaying(false);
+            }
+        }
+        return result;
+    }
+
 //////////////////////
 //******************//
 //* DATA RETRIEVAL *//
 //******************//
 //////////////////////
 
+    /**
+     * Returns the per-column residue statistics for the Dataset.  The
+     * statistics are built the first time this method is called (which reads
+     * every residue in the Dataset); afterwards, they are updated
+     * incrementally as the Dataset is modified, so repeated calls are cheap.
+     **
+     * @return the column statistics for the Dataset.
+     */
+    public ColumnStatistics getColumnStatistics() {
+        if (statistics == null) {
+            statistics = new ColumnStatistics(lines);
+        }
+        return statistics;
+    }
+
     /**
      * Returns a count of the total number of sequences (lines) in the Dataset
      * sequence object container.
@@ -443,6 +1156,8 @@ public class Dataset extends AbstractListModel {
      * Y-coordinate.  If the Y-coordinate value is invalid, the DEFAULT_MASK
      * object is returned instead.  Invalid Y-coordinates are values which
      * exceed the total number of sequences in the Dataset, or negative values.
+     * (If the Dataset is not associated with a canvas, null is returned for
+     * invalid Y-coordinates.)
      **
      * @param  number the line number to retrieve the colour mask for.
      * @return the colour mask for the given sequence.
@@ -450,8 +1165,15 @@ public class Dataset extends AbstractListModel {
      */
     public ColourMask getMask(final int number) {
         Seq current = getLine(number);
+        // The colour mask for the sequence.
+        ColourMask result = null;
 
-        return (current != null ? current.mask : canvas.DEFAULT_MASK);
+        if (current != null) {
+            result = current.mask;
+        } else if (canvas != null) {
+            result = canvas.DEFAULT_MASK;
+        }
+        return result;
     }
 
     /**
@@ -508,6 +1230,56 @@ public class Dataset extends AbstractListModel {
         return endpos - offset;
     }
 
+    /**
+     * <p>Retrieves the quality scores of a sequence object in the Dataset (see
+     * getSequence).  If the sequence has no quality scores (e.g. it was not
+     * read from a FASTQ file), or the Y-coordinate or offset values are
+     * invalid, no scores are extracted.</p>
+     **
+     * @param  array  the destination for the scores to be copied to.
+     * @param  number the sequence "line number"/Y-coordinate to extract data.
+     * @param  offset the offset within the sequence to begin copying from.
+     * @param  length the number of scores to attempt to copy.
+     * @return the number of scores actually copied.
+     * @see org.biolegato.sequence.data.QualityScores
+     */
+    public int getQuality(byte[] array, int number, int offset, int length) {
+        // The position within the sequence to end the score extraction.
+        int endpos  = offset;
+        // The sequence object to extract the scores from.
+        Seq current = getLine(number);
+
+        if (array != null && current != null && current.quality != null
+                && offset >= 0 && length > 0) {
+            endpos = Math.max(offset,
+                    Math.min(current.quality.length(), offset + length));
+
+            // Extract the scores from the sequence.
+            if (endpos - offset > 0) {
+                current.quality.getScores(offset, endpos, array, 0);
+            }
+        }
+        return endpos - offset;
+    }
+
+    /**
+     * Replaces the quality scores of a range of residues in a sequence (e.g.
+     * to restore the scores of residues which were deleted, and re-inserted
+     * by an undo).  Sequences without quality scores are not affected.
+     **
+     * @param x      the X-coordinate of the first score to replace.
+     * @param y      the Y-coordinate of the sequence.
+     * @param scores the new quality scores.
+     */
+    void setQuality(int x, int y, byte[] scores) {
+        // The sequence to modify.
+        final Seq current = getLine(y);
+
+        if (current != null && current.quality != null) {
+            current.quality.set(x, scores);
+        }
+    }
+
     /**
      * Called when a field in a sequence is modified.  This method is currently
      * called from within the Dataset class, and by the SequenceWindow class.
@@ -521,6 +1293,28 @@ public class Dataset extends AbstractListModel {
         fireContentsChanged(this, index, index);
     }
 
+    /**
+     * Returns the number of modifications made to the Dataset.  If this number
+     * changes, the residues or rows of the Dataset have been modified (e.g.
+     * any positions obtained from the Dataset may no longer be valid).
+     **
+     * @return the current modification count.
+     */
+    public int getModificationCount() {
+        return modCount;
+    }
+
+    /**
+     * Copies the sequence objects of the Dataset into an array (ordered by
+     * row).  This allows the sequences to be read by other threads, without
+     * accessing the Dataset's row list.
+     **
+     * @return an array containing every sequence in the Dataset.
+     */
+    Seq[] toArray() {
+        return lines.toArray(new Seq[lines.size()]);
+    }
+
 ///////////////
 //***********//
 //* GENERAL *//
@@ -540,25 +1334,27 @@ public class Dataset extends AbstractListModel {
     public void group(int[] sequences) {
         Seq seq;
         int maxGroupStart = maxGroup;
+        // The group IDs of the sequences before grouping (for undo).
+        final int[] before = groupIDs(sequences);
 
         // Ensure that there is an entry in group2seq to add the sequence to.
-        while (group2seq[maxGroup] != null) {
+        while (group2seq.get(maxGroup) != null) {
             // Increase the new group number pointer.
             maxGroup++;
-            maxGroup %= (group2seq.length - 1); // ensures wraparound
+            maxGroup %= (group2seq.size() - 1); // ensures wraparound
             
             // Should virtually never be run (except if someone is using a lot
-            // of groups).  This code increases the maximum number of groups.
+            // of groups).  This code increases the maximum number of groups,
+            // and uses the first of the new entries.
             if (maxGroup == maxGroupStart) {
-                Set<Seq>[] tmp = new Set[group2seq.length + DEFAULT_MAX_GROUPS];
-                System.arraycopy(group2seq, 0, tmp, 0, group2seq.length);
-                group2seq = tmp;
+                maxGroup = group2seq.size();
+                growGroups(group2seq.size() + DEFAULT_MAX_GROUPS);
                 break;
             }
         }
 
         // Create a new hash set to house the groups.
-        group2seq[maxGroup] = new HashSet<Seq>();
+        group2seq.set(maxGroup, new HashSet<Seq>());
 
         // TODO: Collections.sort();
 
@@ -574,10 +1370,16 @@ public class Dataset extends AbstractListModel {
             seq.groupID = maxGroup + 1;
 
             // Fire a sequence change event to all of the listeners.
-            sequenceChanged(lines.indexOf(seq));
+            sequenceChanged(y);
 
             // Add the sequence to the group2sequence translation hash table.
-            group2seq[maxGroup].add(seq);
+            group2seq.get(maxGroup).add(seq);
+        }
+
+        // Record the grouping in the undo history.
+        if (before != null) {
+            journal.record(new UndoJournal.Regroup(sequences.clone(), before,
+                    groupIDs(sequences)));
         }
     }
 
@@ -591,6 +1393,8 @@ public class Dataset extends AbstractListModel {
     public void ungroup(int[] sequences) {
         // The current sequence to ungroup.
         Seq seq;
+        // The group IDs of the sequences before ungrouping (for undo).
+        final int[] before = groupIDs(sequences);
 
         // Iterate through each of the Y-coordinates in the array.
         for (int y : sequences) {
@@ -604,7 +1408,54 @@ public class Dataset extends AbstractListModel {
             seq.groupID = 0;
 
             // Fire a sequence change event to all of the listeners.
-            sequenceChanged(lines.indexOf(seq));
+            sequenceChanged(y);
+        }
+
+        // Record the ungrouping in the undo history.
+        if (before != null) {
+            journal.record(new UndoJournal.Regroup(sequences.clone(), before,
+                    new int[sequences.length]));
+        }
+    }
+
+    /**
+     * Returns the group IDs of a set of sequences, for recording in the undo
+     * history.
+     **
+     * @param  sequences the Y-coordinates of the sequences.
+     * @return the group IDs of the sequences (or null, if the undo history is
+     *         not being recorded).
+     */
+    private int[] groupIDs(int[] sequences) {
+        // The group IDs of the sequences.
+        int[] result = null;
+
+        if (journal.isRecording()) {
+            result = new int[sequences.length];
+            for (int count = 0; count < sequences.length; count++) {
+                result[count] = lines.get(sequences[count]).groupID;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the group IDs of a set of sequences (used to undo and redo
+     * grouping).
+     **
+     * @param sequences the Y-coordinates of the sequences.
+     * @param ids       the group IDs to assign to the sequences.
+     */
+    void setGroupIDs(int[] sequences, int[] ids) {
+        // The current sequence to regroup.
+        Seq seq;
+
+        for (int count = 0; count < sequences.length; count++) {
+            seq = lines.get(sequences[count]);
+            ungroup(seq);
+            seq.groupID = ids[count];
+            register(seq);
+            sequenceChanged(sequences[count]);
         }
     }
 
@@ -620,10 +1471,10 @@ public class Dataset extends AbstractListModel {
         // Ensure that the sequence is not null.
         if (seq != null) {
             // Ensure that the groupID for the sequence is valid.
-            if (seq.groupID > 0 && seq.groupID <= group2seq.length) {
+            if (seq.groupID > 0 && seq.groupID <= group2seq.size()) {
                 // Obtain all of the sequences in the same group as the sequence
                 // which we will remove from the group.
-                group = group2seq[seq.groupID - 1];
+                group = group2seq.get(seq.groupID - 1);
 
                 // If the group is not null (i.e. a valid group), the proceed to
                 // remove the sequence from the group.
@@ -634,13 +1485,60 @@ public class Dataset extends AbstractListModel {
                     // If the group no longer has any other sequence in it, then
                     // remove the group from the sequence groups hash table.
                     if (group.size() <= 0) {
-                        group2seq[seq.groupID - 1] = null;
+                        group2seq.set(seq.groupID - 1, null);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Adds a sequence to the group specified by its groupID (if any).  This is
+     * used to register the groups of sequences added to the Dataset (e.g. the
+     * groups read from a GDE file).
+     **
+     * @param seq the sequence to register.
+     */
+    private void register(Seq seq) {
+        if (seq.groupID > 0) {
+            // Expand the group table, if necessary.
+            if (seq.groupID > group2seq.size()) {
+                growGroups(seq.groupID + DEFAULT_MAX_GROUPS);
+            }
+
+            // Add the sequence to its group (creating the group if necessary).
+            if (group2seq.get(seq.groupID - 1) == null) {
+                group2seq.set(seq.groupID - 1, new HashSet<Seq>());
+            }
+            group2seq.get(seq.groupID - 1).add(seq);
+        }
+    }
+
+    /**
+     * Expands the group table, so that it holds a given number of groups.
+     **
+     * @param size the number of groups the table should hold.
+     */
+    private void growGroups(int size) {
+        while (group2seq.size() < size) {
+            group2seq.add(null);
+        }
+    }
+
+    /**
+     * Updates the row numbers of the sequences in the Dataset, starting from
+     * a given line number.  This is called whenever sequences are added to, or
+     * removed from, the Dataset.
+     **
+     * @param from the line number of the first sequence to update.
+     * @see org.biolegato.sequence.data.Seq#row
+     */
+    private void renumber(int from) {
+        for (int y = from; y < lines.size(); y++) {
+            lines.get(y).row = y;
+        }
+    }
+
     /**
      * Obtains all of the line numbers of the sequences in a particular group.
      * The group is specified to be the same group as the sequence on the line
@@ -666,11 +1564,11 @@ public class Dataset extends AbstractListModel {
         Set<Seq> group;
 
         // Ensure that the group number of the sequence is valid.
-        if (groupNumber > 0 && groupNumber <= group2seq.length
-                && group2seq[groupNumber - 1] != null) {
+        if (groupNumber > 0 && groupNumber <= group2seq.size()
+                && group2seq.get(groupNumber - 1) != null) {
             // Obtain the set object containing all of the sequences in the
             // same group as the sequence specified by 'lineNumber'.
-            group = group2seq[groupNumber - 1];
+            group = group2seq.get(groupNumber - 1);
 
             // Create a new array object for storing the line numbers of the
             // sequences in the group.
@@ -679,8 +1577,10 @@ public class Dataset extends AbstractListModel {
             // Determine the line number of each sequence in the group and add
             // the line number to the result array.  This must be done because
             // group2seq houses direct sequence objects, and NOT line numbers.
+            // (The line number of each sequence is kept in its 'row' field, so
+            // the Dataset does not need to be searched.)
             for (Seq c : group) {
-                result[count] = lines.indexOf(c);
+                result[count] = c.row;
                 count++;
             }
         }
@@ -712,11 +1612,91 @@ public class Dataset extends AbstractListModel {
         return getLine(index);
     }
 
+    /**
+     * Finds the line number of a sequence in the Dataset.  This allows a
+     * sequence to be found again after other sequences have been added or
+     * removed (e.g. the insertion point of a paste, which may be shifted by
+     * edits made while the paste is in progress).
+     **
+     * @param  seq the sequence to find.
+     * @return the line number of the sequence (-1 if the sequence is not in
+     *         the Dataset).
+     */
+    public int indexOf(Seq seq) {
+        return (seq != null && getLine(seq.row) == seq ? seq.row : -1);
+    }
+
 /////////////////////////////////
 //*****************************//
 //* PROTECTION STATUS METHODS *//
 //*****************************//
 /////////////////////////////////
+    /**
+     * The character class of alignment characters (gaps and whitespace).
+     */
+    private static final byte ALIGN_CLASS = 1;
+    /**
+     * The character class of ambiguous residues.
+     */
+    private static final byte AMBIG_CLASS = 2;
+    /**
+     * The character class of unambiguous residues.
+     */
+    private static final byte UNAMBIG_CLASS = 4;
+    /**
+     * The index of the entry in each character class table which holds the
+     * class of all non-ASCII characters.
+     */
+    private static final int NON_ASCII = 128;
+    /**
+     * <p>The character class tables used to test sequence protections, indexed
+     * by sequence type (Seq.Type.ordinal).  Each table maps an ASCII character
+     * to its class; the last entry holds the class of every non-ASCII
+     * character.  The entry is null for sequence types which have no
+     * protection settings (e.g. TEXT).</p>
+     *
+     * <p>Character classes are based on a combination of the sources listed
+     * below and a thorough testing of character protections in GDE.</p>
+     *
+     * <p>SOURCES:</p>
+     * <ul>
+     *      <li>http://home.cc.umanitoba.ca/~psgendb/formats.html</li>
+     *      <li>http://www.ddbj.nig.ac.jp/sub/ref2-e.html</li>
+     *      <li>http://www.bioinformatics.org/sms/iupac.html</li>
+     * </ul>
+     */
+    private static final byte[][] PROTECTION_CLASSES
+            = new byte[Seq.Type.values().length][];
+
+    static {
+        // Nucleotide sequences:
+        //      ambiguous:   B (G or T or C), D (G or T or A), H (A or C or T),
+        //                   I (RESERVED(?) -- copied behaviour from GDE),
+        //                   K (G or T), M (A or C), N (any),
+        //                   R (purine -- A or G), S (G or C),
+        //                   V (G or C or A), W (A or T),
+        //                   Y (pyrimidine -- C or T)
+        //      unambiguous: A (adenosine), C (cytosine), G (guanine),
+        //                   T (thymine), U (uracil)
+        //      alignment:   every other character
+        final byte[] nucleotide = classTable(ALIGN_CLASS, "",
+                "bdhikmnrsvwy", "acgtu");
+
+        PROTECTION_CLASSES[Seq.Type.DNA.ordinal()] = nucleotide;
+        PROTECTION_CLASSES[Seq.Type.RNA.ordinal()] = nucleotide;
+
+        // Protein sequences:
+        //      alignment:   space, new-line, tab, carriage return and dash
+        //      ambiguous:   B (Asx), J (Leu or Ile), X (unknown), Z (Glx),
+        //                   * (stop)
+        //      unambiguous: every other character (not just letters; e.g.
+        //                   A, C, D, E, F, G, H, I, K, L, M, N, O (pyrrolysine
+        //                   -- non-standard), P, Q, R, S, T, U
+        //                   (selenocysteine), V, W and Y)
+        PROTECTION_CLASSES[Seq.Type.PROTEIN.ordinal()] = classTable(
+                UNAMBIG_CLASS, " \n\t\r-", "bjxz*", "");
+    }
+
     /**
      * <p>Checks a string against all of a sequence's protection settings.  A
      * string of text is said to violate the protection settings (for deletion
@@ -788,7 +1768,8 @@ public class Dataset extends AbstractListModel {
      * @param protect_uambig the protection status of unambiguous characters.
      * @param test           the sequence text to test.
      * @param start          the index within 'text' to start the test.
-     * @param end            the index within 'text' to end the test.
+     * @param end            the index within 'text' after the last character
+     *                       to test.
      * @return true if the text violates the protection settings of the
      *         sequence, and hence the text should not be inserted or deleted.
      * @see org.biolegato.sequence.data.Seq#protect_align
@@ -805,6 +1786,13 @@ public class Dataset extends AbstractListModel {
     public static boolean isProtectionsOn(Seq.Type type,
             boolean protect_align, boolean protect_ambig,
             boolean protect_uambig, char[] test, int start, int end) {
+        // The character class table for the sequence type (null for types,
+        // such as TEXT, which have no protection settings).
+        final byte[] classes = (type != null
+                ? PROTECTION_CLASSES[type.ordinal()] : null);
+        // The classes of characters which are protected.
+        final int flags = protectionFlags(protect_align, protect_ambig,
+                protect_uambig);
         // The result of this function (whether the text tested can be inserted
         // or deleted into a given sequence, based on sequence protections).
         // By default this value is false (because types not recognized by this
@@ -813,122 +1801,101 @@ public class Dataset extends AbstractListModel {
         boolean protect = false;
 
         // Ensure that the end point does not exceed the test array's length.
-        end = Math.min(end, test.length - 1);
+        end = Math.min(end, test.length);
 
         // Ensure that at least one proection setting is on, before testing.
         // Otherwise there is no reason to test (because if all protection
         // settings are off, then the text is unprotected and any character may
         // be inserted or deleted).
-        if (protect_ambig || protect_uambig || protect_align) {
-            // Branch based on whether the sequence is a nucleotide sequence, or
-            // an amino acid/protein sequence.  If the sequence is neither an
-            // amino acid or nucleotide sequence, then this method will return
-            // false (i.e. the text to be inserted or deleted is unprotected).
-            if (type == Seq.Type.DNA || type == Seq.Type.RNA) {
-                for (int count = start; !protect && count <= end; count++) {
-                    // Iterate through each character in the text string until
-                    // we either reach the end of the string, or a protected
-                    // character is found.  Character types are based on a
-                    // combination of the sources listed below and a thorough
-                    // testing of character protections in GDE.
-                    //
-                    // SOURCES:
-                    //  http://home.cc.umanitoba.ca/~psgendb/formats.html
-                    switch (Character.toLowerCase(test[count])) {
-                        case 'b':   // G or T or C
-                        case 'd':   // G or T or A
-                        case 'h':   // A or C or T
-                        case 'i':   // RESERVED(?) -- Copied behaviour from GDE.
-                        case 'k':   // G or T
-                        case 'm':   // A or C
-                        case 'n':   // Any
-                        case 'r':   // Purine (A or G)
-                        case 's':   // G or C
-                        case 'v':   // G or C or A
-                        case 'w':   // A or T
-                        case 'y':   // Pyrimidine (C or T)
-                            protect = protect_ambig;
-                            break;
-
-                        case 'a':   // Adenosine (A)
-                        case 'c':   // Cytosine  (C)
-                        case 'g':   // Guanine   (G)
-                        case 't':   // Thymine   (T)
-                        case 'u':   // Uracil    (U)
-                            protect = protect_uambig;
-                            break;
-                            
-                        default:
-                            protect = protect_align;
-                            break;
-                    }
-                }
-            } else if (type == Seq.Type.PROTEIN) {
-                for (int count = start; !protect && count < end; count++) {
-                    // Iterate through each character in the text string until
-                    // we either reach the end of the string, or a protected
-                    // character is found.  Character types are based on a
-                    // combination of the sources listed below and a thorough
-                    // testing of character protections in GDE.
-                    //
-                    // SOURCES:
-                    //  http://home.cc.umanitoba.ca/~psgendb/formats.html
-                    //  http://www.ddbj.nig.ac.jp/sub/ref2-e.html
-                    //  http://www.bioinformatics.org/sms/iupac.html
-                    switch (Character.toLowerCase(test[count])) {
-                        // Various standard alignment and whitespace characters.
-                        case ' ': case '\n': case '\t': case '\r': case '-':
-                            protect = protect_align;
-                            break;
-
-                        case 'b':   // Aspartic acid or Asparagine (Asx)
-                        case 'j':   // Leucine or isoleucine       (Leu or Ile)
-                        case 'x':   // UNKNOWN                     (ANY)
-                        case 'z':   // Glutamic acid or Glutamine  (Glx)
-                        case '*':   // STOP
-                            protect = protect_ambig;
-                            break;
-
-                        // The current implementation treats every character
-                        // (not just letter) -- excluding NOT B, J, X, Z, *, a
-                        // whitespace character (space, tab, new-line, carriage
-                        // return), or a dash -- as an unambiguous sequence
-                        // character.  To change this implementation to the
-                        // such that only letters are considered (and everything
-                        // which is not a letter is considered an alignment
-                        // gap), move the 'default:' case to the end of the
-                        // protect_align multiple-case statement.
-                        case 'a':   // Alanine (Ala)
-                        case 'c':   // Cysteine (Cys)
-                        case 'd':   // Aspartic Acid (Asp)
-                        case 'e':   // Gluamic Acid (Glu)
-                        case 'f':   // Phenylalanine (Phe)
-                        case 'g':   // Glycine (Gly)
-                        case 'h':   // Histidine (His)
-                        case 'i':   // Isoleucine (Ile)
-                        case 'k':   // Lysine (Lys)
-                        case 'l':   // Leucine (Leu)
-                        case 'm':   // Methionine (Met)
-                        case 'n':   // Asparagine (Asn)
-                        case 'o':   // **Pyrrolysine (Pyl) -- NON-STANDARD AA!
-                        case 'q':   // Glutamine (Gln)
-                        case 'p':   // Proline (Pro)
-                        case 'r':   // Arginine (Arg)
-                        case 's':   // Serine (Ser)
-                        case 't':   // Threonine (Thr)
-                        case 'u':   // Selenocysteine (Sec)
-                        case 'v':   // Valine (Val)
-                        case 'w':   // Tryptophan (Trp)
-                        case 'y':   // Tyrosine (Tyr)
-                        default:
-                            protect = protect_uambig;
-                            break;
-                    }
-                }
+        if (classes != null && flags != 0) {
+            // Iterate through each character in the text string until we
+            // either reach the end of the string, or a protected character is
+            // found.  Characters outside of the ASCII range share the class
+            // stored in the last entry of the table.
+            for (int count = start; !protect && count < end; count++) {
+                protect = (classes[Math.min(test[count], NON_ASCII)] & flags)
+                        != 0;
             }
         }
 
         // Return the status of the protections test.
         return protect;
     }
+
+    /**
+     * Checks a range of the residues already in a sequence against the
+     * sequence's protection settings.  The residues are tested directly
+     * within the sequence's buffer (i.e. without copying them), so this is
+     * used to test deletions.
+     **
+     * @param  seq   the sequence to test.
+     * @param  start the position of the first residue to test.
+     * @param  end   the position after the last residue to test.
+     * @return true if the range contains a protected residue.
+     * @see org.biolegato.sequence.data.Dataset#isProtectionsOn(org.biolegato.sequence.data.Seq.Type, boolean, boolean, boolean, char[], int, int)
+     */
+    private static boolean isProtectionsOn(Seq seq, int start, int end) {
+        // The character class table for the sequence type.
+        final byte[] classes = (seq.type != null
+                ? PROTECTION_CLASSES[seq.type.ordinal()] : null);
+        // The classes of characters which are protected.
+        final int flags = protectionFlags(seq.protect_align,
+                seq.protect_ambig, seq.protect_unambig);
+
+        return classes != null && flags != 0
+                && seq.sequence.containsClass(start, end, classes, flags);
+    }
+
+    /**
+     * Combines a sequence's protection settings into a set of character
+     * class flags.
+     **
+     * @param  protect_align  the protection status of alignment characters.
+     * @param  protect_ambig  the protection status of ambiguous characters.
+     * @param  protect_uambig the protection status of unambiguous characters.
+     * @return the class flags of the protected characters.
+     */
+    private static int protectionFlags(boolean protect_align,
+            boolean protect_ambig, boolean protect_uambig) {
+        return (protect_align  ? ALIGN_CLASS   : 0)
+             | (protect_ambig  ? AMBIG_CLASS   : 0)
+             | (protect_uambig ? UNAMBIG_CLASS : 0);
+    }
+
+    /**
+     * Creates a character class table for a sequence type.
+     **
+     * @param  fallback the class of every character not listed (including all
+     *                  non-ASCII characters).
+     * @param  align    the alignment characters.
+     * @param  ambig    the ambiguous residue characters.
+     * @param  unambig  the unambiguous residue characters.
+     * @return the character class table.
+     */
+    private static byte[] classTable(byte fallback, String align,
+            String ambig, String unambig) {
+        // The character class table.
+        final byte[] result = new byte[NON_ASCII + 1];
+
+        Arrays.fill(result, fallback);
+        setClass(result, align, ALIGN_CLASS);
+        setClass(result, ambig, AMBIG_CLASS);
+        setClass(result, unambig, UNAMBIG_CLASS);
+        return result;
+    }
+
+    /**
+     * Sets the class of a set of characters (in both upper and lower case)
+     * within a character class table.
+     **
+     * @param table the character class table to modify.
+     * @param chars the characters to set the class of.
+     * @param clazz the class to assign to the characters.
+     */
+    private static void setClass(byte[] table, String chars, byte clazz) {
+        for (char c : chars.toCharArray()) {
+            table[Character.toLowerCase(c)] = clazz;
+            table[Character.toUpperCase(c)] = clazz;
+        }
+    }
 }
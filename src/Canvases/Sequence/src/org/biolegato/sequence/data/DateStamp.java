@@ -0,0 +1,114 @@
+/*
+ * DateStamp.java
+ *
+ * Created on October 18, 2026, 10:40 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * <p>Caches the formatted current date, for the file headers written by the
+ * data formats (e.g. the date on a GenBank LOCUS line).</p>
+ *
+ * <p>Previously, each sequence exported created a new SimpleDateFormat, and
+ * formatted the current date again.  A date stamp only formats the date when
+ * the formatted text would change (i.e. once per day for a date, or once per
+ * second for a time), so exporting a file formats the date once, and the text
+ * written is identical to formatting the date for each sequence.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+final class DateStamp {
+
+    /**
+     * The calendar fields, from largest to smallest, which may be cleared to
+     * find the start of the current period.
+     */
+    private static final int[] FIELDS = new int[]{
+        Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND,
+        Calendar.MILLISECOND
+    };
+    /**
+     * The format of the date stamp.
+     */
+    private final SimpleDateFormat format;
+    /**
+     * The smallest calendar field shown in the date stamp (e.g. Calendar.DATE
+     * or Calendar.SECOND).
+     */
+    private final int field;
+    /**
+     * Whether to convert the date stamp to upper-case.
+     */
+    private final boolean upperCase;
+    /**
+     * The current text of the date stamp.
+     */
+    private String text = null;
+    /**
+     * The time (in milliseconds) when the text of the date stamp was made.
+     */
+    private long made = Long.MAX_VALUE;
+    /**
+     * The time (in milliseconds) when the text of the date stamp expires.
+     */
+    private long expires = Long.MIN_VALUE;
+
+    /**
+     * Creates a new date stamp.
+     **
+     * @param pattern   the SimpleDateFormat pattern for the date stamp.
+     * @param field     the smallest calendar field shown by the pattern (one
+     *                  of Calendar.DATE, HOUR_OF_DAY, MINUTE or SECOND).
+     * @param upperCase whether to convert the date stamp to upper-case.
+     */
+    DateStamp(String pattern, int field, boolean upperCase) {
+        this.format = new SimpleDateFormat(pattern);
+        this.field = field;
+        this.upperCase = upperCase;
+    }
+
+    /**
+     * Returns the date stamp for the current time.
+     **
+     * @return the formatted current date.
+     */
+    synchronized String get() {
+        // The current time.
+        final long now = System.currentTimeMillis();
+        // Used to find the start of the next period.
+        Calendar next;
+        // Whether the current calendar field is shown in the date stamp.
+        boolean shown = (field != Calendar.DATE);
+
+        // Format the date again if the current period has ended (or if the
+        // system clock was set back).
+        if (now >= expires || now < made) {
+            text = format.format(new Date(now));
+            if (upperCase) {
+                text = text.toUpperCase();
+            }
+
+            // Find the start of the next period (the next day, second, etc.)
+            // by clearing all of the fields smaller than the field shown.
+            next = Calendar.getInstance();
+            next.setTimeInMillis(now);
+            for (int clear : FIELDS) {
+                if (!shown) {
+                    next.set(clear, 0);
+                }
+                if (clear == field) {
+                    shown = false;
+                }
+            }
+            next.add(field, 1);
+            made = now;
+            expires = next.getTimeInMillis();
+        }
+        return text;
+    }
+}
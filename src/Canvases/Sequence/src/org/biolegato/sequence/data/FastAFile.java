@@ -8,8 +8,15 @@ package org.biolegato.sequence.data;
  * and open the template in the editor.
  */
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 
@@ -28,6 +35,10 @@ public class FastAFile extends DataFormat {
      * (i.e. the > symbol at the beginning of a line).
      */
     private static final String DELIMITER = "(?m:^)>";
+    /**
+     * The size of the buffer used when indexing FastA files.
+     */
+    private static final int INDEX_BUFFER_SIZE = 1 << 16;
 
     /**
      * Creates a new instance of FastAFile
@@ -56,11 +67,99 @@ public class FastAFile extends DataFormat {
                 result.append(" ").append(seq.get("description"));
             }*/
             result.append("\n");
-            result.append(seq.getSequence(), offset, offset + length);
+            write(result, seq.getSequence(), offset, offset + length);
             result.append("\n");
         }
     }
 
+    /**
+     * <p>Translates FastA data from a scanner into BioLegato.</p>
+     *
+     * <p>Rather than splitting the data into a String for each sequence, the
+     * remaining text of the scanner is streamed through a FastAReader (see
+     * convertFrom(Dataset, Reader, int, int)).</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Scanner object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Scanner data, int x, int y)
+                                                            throws IOException {
+        convertFrom(datamodel, new ScannerReader(data), x, y);
+    }
+
+    /**
+     * <p>Translates FastA data from a reader into BioLegato.</p>
+     *
+     * <p>The data is parsed by a streaming FastAReader, which packs the
+     * residues of each sequence directly into the sequence's storage.  As with
+     * convertSequence, sequences whose line numbers are within the data model
+     * are inserted into the existing sequences at the X-coordinate specified;
+     * all other sequences are added to the end of the data model, in batches
+     * of up to Dataset.LOAD_BATCH sequences.</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Reader object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Reader data, int x, int y)
+                                                            throws IOException {
+        // Stores the number of sequences in the data model at the time the
+        // function is called.
+        final int modellength = datamodel.getSize();
+        // The parser used to read the sequences.
+        final FastAReader reader = new FastAReader(data);
+        // The sequences to add to the end of the data model.
+        List<Seq> seqs = new ArrayList<Seq>();
+        // The line number to add the new sequences at.
+        int first = -1;
+        // The time the last batch of sequences was added to the data model.
+        long added = System.currentTimeMillis();
+        // The current sequence read.
+        Seq seq;
+
+        while ((seq = reader.next()) != null) {
+            if (y < modellength) {
+                datamodel.insertSequence(x, y, seq);
+            } else {
+                if (seqs.isEmpty()) {
+                    first = y;
+                }
+                seqs.add(seq);
+
+                // Add the sequences to the data model in batches, so they
+                // appear in the canvas while a large file is read (a new list
+                // is used for each batch, because the undo history keeps a
+                // reference to the list added).
+                if (seqs.size() >= Dataset.LOAD_BATCH
+                        || System.currentTimeMillis() - added
+                            >= Dataset.LOAD_DELAY) {
+                    datamodel.addSequences(first, seqs);
+                    seqs = new ArrayList<Seq>();
+                    added = System.currentTimeMillis();
+                }
+            }
+            y++;
+        }
+
+        // Add the remaining sequences to the data model.
+        if (!seqs.isEmpty()) {
+            datamodel.addSequences(first, seqs);
+        }
+    }
+
     /**
      * Translates a single sequence from a scanner into BioLegato
      **
@@ -85,93 +184,174 @@ public class FastAFile extends DataFormat {
         // Stores the number of sequences in the data model at the time the
         // function is called.
         final int modellength = datamodel.getSize();
-        // The index (within the variable 'curr') of the first new-line ('\n')
-        // character in the sequence (the '\n' character denotes the ending of
-        // the name/'>' character line).
-        int nlidx;
-        // The current string/entry to parse.
-        String curr = null;
+        // The sequence parsed.
+        Seq seq;
 
         // Ensure usage of the proper delimiter (the > character at the
         // beginning of a line).
-        source.useDelimiter("(?m:^)>");
+        source.useDelimiter(DELIMITER);
 
         // If there is more FastA data in the stream/scanner, parse it.
         if (source.hasNext()) {
-            // Get the next sequence to parse.
-            curr = source.next();
-
-            // Remove all comments from the sequence.
-            curr.replaceAll("[#;][^\n]*\n", "\n");
-
-            // Determine the index of the first new-line character in the
-            // text to be parsed into a sequence.
-            nlidx = curr.indexOf('\n');
+            // Parse the next sequence (the scanner is only used to find the
+            // end of the sequence; the text is parsed by a FastAReader).
+            seq = new FastAReader(new StringReader(source.next())).next();
 
-            // Ensure that there is at least one new-line character in the
+            // Ensure that there was at least one new-line character in the
             // sequence data to parse.
-            if (nlidx >= 0) {
-                String prefix = "";
-                String description = "";
-                String name = curr.substring(0, nlidx).trim();
-                StringBuffer sbuff = new StringBuffer(curr.substring(nlidx + 1
-                        ).replaceAll("[^A-Za-z\\*\\-]", "").trim());
-
-                // Locate description data, if applicable, with the name field.
-                if (name.indexOf(' ') > 0) {
-                    description = name.substring(name.indexOf(' ') + 1);
-                    name = name.substring(0, name.indexOf(' '));
-                }
-
-                // Remove all GenBank '|' fields from the name field,
-                // (except the GI number, if applicable).
-                if (name.indexOf('|') >= 0) {
-                    prefix = name.substring(0, name.indexOf('|'));
-                    name = name.substring(name.indexOf('|') + 1);
-                    if (name.indexOf('|') >= 0) {
-                        name = name.substring(0, name.indexOf('|'));
-                    }
-                    name = prefix + "|" + name;
-                }
-
+            if (seq != null) {
                 // If the line number index is past the number of lines in the
                 // data model, or the 'addonly' flag are set, then add the new
-                // sequence data to the end of the data model; otherwise, insert
-                // the sequence into the middle of an existing sequence in the
-                // data model.
+                // sequence data to the end of the data model; otherwise,
+                // insert the sequence into the middle of an existing sequence
+                // in the data model.
                 //
                 // (NOTE: this if-statement is written in reverse of what was
                 //        said above, because the case of what was said above
                 //        is simpler than its reverse case).
                 if (y < modellength && !addonly) {
-                    char [] text = new char[sbuff.length()];
-                    sbuff.getChars(0, text.length, text, 0);
-                    datamodel.insert(x, y, text, 0, text.length, true);
+                    datamodel.insertSequence(x, y, seq);
                 } else {
-                    datamodel.add(y, new Seq(Seq.detectType(sbuff), name,
-                                                        sbuff, description));
+                    datamodel.add(y, seq);
                 }
-                // Increment the line counter to the next line.
-                y++;
             }
         }
         return source.hasNext();
     }
 
+    /**
+     * <p>Reads a FastA file into BioLegato lazily.  Rather than parsing each
+     * sequence through a Scanner object, this method makes a single pass over
+     * the raw bytes of the file, to build an index of the sequences in the
+     * file (the name, the offset of the residues within the file, and the
+     * number of residues of each sequence).  The sequences are then added to
+     * the data model all at once (so the sequence list is populated
+     * immediately), and the residues of each sequence are only read from the
+     * file when they are first needed (see LazyResidues).</p>
+     *
+     * <p>This is intended for very large files, which would take a long time
+     * (and a lot of memory) to parse in full.  The file must not be modified
+     * while its sequences are open in BioLegato.</p>
+     **
+     * @param  datamodel    the destination data model to store the indexed
+     *                      sequences in.
+     * @param  file         the FastA file to index.
+     * @param  y            the Y-coordinate (line) in the data model to add
+     *                      the indexed sequences at.
+     * @throws IOException  any exceptions that occur while reading the file.
+     * @see org.biolegato.sequence.data.LazyResidues
+     */
+    public void readIndexed(Dataset datamodel, File file, int y)
+                                                        throws IOException {
+        // The buffer to read the file into.
+        final byte[] buffer = new byte[INDEX_BUFFER_SIZE];
+        // The sequences indexed from the file.
+        final List<Seq> seqs = new ArrayList<Seq>();
+        // The bytes of the current name/'>' character line.
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        // The file to index.
+        final InputStream in = new FileInputStream(file);
+        // The offset within the file of the first byte in the buffer.
+        long position = 0;
+        // The number of bytes read into the buffer.
+        int read;
+        // The current byte to examine.
+        byte b;
+        // Whether the current byte is at the beginning of a line.
+        boolean linestart = true;
+        // Whether the first name/'>' character line has been found.
+        boolean started = false;
+        // Whether the current byte is within a name/'>' character line.
+        boolean inheader = false;
+        // Whether the current byte is within the residues of a sequence.
+        boolean inrecord = false;
+        // The name and description of the current sequence.
+        String[] names = null;
+        // The offset within the file of the residues of the current sequence.
+        long start = 0;
+        // The number of residues in the current sequence.
+        int length = 0;
+        // The detected type of the current sequence.
+        Seq.Type type = Seq.Type.DNA;
+
+        try {
+            while ((read = in.read(buffer)) > 0) {
+                for (int count = 0; count < read; count++) {
+                    b = buffer[count];
+
+                    if (!started) {
+                        // Skip leading whitespace; a '>' character (or any
+                        // other text) starts the first name line (the same as
+                        // FastAReader).
+                        if (!Character.isWhitespace((char) (b & 0xFF))) {
+                            started = true;
+                            inheader = true;
+                            if (b != '>') {
+                                header.write(b);
+                            }
+                        }
+                    } else if (inheader) {
+                        // Read the name/'>' character line, up to the first
+                        // new-line character (the same as FastAReader).
+                        if (b == '\n') {
+                            names = parseHeader(new String(
+                                    header.toByteArray()));
+                            header.reset();
+                            inheader = false;
+                            inrecord = true;
+                            start = position + count + 1;
+                            length = 0;
+                            type = Seq.Type.DNA;
+                        } else {
+                            header.write(b);
+                        }
+                    } else if (linestart && b == '>') {
+                        // A '>' character at the beginning of a line ends the
+                        // current sequence and starts a new one.
+                        if (inrecord) {
+                            seqs.add(indexed(file, names, start,
+                                    position + count, length, type));
+                        }
+                        inrecord = false;
+                        inheader = true;
+                    } else if (inrecord && LazyResidues.isResidue(b)) {
+                        length++;
+
+                        type = detectType(type, b);
+                    }
+                    linestart = (b == '\n' || b == '\r');
+                }
+                position += read;
+            }
+
+            // Add the last sequence in the file.
+            if (inrecord) {
+                seqs.add(indexed(file, names, start, position, length, type));
+            }
+        } finally {
+            in.close();
+        }
+
+        // Add all of the indexed sequences to the data model at once.
+        if (!seqs.isEmpty()) {
+            datamodel.addSequences(y, seqs);
+        }
+    }
+
     /**
      * Used as part of the DataFormat auto-detection algorithm.  This method
-     * tests if the data represented in a scanner can be parsed by the current
-     * DataFormat object.
+     * tests if the data represented by a prefix of the input can be parsed by
+     * the current DataFormat object.  FastA data begins with a '>'
+     * character.
      **
-     * @param  test the Scanner object to parse and determine if it contains
-     *              data which can be parsed by this DataFormat object.
-     * @throws IOException  returns any possible I/O exceptions
-     *                      (such as mark not supported)
+     * @param  prefix the first characters of the input (starting at the first
+     *                character which is not whitespace).
+     * @param  length the number of characters in the prefix.
      * @return whether the format can be parsed by this DataFormat object
      */
     @Override
-    public boolean isFormat(Scanner test) throws IOException {
-        return test.findInLine("(?=" + DELIMITER + ")") != null;
+    public boolean isFormat(char[] prefix, int length) {
+        return length > 0 && prefix[0] == '>';
     }
     
     /**
@@ -198,6 +378,87 @@ public class FastAFile extends DataFormat {
                 || file.getAbsolutePath().toLowerCase().endsWith(".fsa"));
     }
 
+    /**
+     * Detects the type of a sequence one residue at a time, using the same
+     * rules as Seq.detectType (the first U, or protein-only character,
+     * determines the type of the sequence).
+     **
+     * @param  type the type detected from the previous residues (start with
+     *              Seq.Type.DNA).
+     * @param  b    the next residue of the sequence.
+     * @return the type detected, including the residue.
+     */
+    static Seq.Type detectType(Seq.Type type, byte b) {
+        // The type detected.
+        Seq.Type result = type;
+
+        if (type == Seq.Type.DNA) {
+            switch (Character.toUpperCase((char) b)) {
+                case 'U':
+                    result = Seq.Type.RNA;
+                    break;
+                case 'F': case 'E': case 'J': case 'L':
+                case 'O': case 'Q': case 'X': case 'Z':
+                    result = Seq.Type.PROTEIN;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new sequence object for an indexed sequence, whose residues
+     * are read from the FastA file on demand.
+     **
+     * @param  file     the FastA file containing the sequence.
+     * @param  names    the name and description of the sequence.
+     * @param  start    the offset of the residues within the file.
+     * @param  end      the offset of the end of the residues within the file.
+     * @param  length   the number of residues in the sequence.
+     * @param  type     the detected type of the sequence.
+     * @return the new sequence object.
+     */
+    private static Seq indexed(File file, String[] names, long start,
+            long end, int length, Seq.Type type) {
+        return new Seq(type, names[0], new SequenceBuffer(type,
+                new LazyResidues(file, start, end, length, type)), names[1]);
+    }
+
+    /**
+     * Parses the name and description from a FastA name/'>' character line.
+     * The name is everything up to the first space, and the description is
+     * everything after it.  All GenBank '|' fields are removed from the name
+     * (except the GI number, if applicable).
+     **
+     * @param  line the name line to parse (without the leading '>').
+     * @return a two element array containing the name and the description.
+     */
+    static String[] parseHeader(String line) {
+        String prefix = "";
+        String description = "";
+        String name = line.trim();
+
+        // Locate description data, if applicable, with the name field.
+        if (name.indexOf(' ') > 0) {
+            description = name.substring(name.indexOf(' ') + 1);
+            name = name.substring(0, name.indexOf(' '));
+        }
+
+        // Remove all GenBank '|' fields from the name field,
+        // (except the GI number, if applicable).
+        if (name.indexOf('|') >= 0) {
+            prefix = name.substring(0, name.indexOf('|'));
+            name = name.substring(name.indexOf('|') + 1);
+            if (name.indexOf('|') >= 0) {
+                name = name.substring(0, name.indexOf('|'));
+            }
+            name = prefix + "|" + name;
+        }
+        return new String[] {name, description};
+    }
+
     /**
      * Returns a description of the file format that can be displayed to the
      * user.  This method is part of the FileFilter interface.
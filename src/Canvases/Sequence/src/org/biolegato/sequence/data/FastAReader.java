@@ -0,0 +1,291 @@
+/*
+ * FastAReader.java
+ *
+ * Created on October 18, 2026, 7:15 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>A streaming FastA parser.</p>
+ *
+ * <p>The parser reads its source in blocks, and makes a single pass over each
+ * block using a small state machine (start of input, name line, and residue
+ * lines).  Residues are filtered using a lookup table (only letters, '*' and
+ * '-' are kept, as in previous versions of BioLegato), and are packed directly
+ * into the residue store of the new sequence object; thus, the text of a
+ * sequence is never held as a String or StringBuffer.</p>
+ *
+ * <p>The sequence type is detected while the residues are read, using the
+ * same rules as Seq.detectType.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.FastAFile
+ */
+final class FastAReader {
+
+    /**
+     * The number of characters to read from the source at a time.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The number of residues collected before they are packed.
+     */
+    private static final int CHUNK_SIZE = 4096;
+    /**
+     * The parser state before the first sequence (leading whitespace is
+     * skipped).
+     */
+    private static final int START = 0;
+    /**
+     * The parser state within a name/'>' character line.
+     */
+    private static final int HEADER = 1;
+    /**
+     * The parser state within the residue lines of a sequence.
+     */
+    private static final int RESIDUES = 2;
+    /**
+     * Whether each ASCII character is kept as a residue.
+     */
+    private static final boolean[] RESIDUE = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            RESIDUE[c] = true;
+            RESIDUE[Character.toLowerCase(c)] = true;
+        }
+        RESIDUE['*'] = true;
+        RESIDUE['-'] = true;
+    }
+    /**
+     * The source to read from.
+     */
+    private final Reader source;
+    /**
+     * The buffer of characters read from the source.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * The position of the next character to parse within the buffer.
+     */
+    private int position = 0;
+    /**
+     * The number of characters in the buffer.
+     */
+    private int limit = 0;
+    /**
+     * The current parser state.
+     */
+    private int state = START;
+    /**
+     * The residues collected since they were last packed.
+     */
+    private final char[] chunk = new char[CHUNK_SIZE];
+    /**
+     * The text of the current name/'>' character line.
+     */
+    private final StringBuilder header = new StringBuilder();
+
+    /**
+     * Creates a new FastA parser.
+     **
+     * @param source the source to read FastA data from.
+     */
+    FastAReader(Reader source) {
+        this.source = source;
+    }
+
+    /**
+     * Reads the next sequence from the source.  Any text before the first
+     * '>' character is treated as the name line of the first sequence
+     * (leading whitespace is ignored).  A sequence whose name line is not
+     * terminated by a new-line is skipped.
+     **
+     * @return the next sequence, or null if there are no sequences left.
+     * @throws IOException if the source cannot be read.
+     */
+    Seq next() throws IOException {
+        // The residues of the sequence (null until the first chunk of
+        // residues is packed, so the encoding can be chosen by the detected
+        // sequence type).
+        PackedSequence residues = null;
+        // The detected sequence type.
+        Seq.Type type = Seq.Type.DNA;
+        // The number of residues in the chunk array.
+        int count = 0;
+        // Whether the current character is at the beginning of a line.
+        boolean linestart = true;
+        // Whether the end of the sequence has been reached.
+        boolean done = false;
+        // The current character.
+        char c;
+        // The name and description of the sequence.
+        String[] names;
+        // The sequence read.
+        Seq result = null;
+
+        header.setLength(0);
+        while (!done && fill()) {
+            c = buffer[position];
+
+            switch (state) {
+                case START:
+                    // Skip leading whitespace; a '>' character (or any other
+                    // text) starts the first name line.
+                    if (c == '>') {
+                        state = HEADER;
+                        position++;
+                    } else if (Character.isWhitespace(c)) {
+                        position++;
+                    } else {
+                        state = HEADER;
+                    }
+                    break;
+                case HEADER:
+                    // Copy the name line, up to the first new-line.
+                    position = readHeader();
+                    if (position < limit) {
+                        position++;
+                        state = RESIDUES;
+                        linestart = true;
+                    }
+                    break;
+                default:
+                    // Filter the residue lines, until a '>' character is
+                    // found at the beginning of a line.  This inner loop is
+                    // where nearly all of the parsing time is spent.
+                    while (position < limit) {
+                        c = buffer[position];
+                        if (linestart && c == '>') {
+                            done = true;
+                            break;
+                        }
+                        if (c < 128 && RESIDUE[c]) {
+                            // Detect the sequence type, using the same rules
+                            // as Seq.detectType (the first U, or protein-only
+                            // character, determines the type).
+                            if (type == Seq.Type.DNA) {
+                                type = detect(c);
+                            }
+                            chunk[count++] = c;
+                            if (count == CHUNK_SIZE) {
+                                residues = pack(residues, type, count);
+                                count = 0;
+                            }
+                        }
+                        linestart = (c == '\n' || c == '\r');
+                        position++;
+                    }
+
+                    // Skip the '>' character of the next sequence's name line.
+                    if (done) {
+                        position++;
+                        state = HEADER;
+                    }
+                    break;
+            }
+        }
+
+        // Create the sequence object.  If the end of the source was reached
+        // within a name line, the sequence is skipped (as it has no residue
+        // lines).
+        if (state == RESIDUES || done) {
+            residues = pack(residues, type, count);
+            residues.trimToSize();
+            if (!done) {
+                state = START;
+            }
+            names = FastAFile.parseHeader(header.toString());
+            result = new Seq(type, names[0],
+                    new SequenceBuffer(type, (ResidueStore) residues),
+                    names[1]);
+        }
+        return result;
+    }
+
+    /**
+     * Ensures that there are characters in the buffer to parse.
+     **
+     * @return false if the end of the source has been reached.
+     * @throws IOException if the source cannot be read.
+     */
+    private boolean fill() throws IOException {
+        // The number of characters read from the source.
+        int read = 0;
+
+        while (position >= limit && read >= 0) {
+            read = source.read(buffer, 0, buffer.length);
+            position = 0;
+            limit = Math.max(0, read);
+        }
+        return position < limit;
+    }
+
+    /**
+     * Copies the current name line from the buffer, up to the first new-line
+     * character (or the end of the buffer).
+     **
+     * @return the position of the new-line character within the buffer (or
+     *         the buffer limit, if no new-line was found).
+     */
+    private int readHeader() {
+        // The end of the text to copy.
+        int end = position;
+
+        while (end < limit && buffer[end] != '\n') {
+            end++;
+        }
+        header.append(buffer, position, end - position);
+        return end;
+    }
+
+    /**
+     * Packs the residues collected in the chunk array.
+     **
+     * @param  residues the residue store to pack the residues into (null to
+     *                  create a new store).
+     * @param  type     the sequence type detected so far (used to select the
+     *                  encoding of a new store).
+     * @param  count    the number of residues in the chunk array.
+     * @return the residue store.
+     */
+    private PackedSequence pack(PackedSequence residues, Seq.Type type,
+            int count) {
+        if (residues == null) {
+            residues = new PackedSequence(type);
+        }
+        residues.append(chunk, 0, count);
+        return residues;
+    }
+
+    /**
+     * Detects the type of a sequence from one of its residues.
+     **
+     * @param  c the residue to test.
+     * @return RNA if the residue is U, PROTEIN if the residue only occurs in
+     *         proteins, otherwise DNA.
+     */
+    private static Seq.Type detect(char c) {
+        // The detected type.
+        Seq.Type result = Seq.Type.DNA;
+
+        switch (c) {
+            case 'U': case 'u':
+                result = Seq.Type.RNA;
+                break;
+            case 'F': case 'E': case 'J': case 'L':
+            case 'O': case 'Q': case 'X': case 'Z':
+            case 'f': case 'e': case 'j': case 'l':
+            case 'o': case 'q': case 'x': case 'z':
+                result = Seq.Type.PROTEIN;
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * FastQFile.java
+ *
+ * Created on October 19, 2026, 2:10 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * <p>FASTQ file format parser.</p>
+ *
+ * <p>The residues of each record are read as in a FastA file, and the quality
+ * line is stored with the sequence as an array of Phred scores (see
+ * QualityScores).  The scores are kept consistent with the residues as the
+ * sequence is edited, and are written back out when the sequence is exported
+ * as FASTQ.  Residues without a quality score (e.g. residues typed into the
+ * sequence, or sequences read from other file formats) are written with a
+ * score of zero ('!').</p>
+ *
+ * <p>Quality characters are read and written using the Sanger encoding
+ * (Phred score + 33), which is also used by Illumina 1.8 and later.</p>
+ *
+ * <p><i>NOTE: this parser will automatically detect whether the sequence
+ *       buffer/stream object contains protein, RNA or DNA FASTQ data.</i></p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.FastQReader
+ * @see org.biolegato.sequence.data.QualityScores
+ */
+public class FastQFile extends DataFormat {
+
+    /**
+     * The delimiter used to read FASTQ records one line at a time through a
+     * Scanner (i.e. a new-line character).
+     */
+    private static final String DELIMITER = "\\r?\\n";
+
+    /**
+     * Creates a new instance of FastQFile
+     */
+    public FastQFile() {
+    }
+
+    /**
+     * Translates data from the BioLegato's sequence canvas internal format to
+     * the given file format.
+     **
+     * @param  result       the destination Appendable to write the data to.
+     * @param  seq          the sequence object to convert.
+     * @param  offset       the offset in the sequence to start the conversion.
+     * @param  length       the number of characters to convert.
+     * @throws IOException  if an error occurs while writing to the destination.
+     */
+    public void convertTo(Appendable result, Seq seq, int offset, int length)
+                                                            throws IOException {
+        // The output buffer.
+        final char[] buffer = writeBuffer();
+        // The quality scores of the sequence (null if none).
+        final QualityScores quality;
+        // The number of scores to copy into the buffer.
+        int amount;
+        // The scores copied from the sequence.
+        byte[] scores;
+
+        // Translate the sequence to FASTQ.
+        if (seq != null) {
+            quality = seq.getQuality();
+            result.append("@").append(seq.getName());
+            if (seq.getDescription() != null
+                    && !"".equals(seq.getDescription())) {
+                result.append(" ").append(seq.getDescription());
+            }
+            result.append("\n");
+            write(result, seq.getSequence(), offset, offset + length);
+            result.append("\n+\n");
+
+            // Encode the quality scores through the output buffer, one
+            // buffer at a time.
+            scores = new byte[Math.min(length, buffer.length)];
+            for (int start = offset; start < offset + length;
+                    start += amount) {
+                amount = Math.min(offset + length - start, buffer.length);
+                if (quality != null) {
+                    quality.getScores(start, start + amount, scores, 0);
+                }
+                for (int index = 0; index < amount; index++) {
+                    buffer[index] = (char) (FastQReader.QUALITY_OFFSET
+                            + (quality != null ? scores[index]
+                                               : QualityScores.UNKNOWN));
+                }
+                write(result, buffer, amount);
+            }
+            result.append("\n");
+        }
+    }
+
+    /**
+     * <p>Translates FASTQ data from a scanner into BioLegato.</p>
+     *
+     * <p>Rather than splitting the data into a String for each record, the
+     * remaining text of the scanner is streamed through a FastQReader (see
+     * convertFrom(Dataset, Reader, int, int)).</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Scanner object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Scanner data, int x, int y)
+                                                            throws IOException {
+        convertFrom(datamodel, new ScannerReader(data), x, y);
+    }
+
+    /**
+     * <p>Translates FASTQ data from a reader into BioLegato.</p>
+     *
+     * <p>The data is parsed by a streaming FastQReader.  As with FastAFile,
+     * sequences whose line numbers are within the data model are inserted
+     * into the existing sequences at the X-coordinate specified (along with
+     * their quality scores, if the existing sequences have quality scores);
+     * all other sequences are added to the end of the data model, in batches
+     * of up to Dataset.LOAD_BATCH sequences.</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Reader object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Reader data, int x, int y)
+                                                            throws IOException {
+        // Stores the number of sequences in the data model at the time the
+        // function is called.
+        final int modellength = datamodel.getSize();
+        // The parser used to read the sequences.
+        final FastQReader reader = new FastQReader(data);
+        // The sequences to add to the end of the data model.
+        List<Seq> seqs = new ArrayList<Seq>();
+        // The line number to add the new sequences at.
+        int first = -1;
+        // The time the last batch of sequences was added to the data model.
+        long added = System.currentTimeMillis();
+        // The current sequence read.
+        Seq seq;
+
+        while ((seq = reader.next()) != null) {
+            if (y < modellength) {
+                datamodel.insertSequence(x, y, seq);
+            } else {
+                if (seqs.isEmpty()) {
+                    first = y;
+                }
+                seqs.add(seq);
+
+                // Add the sequences to the data model in batches, so they
+                // appear in the canvas while a large file is read (a new list
+                // is used for each batch, because the undo history keeps a
+                // reference to the list added).
+                if (seqs.size() >= Dataset.LOAD_BATCH
+                        || System.currentTimeMillis() - added
+                            >= Dataset.LOAD_DELAY) {
+                    datamodel.addSequences(first, seqs);
+                    seqs = new ArrayList<Seq>();
+                    added = System.currentTimeMillis();
+                }
+            }
+            y++;
+        }
+
+        // Add the remaining sequences to the data model.
+        if (!seqs.isEmpty()) {
+            datamodel.addSequences(first, seqs);
+        }
+    }
+
+    /**
+     * Translates a single sequence from a scanner into BioLegato
+     **
+     * @param  datamodel    the destination data model to store the translated
+     *                      sequence data.
+     * @param  source       the data source to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @param  addonly      whether to not overwrite any data in the data model,
+     *                      by only adding sequence data after the end of the
+     *                      data model object.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     * @return whether there is any remaining data in the source Scanner that
+     *         can be parsed by the file format object.
+     */
+    public boolean convertSequence(Dataset datamodel, Scanner source,
+                            int x, int y, boolean addonly) throws IOException {
+        // Stores the number of sequences in the data model at the time the
+        // function is called.
+        final int modellength = datamodel.getSize();
+        // The text of the record.
+        final StringBuilder record = new StringBuilder();
+        // The number of residues in the record.
+        int residues = 0;
+        // The number of quality characters in the record.
+        int scores = 0;
+        // The current line of the record.
+        String line = null;
+        // The sequence parsed.
+        Seq seq;
+
+        // Ensure usage of the proper delimiter (the record is read one line
+        // at a time, because a quality line may begin with an '@').
+        source.useDelimiter(DELIMITER);
+
+        // Skip to the name line of the next record.
+        while (source.hasNext() && !(line = source.next()).startsWith("@")) {
+            line = null;
+        }
+
+        // Copy the record, up to the line which contains the last quality
+        // character (one quality character for every residue).
+        if (line != null) {
+            record.append(line).append('\n');
+            while (source.hasNext()
+                    && !(line = source.next()).startsWith("+")) {
+                record.append(line).append('\n');
+                residues += line.trim().length();
+            }
+            record.append("+\n");
+            while (scores < residues && source.hasNext()) {
+                line = source.next();
+                record.append(line).append('\n');
+                scores += line.trim().length();
+            }
+
+            // Parse the record (the scanner is only used to find the end of
+            // the record; the text is parsed by a FastQReader).
+            seq = new FastQReader(new StringReader(record.toString())).next();
+
+            if (seq != null) {
+                if (y < modellength && !addonly) {
+                    datamodel.insertSequence(x, y, seq);
+                } else {
+                    datamodel.add(y, seq);
+                }
+            }
+        }
+        return source.hasNext();
+    }
+
+    /**
+     * Used as part of the DataFormat auto-detection algorithm.  This method
+     * tests if the data represented by a prefix of the input can be parsed by
+     * the current DataFormat object.  FASTQ data begins with an '@' character
+     * line, followed by one or more lines of residues (the residues may be
+     * wrapped), and then a '+' character line.  GDE flat-files may also begin
+     * with an '@' character (a colour mask), so the residue lines are tested;
+     * if the residue lines continue past the end of the prefix, the data is
+     * assumed to be FASTQ if the lines only contain residues (colour masks
+     * contain digits).
+     **
+     * @param  prefix the first characters of the input (starting at the first
+     *                character which is not whitespace).
+     * @param  length the number of characters in the prefix.
+     * @return whether the format can be parsed by this DataFormat object
+     */
+    @Override
+    public boolean isFormat(char[] prefix, int length) {
+        // The position of the current character to test.
+        int position = 0;
+        // Whether the residue lines only contain residues.
+        boolean residues = true;
+        // The current character.
+        char c;
+
+        if (length > 0 && prefix[0] == '@') {
+            // Skip the name line.
+            while (position < length && prefix[position] != '\n') {
+                position++;
+            }
+            position++;
+
+            // Test the residue lines, up to the '+' character line.
+            while (residues && position < length
+                    && prefix[position] != '+') {
+                while (position < length && prefix[position] != '\n') {
+                    c = prefix[position];
+                    residues &= (Character.isLetter(c) || c == '-'
+                            || c == '*' || c == '.' || c == '\r');
+                    position++;
+                }
+                position++;
+            }
+        }
+        return length > 0 && prefix[0] == '@' && residues
+                && (position < length ? prefix[position] == '+'
+                                      : length == prefix.length);
+    }
+
+    /**
+     * Determines whether a specified file is of type FASTQ file
+     * (based on extension).  This method is part of the FileFilter interface.
+     * Currently the only extensions supported are ".fastq" and ".fq".
+     **
+     * @param  file the file to test.
+     * @return true if the file is of type FASTQ file (otherwise false).
+     * @see    javax.swing.filechooser.FileFilter#accept
+     */
+    public boolean accept(File file) {
+        // There are three types of files that will be displayed
+        // from a file chooser filtered to only show FASTQ files.
+        // These three types of files are:
+        //
+        // 1. directories
+        // 2. files ending with the extension .fastq
+        // 3. files ending with the extension .fq
+        return (file.isDirectory()
+                || file.getAbsolutePath().toLowerCase().endsWith(".fastq")
+                || file.getAbsolutePath().toLowerCase().endsWith(".fq"));
+    }
+
+    /**
+     * Returns a description of the file format that can be displayed to the
+     * user.  This method is part of the FileFilter interface.
+     **
+     * @return the string description of the file format.
+     * @see    javax.swing.filechooser.FileFilter#getDescription
+     */
+    public String getDescription() {
+        return "FASTQ file (*.fastq,*.fq)";
+    }
+}
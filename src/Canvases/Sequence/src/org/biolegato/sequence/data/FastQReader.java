@@ -0,0 +1,288 @@
+/*
+ * FastQReader.java
+ *
+ * Created on October 19, 2026, 1:45 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>A streaming FASTQ parser.</p>
+ *
+ * <p>Each FASTQ record consists of a name line (beginning with '@'), one or
+ * more residue lines, a separator line (beginning with '+'), and the quality
+ * lines.  As with FastAReader, the parser reads its source in blocks, and
+ * makes a single pass over each block using a small state machine.  The
+ * residues are packed directly into the residue store of the new sequence
+ * object, and the quality characters are decoded (Sanger/Illumina 1.8+
+ * encoding, i.e. Phred score + 33) directly into its quality score store.</p>
+ *
+ * <p>Because a quality line may begin with an '@' or '+' character, the
+ * quality lines are not delimited by the next name line; instead, quality
+ * characters are read until there is one for every residue (this also
+ * supports FASTQ files whose residue and quality lines are wrapped).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.FastQFile
+ * @see org.biolegato.sequence.data.FastAReader
+ */
+final class FastQReader {
+
+    /**
+     * The number of characters to read from the source at a time.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The number of residues collected before they are packed.
+     */
+    private static final int CHUNK_SIZE = 4096;
+    /**
+     * The offset of the quality characters (the character '!' is a Phred
+     * score of zero).
+     */
+    static final int QUALITY_OFFSET = 33;
+    /**
+     * The parser state between records (any text which is not a name line
+     * is skipped).
+     */
+    private static final int START = 0;
+    /**
+     * The parser state within a name/'@' character line.
+     */
+    private static final int HEADER = 1;
+    /**
+     * The parser state within the residue lines of a record.
+     */
+    private static final int RESIDUES = 2;
+    /**
+     * The parser state within the separator/'+' character line.
+     */
+    private static final int SEPARATOR = 3;
+    /**
+     * The parser state within the quality lines of a record.
+     */
+    private static final int QUALITY = 4;
+    /**
+     * The source to read from.
+     */
+    private final Reader source;
+    /**
+     * The buffer of characters read from the source.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * The position of the next character to parse within the buffer.
+     */
+    private int position = 0;
+    /**
+     * The number of characters in the buffer.
+     */
+    private int limit = 0;
+    /**
+     * Whether the next character to parse is at the beginning of a line.
+     */
+    private boolean linestart = true;
+    /**
+     * The residues collected since they were last packed.
+     */
+    private final char[] chunk = new char[CHUNK_SIZE];
+    /**
+     * The quality scores collected since they were last stored.
+     */
+    private final byte[] scores = new byte[CHUNK_SIZE];
+    /**
+     * The text of the current name/'@' character line.
+     */
+    private final StringBuilder header = new StringBuilder();
+
+    /**
+     * Creates a new FASTQ parser.
+     **
+     * @param source the source to read FASTQ data from.
+     */
+    FastQReader(Reader source) {
+        this.source = source;
+    }
+
+    /**
+     * Reads the next record from the source.  Any text before the first
+     * '@' character at the beginning of a line is skipped.  If the source
+     * ends before the record has a quality score for every residue, the
+     * remaining residues are given the score QualityScores.UNKNOWN.
+     **
+     * @return the next sequence, or null if there are no records left.
+     * @throws IOException if the source cannot be read.
+     */
+    Seq next() throws IOException {
+        // The residues of the sequence (null until the first chunk of
+        // residues is packed, so the encoding can be chosen by the detected
+        // sequence type).
+        PackedSequence residues = null;
+        // The quality scores of the sequence.
+        QualityScores quality = null;
+        // The detected sequence type.
+        Seq.Type type = Seq.Type.DNA;
+        // The parser state.
+        int state = START;
+        // The number of residues in the chunk array.
+        int count = 0;
+        // The number of residues in the record.
+        int length = 0;
+        // The number of quality scores in the scores array.
+        int scored = 0;
+        // The number of quality scores read for the record.
+        int total = 0;
+        // The current character.
+        char c;
+        // The name and description of the sequence.
+        String[] names;
+        // The sequence read.
+        Seq result = null;
+
+        header.setLength(0);
+        while (state != QUALITY || total < length) {
+            if (!fill()) {
+                break;
+            }
+            c = buffer[position];
+
+            switch (state) {
+                case START:
+                    // Skip to the next '@' character at the beginning of a
+                    // line.
+                    if (linestart && c == '@') {
+                        state = HEADER;
+                    }
+                    break;
+                case HEADER:
+                    // Copy the name line, up to the first new-line.
+                    if (c == '\n') {
+                        state = RESIDUES;
+                    } else if (c != '\r') {
+                        header.append(c);
+                    }
+                    break;
+                case RESIDUES:
+                    // Collect the residues, until a '+' character is found
+                    // at the beginning of a line.
+                    if (linestart && c == '+') {
+                        state = SEPARATOR;
+                    } else if (c > ' ') {
+                        if (type == Seq.Type.DNA) {
+                            type = FastAFile.detectType(type, (byte) c);
+                        }
+                        chunk[count++] = c;
+                        length++;
+                        if (count == CHUNK_SIZE) {
+                            residues = pack(residues, type, count);
+                            count = 0;
+                        }
+                    }
+                    break;
+                case SEPARATOR:
+                    // Skip the separator line (which may repeat the name).
+                    if (c == '\n') {
+                        residues = pack(residues, type, count);
+                        count = 0;
+                        quality = new QualityScores(length);
+                        state = QUALITY;
+                    }
+                    break;
+                default:
+                    // Decode the quality characters (whitespace is skipped,
+                    // so wrapped quality lines are supported).
+                    if (c > ' ') {
+                        scores[scored++] = score(c);
+                        total++;
+                        if (scored == CHUNK_SIZE) {
+                            quality.append(scores, 0, scored);
+                            scored = 0;
+                        }
+                    }
+                    break;
+            }
+            linestart = (c == '\n' || c == '\r');
+            position++;
+        }
+
+        // Create the sequence object.  If the end of the source was reached
+        // before the separator line, the record is incomplete; its residues
+        // are kept, but it has no quality scores.  A record whose name line
+        // is not terminated by a new-line is skipped.
+        if (state != START && state != HEADER) {
+            residues = pack(residues, type, count);
+            residues.trimToSize();
+            if (quality != null) {
+                quality.append(scores, 0, scored);
+                if (total < length) {
+                    System.err.println("WARNING: the FASTQ record \""
+                            + header + "\" has fewer quality scores than"
+                            + " residues");
+                    quality.insert(total, null, 0, length - total);
+                }
+                quality.trimToSize();
+            } else {
+                System.err.println("WARNING: the FASTQ record \"" + header
+                        + "\" has no quality scores");
+            }
+            names = FastAFile.parseHeader(header.toString());
+            result = new Seq(type, names[0],
+                    new SequenceBuffer(type, (ResidueStore) residues),
+                    names[1]);
+            result.quality = quality;
+        }
+        return result;
+    }
+
+    /**
+     * Decodes a quality character.
+     **
+     * @param  c the quality character.
+     * @return the Phred score represented by the character (clipped to the
+     *         range of scores which may be written to a FASTQ file).
+     */
+    static byte score(char c) {
+        return (byte) Math.max(0,
+                Math.min(QualityScores.MAX_SCORE, c - QUALITY_OFFSET));
+    }
+
+    /**
+     * Ensures that there are characters in the buffer to parse.
+     **
+     * @return false if the end of the source has been reached.
+     * @throws IOException if the source cannot be read.
+     */
+    private boolean fill() throws IOException {
+        // The number of characters read from the source.
+        int read = 0;
+
+        while (position >= limit && read >= 0) {
+            read = source.read(buffer, 0, buffer.length);
+            position = 0;
+            limit = Math.max(0, read);
+        }
+        return position < limit;
+    }
+
+    /**
+     * Packs the residues collected in the chunk array.
+     **
+     * @param  residues the residue store to pack the residues into (null to
+     *                  create a new store).
+     * @param  type     the sequence type detected so far (used to select the
+     *                  encoding of a new store).
+     * @param  count    the number of residues in the chunk array.
+     * @return the residue store.
+     */
+    private PackedSequence pack(PackedSequence residues, Seq.Type type,
+            int count) {
+        if (residues == null) {
+            residues = new PackedSequence(type);
+        }
+        residues.append(chunk, 0, count);
+        return residues;
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ * FormatConverter.java
+ *
+ * Created on October 19, 2026, 5:20 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.biopcd.parser.CompressedIO;
+
+/**
+ * <p>Converts sequence files from the command line, without starting
+ * BioLegato's user interface (so no display is required).</p>
+ *
+ * <p>Usage:
+ * <pre>
+ *     java -cp sequence.jar:biolegato.jar:biopcd.jar \
+ *          org.biolegato.sequence.data.FormatConverter \
+ *          --format=fasta [--output=directory] [--threads=n] [--gzip] files
+ * </pre>
+ * The format of each input file is auto-detected (gzip-compressed and 2bit
+ * files are also read).  Each input file is converted into a file of the same
+ * name, with the extension of the output format, in the output directory (by
+ * default, the directory containing the input file).  The output formats
+ * supported are: genbank, gde, flat, fasta and fastq.  Each output file is
+ * written to a temporary file in the output directory, which is renamed to
+ * the output file once the conversion is complete (and deleted if the
+ * conversion fails); thus, a failed conversion never leaves a partial output
+ * file behind, nor replaces an existing output file.</p>
+ *
+ * <p>The files are converted in parallel, one file per worker thread.  Each
+ * file is parsed into a SequenceSink, which writes the sequences to the output
+ * file as soon as the parser adds them (the parsers add at most
+ * Dataset.LOAD_BATCH sequences at a time); thus, the memory used does not
+ * depend on the size of the files.  The throughput of each file is printed
+ * when its conversion is complete, followed by a summary.  The exit status is
+ * non-zero if any file could not be converted.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.SequenceSink
+ */
+public final class FormatConverter {
+
+    /**
+     * The number of bytes in a megabyte (used for the throughput reports).
+     */
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+    /**
+     * The format to write the output files in.
+     */
+    private final DataFormat format;
+    /**
+     * The file extension (including the period) of the output files.
+     */
+    private final String extension;
+    /**
+     * The directory to write the output files to (null to write each output
+     * file to the directory containing its input file).
+     */
+    private final File directory;
+    /**
+     * Whether to gzip-compress the output files.
+     */
+    private final boolean compress;
+
+    /**
+     * Creates a new format converter.
+     **
+     * @param format     the format to write the output files in.
+     * @param extension  the file extension of the output files.
+     * @param directory  the directory to write the output files to (null to
+     *                   write each output file beside its input file).
+     * @param compress   whether to gzip-compress the output files.
+     */
+    public FormatConverter(DataFormat format, String extension,
+            File directory, boolean compress) {
+        this.format = format;
+        this.extension = extension;
+        this.directory = directory;
+        this.compress = compress;
+    }
+
+    /**
+     * Converts files from the command line.
+     **
+     * @param args the command line arguments (see the class description).
+     */
+    public static void main(String[] args) {
+        // The name of the output format.
+        String formatName = null;
+        // The directory to write the output files to.
+        File directory = null;
+        // The number of files to convert at once.
+        int threads = Runtime.getRuntime().availableProcessors();
+        // Whether to gzip-compress the output files.
+        boolean compress = false;
+        // The files to convert.
+        final List<File> files = new ArrayList<File>();
+        // The name of the current option.
+        String option;
+        // The value of the current option (after the equals sign).
+        String value;
+        // Whether the command line is valid.
+        boolean valid = true;
+        // The format to write the output files in.
+        DataFormat format = null;
+        // The file extension of the output files.
+        String extension = null;
+        // The number of files which could not be converted.
+        int failed;
+
+        // Parse the command line arguments.
+        for (String argument : args) {
+            if (argument.startsWith("--")) {
+                option = argument.substring(2).toLowerCase();
+                value = null;
+                if (option.indexOf('=') >= 0) {
+                    value = argument.substring(argument.indexOf('=') + 1);
+                    option = option.substring(0, option.indexOf('='));
+                }
+
+                if ("format".equals(option) && value != null) {
+                    formatName = value.toLowerCase().trim();
+                } else if ("output".equals(option) && value != null) {
+                    directory = new File(value);
+                } else if ("threads".equals(option) && value != null) {
+                    try {
+                        threads = Math.max(1, Integer.parseInt(value.trim()));
+                    } catch (NumberFormatException nfe) {
+                        System.err.println("Invalid number of threads: "
+                                + value);
+                        valid = false;
+                    }
+                } else if ("gzip".equals(option)) {
+                    compress = true;
+                } else {
+                    valid = false;
+                }
+            } else {
+                files.add(new File(argument));
+            }
+        }
+
+        // Determine the output format (the binary formats cannot be written
+        // one sequence at a time, so they are not supported).
+        if ("genbank".equals(formatName)) {
+            format = DataFormat.GENBANK;
+            extension = ".gb";
+        } else if ("gde".equals(formatName)) {
+            format = DataFormat.GDEFILE;
+            extension = ".gde";
+        } else if ("flat".equals(formatName)) {
+            format = DataFormat.GDEFLAT;
+            extension = ".flat";
+        } else if ("fasta".equals(formatName)) {
+            format = DataFormat.FASTA;
+            extension = ".fasta";
+        } else if ("fastq".equals(formatName)) {
+            format = DataFormat.FASTQ;
+            extension = ".fastq";
+        }
+
+        if (!valid || format == null || files.isEmpty()) {
+            System.err.println(
+                    "Usage: FormatConverter --format=<format>"
+                        + " [--output=<directory>] [--threads=<n>] [--gzip]"
+                        + " files\n"
+                    + "Formats: genbank, gde, flat, fasta, fastq");
+            System.exit(2);
+        } else if (directory != null && !directory.isDirectory()) {
+            System.err.println("Not a directory: " + directory);
+            System.exit(2);
+        } else {
+            failed = new FormatConverter(format, extension, directory, compress
+                    ).convertAll(files, threads);
+            System.exit(failed > 0 ? 1 : 0);
+        }
+    }
+
+    /**
+     * Converts a list of files in parallel, one file per worker thread.  The
+     * throughput of each file is printed to System.out as each file is
+     * converted, followed by a summary.
+     **
+     * @param  files    the files to convert.
+     * @param  threads  the number of files to convert at once.
+     * @return the number of files which could not be converted.
+     */
+    public int convertAll(List<File> files, int threads) {
+        // The worker threads.
+        final ExecutorService workers = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, files.size())));
+        // The conversions submitted to the worker threads (in file order; an
+        // entry is null if the file was not converted, because an earlier
+        // file is converted to the same output file).
+        final List<Future<Long>> results = new ArrayList<Future<Long>>();
+        // The output files of the conversions submitted.
+        final Set<File> targets = new HashSet<File>();
+        // The time the conversions were started.
+        final long start = System.nanoTime();
+        // The total number of bytes read.
+        long bytes = 0;
+        // The number of files which could not be converted.
+        int failed = 0;
+        // The number of seconds taken to convert all of the files.
+        double seconds;
+
+        try {
+            for (final File file : files) {
+                if (targets.add(getOutputFile(file))) {
+                    results.add(workers.submit(new Callable<Long>() {
+                        public Long call() throws IOException {
+                            return convert(file);
+                        }
+                    }));
+                } else {
+                    results.add(null);
+                }
+            }
+            for (int index = 0; index < results.size(); index++) {
+                try {
+                    if (results.get(index) != null) {
+                        bytes += results.get(index).get();
+                    } else {
+                        System.err.println("ERROR: could not convert "
+                                + files.get(index) + ": another file is"
+                                + " converted to "
+                                + getOutputFile(files.get(index)));
+                        failed++;
+                    }
+                } catch (ExecutionException ee) {
+                    System.err.println("ERROR: could not convert "
+                            + files.get(index) + ": " + ee.getCause());
+                    failed++;
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    failed += results.size() - index;
+                    break;
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        // Print the summary.
+        seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        System.out.println(String.format(
+                "%d of %d files converted, %.1f MB in %.2f s (%.1f MB/s)",
+                files.size() - failed, files.size(), bytes / MEGABYTE,
+                seconds, bytes / MEGABYTE / seconds));
+        return failed;
+    }
+
+    /**
+     * Converts a single file, and prints its throughput to System.out.  The
+     * output file is only written if the whole file is converted.
+     **
+     * @param  file         the file to convert.
+     * @return the size of the file (in bytes).
+     * @throws IOException  if the file cannot be read, or the output file
+     *                      cannot be written.
+     */
+    public long convert(File file) throws IOException {
+        // The time the conversion was started.
+        final long start = System.nanoTime();
+        // The size of the input file.
+        final long bytes = file.length();
+        // Whether the input file is gzip-compressed.
+        final boolean compressed = CompressedIO.isGzip(file);
+        // The output file.
+        final File target = getOutputFile(file);
+        // The temporary file to write the output to, until the conversion is
+        // complete.
+        final File temp;
+        // The writer for the output file.
+        final Writer out;
+        // The sink which writes each sequence to the output file as it is
+        // parsed.
+        final WriterSink sink;
+        // Whether the output file was written.
+        boolean complete = false;
+        // The number of seconds taken to convert the file.
+        double seconds;
+
+        if (target.getCanonicalFile().equals(file.getCanonicalFile())) {
+            throw new IOException("the output file would replace the input"
+                    + " file");
+        }
+
+        temp = File.createTempFile(target.getName() + ".", ".tmp",
+                target.getAbsoluteFile().getParentFile());
+        try {
+            out = CompressedIO.openWriter(temp, compress);
+            sink = new WriterSink(out);
+            try {
+                parse(file, compressed, sink);
+            } catch (UncheckedIOException uioe) {
+                // Report errors writing the output file (the sink cannot
+                // throw IOExceptions to the parser directly).
+                throw uioe.getCause();
+            } finally {
+                out.close();
+            }
+            Files.move(temp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            complete = true;
+        } finally {
+            if (!complete) {
+                temp.delete();
+            }
+        }
+
+        // Report the throughput.
+        seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        System.out.println(String.format(
+                "%s -> %s: %d sequences, %d residues, %.1f MB in %.2f s"
+                    + " (%.1f MB/s)",
+                file, target, sink.getSize(), sink.residues, bytes / MEGABYTE,
+                seconds, bytes / MEGABYTE / seconds));
+        return bytes;
+    }
+
+    /**
+     * Parses a file into a sink, auto-detecting its format.
+     **
+     * @param  file        the file to parse.
+     * @param  compressed  whether the file is gzip-compressed.
+     * @param  sink        the sink to add the sequences to.
+     * @throws IOException if the file cannot be read.
+     */
+    private static void parse(File file, boolean compressed,
+                              SequenceSink sink) throws IOException {
+        // The reader used to auto-detect the format of the input file.
+        final PushbackReader detect;
+
+        // 2bit files are binary, so they are detected by their signature (the
+        // sequences of a 2bit file are read lazily, as they are written, so
+        // 2bit files are also converted in bounded memory).
+        if (!compressed && TwoBitFile.isTwoBit(file)) {
+            ((TwoBitFile) DataFormat.TWOBIT).readFile(sink, file, 0);
+        } else {
+            detect = new PushbackReader(CompressedIO.openReader(file),
+                    DataFormat.SNIFF_SIZE);
+            try {
+                DataFormat.autodetect(detect).convertFrom(sink, detect, 0, 0);
+            } finally {
+                detect.close();
+            }
+        }
+    }
+
+    /**
+     * Determines the name of the output file for an input file.  The
+     * extension of the input file (and any gzip suffix) is replaced with the
+     * extension of the output format.
+     **
+     * @param  file the input file.
+     * @return the output file.
+     */
+    File getOutputFile(File file) {
+        // The name of the output file.
+        String name = file.getName();
+        // The directory to write the output file to.
+        File parent = directory;
+
+        if (name.toLowerCase().endsWith(CompressedIO.GZIP_SUFFIX)) {
+            name = name.substring(0,
+                    name.length() - CompressedIO.GZIP_SUFFIX.length());
+        }
+        if (name.lastIndexOf('.') > 0) {
+            name = name.substring(0, name.lastIndexOf('.'));
+        }
+        name += extension + (compress ? CompressedIO.GZIP_SUFFIX : "");
+
+        if (parent == null) {
+            parent = file.getAbsoluteFile().getParentFile();
+        }
+        return new File(parent, name);
+    }
+
+    /**
+     * A sink which writes each sequence added to it to a Writer, in the
+     * output format.
+     */
+    private final class WriterSink extends SequenceSink {
+
+        /**
+         * The writer to write the sequences to.
+         */
+        private final Writer out;
+        /**
+         * Used for serialization purposes.
+         */
+        private static final long serialVersionUID = 7526472295622777133L;
+        /**
+         * The total number of residues written.
+         */
+        long residues = 0;
+
+        /**
+         * Creates a new sink for a writer.
+         **
+         * @param out the writer to write the sequences to.
+         */
+        WriterSink(Writer out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes sequences to the output file.
+         **
+         * @param  seqs the sequences to write.
+         * @throws UncheckedIOException if the sequences cannot be written.
+         */
+        @Override
+        protected void accept(Collection<Seq> seqs) {
+            // The length of the current sequence.
+            int length;
+
+            try {
+                for (Seq seq : seqs) {
+                    length = seq.getSequence().length();
+                    format.convertTo(out, seq, 0, length);
+                    residues += length;
+                }
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+    }
+}
@@ -13,8 +13,7 @@ import org.biolegato.sequence.data.Seq.Topology;
 import org.biolegato.sequence.data.Seq.Type;
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Calendar;
 import java.util.Scanner;
 import java.util.regex.*;
 import org.biolegato.main.BLMain;
@@ -38,6 +37,11 @@ public class GDEFile extends DataFormat {
     private static final Pattern FIELD_PATTERN
             = Pattern.compile("^(\\w+)\\s+(\".*?\"|[^\"].*?$)",
                 Pattern.MULTILINE | Pattern.DOTALL);
+    /**
+     * The date stamp printed in the creation-date field.
+     */
+    private static final DateStamp DATE
+            = new DateStamp("MM/dd/yy kk:mm:ss", Calendar.SECOND, false);
 
     /**
      * Creates a new instance of GDEFile
@@ -57,29 +61,34 @@ public class GDEFile extends DataFormat {
      */
     public void convertTo(Appendable result, Seq seq, int offset, int length)
                                                             throws IOException {
+        // The output buffer (used to format the group ID).
+        final char[] buffer = writeBuffer();
+
         // Translate the data
         // NOTE: append is faster than + or concat operators
         if (seq != null) {
-            // Print all of the Fields for the GDE file (as one big append-chain
-            // statement, with field translation/formatting where necessary).
+            // Print all of the Fields for the GDE file (as append-chain
+            // statements, with field translation/formatting where necessary).
             //
             // NOTE: this code is messy because writing big GDE files used to be
             //       considerably slow.  Therefore, this code was optimized to
-            //       run much faster by using the append command.
+            //       run much faster by using the append command.  The quoted
+            //       fields and the sequence are copied through the output
+            //       buffer (see writeQuoted), rather than being converted to
+            //       new strings by the quote method.
             //
             // NOTE: The whitespace after each GDE field is only for decorative
             //       purposes (to make the files neat.
-            result.append("{\nname            \"").append(
-                    quote(seq.getName())).append(
+            result.append("{\nname            \"");
+            writeQuoted(result, seq.getName());
 // TODO: reimplement longname
 //		"\"\nlongname        \"").append(
 //			quote(seq.getName())).append(
 // TODO: reimplement accession numbers
 //		"\"\nsequence-ID     \"").append(
 //			quote(seq.getAccession())).append(
-                "\"\ncreation-date   \""
-                    ).append((new SimpleDateFormat("MM/dd/yy kk:mm:ss")
-                        ).format(new Date())).append(
+            result.append(
+                "\"\ncreation-date   \"").append(DATE.get()).append(
                 "\"\ndirection       ").append(
                     (Direction.FROM5TO3.equals(seq.getDirection())
                         ? "1" : "-1")).append(
@@ -91,18 +100,20 @@ public class GDEFile extends DataFormat {
                 "\n").append((Topology.CIRCULAR.equals(
                     seq.getTopology())
                         ? "circular        1\n" : "")).append(
-                "offset          0\ngroupID         ").append(
-                    Integer.toString(
-                        Math.min(0, seq.getGroupID() - 1))).append(
+                "offset          0\ngroupID         ");
+            write(result, buffer, formatNumber(
+                        Math.min(0, seq.getGroupID() - 1), 0, buffer, 0));
+            result.append(
                 "\ncreator         \"").append(quote("")).append(
-                "\"\ndescrip         \"").append(
-                        quote(seq.getDescription())).append(
+                "\"\ndescrip         \"");
+            writeQuoted(result, seq.getDescription());
 // TODO: reimplement comments section?
 /*		"\"\ncomments        \"").append(
                     quote(seq.get("comments"))).append(*/
-                "\"\nsequence        \"").append(
-                        quote(seq.getSequence().toString()),
-                            offset, offset + length).append("\"\n}\n");
+            result.append(
+                "\"\nsequence        \"");
+            writeQuoted(result, seq.getSequence(), offset, offset + length);
+            result.append("\"\n}\n");
         }
     }
 
@@ -286,18 +297,25 @@ public class GDEFile extends DataFormat {
 
     /**
      * Used as part of the DataFormat auto-detection algorithm.  This method
-     * tests if the data represented in a scanner can be parsed by the current
-     * DataFormat object.
+     * tests if the data represented by a prefix of the input can be parsed by
+     * the current DataFormat object.  GDE data contains a '{' character
+     * on its first line.
      **
-     * @param  test the Scanner object to parse and determine if it contains
-     *              data which can be parsed by this DataFormat object.
-     * @throws IOException  returns any possible I/O exceptions
-     *                      (such as mark not supported)
+     * @param  prefix the first characters of the input (starting at the first
+     *                character which is not whitespace).
+     * @param  length the number of characters in the prefix.
      * @return whether the format can be parsed by this DataFormat object
      */
     @Override
-    public boolean isFormat(Scanner test) throws IOException {
-        return test.findInLine("(?=" + DELIMITER + ")") != null;
+    public boolean isFormat(char[] prefix, int length) {
+        // Whether a '{' character was found.
+        boolean result = false;
+
+        for (int index = 0; !result && index < length
+                && prefix[index] != '\n' && prefix[index] != '\r'; index++) {
+            result = (prefix[index] == '{');
+        }
+        return result;
     }
     
     /**
@@ -342,6 +360,86 @@ public class GDEFile extends DataFormat {
                 ).replaceAll("\\{", "\\[").replaceAll("\\}", "\\]") : "");
     }
 
+    /**
+     * Writes a field to an Appendable object, quoted the same way as the
+     * quote method (but without creating any new strings).
+     **
+     * @param  out          the destination to write to.
+     * @param  text         the text of the field (null is written as "").
+     * @throws IOException  if an error occurs while writing to the destination.
+     * @see org.biolegato.sequence.data.GDEFile#quote(java.lang.String)
+     */
+    private static void writeQuoted(Appendable out, String text)
+                                                        throws IOException {
+        // The output buffer.
+        final char[] buffer = writeBuffer();
+        // The number of characters to copy into the buffer.
+        int amount;
+
+        if (text != null) {
+            for (int start = 0; start < text.length(); start += amount) {
+                amount = Math.min(text.length() - start, buffer.length);
+                text.getChars(start, start + amount, buffer, 0);
+                writeQuoted(out, buffer, amount);
+            }
+        }
+    }
+
+    /**
+     * Writes part of a sequence to an Appendable object, quoted the same way
+     * as the quote method (but without creating any new strings).
+     **
+     * @param  out          the destination to write to.
+     * @param  sequence     the sequence to write.
+     * @param  start        the position of the first residue to write.
+     * @param  end          the position after the last residue to write.
+     * @throws IOException  if an error occurs while writing to the destination.
+     * @see org.biolegato.sequence.data.GDEFile#quote(java.lang.String)
+     */
+    private static void writeQuoted(Appendable out, SequenceBuffer sequence,
+                                    int start, int end) throws IOException {
+        // The output buffer.
+        final char[] buffer = writeBuffer();
+        // The number of residues to copy into the buffer.
+        int amount;
+
+        for (; start < end; start += amount) {
+            amount = Math.min(end - start, buffer.length);
+            sequence.getChars(start, start + amount, buffer, 0);
+            writeQuoted(out, buffer, amount);
+        }
+    }
+
+    /**
+     * Quotes the characters in a buffer (in place), and writes them to an
+     * Appendable object.  Double-quotes are replaced with single-quotes, and
+     * braces are replaced with square brackets.
+     **
+     * @param  out          the destination to write to.
+     * @param  buffer       the characters to quote and write.
+     * @param  length       the number of characters to quote and write.
+     * @throws IOException  if an error occurs while writing to the destination.
+     */
+    private static void writeQuoted(Appendable out, char[] buffer, int length)
+                                                        throws IOException {
+        for (int index = 0; index < length; index++) {
+            switch (buffer[index]) {
+                case '"':
+                    buffer[index] = '\'';
+                    break;
+                case '{':
+                    buffer[index] = '[';
+                    break;
+                case '}':
+                    buffer[index] = ']';
+                    break;
+                default:
+                    break;
+            }
+        }
+        write(out, buffer, length);
+    }
+
     /**
      * Converts a sequence's type enum to the GDE file format
      **
@@ -54,9 +54,9 @@ public class GDEFlatfile extends DataFormat {
             type = typeToFlatFile((Type) seq.getType());
 
             // NOTE: append is faster than + or concat operators
-            out.append(type).append(seq.getName()).append("\n"
-                    ).append(seq.getSequence(), offset, offset + length
-                    ).append("\n");
+            out.append(type).append(seq.getName()).append("\n");
+            write(out, seq.getSequence(), offset, offset + length);
+            out.append("\n");
         }
     }
 
@@ -148,18 +148,19 @@ public class GDEFlatfile extends DataFormat {
 
     /**
      * Used as part of the DataFormat auto-detection algorithm.  This method
-     * tests if the data represented in a scanner can be parsed by the current
-     * DataFormat object.
+     * tests if the data represented by a prefix of the input can be parsed by
+     * the current DataFormat object.  GDE flat-file data begins with a
+     * '#', '%', '@' or '"' character.
      **
-     * @param  test the Scanner object to parse and determine if it contains
-     *              data which can be parsed by this DataFormat object.
-     * @throws IOException  returns any possible I/O exceptions
-     *                      (such as mark not supported)
+     * @param  prefix the first characters of the input (starting at the first
+     *                character which is not whitespace).
+     * @param  length the number of characters in the prefix.
      * @return whether the format can be parsed by this DataFormat object
      */
     @Override
-    public boolean isFormat(Scanner test) throws IOException {
-        return test.findInLine(DELIMITER) != null;
+    public boolean isFormat(char[] prefix, int length) {
+        return length > 0 && (prefix[0] == '#' || prefix[0] == '%'
+                || prefix[0] == '@' || prefix[0] == '"');
     }
     
     /**
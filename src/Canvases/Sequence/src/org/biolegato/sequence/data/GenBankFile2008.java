@@ -12,12 +12,14 @@ import org.biolegato.sequence.data.Seq.Type;
 import org.biolegato.sequence.data.Seq.Topology;
 import org.biolegato.sequence.data.Seq.Strandedness;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
 import java.util.Scanner;
-import java.util.regex.*;
-import org.biolegato.sequence.data.Seq.Direction;
 
 /**
  * This class acts as a parser/translator for GenBank files (using the file
@@ -36,19 +38,15 @@ public class GenBankFile2008 extends DataFormat {
      */
     private static final String DELIMITER      = "(?im:(?=^LOCUS))";
     /**
-     * A string of whitespace, used for padding sequence names
-     * (because GenBANK files are character position-sensitive).
+     * The maximum length of a formatted sequence row (a new-line, the position
+     * counter, and six groups of ten residues preceded by spaces).
      */
-    private final static String SPACEPAD
-            = "                                 ";
+    private static final int MAX_ROW_LENGTH = 80;
     /**
-     * A regular expression pattern used to help read the locus tag line.
-     * (the locus tag line is the first line in a GenBANK file).
+     * The date stamp printed on generated LOCUS lines (e.g. "18-OCT-2026").
      */
-    private static final Pattern LOCUS_PATTERN
-            = Pattern.compile("^LOCUS\\s+([^\\s]+)\\s+(?:\\d+\\s+)?"
-            + "(aa|bp\\s+[\\w-]+)\\s+(circular\\s+|linear\\s+)?",
-            Pattern.CASE_INSENSITIVE);
+    private static final DateStamp DATE
+            = new DateStamp("dd-MMM-yyyy", Calendar.DATE, true);
 
     /**
      * Creates a new instance of GenBankFile2008
@@ -67,7 +65,9 @@ public class GenBankFile2008 extends DataFormat {
      * @param  seq          the sequence object to convert.
      * @param  offset       the offset in the sequence to start the conversion.
      * @param  length       the number of characters to convert.
-     * @throws IOException  if an error occurs while writing to the destination.
+     * @throws IOException  if an error occurs while writing to the destination,
+     *                      or the original header of the sequence cannot be
+     *                      read from its GenBank file (see GenBankHeader).
      */
     public void convertTo(Appendable result, Seq seq, int offset, int length)
                                                             throws IOException {
@@ -75,10 +75,19 @@ public class GenBankFile2008 extends DataFormat {
         int namelength;
         // The total length of the original sequence.
         int sequenceLength;
-        // A StringBuffer to store the sequence data to print.
-        StringBuffer sequence;
+        // The sequence data to print.
+        SequenceBuffer sequence;
+        // The original GenBANK header of the sequence (null if the header
+        // should be generated).
+        CharSequence original = null;
         // Stores the maximum position within the sequence to print.
         final int sequencemax = offset + length;
+        // The output buffer used to format the sequence rows.
+        final char[] buffer = writeBuffer();
+        // The number of characters in the output buffer.
+        int position = 0;
+        // The end of the current group of ten residues.
+        int end;
 
         // Convert the data
         // NOTE: append is faster than + or concat operators
@@ -88,25 +97,35 @@ public class GenBankFile2008 extends DataFormat {
             sequenceLength = Math.min(sequencemax, sequence.length());
 
             // If there is an original field in the sequence object, use that
-            // instead of a fake generated BioLegato GenBANK header.
-            if (seq.getOriginal() == null || offset != 0
-                    || length != sequence.length()) {
+            // instead of a fake generated BioLegato GenBANK header.  If only
+            // the location of the original header was kept, read the header
+            // from the GenBANK file (if the file has changed since it was
+            // read, the header is unavailable, and the record is not written,
+            // rather than written without its annotations).
+            if (seq.getOriginal() != null && offset == 0
+                    && length == sequence.length()) {
+                original = seq.getOriginal();
+                if (original instanceof GenBankHeader) {
+                    original = ((GenBankHeader) original).read();
+                }
+            }
+            if (original == null) {
                 // Begin the locus line.
                 result.append("LOCUS       ");
 
                 // Append the name to the stream.  Note that we ensure this
                 // field is 16 characters long with right-side padding of
                 // spaces if necessary.
-                namelength = seq.getName().length();
-                if (namelength < 16) {
-                    result.append(seq.getName()).append(SPACEPAD,
-                            0, 16 - namelength);
-                } else {
-                    result.append(seq.getName().substring(0, 16));
+                namelength = Math.min(16, seq.getName().length());
+                seq.getName().getChars(0, namelength, buffer, 0);
+                for (position = namelength; position < 16; position++) {
+                    buffer[position] = ' ';
                 }
 
                 // Print the length of the sequence stored in the file.
-                result.append(" ").append(String.format("%11d", length));
+                buffer[16] = ' ';
+                write(result, buffer, formatNumber(length, 11, buffer, 17));
+                position = 0;
 
                 // Print the strandedness of the nucleotide data in the GenBANK
                 // file (if it is not a protein GenBANK file).
@@ -155,8 +174,7 @@ public class GenBankFile2008 extends DataFormat {
 //                }
                 
                 // Print the time the GenBANK file was generated.
-                result.append((new SimpleDateFormat("dd-MMM-yyyy")).format(
-                        new Date()).toUpperCase());
+                result.append(DATE.get());
                 result.append("\n");
 
                 // Print the description field for the sequence.
@@ -169,31 +187,176 @@ public class GenBankFile2008 extends DataFormat {
                 // Apparently, the append function adds a newline, so if we don't do
                 // this, an extra blank line appears between the end of the annotation
                 // and the ORIGIN line.
-                result.append(seq.getOriginal().subSequence(0, seq.getOriginal().length()-1));
+                result.append(original.subSequence(0, original.length()-1));
             }
             // Print the ORIGIN line and begin writing the sequence.
             // NOTE:  GenBANK sequences have a special format involving spacing,
             //        numbering, and a limited number of characters per row.
             result.append("ORIGIN");
 
-            // Print the sequence (60 characters per row).
+            // Print the sequence (60 characters per row).  The rows are
+            // formatted into the output buffer, which is written whenever it
+            // cannot hold another row.
             for (int count = offset; count < sequenceLength; count += 60) {
+                if (position + MAX_ROW_LENGTH > buffer.length) {
+                    write(result, buffer, position);
+                    position = 0;
+                }
+
                 // Print the sequence position counter.
-                result.append("\n").append(String.format("%9d", (count + 1)));
+                buffer[position] = '\n';
+                position = formatNumber(count + 1, 9, buffer, position + 1);
 
                 // Print the spacing and sequence characters.
                 for (int spaceCount = count, next = count + 10;
                         spaceCount < count + 60 && spaceCount < sequenceLength;
                         spaceCount = next, next += 10) {
-                    result.append(" ").append(sequence, spaceCount,
-                            // math.min
-                            (sequenceLength < next ? sequenceLength : next));
+                    // math.min
+                    end = (sequenceLength < next ? sequenceLength : next);
+                    buffer[position] = ' ';
+                    sequence.getChars(spaceCount, end, buffer, position + 1);
+                    position += end - spaceCount + 1;
                 }
             }
+            write(result, buffer, position);
             result.append("\n//\n"); // Two right slashes denote end of a GenBank entry
         }
     }
 
+    /**
+     * <p>Converts GenBank data from a scanner into BioLegato.</p>
+     *
+     * <p>Rather than splitting the data into a String for each record, the
+     * remaining text of the scanner is streamed through a GenBankReader (see
+     * convertFrom(Dataset, Reader, int, int)).</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Scanner object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Scanner data, int x, int y)
+                                                            throws IOException {
+        convertFrom(datamodel, new ScannerReader(data), x, y);
+    }
+
+    /**
+     * <p>Converts GenBank data from a reader into BioLegato.</p>
+     *
+     * <p>The data is parsed, one line at a time, by a GenBankReader.  As with
+     * convertSequence, records whose line numbers are within the data model
+     * are inserted into the existing sequences at the X-coordinate specified;
+     * all other records are added to the end of the data model, in batches
+     * of up to Dataset.LOAD_BATCH records.</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Reader object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Reader data, int x, int y)
+                                                            throws IOException {
+        convertFrom(datamodel, new GenBankReader(data), x, y);
+    }
+
+    /**
+     * <p>Reads a GenBank file into BioLegato, adding the sequences to the data
+     * model.</p>
+     *
+     * <p>Unlike convertFrom, the original header of each record is not kept in
+     * memory; instead, only the location of the header within the file (and a
+     * checksum) is kept, and the header is read from the file again when the
+     * sequence is written out as GenBank (see GenBankHeader).  The file should
+     * not be modified while it is open; otherwise, the unmodified sequences
+     * read from it cannot be written out as GenBank (convertTo throws an
+     * IOException naming the file).</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  file         the GenBank file to read.
+     * @param  y            the Y-coordinate (line) in the data model to add
+     *                      the sequences at.
+     * @throws IOException  any exceptions that occur while reading the file.
+     * @see org.biolegato.sequence.data.GenBankHeader
+     */
+    public void readFile(Dataset datamodel, File file, int y)
+                                                        throws IOException {
+        // The reader used to read the file.
+        final Reader in = new FileReader(file);
+
+        try {
+            convertFrom(datamodel, new GenBankReader(in, file), 0, y);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads all of the sequences from a GenBank parser into BioLegato.
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  reader       the GenBank parser to read sequences from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    private static void convertFrom(Dataset datamodel, GenBankReader reader,
+                                    int x, int y) throws IOException {
+        // Stores the number of sequences in the data model at the time the
+        // function is called.
+        final int modellength = datamodel.getSize();
+        // The sequences to add to the end of the data model.
+        List<Seq> seqs = new ArrayList<Seq>();
+        // The line number to add the new sequences at.
+        int first = -1;
+        // The time the last batch of sequences was added to the data model.
+        long added = System.currentTimeMillis();
+        // The current sequence read.
+        Seq seq;
+
+        while ((seq = reader.next()) != null) {
+            if (y < modellength) {
+                datamodel.insertSequence(x, y, seq);
+            } else {
+                if (seqs.isEmpty()) {
+                    first = y;
+                }
+                seqs.add(seq);
+
+                // Add the sequences to the data model in batches, so they
+                // appear in the canvas while a large file is read (a new list
+                // is used for each batch, because the undo history keeps a
+                // reference to the list added).
+                if (seqs.size() >= Dataset.LOAD_BATCH
+                        || System.currentTimeMillis() - added
+                            >= Dataset.LOAD_DELAY) {
+                    datamodel.addSequences(first, seqs);
+                    seqs = new ArrayList<Seq>();
+                    added = System.currentTimeMillis();
+                }
+            }
+            y++;
+        }
+
+        // Add the remaining sequences to the data model.
+        if (!seqs.isEmpty()) {
+            datamodel.addSequences(first, seqs);
+        }
+    }
+
     /**
      * Converts a single sequence from a scanner into BioLegato
      **
@@ -218,102 +381,38 @@ public class GenBankFile2008 extends DataFormat {
         // Stores the number of sequences in the data model at the time the
         // function is called.
         final int modellength = datamodel.getSize();
-        // Separate the header from the sequence.
-        String[] parray = null;
-        // A string matcher to match the locus line fields.
-        Matcher locusMatcher = null;
+        // The sequence parsed.
+        Seq seq;
 
         // Ensure usage of the proper delimiter.
         source.useDelimiter(DELIMITER);
 
         // Make sure that there are GenBank records to parse.
         if (source.hasNext()) {
-            parray = source.next().split("ORIGIN[^\n\r]*");
+            // Parse the next record (the scanner is only used to find the end
+            // of the record; the text is parsed by a GenBankReader).
+            seq = new GenBankReader(new StringReader(source.next())).next();
 
-            // Ensure that there is a header and sequence for the GenBANK file.
-            if (parray.length >= 1) {
-                // Configure the parser to parse the locus line.
-                if (locusMatcher == null) {
-                    locusMatcher = LOCUS_PATTERN.matcher(parray[0]);
+            // Ensure that the locus line of the record could be read.
+            if (seq != null) {
+                // If the line number index is past the number of lines in
+                // the data model, or the 'addonly' flag are set, then add
+                // the new sequence data to the end of the data model;
+                // otherwise, insert the sequence into the middle of an
+                // existing sequence in the data model.
+                //
+                // (NOTE: this if-statement is written in reverse order
+                //        of what is stated above).
+                if (y < modellength && !addonly) {
+                    // INSERT the sequence data into the canvas.
+                    // NOTE: only the sequence itself is inserted, since
+                    // insertions do not involve any metadata (such as type,
+                    // etc.)
+                    datamodel.insertSequence(x, y, seq);
                 } else {
-                    locusMatcher.reset(parray[0]);
+                    // ADD a new sequence to the end of the data model.
+                    datamodel.add(y, seq);
                 }
-
-                // Read the data on the locus line.
-                if (locusMatcher.find()) {
-                    // Begin a StringBuffer to start reading the sequence.
-                    StringBuffer sequencebuffer = new StringBuffer("");
-
-                    // If the ORIGIN tag is present in the GenBANK file, then
-                    // parse the ORIGIN sequence data into a StringBuffer.
-                    if (parray.length >= 2) {
-                        sequencebuffer = new StringBuffer(
-                                // The NCBI GenBank Release Notes do not specify which
-                                // characters are legal in a SEQUENCE. Apparently, a gap
-                                // character is okay. So we add gap as a legal character.
-                                //parray[1].replaceAll("[^a-zA-Z]", ""));
-                                parray[1].replaceAll("[^a-zA-Z-]", ""));
-                    }
-
-                    // If the line number index is past the number of lines in
-                    // the data model, or the 'addonly' flag are set, then add
-                    // the new sequence data to the end of the data model;
-                    // otherwise, insert the sequence into the middle of an
-                    // existing sequence in the data model.
-                    //
-                    // (NOTE: this if-statement is written in reverse order
-                    //        of what is stated above).
-                    if (y < modellength && !addonly) {
-                        // INSERT the sequence data into the canvas.
-                        // NOTE: no further locus tag parsing needs to take
-                        // place if we are inserting the sequence into the
-                        // canvas, since insertions only involve the sequence
-                        // itself, and no metadata (such as type, etc.)
-                        char [] text = new char[sequencebuffer.length()];
-                        sequencebuffer.getChars(0, text.length, text, 0);
-                        datamodel.insert(x, y, text, 0, text.length, true);
-                    } else {
-                        // ADD a new sequence to the end of the data model.
-                        // begin by reading further information from the locus
-                        // line.
-                        Type type = Type.DNA;
-                        Direction direction = Direction.FROM5TO3;
-                        Strandedness strandedness = Strandedness.SINGLE;
-                        Topology topology = (locusMatcher.group(3) != null
-                                && "circular".equals(locusMatcher.group(3
-                                    ).toLowerCase().trim())
-                                ? Seq.Topology.CIRCULAR : Seq.Topology.LINEAR);
-                        String name = locusMatcher.group(1);
-                        String type_text = locusMatcher.group(2).toLowerCase();
-                        StringBuilder original
-                                = new StringBuilder(parray[0]).append("\n");
-
-                        // Determine if the sequence is protein or nucleic acid.
-                        // If the sequence is nucleic acid, determine the
-                        // strandedness, and use toType to determine if the
-                        // sequence is RNA or DNA.
-                        if ("aa".equals(type_text)) {
-                            type = Type.PROTEIN;
-                        } else if (type_text.startsWith("bp")) {
-                            int dashidx = type_text.indexOf('-');
-                            if (dashidx >= 0) {
-                                strandedness = toStrandedness(
-                                        type_text.substring(3, dashidx).trim());
-                                type = toType(type_text.substring(dashidx + 1));
-                            } else {
-                                type = toType(type_text.substring(3));
-                            }
-                        }
-
-                        // Add the sequence to the canvas.
-                        datamodel.add(y, new Seq(type, name, sequencebuffer,
-                                direction, topology, strandedness, original));
-                    }
-                    // Increment the line counter to the next line.
-                    y++;
-                }
-            } else {
-                System.out.println("ERROR READING GENBANK SEQUENCE: " + parray);
             }
         }
         return source.hasNext();
@@ -321,18 +420,19 @@ public class GenBankFile2008 extends DataFormat {
 
     /**
      * Used as part of the DataFormat auto-detection algorithm.  This method
-     * tests if the data represented in a scanner can be parsed by the current
-     * DataFormat object.
+     * tests if the data represented by a prefix of the input can be parsed by
+     * the current DataFormat object.  GenBank data begins with the word
+     * "LOCUS" (in any case).
      **
-     * @param  test the Scanner object to parse and determine if it contains
-     *              data which can be parsed by this DataFormat object.
-     * @throws IOException  returns any possible I/O exceptions
-     *                      (such as mark not supported)
+     * @param  prefix the first characters of the input (starting at the first
+     *                character which is not whitespace).
+     * @param  length the number of characters in the prefix.
      * @return whether the format can be parsed by this DataFormat object
      */
     @Override
-    public boolean isFormat(Scanner test) throws IOException {
-        return test.findInLine(DELIMITER) != null;
+    public boolean isFormat(char[] prefix, int length) {
+        return length >= 5
+                && "LOCUS".equalsIgnoreCase(new String(prefix, 0, 5));
     }
     
     /**
@@ -373,10 +473,10 @@ public class GenBankFile2008 extends DataFormat {
     /**
      * Used to convert GB's strandedness to BioLegato's strandedness structure
      **
-     * @param string the string to convert.
+     * @param test the string to convert.
      * @return the strandedness corresponding to the string parameter
      */
-    private static Strandedness toStrandedness(String test) {
+    static Strandedness toStrandedness(String test) {
         Strandedness result = Strandedness.MIXED;
         if ("ss".equalsIgnoreCase(test)) {
             result = Strandedness.SINGLE;
@@ -392,7 +492,7 @@ public class GenBankFile2008 extends DataFormat {
      * @param string the string to convert.
      * @return the type corresponding to the string parameter
      */
-    private static Type toType(String string) {
+    static Type toType(String string) {
         Type result = Type.DNA;
         if (string.toLowerCase().contains("rna")) {
             result = Type.RNA;
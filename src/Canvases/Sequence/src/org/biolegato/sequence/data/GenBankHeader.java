@@ -0,0 +1,193 @@
+/*
+ * GenBankHeader.java
+ *
+ * Created on October 18, 2026, 8:50 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * <p>The original header of a GenBank record, stored as its location within
+ * the GenBank file it was read from, rather than as text.</p>
+ *
+ * <p>GenBank headers (which contain the features and annotations of a record)
+ * are often larger than the sequences themselves.  Since the header is only
+ * needed when the unmodified sequence is written back out as GenBank, the
+ * header object only stores the source file, the byte offset and length of
+ * the header within the file, and a CRC-32 checksum of the header's bytes.
+ * When the header is needed, it is read from the file through a FileChannel,
+ * and its checksum is verified.  If the file was modified (or removed) after
+ * it was opened, the header is unavailable, and read throws an IOException
+ * naming the file (the header is never silently replaced, because that would
+ * drop the record's annotations).</p>
+ *
+ * <p>A GenBank header object represents exactly the same text as the
+ * in-memory header created by GenBankReader (i.e. the text of the header
+ * lines, followed by an extra new-line character).</p>
+ *
+ * <p>When serialized, a GenBank header is replaced by its text (because the
+ * GenBank file may not be available when the object is deserialized).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.GenBankReader
+ * @see org.biolegato.sequence.data.GenBankFile2008#convertTo(java.lang.Appendable, org.biolegato.sequence.data.Seq, int, int)
+ */
+final class GenBankHeader implements CharSequence, Serializable {
+
+    /**
+     * The GenBank file containing the header.
+     */
+    private final File file;
+    /**
+     * The offset (in bytes) of the header within the GenBank file.
+     */
+    private final long offset;
+    /**
+     * The length (in bytes) of the header within the GenBank file.
+     */
+    private final int length;
+    /**
+     * The CRC-32 checksum of the header's bytes.
+     */
+    private final long checksum;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777129L;
+
+    /**
+     * Creates a new GenBank header object.
+     **
+     * @param file      the GenBank file containing the header.
+     * @param offset    the offset of the header within the file.
+     * @param length    the length of the header within the file.
+     * @param checksum  the CRC-32 checksum of the header's bytes.
+     */
+    GenBankHeader(File file, long offset, int length, long checksum) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Reads the header from the GenBank file.
+     **
+     * @return the text of the header (followed by an extra new-line).
+     * @throws IOException  if the GenBank file was modified after it was
+     *                      opened, or could not be read.
+     */
+    CharSequence read() throws IOException {
+        // The bytes of the header.
+        final ByteBuffer bytes = ByteBuffer.allocate(length);
+        // The checksum of the bytes read.
+        final CRC32 crc = new CRC32();
+        // The text of the header.
+        final StringBuilder result = new StringBuilder(length + 1);
+        // The file to read the header from.
+        final RandomAccessFile in = new RandomAccessFile(file, "r");
+        // The channel used to read the file.
+        final FileChannel channel = in.getChannel();
+
+        try {
+            while (bytes.hasRemaining() && channel.read(bytes,
+                    offset + bytes.position()) > 0) {
+                // Keep reading until the buffer is full (or the end of the
+                // file is reached).
+            }
+
+            // Ensure that the header is unchanged.
+            crc.update(bytes.array(), 0, bytes.position());
+            if (bytes.hasRemaining() || crc.getValue() != checksum) {
+                throw new IOException(file.getPath() + " was modified after"
+                        + " it was opened (the original GenBank header of"
+                        + " the sequence read from it can no longer be"
+                        + " read)");
+            }
+        } finally {
+            in.close();
+        }
+
+        // GenBank files are plain ASCII text (GenBankReader only creates
+        // header objects for ASCII headers), so each byte is a single
+        // character.
+        for (int index = 0; index < length; index++) {
+            result.append((char) (bytes.get(index) & 0xff));
+        }
+        result.append('\n');
+        return result;
+    }
+
+    /**
+     * Returns the number of characters in the header (including the extra
+     * new-line).  This does not require reading the header from the file.
+     **
+     * @return the length of the header.
+     */
+    public int length() {
+        return length + 1;
+    }
+
+    /**
+     * Returns a single character from the header.
+     **
+     * @param  index the position of the character to return.
+     * @return the character at the given position.
+     */
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    /**
+     * Returns part of the header.
+     **
+     * @param  start the position of the first character to return.
+     * @param  end   the position after the last character to return.
+     * @return the characters between the two positions.
+     */
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Returns the text of the header (read from the GenBank file).
+     **
+     * @return the text of the header.
+     * @throws UncheckedIOException if the GenBank file was modified after it
+     *                              was opened, or could not be read.
+     */
+    @Override
+    public String toString() {
+        try {
+            return read().toString();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Replaces the header object with its text, when serializing.
+     **
+     * @return the text of the header.
+     * @throws ObjectStreamException if the GenBank file was modified after it
+     *                               was opened, or could not be read.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        try {
+            return read().toString();
+        } catch (IOException ioe) {
+            throw new NotSerializableException(ioe.getMessage());
+        }
+    }
+}
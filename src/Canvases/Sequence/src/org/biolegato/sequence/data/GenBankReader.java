@@ -0,0 +1,490 @@
+/*
+ * GenBankReader.java
+ *
+ * Created on October 18, 2026, 8:05 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import org.biolegato.sequence.data.Seq.Direction;
+import org.biolegato.sequence.data.Seq.Strandedness;
+import org.biolegato.sequence.data.Seq.Topology;
+import org.biolegato.sequence.data.Seq.Type;
+
+/**
+ * <p>A streaming, line-oriented GenBank parser.</p>
+ *
+ * <p>Each record begins with a LOCUS line, whose fields (the name, the
+ * optional length, the molecule type and the topology) are read by a small
+ * tokenizer.  The lines between the LOCUS line and the ORIGIN line are
+ * appended to the record's header (which is kept as the sequence's original
+ * GenBank header, so it may be written back out unchanged).  The lines after
+ * the ORIGIN line are filtered using a lookup table (only letters and '-' are
+ * kept), and the residues are packed directly into the residue store of the
+ * new sequence object.  The record ends at a '//' line, or at the next LOCUS
+ * line.</p>
+ *
+ * <p>Thus, neither the record nor its residues are ever held as a single
+ * String; the only copy of the header is the one kept by the sequence.</p>
+ *
+ * <p>If the parser is reading a GenBank file (i.e. a file was passed to the
+ * constructor), the parser also keeps track of the offset of each line within
+ * the file.  The header text is then only used to compute a checksum, and the
+ * sequence keeps a GenBankHeader object (the location of the header within the
+ * file) instead of the text.  The offsets are counted in characters, so this is
+ * only done while the file contains plain ASCII text (where each character is
+ * a single byte); otherwise, the header text is kept as usual.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.GenBankFile2008
+ */
+final class GenBankReader {
+
+    /**
+     * The number of characters to read from the source at a time.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The number of residues collected before they are packed.
+     */
+    private static final int CHUNK_SIZE = 4096;
+    /**
+     * The maximum number of LOCUS line fields read by the tokenizer.
+     */
+    private static final int MAX_FIELDS = 6;
+    /**
+     * Whether each ASCII character is kept as a residue.  The NCBI GenBank
+     * Release Notes do not specify which characters are legal in a SEQUENCE.
+     * Apparently, a gap character is okay, so gaps are kept as well as
+     * letters.
+     */
+    private static final boolean[] RESIDUE = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            RESIDUE[c] = true;
+            RESIDUE[Character.toLowerCase(c)] = true;
+        }
+        RESIDUE['-'] = true;
+    }
+    /**
+     * The source to read from.
+     */
+    private final Reader source;
+    /**
+     * The GenBank file being read (null if the headers are to be kept in
+     * memory).
+     */
+    private final File file;
+    /**
+     * The buffer of characters read from the source.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * The position of the next character to read within the buffer.
+     */
+    private int position = 0;
+    /**
+     * The number of characters in the buffer.
+     */
+    private int limit = 0;
+    /**
+     * The number of characters read from the source before the current
+     * contents of the buffer.
+     */
+    private long consumed = 0;
+    /**
+     * The offset of the current line within the source.
+     */
+    private long lineStart = 0;
+    /**
+     * Whether every character read from the source so far is an ASCII
+     * character (i.e. whether character offsets are also byte offsets).
+     */
+    private boolean ascii = true;
+    /**
+     * The current line (without its new-line character).
+     */
+    private char[] line = new char[256];
+    /**
+     * The number of characters in the current line.
+     */
+    private int length = 0;
+    /**
+     * Whether the current line is a LOCUS line which has been read, but not
+     * yet parsed (i.e. the LOCUS line which ended the previous record).
+     */
+    private boolean pending = false;
+    /**
+     * The residues collected since they were last packed.
+     */
+    private final char[] chunk = new char[CHUNK_SIZE];
+    /**
+     * The fields of the current LOCUS line.
+     */
+    private final String[] fields = new String[MAX_FIELDS];
+
+    /**
+     * Creates a new GenBank parser.
+     **
+     * @param source the source to read GenBank data from.
+     */
+    GenBankReader(Reader source) {
+        this(source, null);
+    }
+
+    /**
+     * Creates a new GenBank parser, which keeps the location of each header
+     * within a GenBank file, rather than the header text.
+     **
+     * @param source the source to read GenBank data from.
+     * @param file   the GenBank file which the source reads (from its
+     *               beginning), or null to keep the header text in memory.
+     */
+    GenBankReader(Reader source, File file) {
+        this.source = source;
+        this.file = file;
+    }
+
+    /**
+     * Reads the next sequence from the source.  Any text before the first
+     * LOCUS line, and any record whose LOCUS line cannot be parsed, is
+     * skipped.
+     **
+     * @return the next sequence, or null if there are no sequences left.
+     * @throws IOException if the source cannot be read.
+     */
+    Seq next() throws IOException {
+        // The sequence read.
+        Seq result = null;
+
+        while (result == null && (pending || readLine())) {
+            pending = false;
+            if (isLocus()) {
+                result = readRecord();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads a record, starting from its LOCUS line (the current line).
+     **
+     * @return the sequence read, or null if the LOCUS line could not be
+     *         parsed.
+     * @throws IOException if the source cannot be read.
+     */
+    private Seq readRecord() throws IOException {
+        // The number of fields in the LOCUS line.
+        final int count = tokenize();
+        // The index of the molecule type field ("aa" or "bp").
+        int field = 2;
+        // Whether the LOCUS line was parsed successfully.
+        boolean parsed = false;
+        // The sequence type.
+        Type type = Type.DNA;
+        // The sequence topology.
+        Topology topology = Topology.LINEAR;
+        // The sequence strandedness.
+        Strandedness strandedness = Strandedness.SINGLE;
+        // The molecule type text (e.g. "ss-DNA").
+        String molecule;
+        // The index of the dash within the molecule type text.
+        int dashidx;
+        // The header of the record (everything before the ORIGIN line).
+        final StringBuilder header = new StringBuilder();
+        // The offset of the header (i.e. the LOCUS line) within the source.
+        final long headerStart = lineStart;
+        // The offset of the end of the header within the source (-1 until
+        // the end of the header is found).
+        long headerEnd = -1;
+        // The residues of the sequence.
+        PackedSequence residues;
+        // The number of residues in the chunk array.
+        int residueCount = 0;
+        // Whether the current line is within the ORIGIN section.
+        boolean origin = false;
+        // Whether the end of the record ('//') has been read.
+        boolean end = false;
+        // The current character.
+        char c;
+        // The sequence read.
+        Seq result = null;
+
+        // Parse the LOCUS line:
+        //      LOCUS name [length] aa [topology]
+        //      LOCUS name [length] bp [strandedness-]type [topology]
+        if (count > 2 && isDigits(fields[2])) {
+            field = 3;
+        }
+        if (count > field && "aa".equalsIgnoreCase(fields[field])) {
+            type = Type.PROTEIN;
+            parsed = true;
+            field++;
+        } else if (count > field + 1 && "bp".equalsIgnoreCase(fields[field])
+                && isWord(fields[field + 1])) {
+            molecule = fields[field + 1].toLowerCase();
+            dashidx = molecule.indexOf('-');
+            if (dashidx >= 0) {
+                strandedness = GenBankFile2008.toStrandedness(
+                        molecule.substring(0, dashidx));
+                molecule = molecule.substring(dashidx + 1);
+            }
+            type = GenBankFile2008.toType(molecule);
+            parsed = true;
+            field += 2;
+        }
+        if (parsed && count > field
+                && "circular".equalsIgnoreCase(fields[field])) {
+            topology = Topology.CIRCULAR;
+        }
+
+        // Read the rest of the record.
+        header.append(line, 0, length).append('\n');
+        residues = new PackedSequence(type);
+        while (readLine()) {
+            if (isLocus()) {
+                // The LOCUS line of the next record.
+                if (headerEnd < 0) {
+                    headerEnd = lineStart;
+                }
+                pending = true;
+                break;
+            } else if (end) {
+                // Skip any text between the end of the record, and the next
+                // record.
+            } else if (startsWith("//")) {
+                if (headerEnd < 0) {
+                    headerEnd = lineStart;
+                }
+                end = true;
+            } else if (origin) {
+                // Filter the residues from the line.
+                for (int index = 0; index < length; index++) {
+                    c = line[index];
+                    if (c < 128 && RESIDUE[c]) {
+                        chunk[residueCount++] = c;
+                        if (residueCount == CHUNK_SIZE) {
+                            residues.append(chunk, 0, residueCount);
+                            residueCount = 0;
+                        }
+                    }
+                }
+            } else if (startsWith("ORIGIN")) {
+                headerEnd = lineStart;
+                origin = true;
+            } else {
+                header.append(line, 0, length).append('\n');
+            }
+        }
+
+        // Create the sequence object.  The header is kept as the sequence's
+        // original GenBank header (with an extra new-line, as in previous
+        // versions of BioLegato; see GenBankFile2008.convertTo).
+        if (parsed) {
+            residues.append(chunk, 0, residueCount);
+            residues.trimToSize();
+            header.append('\n');
+            header.trimToSize();
+
+            result = new Seq(type, fields[1],
+                    new SequenceBuffer(type, (ResidueStore) residues), null);
+            result.direction = Direction.FROM5TO3;
+            result.topology = topology;
+            result.strandedness = strandedness;
+            result.original = header;
+
+            // Keep only the location of the header, if possible.  The header
+            // must end at the beginning of a line (so the extra new-line is
+            // the only text not in the file).
+            if (file != null && ascii && headerEnd >= 0
+                    && headerEnd - headerStart == header.length() - 1) {
+                result.original = new GenBankHeader(file, headerStart,
+                        header.length() - 1, checksum(header));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the CRC-32 checksum of a header (excluding the extra new-line
+     * at its end).  The header must only contain ASCII characters.
+     **
+     * @param  header the header text.
+     * @return the checksum of the header's bytes.
+     */
+    private static long checksum(StringBuilder header) {
+        // The bytes of the header.
+        final byte[] bytes = new byte[header.length() - 1];
+        // The checksum of the bytes.
+        final CRC32 crc = new CRC32();
+
+        for (int index = 0; index < bytes.length; index++) {
+            bytes[index] = (byte) header.charAt(index);
+        }
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the next line from the source into the line array.
+     **
+     * @return false if the end of the source has been reached.
+     * @throws IOException if the source cannot be read.
+     */
+    private boolean readLine() throws IOException {
+        // Whether any characters (or a new-line) were read.
+        boolean found = false;
+        // Whether the end of the line has been reached.
+        boolean eol = false;
+        // The end of the text to copy from the buffer.
+        int end;
+        // The current character.
+        char c;
+
+        length = 0;
+        lineStart = consumed + position;
+        while (!eol && fill()) {
+            found = true;
+
+            // Find the end of the line (or the end of the buffer).
+            end = position;
+            while (end < limit && (c = buffer[end]) != '\n') {
+                ascii &= (c < 128);
+                end++;
+            }
+
+            // Copy the text into the line array.
+            if (length + end - position > line.length) {
+                line = Arrays.copyOf(line,
+                        Math.max(line.length * 2, length + end - position));
+            }
+            System.arraycopy(buffer, position, line, length, end - position);
+            length += end - position;
+
+            // Skip the new-line character.
+            eol = (end < limit);
+            position = (eol ? end + 1 : end);
+        }
+        return found;
+    }
+
+    /**
+     * Ensures that there are characters in the buffer to read.
+     **
+     * @return false if the end of the source has been reached.
+     * @throws IOException if the source cannot be read.
+     */
+    private boolean fill() throws IOException {
+        // The number of characters read from the source.
+        int read = 0;
+
+        while (position >= limit && read >= 0) {
+            consumed += limit;
+            read = source.read(buffer, 0, buffer.length);
+            position = 0;
+            limit = Math.max(0, read);
+        }
+        return position < limit;
+    }
+
+    /**
+     * Splits the current line into whitespace-separated fields (up to
+     * MAX_FIELDS fields are read).
+     **
+     * @return the number of fields read.
+     */
+    private int tokenize() {
+        // The number of fields read.
+        int count = 0;
+        // The start of the current field.
+        int start;
+
+        for (int index = 0; index < length && count < MAX_FIELDS; ) {
+            while (index < length && Character.isWhitespace(line[index])) {
+                index++;
+            }
+            start = index;
+            while (index < length && !Character.isWhitespace(line[index])) {
+                index++;
+            }
+            if (index > start) {
+                fields[count++] = new String(line, start, index - start);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tests whether the current line is a LOCUS line (case-insensitive).
+     **
+     * @return whether the line begins with "LOCUS".
+     */
+    private boolean isLocus() {
+        // Whether the line begins with "LOCUS".
+        boolean result = (length >= 5);
+
+        for (int index = 0; result && index < 5; index++) {
+            result = (Character.toUpperCase(line[index])
+                    == "LOCUS".charAt(index));
+        }
+        return result;
+    }
+
+    /**
+     * Tests whether the current line begins with a prefix.
+     **
+     * @param  prefix the prefix to test for.
+     * @return whether the line begins with the prefix.
+     */
+    private boolean startsWith(String prefix) {
+        // Whether the line begins with the prefix.
+        boolean result = (length >= prefix.length());
+
+        for (int index = 0; result && index < prefix.length(); index++) {
+            result = (line[index] == prefix.charAt(index));
+        }
+        return result;
+    }
+
+    /**
+     * Tests whether a LOCUS field contains only digits.
+     **
+     * @param  field the field to test.
+     * @return whether the field is a number.
+     */
+    private static boolean isDigits(String field) {
+        // Whether the field contains only digits.
+        boolean result = true;
+
+        for (int index = 0; result && index < field.length(); index++) {
+            result = Character.isDigit(field.charAt(index));
+        }
+        return result;
+    }
+
+    /**
+     * Tests whether a LOCUS field contains only word characters and dashes
+     * (i.e. is a valid molecule type, such as "ss-DNA").
+     **
+     * @param  field the field to test.
+     * @return whether the field is a valid molecule type.
+     */
+    private static boolean isWord(String field) {
+        // Whether the field contains only word characters and dashes.
+        boolean result = true;
+        // The current character.
+        char c;
+
+        for (int index = 0; result && index < field.length(); index++) {
+            c = field.charAt(index);
+            result = (Character.isLetterOrDigit(c) || c == '_' || c == '-');
+        }
+        return result;
+    }
+}
@@ -0,0 +1,590 @@
+/*
+ * IndexedFastAFile.java
+ *
+ * Created on October 18, 2026, 11:20 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Indexed FastA file format (FastA files with a samtools-style ".fai"
+ * index).</p>
+ *
+ * <p>An indexed FastA file is read by seeking into the file, rather than by
+ * parsing it.  The index records the name, length and offset of each sequence
+ * in the file, as well as the number of residues (and bytes) in each line of
+ * the sequence; thus, the offset of any residue within the file can be
+ * calculated directly.  If the index file (the FastA file's name followed by
+ * ".fai") is missing, or older than the FastA file, a new index is built by a
+ * single pass over the FastA file, and saved (if possible) for next time.</p>
+ *
+ * <p>Either the whole file, or a list of regions may be read.  Regions are
+ * specified in the same way as for samtools faidx (see SequenceRegion).  The
+ * residues of each sequence or region are only read from the file when they
+ * are first needed (see LazyResidues), and only the bytes of the region are
+ * ever read.</p>
+ *
+ * <p>When this format is used to read a stream (for instance, the output of
+ * a PCD command, with the temporary file format "faidx"), the stream may
+ * either contain FastA data, which is parsed as usual, or a list of region
+ * requests.  Each line of a request list contains the path of an indexed
+ * FastA file, followed by the regions to read from the file (separated by
+ * whitespace); a line with only a path reads the whole file.  Regions may
+ * also be requested from 2bit files (see TwoBitFile).</p>
+ *
+ * <p>Indexed FastA sequences are written as plain FastA.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.LazyResidues
+ */
+public class IndexedFastAFile extends FastAFile {
+
+    /**
+     * The suffix added to a FastA file's name to get the name of its index.
+     */
+    public static final String INDEX_SUFFIX = ".fai";
+    /**
+     * The maximum number of residues examined to detect the type of an
+     * indexed sequence.
+     */
+    private static final int DETECT_SIZE = 4096;
+    /**
+     * The size of the buffer used when building an index.
+     */
+    private static final int BUILD_BUFFER_SIZE = 1 << 16;
+    /**
+     * The regions to read (whitespace separated), or null to read every
+     * sequence in the file.
+     */
+    private final String regions;
+
+    /**
+     * Creates a new instance of IndexedFastAFile, which reads every sequence
+     * in a file.
+     */
+    public IndexedFastAFile() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of IndexedFastAFile, which reads a list of
+     * regions from each file.
+     **
+     * @param regions   the regions to read (whitespace separated), or null to
+     *                  read every sequence in the file.
+     */
+    private IndexedFastAFile(String regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * Returns an indexed FastA format object, which reads only the regions
+     * listed from each file (e.g. "chr1:1000-2000 chr2").  A blank or null
+     * list reads every sequence in the file.
+     **
+     * @param  regions  the regions to read, separated by whitespace.
+     * @return an indexed FastA format object for the regions.
+     */
+    public IndexedFastAFile forRegions(String regions) {
+        return new IndexedFastAFile(regions == null || "".equals(
+                regions.trim()) ? null : regions.trim());
+    }
+
+    /**
+     * Reads sequences from an indexed FastA file into BioLegato.  If the
+     * format object was created by forRegions, only the regions listed are
+     * read; otherwise, every sequence in the file is read.  If the index file
+     * does not exist, it is created.
+     **
+     * @param  datamodel    the destination data model to store the sequences.
+     * @param  file         the FastA file to read (or its ".fai" index file).
+     * @param  y            the Y-coordinate (line) in the data model to add
+     *                      the sequences at.
+     * @throws IOException  any exceptions that occur while reading the file.
+     */
+    public void readFile(Dataset datamodel, File file, int y)
+                                                        throws IOException {
+        readFile(datamodel, file, regions, y);
+    }
+
+    /**
+     * <p>Translates indexed FastA data from a reader into BioLegato.</p>
+     *
+     * <p>If the data begins with a '>' character, it is parsed as FastA data.
+     * Otherwise, the data is read as a list of region requests (see the class
+     * description), and the regions are read from their indexed FastA
+     * files.</p>
+     **
+     * @param  datamodel    the destination data model to store the converted
+     *                      sequence data.
+     * @param  data         the Reader object to parse data from.
+     * @param  x            the X-coordinate (character offset) in the data
+     *                      model to insert the converted sequence data.
+     * @param  y            the Y-coordinate (line) in the data model to insert
+     *                      the converted sequence data.
+     * @throws IOException  any exceptions that occur while reading the stream.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Reader data, int x, int y)
+                                                            throws IOException {
+        // The reader used to examine the first character of the data.
+        final PushbackReader in = new PushbackReader(data, 1);
+        // The current character read.
+        int c;
+        // The reader used to read the region requests.
+        BufferedReader requests;
+        // The current line of the region requests.
+        String line;
+        // The current line split into the path and the regions.
+        String[] fields;
+        // The file to read the current line's regions from.
+        File file;
+
+        // Skip any leading whitespace.
+        do {
+            c = in.read();
+        } while (c >= 0 && Character.isWhitespace(c));
+
+        if (c == '>') {
+            in.unread(c);
+            super.convertFrom(datamodel, in, x, y);
+        } else if (c >= 0) {
+            in.unread(c);
+            requests = new BufferedReader(in);
+            while ((line = requests.readLine()) != null) {
+                fields = line.trim().split("\\s+", 2);
+                if (!"".equals(fields[0])) {
+                    // Regions may also be requested from 2bit files.
+                    file = new File(fields[0]);
+                    y = Math.min(y, datamodel.getSize());
+                    if (file.isFile() && TwoBitFile.isTwoBit(file)) {
+                        y += TwoBitFile.readFile(datamodel, file,
+                                (fields.length > 1 ? fields[1] : null), y);
+                    } else {
+                        y += readFile(datamodel, file,
+                                (fields.length > 1 ? fields[1] : null), y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Used as part of the DataFormat auto-detection algorithm.  Indexed FastA
+     * files are detected as plain FastA files (since the index is a separate
+     * file); thus, this method always returns false.
+     **
+     * @param  prefix the first characters of the input.
+     * @param  length the number of characters in the prefix.
+     * @return false.
+     */
+    @Override
+    public boolean isFormat(char[] prefix, int length) {
+        return false;
+    }
+
+    /**
+     * Determines whether a specified file is an indexed FastA file (based on
+     * extension).  This method is part of the FileFilter interface.  The
+     * extensions supported are ".fa", ".fasta", ".fna", ".fsa" and ".fai" (the
+     * index file may be selected in place of the FastA file).
+     **
+     * @param  file the file to test.
+     * @return true if the file is an indexed FastA file (otherwise false).
+     * @see    javax.swing.filechooser.FileFilter#accept
+     */
+    @Override
+    public boolean accept(File file) {
+        // The lower-case path of the file.
+        final String path = file.getAbsolutePath().toLowerCase();
+
+        return (file.isDirectory() || path.endsWith(".fa")
+                || path.endsWith(".fasta") || path.endsWith(".fna")
+                || path.endsWith(".fsa") || path.endsWith(INDEX_SUFFIX));
+    }
+
+    /**
+     * Returns a description of the file format that can be displayed to the
+     * user.  This method is part of the FileFilter interface.
+     **
+     * @return the string description of the file format.
+     * @see    javax.swing.filechooser.FileFilter#getDescription
+     */
+    @Override
+    public String getDescription() {
+        return "Indexed FastA file (*.fa,*.fasta,*.fna,*.fsa with *.fai)";
+    }
+
+    /**
+     * Reads a list of regions from an indexed FastA file into BioLegato.
+     * Regions which are not found in the index are skipped (with a warning).
+     **
+     * @param  datamodel    the destination data model to store the sequences.
+     * @param  file         the FastA file to read (or its ".fai" index file).
+     * @param  regions      the regions to read (whitespace separated), or
+     *                      null to read every sequence in the file.
+     * @param  y            the Y-coordinate (line) in the data model to add
+     *                      the sequences at.
+     * @return the number of sequences added to the data model.
+     * @throws IOException  any exceptions that occur while reading the file.
+     */
+    private static int readFile(Dataset datamodel, File file, String regions,
+                                            int y) throws IOException {
+        // The index of the FastA file.
+        final Map<String, Entry> index;
+        // The sequences read from the file.
+        final List<Seq> seqs = new ArrayList<Seq>();
+        // The current region parsed.
+        SequenceRegion parsed;
+        // The index entry of the current region.
+        Entry entry;
+
+        // If the index file was selected, read the FastA file it indexes.
+        if (file.getName().toLowerCase().endsWith(INDEX_SUFFIX)) {
+            file = new File(file.getPath().substring(0,
+                    file.getPath().length() - INDEX_SUFFIX.length()));
+        }
+        index = loadIndex(file);
+
+        if (regions == null) {
+            for (Entry whole : index.values()) {
+                seqs.add(region(file, whole, whole.name, 0, whole.length));
+            }
+        } else {
+            for (String region : regions.trim().split("\\s+")) {
+                parsed = SequenceRegion.parse(region, index.keySet());
+                entry = (parsed != null ? index.get(parsed.name) : null);
+
+                // Add the region (clipped to the length of the sequence).
+                if (entry != null && !parsed.isEmpty(entry.length)) {
+                    seqs.add(region(file, entry, parsed.label(entry.length),
+                            parsed.start(entry.length),
+                            parsed.end(entry.length)));
+                } else {
+                    System.err.println("WARNING: " + file.getPath()
+                            + " does not contain the region " + region);
+                }
+            }
+        }
+
+        // Add all of the sequences to the data model at once.
+        if (!seqs.isEmpty()) {
+            datamodel.addSequences(y, seqs);
+        }
+        return seqs.size();
+    }
+
+    /**
+     * Creates a new sequence object for a region of an indexed sequence,
+     * whose residues are read from the FastA file on demand.  The type of the
+     * sequence is detected from the first residues of the region.
+     **
+     * @param  file     the FastA file containing the sequence.
+     * @param  entry    the index entry of the sequence.
+     * @param  name     the name of the new sequence object.
+     * @param  start    the position (zero-based) of the start of the region.
+     * @param  end      the position after the end of the region.
+     * @return the new sequence object.
+     * @throws IOException  if the FastA file could not be read.
+     */
+    private static Seq region(File file, Entry entry, String name, int start,
+                                            int end) throws IOException {
+        // The offset of the first residue of the region within the file.
+        final long first = entry.offset(start);
+        // The offset after the last residue of the region within the file.
+        final long last = (end > start ? entry.offset(end - 1) + 1 : first);
+        // The residues used to detect the type of the sequence.
+        final byte[] bytes = new byte[(int) Math.min(DETECT_SIZE,
+                last - first)];
+        // The file to read the residues from.
+        final RandomAccessFile in = new RandomAccessFile(file, "r");
+        // The detected type of the sequence.
+        Seq.Type type = Seq.Type.DNA;
+
+        try {
+            in.seek(first);
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        for (byte b : bytes) {
+            if (LazyResidues.isResidue(b)) {
+                type = detectType(type, b);
+            }
+        }
+        return new Seq(type, name, new SequenceBuffer(type, new LazyResidues(
+                file, first, last, end - start, type)), "");
+    }
+
+    /**
+     * Loads the index of a FastA file.  If the index file does not exist (or
+     * is older than the FastA file), the index is built, and saved to the
+     * index file (if the index file cannot be written, the index is only kept
+     * in memory).
+     **
+     * @param  file the FastA file.
+     * @return the index entries of the sequences in the file, by name (in the
+     *         same order as the sequences in the file).
+     * @throws IOException if the index could not be read or built.
+     */
+    private static Map<String, Entry> loadIndex(File file) throws IOException {
+        // The index file.
+        final File indexfile = new File(file.getPath() + INDEX_SUFFIX);
+        // The index entries.
+        Map<String, Entry> result;
+        // The reader used to read the index file.
+        BufferedReader in;
+        // The writer used to save the index file.
+        Writer out;
+        // The current line of the index file.
+        String line;
+        // The fields of the current line of the index file.
+        String[] fields;
+
+        if (indexfile.isFile()
+                && indexfile.lastModified() >= file.lastModified()) {
+            result = new LinkedHashMap<String, Entry>();
+            in = new BufferedReader(new FileReader(indexfile));
+            try {
+                while ((line = in.readLine()) != null) {
+                    fields = line.split("\t");
+                    if (fields.length >= 5) {
+                        try {
+                            result.put(fields[0], new Entry(fields[0],
+                                    Integer.parseInt(fields[1]),
+                                    Long.parseLong(fields[2]),
+                                    Integer.parseInt(fields[3]),
+                                    Integer.parseInt(fields[4])));
+                        } catch (NumberFormatException nfe) {
+                            throw new IOException("Invalid index line in "
+                                    + indexfile.getPath() + ": " + line);
+                        }
+                    } else if (!"".equals(line.trim())) {
+                        throw new IOException("Invalid index line in "
+                                + indexfile.getPath() + ": " + line);
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } else {
+            result = buildIndex(file);
+
+            // Save the index for next time.
+            try {
+                out = new BufferedWriter(new FileWriter(indexfile));
+                try {
+                    for (Entry entry : result.values()) {
+                        out.append(entry.name).append('\t').append(
+                                Integer.toString(entry.length)).append(
+                                '\t').append(Long.toString(entry.offset)
+                                ).append('\t').append(Integer.toString(
+                                entry.linebases)).append('\t').append(
+                                Integer.toString(entry.linewidth)).append(
+                                '\n');
+                    }
+                } finally {
+                    out.close();
+                }
+            } catch (IOException ioe) {
+                System.err.println("WARNING: could not save the index "
+                        + indexfile.getPath());
+                ioe.printStackTrace(System.err);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the index of a FastA file, by a single pass over the raw bytes
+     * of the file.  As with samtools faidx, each line of a sequence (except
+     * the last) must contain the same number of residues.
+     **
+     * @param  file the FastA file to index.
+     * @return the index entries of the sequences in the file, by name (in the
+     *         same order as the sequences in the file).
+     * @throws IOException if the file could not be read, or cannot be indexed
+     *                     (i.e. its lines are of different lengths).
+     */
+    private static Map<String, Entry> buildIndex(File file)
+                                                        throws IOException {
+        // The index entries.
+        final Map<String, Entry> result = new LinkedHashMap<String, Entry>();
+        // The buffer to read the file into.
+        final byte[] buffer = new byte[BUILD_BUFFER_SIZE];
+        // The bytes of the current name/'>' character line.
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        // The file to index.
+        final InputStream in = new FileInputStream(file);
+        // The offset within the file of the first byte in the buffer.
+        long position = 0;
+        // The number of bytes read into the buffer.
+        int read;
+        // The current byte to examine.
+        byte b;
+        // Whether the current byte is at the beginning of a line.
+        boolean linestart = true;
+        // Whether the current byte is within a name/'>' character line.
+        boolean inheader = false;
+        // The entry of the current sequence (null if not within a sequence).
+        Entry entry = null;
+        // The number of residues in the current line.
+        int linebases = 0;
+        // The number of bytes in the current line.
+        int linewidth = 0;
+        // Whether a line shorter than the first line of the current sequence
+        // was read (i.e. the last line of the sequence).
+        boolean shortline = false;
+
+        try {
+            while ((read = in.read(buffer)) > 0) {
+                for (int count = 0; count < read; count++) {
+                    b = buffer[count];
+
+                    if (inheader) {
+                        // Read the name line; the name is the text up to the
+                        // first whitespace character (as in samtools).
+                        if (b == '\n') {
+                            entry = new Entry(new String(header.toByteArray()
+                                    ).trim().split("\\s+", 2)[0], 0,
+                                    position + count + 1, 0, 0);
+                            if (result.containsKey(entry.name)) {
+                                throw new IOException("Duplicate sequence name "
+                                        + entry.name + " in " + file.getPath());
+                            }
+                            result.put(entry.name, entry);
+                            header.reset();
+                            inheader = false;
+                            shortline = false;
+                        } else {
+                            header.write(b);
+                        }
+                    } else if (linestart && b == '>') {
+                        entry = null;
+                        inheader = true;
+                    } else if (entry != null) {
+                        linewidth++;
+                        if (b == '\n') {
+                            // Check that the line is the same length as the
+                            // other lines of the sequence.
+                            // (only the last line may be shorter, and blank
+                            // lines may only follow the last line).
+                            if (linebases > 0 && entry.linebases == 0) {
+                                entry.linebases = linebases;
+                                entry.linewidth = linewidth;
+                            } else if (linebases > 0 && (shortline
+                                    || linebases > entry.linebases
+                                    || (linebases == entry.linebases
+                                    && linewidth != entry.linewidth))) {
+                                throw new IOException("Different line lengths"
+                                        + " in sequence " + entry.name + " of "
+                                        + file.getPath());
+                            }
+                            shortline = (linebases < entry.linebases);
+                            entry.length += linebases;
+                            linebases = 0;
+                            linewidth = 0;
+                        } else if (b != '\r') {
+                            linebases++;
+                        }
+                    }
+                    linestart = (b == '\n');
+                }
+                position += read;
+            }
+
+            // Count the last line of the file (if it does not end with a
+            // new-line character).
+            if (entry != null && linebases > 0) {
+                if (shortline || (entry.linebases > 0
+                        && linebases > entry.linebases)) {
+                    throw new IOException("Different line lengths in sequence "
+                            + entry.name + " of " + file.getPath());
+                }
+                if (entry.linebases == 0) {
+                    entry.linebases = linebases;
+                    entry.linewidth = linewidth + 1;
+                }
+                entry.length += linebases;
+            }
+        } finally {
+            in.close();
+        }
+        return result;
+    }
+
+    /**
+     * An entry in the index of a FastA file (i.e. a line of a ".fai" file).
+     */
+    private static final class Entry {
+
+        /**
+         * The name of the sequence.
+         */
+        final String name;
+        /**
+         * The number of residues in the sequence.
+         */
+        int length;
+        /**
+         * The offset (in bytes) of the first residue within the file.
+         */
+        final long offset;
+        /**
+         * The number of residues in each line of the sequence.
+         */
+        int linebases;
+        /**
+         * The number of bytes in each line of the sequence (including the
+         * new-line characters).
+         */
+        int linewidth;
+
+        /**
+         * Creates a new index entry.
+         **
+         * @param name      the name of the sequence.
+         * @param length    the number of residues in the sequence.
+         * @param offset    the offset of the first residue within the file.
+         * @param linebases the number of residues in each line.
+         * @param linewidth the number of bytes in each line.
+         */
+        Entry(String name, int length, long offset, int linebases,
+                int linewidth) {
+            this.name = name;
+            this.length = length;
+            this.offset = offset;
+            this.linebases = linebases;
+            this.linewidth = linewidth;
+        }
+
+        /**
+         * Calculates the offset of a residue within the file.
+         **
+         * @param  residue the position (zero-based) of the residue.
+         * @return the offset (in bytes) of the residue within the file.
+         */
+        long offset(int residue) {
+            return (linebases > 0 ? offset + (long) (residue / linebases)
+                    * linewidth + residue % linebases : offset);
+        }
+    }
+}
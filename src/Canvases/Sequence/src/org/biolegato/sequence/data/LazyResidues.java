@@ -0,0 +1,243 @@
+/*
+ * LazyResidues.java
+ *
+ * Created on October 18, 2026, 2:35 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+
+/**
+ * <p>A read-only residue store, which reads its residues from a region of a
+ * sequence file the first time they are needed.</p>
+ *
+ * <p>Lazy residue stores are created by FastAFile.readIndexed, which indexes
+ * a FastA file (recording the offset and length of each sequence) without
+ * reading any of the residues into memory.  When the residues are first read
+ * (e.g. when the sequence text area scrolls to the sequence, or a command
+ * exports the sequence), the region is read from the file and packed into a
+ * PackedSequence.  The packed residues are held by a soft reference; thus, if
+ * memory runs low, they may be discarded, and will be read again from the file
+ * the next time they are needed.</p>
+ *
+ * <p>The sequence file must not be modified while the residues are in use.
+ * </p>
+ *
+ * <p>When serialized, a lazy residue store is replaced by an equivalent
+ * PackedSequence (because the sequence file may not be available when the
+ * object is deserialized).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.FastAFile#readIndexed(org.biolegato.sequence.data.Dataset, java.io.File, int)
+ */
+final class LazyResidues implements ResidueStore, Serializable {
+
+    /**
+     * The number of bytes to read from the sequence file at a time.
+     */
+    private static final int READ_SIZE = 1 << 16;
+    /**
+     * The sequence file containing the residues.
+     */
+    private final File file;
+    /**
+     * The offset (in bytes) of the residue region within the sequence file.
+     */
+    private final long offset;
+    /**
+     * The offset (in bytes) of the end of the residue region within the
+     * sequence file.
+     */
+    private final long end;
+    /**
+     * The number of residues within the residue region.
+     */
+    private final int length;
+    /**
+     * The sequence type, used to select the encoding of the packed residues.
+     */
+    private final Seq.Type type;
+    /**
+     * The residues read from the sequence file (null if the residues have not
+     * yet been read, or have been discarded).
+     */
+    private transient SoftReference<PackedSequence> cache = null;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777128L;
+
+    /**
+     * Creates a new lazy residue store.
+     **
+     * @param file   the sequence file containing the residues.
+     * @param offset the offset of the residue region within the file.
+     * @param end    the offset of the end of the residue region.
+     * @param length the number of residues within the residue region.
+     * @param type   the sequence type of the residues.
+     */
+    LazyResidues(File file, long offset, long end, int length, Seq.Type type) {
+        this.file = file;
+        this.offset = offset;
+        this.end = end;
+        this.length = length;
+        this.type = type;
+    }
+
+    /**
+     * Returns the number of residues in the store.  This does not require
+     * reading the residues from the sequence file.
+     **
+     * @return the number of residues in the store.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns a single residue from the store.
+     **
+     * @param  index the position of the residue to return.
+     * @return the residue at the given position.
+     */
+    public char charAt(int index) {
+        return residues().charAt(index);
+    }
+
+    /**
+     * Copies residues from the store into a character array.
+     **
+     * @param srcBegin the position of the first residue to copy.
+     * @param srcEnd   the position after the last residue to copy.
+     * @param dst      the destination array.
+     * @param dstBegin the index within the destination array to copy to.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        residues().getChars(srcBegin, srcEnd, dst, dstBegin);
+    }
+
+    /**
+     * Determines whether a byte from a sequence file is a residue (i.e. a
+     * letter, a '*' or a '-').  All other bytes (such as whitespace and
+     * numbers) are ignored when reading sequence files.
+     **
+     * @param  b the byte to test.
+     * @return whether the byte is a residue.
+     */
+    static boolean isResidue(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z')
+                || b == '*' || b == '-';
+    }
+
+    /**
+     * Returns the packed residues, reading them from the sequence file if they
+     * have not yet been read (or have been discarded).
+     **
+     * @return the packed residues.
+     */
+    private synchronized PackedSequence residues() {
+        // The packed residues.
+        PackedSequence result = (cache != null ? cache.get() : null);
+
+        if (result == null) {
+            try {
+                result = read();
+                cache = new SoftReference<PackedSequence>(result);
+            } catch (IOException ioe) {
+                // If the file cannot be read, substitute gaps for the
+                // residues, so the sequence still has its indexed length.
+                // The gaps are not cached, so the file will be read again
+                // the next time the residues are needed.
+                ioe.printStackTrace(System.err);
+                result = new PackedSequence(type);
+                pad(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads and packs the residues from the sequence file.
+     **
+     * @return the packed residues.
+     * @throws IOException if the sequence file could not be read.
+     */
+    private PackedSequence read() throws IOException {
+        // The bytes read from the sequence file.
+        final byte[] bytes = new byte[READ_SIZE];
+        // The residues extracted from the bytes read.
+        final char[] chars = new char[READ_SIZE];
+        // The packed residues.
+        final PackedSequence result = new PackedSequence(type);
+        // The sequence file to read from.
+        final RandomAccessFile in = new RandomAccessFile(file, "r");
+        // The number of bytes remaining in the residue region.
+        long remaining = end - offset;
+        // The number of bytes read by the last read operation.
+        int read;
+        // The number of residues extracted from the bytes read.
+        int count;
+
+        try {
+            in.seek(offset);
+            while (remaining > 0 && (read = in.read(bytes, 0,
+                    (int) Math.min(bytes.length, remaining))) > 0) {
+                // Extract the residues, skipping whitespace, numbers, etc.
+                count = 0;
+                for (int index = 0; index < read; index++) {
+                    if (isResidue(bytes[index])) {
+                        chars[count++] = (char) bytes[index];
+                    }
+                }
+                result.append(chars, 0, count);
+                remaining -= read;
+            }
+        } finally {
+            in.close();
+        }
+
+        // Ensure that the residues still match the index (i.e. the file was
+        // not modified since it was indexed).
+        if (result.length() != length) {
+            System.err.println("WARNING: " + file.getPath()
+                    + " was modified after it was opened!");
+            if (result.length() > length) {
+                result.delete(length, result.length());
+            } else {
+                pad(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pads a packed residue store with gaps, up to the indexed length.
+     **
+     * @param data the packed residue store to pad.
+     */
+    private void pad(PackedSequence data) {
+        // The gaps to pad the residue store with.
+        final char[] gaps = new char[length - data.length()];
+
+        Arrays.fill(gaps, '-');
+        data.append(gaps, 0, gaps.length);
+    }
+
+    /**
+     * Replaces the lazy residue store with an equivalent on-heap packed
+     * residue store, when serializing.
+     **
+     * @return a PackedSequence containing the same residues.
+     * @throws ObjectStreamException never (required by the serialization API).
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return residues();
+    }
+}
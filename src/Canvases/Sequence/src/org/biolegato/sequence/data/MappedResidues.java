@@ -0,0 +1,182 @@
+/*
+ * MappedResidues.java
+ *
+ * Created on October 18, 2026, 1:25 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.LongBuffer;
+
+/**
+ * <p>A read-only residue store, which reads packed residues from a region of
+ * a memory-mapped scratch file.</p>
+ *
+ * <p>The residues are stored using the same packed encodings as
+ * PackedSequence; however, the packed words are read directly from the mapped
+ * file, rather than from the Java heap.  Thus, reading a window of residues
+ * only pages in the portion of the file containing the window.  The case
+ * mask of the residues (which holds only a few runs) is kept on the heap.</p>
+ *
+ * <p>When serialized, a mapped residue store is replaced by an equivalent
+ * PackedSequence (because the scratch file is temporary).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.ScratchFile
+ */
+final class MappedResidues implements ResidueStore, Serializable {
+
+    /**
+     * The encoding of the packed residues.
+     */
+    private final PackedSequence.Encoding encoding;
+    /**
+     * The packed residue codes (mapped from the scratch file).
+     */
+    private final transient LongBuffer words;
+    /**
+     * The lower-case residues in the store (null if there are none).
+     */
+    private final transient CaseMask lower;
+    /**
+     * The number of residues in the store.
+     */
+    private final int length;
+    /**
+     * The scratch file containing the packed residues.
+     */
+    final transient ScratchFile file;
+    /**
+     * The position of the packed residues within the scratch file.
+     */
+    final transient long offset;
+    /**
+     * The number of bytes occupied by the packed residues in the scratch file.
+     */
+    final transient long size;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777127L;
+
+    /**
+     * Creates a new mapped residue store.
+     **
+     * @param encoding the encoding of the packed residues.
+     * @param words    the mapped packed residue codes.
+     * @param lower    the lower-case residues (null if there are none).
+     * @param length   the number of residues in the store.
+     * @param file     the scratch file containing the packed residues.
+     * @param offset   the position of the packed residues within the file.
+     * @param size     the number of bytes occupied by the packed residues.
+     */
+    MappedResidues(PackedSequence.Encoding encoding, LongBuffer words,
+            CaseMask lower, int length, ScratchFile file, long offset,
+            long size) {
+        this.encoding = encoding;
+        this.words = words;
+        this.lower = lower;
+        this.length = length;
+        this.file = file;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of residues in the store.
+     **
+     * @return the number of residues in the store.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns a single residue from the store.
+     **
+     * @param  index the position of the residue to return.
+     * @return the residue at the given position.
+     */
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        // The residue (without its case).
+        final char c = encoding.decode((int) ((words.get(index
+                / encoding.perWord) >>> ((index % encoding.perWord)
+                * encoding.bits)) & encoding.mask));
+
+        return (lower != null && lower.isLower(index)
+                ? Character.toLowerCase(c) : c);
+    }
+
+    /**
+     * Copies residues from the store into a character array.
+     **
+     * @param srcBegin the position of the first residue to copy.
+     * @param srcEnd   the position after the last residue to copy.
+     * @param dst      the destination array.
+     * @param dstBegin the index within the destination array to copy to.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        // The encoding parameters (cached locally for speed).
+        final int bits = encoding.bits;
+        final long mask = encoding.mask;
+        // The index of the word containing the current residue.
+        int word;
+        // The bit offset of the current residue within its word.
+        int shift;
+        // The current word being decoded.
+        long current;
+        // The index within the destination array to decode the next residue
+        // into.
+        int pos = dstBegin;
+
+        if (srcBegin < 0 || srcEnd > length || srcBegin > srcEnd) {
+            throw new StringIndexOutOfBoundsException("srcBegin " + srcBegin
+                    + ", srcEnd " + srcEnd + ", length " + length);
+        }
+
+        if (srcBegin < srcEnd) {
+            word = srcBegin / encoding.perWord;
+            shift = (srcBegin % encoding.perWord) * bits;
+            current = words.get(word);
+
+            for (int count = srcBegin; count < srcEnd; count++) {
+                dst[pos++] = encoding.decode((int) ((current >>> shift)
+                        & mask));
+                shift += bits;
+                if (shift + bits > 64 && count + 1 < srcEnd) {
+                    shift = 0;
+                    word++;
+                    current = words.get(word);
+                }
+            }
+
+            // Restore the case of any lower-case residues.
+            if (lower != null) {
+                lower.apply(srcBegin, srcEnd, dst, dstBegin);
+            }
+        }
+    }
+
+    /**
+     * Replaces the mapped residue store with an equivalent on-heap packed
+     * residue store, when serializing.
+     **
+     * @return a PackedSequence containing the same residues.
+     * @throws ObjectStreamException never (required by the serialization API).
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        // The residues decoded from the mapped file.
+        final char[] data = new char[length];
+        // The on-heap copy of the residues.
+        final PackedSequence result = new PackedSequence(encoding);
+
+        getChars(0, length, data, 0);
+        result.append(data, 0, length);
+        return result;
+    }
+}
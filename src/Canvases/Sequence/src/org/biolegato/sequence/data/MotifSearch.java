@@ -0,0 +1,554 @@
+/*
+ * MotifSearch.java
+ *
+ * Created on October 18, 2026, 6:05 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Searches all of the sequences in a Dataset for a motif.</p>
+ *
+ * <p>Motifs may contain IUPAC degenerate symbols.  For nucleotide sequences
+ * (DNA and RNA), the symbols R, Y, S, W, K, M, B, D, H, V and N are expanded
+ * to the bases they represent, and T and U are treated as the same base.  For
+ * all other sequences, the protein symbols B (D or N), Z (E or Q), J (I or L)
+ * and X (any residue) are expanded.  Each symbol also matches itself, and
+ * matching is case-insensitive.  If gaps are ignored, the gap characters
+ * ('-', '.', '~' and spaces) within the sequences are skipped over, so a motif
+ * may match residues which are separated by gaps in the alignment.</p>
+ *
+ * <p>Each sequence is scanned in a single pass using a bit-parallel
+ * (shift-and) matcher, and the sequences are divided amongst the threads of
+ * the common fork-join pool.  The hits within each block of sequences are
+ * reported to a listener as soon as the block is scanned, so results stream
+ * in while the search continues.  If the Dataset is modified during the
+ * search, the search is cancelled (the positions of any further hits would
+ * no longer be reliable).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public final class MotifSearch {
+
+    /**
+     * The maximum length of a motif (the number of bits in a long).
+     */
+    public static final int MAX_LENGTH = 64;
+    /**
+     * The largest number of sequences scanned by a single fork-join task.
+     */
+    private static final int BLOCK_SIZE = 32;
+    /**
+     * The number of residues read from a sequence at a time.
+     */
+    private static final int CHUNK_SIZE = 4096;
+    /**
+     * The IUPAC nucleotide symbols, and the bases each symbol represents.
+     */
+    private static final String[][] NUCLEOTIDE_CODES = {
+        {"A", "A"},    {"C", "C"},    {"G", "G"},    {"T", "TU"},
+        {"U", "TU"},   {"R", "AG"},   {"Y", "CTU"},  {"S", "CG"},
+        {"W", "ATU"},  {"K", "GTU"},  {"M", "AC"},   {"B", "CGTU"},
+        {"D", "AGTU"}, {"H", "ACTU"}, {"V", "ACG"},  {"N", "ACGTU"},
+    };
+    /**
+     * The IUPAC degenerate protein symbols, and the residues each symbol
+     * represents.
+     */
+    private static final String[][] PROTEIN_CODES = {
+        {"B", "DN"}, {"Z", "EQ"}, {"J", "IL"},
+    };
+    /**
+     * The motif searched for (as entered).
+     */
+    private final String pattern;
+    /**
+     * Whether to skip over gap characters within the sequences.
+     */
+    private final boolean ignoreGaps;
+    /**
+     * The shift-and masks for matching nucleotide sequences.  Bit N of the
+     * mask of a character is set if the character matches position N of the
+     * motif.  The last entry is the mask of all non-ASCII characters.
+     */
+    private final long[] nucleotideMasks = new long[129];
+    /**
+     * The shift-and masks for matching protein (and all other) sequences.
+     */
+    private final long[] proteinMasks = new long[129];
+    /**
+     * Whether the current search was cancelled.
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Compiles a motif for searching.
+     **
+     * @param pattern    the motif to search for.
+     * @param ignoreGaps whether to skip over gap characters in the sequences.
+     * @throws IllegalArgumentException if the motif is empty, too long, or
+     *                                  contains a character which is not a
+     *                                  letter or '*'.
+     */
+    public MotifSearch(String pattern, boolean ignoreGaps) {
+        // The current character of the motif.
+        char symbol;
+        // The bit for the current position of the motif.
+        long bit;
+
+        this.pattern = pattern;
+        this.ignoreGaps = ignoreGaps;
+
+        if (pattern == null || pattern.length() == 0) {
+            throw new IllegalArgumentException("No motif entered");
+        } else if (pattern.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Motifs may be at most "
+                    + MAX_LENGTH + " residues long");
+        }
+
+        for (int count = 0; count < pattern.length(); count++) {
+            symbol = Character.toUpperCase(pattern.charAt(count));
+            bit = 1L << count;
+
+            if (symbol != '*' && (symbol < 'A' || symbol > 'Z')) {
+                throw new IllegalArgumentException("Invalid motif character: "
+                        + pattern.charAt(count));
+            }
+
+            // Every symbol matches itself.
+            setBit(nucleotideMasks, symbol, bit);
+            setBit(proteinMasks, symbol, bit);
+
+            // Expand the nucleotide codes.
+            for (String[] code : NUCLEOTIDE_CODES) {
+                if (code[0].charAt(0) == symbol) {
+                    for (char base : code[1].toCharArray()) {
+                        setBit(nucleotideMasks, base, bit);
+                    }
+                }
+            }
+
+            // Expand the protein codes.  X matches any residue (including
+            // unusual residues such as U and O), but not stop codons.
+            if (symbol == 'X') {
+                for (char residue = 'A'; residue <= 'Z'; residue++) {
+                    setBit(proteinMasks, residue, bit);
+                }
+            } else {
+                for (String[] code : PROTEIN_CODES) {
+                    if (code[0].charAt(0) == symbol) {
+                        for (char residue : code[1].toCharArray()) {
+                            setBit(proteinMasks, residue, bit);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the motif searched for.
+     **
+     * @return the motif, as entered.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+//////////////////////
+//******************//
+//* SEARCH METHODS *//
+//******************//
+//////////////////////
+    /**
+     * Starts searching the Dataset for the motif, in the background.  The hits
+     * found are reported to the listener from the fork-join worker threads,
+     * and the listener is notified once the search is finished (or cancelled).
+     **
+     * @param data     the Dataset to search.
+     * @param listener the listener to report the hits found to.
+     */
+    public void start(Dataset data, final Listener listener) {
+        // The task used to search every sequence in the Dataset.
+        final Search search = new Search(data, listener);
+
+        cancelled = false;
+        ForkJoinPool.commonPool().execute(new RecursiveAction() {
+            /**
+             * Serialization number - required for no warnings.
+             */
+            private static final long serialVersionUID = 7526472295622777036L;
+
+            /**
+             * Searches the Dataset, then notifies the listener.
+             */
+            @Override
+            protected void compute() {
+                try {
+                    search.invoke();
+                } catch (Throwable th) {
+                    cancelled = true;
+                    th.printStackTrace(System.err);
+                } finally {
+                    listener.finished(search.total.get(), cancelled);
+                }
+            }
+        });
+    }
+
+    /**
+     * Searches the Dataset for the motif, and waits for the search to finish.
+     **
+     * @param data the Dataset to search.
+     * @return the hits found, ordered by row and column (the list is empty if
+     *         the Dataset was modified during the search).
+     */
+    public List<Hit> search(Dataset data) {
+        // The hits found by the search.
+        final List<Hit> result = Collections.synchronizedList(
+                new ArrayList<Hit>());
+
+        cancelled = false;
+        ForkJoinPool.commonPool().invoke(new Search(data, new Listener() {
+            /**
+             * Collects the hits found.
+             **
+             * @param hits the hits found within a block of sequences.
+             */
+            public void found(List<Hit> hits) {
+                result.addAll(hits);
+            }
+
+            /**
+             * Ignored (the search is waited for).
+             **
+             * @param total     ignored by this method.
+             * @param cancelled ignored by this method.
+             */
+            public void finished(int total, boolean cancelled) {
+            }
+        }));
+
+        if (cancelled) {
+            result.clear();
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Cancels the current search.  Any blocks of sequences currently being
+     * scanned are abandoned, and no further hits are reported.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Scans a single sequence for the motif.
+     **
+     * @param seq     the sequence to scan.
+     * @param row     the row number of the sequence.
+     * @param buffer  the buffer used to read the sequence's residues.
+     * @param columns the columns of the most recent residues matched (used to
+     *                find the first column of each hit).
+     * @param hits    the list to add the hits found to.
+     * @param data    the Dataset being searched.
+     * @param stamp   the modification count of the Dataset, when the search
+     *                started.
+     * @return false if the search was cancelled, or the Dataset was modified.
+     */
+    private boolean scan(Seq seq, int row, char[] buffer, int[] columns,
+            List<Hit> hits, Dataset data, int stamp) {
+        // The shift-and masks to use for the sequence.
+        final long[] masks = (seq.type == Seq.Type.DNA
+                || seq.type == Seq.Type.RNA ? nucleotideMasks : proteinMasks);
+        // The bit set when the whole motif has been matched.
+        final long accept = 1L << (pattern.length() - 1);
+        // The length of the motif.
+        final int length = pattern.length();
+        // The length of the sequence.
+        int end;
+        // The number of residues read into the buffer.
+        int read;
+        // The current character of the sequence.
+        char current;
+        // The number of (non-gap) residues matched so far.
+        int residues = 0;
+        // The state of the shift-and matcher.
+        long state = 0;
+
+        try {
+            end = seq.sequence.length();
+            for (int offset = 0; offset < end; offset += read) {
+                if (cancelled) {
+                    return false;
+                }
+                read = Math.min(buffer.length, end - offset);
+                seq.sequence.getChars(offset, offset + read, buffer, 0);
+
+                // Ensure the residues were not read while the sequence was
+                // being modified.
+                if (data.getModificationCount() != stamp) {
+                    cancelled = true;
+                    return false;
+                }
+
+                for (int count = 0; count < read; count++) {
+                    current = buffer[count];
+                    if (ignoreGaps && (current == '-' || current == '.'
+                            || current == '~' || current == ' ')) {
+                        continue;
+                    }
+
+                    // Record the column of each residue, so the first column
+                    // of a hit can be found when gaps are skipped.
+                    columns[residues % length] = offset + count;
+                    residues++;
+
+                    state = ((state << 1) | 1L) & masks[Math.min(current, 128)];
+                    if ((state & accept) != 0) {
+                        hits.add(new Hit(row, columns[residues % length],
+                                offset + count + 1, seq));
+                    }
+                }
+            }
+        } catch (RuntimeException re) {
+            // The sequence was modified while it was being read.
+            cancelled = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets a bit within the mask of a character (for both upper and lower
+     * case).
+     **
+     * @param masks the masks to modify.
+     * @param c     the upper case character to set the bit for.
+     * @param bit   the bit to set.
+     */
+    private static void setBit(long[] masks, char c, long bit) {
+        masks[c] |= bit;
+        masks[Character.toLowerCase(c)] |= bit;
+    }
+
+////////////////////////
+//********************//
+//* RESULT INTERFACE *//
+//********************//
+////////////////////////
+    /**
+     * Receives the results of a motif search.
+     */
+    public static interface Listener {
+
+        /**
+         * Called when hits are found.  Note that this method is called from
+         * the threads performing the search (not the event dispatch thread).
+         **
+         * @param hits the hits found within a block of sequences.
+         */
+        public void found(List<Hit> hits);
+
+        /**
+         * Called once the search is finished.  This method is also called from
+         * the threads performing the search.
+         **
+         * @param total     the total number of hits found.
+         * @param cancelled whether the search was cancelled before every
+         *                  sequence was searched.
+         */
+        public void finished(int total, boolean cancelled);
+    }
+
+    /**
+     * A single occurrence of the motif within a sequence.
+     */
+    public static final class Hit implements Comparable<Hit> {
+
+        /**
+         * The row number of the sequence, at the time of the search.
+         */
+        public final int row;
+        /**
+         * The first column of the hit.
+         */
+        public final int start;
+        /**
+         * The column after the last column of the hit (if gaps are ignored,
+         * the hit may span more columns than there are residues in the motif).
+         */
+        public final int end;
+        /**
+         * The sequence containing the hit.
+         */
+        public final Seq sequence;
+
+        /**
+         * Creates a new hit.
+         **
+         * @param row      the row number of the sequence.
+         * @param start    the first column of the hit.
+         * @param end      the column after the last column of the hit.
+         * @param sequence the sequence containing the hit.
+         */
+        Hit(int row, int start, int end, Seq sequence) {
+            this.row = row;
+            this.start = start;
+            this.end = end;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Orders hits by row, and then by column.
+         **
+         * @param o the hit to compare to.
+         * @return the comparison result.
+         */
+        public int compareTo(Hit o) {
+            return (row != o.row ? Integer.compare(row, o.row)
+                    : Integer.compare(start, o.start));
+        }
+    }
+
+///////////////////////
+//*******************//
+//* FORK-JOIN TASKS *//
+//*******************//
+///////////////////////
+    /**
+     * The top-level task of a search.  The sequences to search are copied from
+     * the Dataset before the search is divided amongst the worker threads.
+     */
+    private final class Search extends RecursiveAction {
+
+        /**
+         * Serialization number - required for no warnings.
+         */
+        private static final long serialVersionUID = 7526472295622777037L;
+        /**
+         * The Dataset being searched.
+         */
+        final Dataset data;
+        /**
+         * The listener to report the hits found to.
+         */
+        final Listener listener;
+        /**
+         * The sequences to search.
+         */
+        final Seq[] rows;
+        /**
+         * The modification count of the Dataset, when the search started.
+         */
+        final int stamp;
+        /**
+         * The total number of hits found.
+         */
+        final AtomicInteger total = new AtomicInteger();
+
+        /**
+         * Creates a new search task.
+         **
+         * @param data     the Dataset to search.
+         * @param listener the listener to report the hits found to.
+         */
+        Search(Dataset data, Listener listener) {
+            this.data = data;
+            this.listener = listener;
+            this.stamp = data.getModificationCount();
+            this.rows = data.toArray();
+        }
+
+        /**
+         * Searches every sequence.
+         */
+        @Override
+        protected void compute() {
+            new Block(this, 0, rows.length).invoke();
+        }
+    }
+
+    /**
+     * Searches a block of sequences.  Blocks larger than BLOCK_SIZE are split
+     * in half, and searched in parallel.
+     */
+    private final class Block extends RecursiveAction {
+
+        /**
+         * Serialization number - required for no warnings.
+         */
+        private static final long serialVersionUID = 7526472295622777038L;
+        /**
+         * The search the block belongs to.
+         */
+        final Search search;
+        /**
+         * The first row of the block.
+         */
+        final int first;
+        /**
+         * The row after the last row of the block.
+         */
+        final int last;
+
+        /**
+         * Creates a new block task.
+         **
+         * @param search the search the block belongs to.
+         * @param first  the first row of the block.
+         * @param last   the row after the last row of the block.
+         */
+        Block(Search search, int first, int last) {
+            this.search = search;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Searches the block (or splits it in half).
+         */
+        @Override
+        protected void compute() {
+            // The midpoint of the block.
+            final int middle;
+            // The buffer used to read the residues of each sequence.
+            final char[] buffer;
+            // The columns of the most recent residues matched.
+            final int[] columns;
+            // The hits found within the block.
+            final List<Hit> hits;
+
+            if (cancelled) {
+                return;
+            } else if (last - first > BLOCK_SIZE) {
+                middle = (first + last) >>> 1;
+                invokeAll(new Block(search, first, middle),
+                        new Block(search, middle, last));
+            } else {
+                buffer = new char[CHUNK_SIZE];
+                columns = new int[pattern.length()];
+                hits = new ArrayList<Hit>();
+                for (int row = first; row < last; row++) {
+                    if (!scan(search.rows[row], row, buffer, columns, hits,
+                            search.data, search.stamp)) {
+                        return;
+                    }
+                }
+                if (!hits.isEmpty() && !cancelled) {
+                    search.total.addAndGet(hits.size());
+                    search.listener.found(hits);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,718 @@
+/*
+ * PackedSequence.java
+ *
+ * Created on October 18, 2026, 10:12 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>A compact, editable store for the residues of a single sequence.</p>
+ *
+ * <p>Rather than storing every residue as a 16-bit Java character (as a
+ * StringBuffer would), residues are packed into an array of longs using the
+ * smallest code width which can represent every character in the sequence:</p>
+ * <ol>
+ *      <li><b>4 bits</b> -- IUPAC nucleotide codes plus the gap character
+ *              (one alphabet for DNA, and one for RNA).</li>
+ *      <li><b>5 bits</b> -- IUPAC amino acid codes plus the gap, stop and
+ *              period characters.</li>
+ *      <li><b>8 bits</b> -- any Latin-1 character.</li>
+ *      <li><b>16 bits</b> -- any Java character (used for text sequences and
+ *              colour masks).</li>
+ * </ol>
+ *
+ * <p>The initial width is selected from the sequence's type.  If a character
+ * is inserted which cannot be represented by the current width, the store is
+ * transparently widened (repacked) to the next width which can hold it.
+ * Thus, the characters read back from the store are always exactly the
+ * characters which were written into it.</p>
+ *
+ * <p>The 4-bit and 5-bit alphabets are case-insensitive: lower-case residues
+ * (e.g. the ORIGIN section of a GenBank file, or soft-masked FastA residues)
+ * are stored using the codes of their upper-case forms, and their case is
+ * kept in a separate run-length mask (see CaseMask).  Thus, lower-case
+ * sequences are packed just as tightly as upper-case sequences.</p>
+ *
+ * <p>The method names mirror those of StringBuffer (length, charAt, getChars,
+ * insert, append and delete) so the store may be used as a drop-in
+ * replacement within the Dataset class.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+final class PackedSequence implements CharSequence, ResidueStore,
+                                                                Serializable {
+
+    /**
+     * The character encodings (code widths) supported by the packed store.
+     * The encodings are ordered such that each encoding can represent every
+     * character representable by the encodings preceding it (with the
+     * exception of DNA and RNA, which both widen to PROTEIN).
+     */
+    static enum Encoding {
+
+        /**
+         * 4-bit IUPAC DNA codes (including gaps).
+         */
+        DNA(4, "-ACGTRYSWKMBDHVN"),
+        /**
+         * 4-bit IUPAC RNA codes (including gaps).
+         */
+        RNA(4, "-ACGURYSWKMBDHVN"),
+        /**
+         * 5-bit IUPAC amino acid codes (including gaps and stops).
+         */
+        PROTEIN(5, "-*.ABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+        /**
+         * 8-bit Latin-1 characters.
+         */
+        BYTE(8, null),
+        /**
+         * 16-bit Java characters (no packing).
+         */
+        CHAR(16, null);
+
+        /**
+         * The number of bits used to store each residue.
+         */
+        final int bits;
+        /**
+         * The number of residues stored in each long word.
+         */
+        final int perWord;
+        /**
+         * The bit-mask used to extract a single residue code from a word.
+         */
+        final long mask;
+        /**
+         * Translates residue codes into characters (null for the BYTE and
+         * CHAR encodings, where the code IS the character).
+         */
+        private final char[] decoder;
+        /**
+         * Translates ASCII characters into residue codes (-1 represents a
+         * character which is not in the alphabet).  Lower-case letters are
+         * translated into the codes of their upper-case forms.
+         */
+        private final byte[] encoder;
+
+        /**
+         * Creates a new encoding.
+         **
+         * @param bits     the number of bits used to store each residue.
+         * @param alphabet the characters represented by the encoding, in code
+         *                 order (null if the code is the character itself).
+         */
+        private Encoding(int bits, String alphabet) {
+            this.bits = bits;
+            this.perWord = 64 / bits;
+            this.mask = (1L << bits) - 1;
+
+            if (alphabet != null) {
+                decoder = alphabet.toCharArray();
+                encoder = new byte[128];
+                Arrays.fill(encoder, (byte) -1);
+                for (int code = 0; code < decoder.length; code++) {
+                    encoder[decoder[code]] = (byte) code;
+                    encoder[Character.toLowerCase(decoder[code])]
+                            = (byte) code;
+                }
+            } else {
+                decoder = null;
+                encoder = null;
+            }
+        }
+
+        /**
+         * Translates a character into its residue code.
+         **
+         * @param  c the character to encode.
+         * @return the residue code, or -1 if the character cannot be
+         *         represented by this encoding.
+         */
+        final int encode(char c) {
+            int code = c;
+
+            if (encoder != null) {
+                code = (c < encoder.length ? encoder[c] : -1);
+            } else if (bits == 8 && c > 0xFF) {
+                code = -1;
+            }
+            return code;
+        }
+
+        /**
+         * Translates a residue code back into its character (for the packed
+         * alphabets, the upper-case form of the character).
+         **
+         * @param  code the residue code to decode.
+         * @return the character represented by the code.
+         */
+        final char decode(int code) {
+            return (decoder != null ? decoder[code] : (char) code);
+        }
+
+        /**
+         * Determines whether the encoding folds lower-case letters onto the
+         * codes of their upper-case forms (in which case, the case of the
+         * residues must be kept in a CaseMask).
+         **
+         * @return whether the encoding is case-insensitive.
+         */
+        final boolean folded() {
+            return decoder != null;
+        }
+
+        /**
+         * Returns the next wider encoding (used when a character cannot be
+         * represented by the current encoding).
+         **
+         * @return the next wider encoding.
+         */
+        final Encoding wider() {
+            Encoding result = CHAR;
+
+            switch (this) {
+                case DNA:
+                case RNA:
+                    result = PROTEIN;
+                    break;
+                case PROTEIN:
+                    result = BYTE;
+                    break;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the narrowest encoding (this encoding, or one wider than it)
+         * which can represent a given character.
+         **
+         * @param  c the character which must be representable.
+         * @return the encoding to use for the character.
+         */
+        final Encoding fit(char c) {
+            Encoding result = this;
+
+            while (result.encode(c) < 0) {
+                result = result.wider();
+            }
+            return result;
+        }
+
+        /**
+         * Selects the narrowest encoding suitable for a given sequence type.
+         **
+         * @param  type the sequence type to select an encoding for.
+         * @return the initial encoding for sequences of the given type.
+         */
+        static Encoding forType(Seq.Type type) {
+            Encoding result = CHAR;
+
+            if (type != null) {
+                switch (type) {
+                    case DNA:
+                        result = DNA;
+                        break;
+                    case RNA:
+                        result = RNA;
+                        break;
+                    case PROTEIN:
+                        result = PROTEIN;
+                        break;
+                }
+            }
+            return result;
+        }
+    }
+    /**
+     * The current encoding of the residues within the store.
+     */
+    private Encoding encoding;
+    /**
+     * The packed residue codes.
+     */
+    private long[] words;
+    /**
+     * The number of residues currently in the store.
+     */
+    private int length = 0;
+    /**
+     * The lower-case residues in the store (null if there are none, or if
+     * the encoding stores the case of the residues in their codes).
+     */
+    private CaseMask lower = null;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777125L;
+
+    /**
+     * Creates a new empty packed residue store.
+     **
+     * @param type the sequence type, used to select the initial encoding.
+     */
+    PackedSequence(Seq.Type type) {
+        this(type, null);
+    }
+
+    /**
+     * Creates a new empty packed residue store, using a given encoding.
+     **
+     * @param encoding the initial encoding for the store.
+     */
+    PackedSequence(Encoding encoding) {
+        this.encoding = encoding;
+        this.words = new long[0];
+    }
+
+    /**
+     * Creates a new packed residue store containing a copy of some text.
+     **
+     * @param type the sequence type, used to select the initial encoding.
+     * @param data the initial residues for the store (may be null).
+     */
+    PackedSequence(Seq.Type type, CharSequence data) {
+        // The number of characters to copy into the store.
+        int size = (data != null ? data.length() : 0);
+
+        encoding = Encoding.forType(type);
+
+        // Determine the narrowest encoding which can hold all of the data.
+        for (int count = 0; count < size; count++) {
+            while (encoding.encode(data.charAt(count)) < 0) {
+                encoding = encoding.wider();
+            }
+        }
+
+        // Pack the data into the store.
+        words = new long[wordsFor(size, encoding)];
+        for (int count = 0; count < size; count++) {
+            set(count, encoding.encode(data.charAt(count)));
+            if (encoding.folded()
+                    && Character.isLowerCase(data.charAt(count))) {
+                mask().mark(count, count + 1);
+            }
+        }
+        length = size;
+    }
+
+////////////////////
+//****************//
+//* CHARSEQUENCE *//
+//****************//
+////////////////////
+    /**
+     * Returns the number of residues in the store.
+     **
+     * @return the number of residues in the store.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns a single residue from the store.
+     **
+     * @param  index the position of the residue to return.
+     * @return the residue at the given position.
+     */
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        // The residue (without its case).
+        final char c = encoding.decode(get(index));
+
+        return (lower != null && lower.isLower(index)
+                ? Character.toLowerCase(c) : c);
+    }
+
+    /**
+     * Returns a copy of a portion of the store as a string.
+     **
+     * @param  start the position of the first residue to copy.
+     * @param  end   the position after the last residue to copy.
+     * @return the residues between the two positions.
+     */
+    public CharSequence subSequence(int start, int end) {
+        char[] result = new char[end - start];
+
+        getChars(start, end, result, 0);
+        return new String(result);
+    }
+
+    /**
+     * Returns a copy of all of the residues in the store as a string.
+     **
+     * @return the residues in the store.
+     */
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+
+////////////////////////
+//********************//
+//* BUFFER FUNCTIONS *//
+//********************//
+////////////////////////
+    /**
+     * Copies residues from the store into a character array.
+     **
+     * @param srcBegin the position of the first residue to copy.
+     * @param srcEnd   the position after the last residue to copy.
+     * @param dst      the destination array.
+     * @param dstBegin the index within the destination array to copy to.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        // The encoding parameters (cached locally for speed).
+        final int bits = encoding.bits;
+        final long mask = encoding.mask;
+        // The index of the word containing the current residue.
+        int word;
+        // The bit offset of the current residue within its word.
+        int shift;
+        // The current word being decoded.
+        long current;
+        // The index within the destination array to decode the next residue
+        // into.
+        int pos = dstBegin;
+
+        if (srcBegin < 0 || srcEnd > length || srcBegin > srcEnd) {
+            throw new StringIndexOutOfBoundsException("srcBegin " + srcBegin
+                    + ", srcEnd " + srcEnd + ", length " + length);
+        }
+
+        if (srcBegin < srcEnd) {
+            word = srcBegin / encoding.perWord;
+            shift = (srcBegin % encoding.perWord) * bits;
+            current = words[word];
+
+            // Decode the words sequentially, rather than calling get for each
+            // residue (this avoids a division per residue).
+            for (int count = srcBegin; count < srcEnd; count++) {
+                dst[pos++] = encoding.decode((int) ((current >>> shift)
+                        & mask));
+                shift += bits;
+                if (shift + bits > 64 && count + 1 < srcEnd) {
+                    shift = 0;
+                    word++;
+                    current = words[word];
+                }
+            }
+
+            // Restore the case of any lower-case residues.
+            if (lower != null) {
+                lower.apply(srcBegin, srcEnd, dst, dstBegin);
+            }
+        }
+    }
+
+    /**
+     * Determines whether any residue within a range of the store belongs to
+     * one of a set of character classes.  The residue codes are tested
+     * directly within the packed words, so no copy of the range is made (for
+     * the packed encodings, the classes are first translated into a small
+     * table indexed by residue code, so the residues need not be decoded).
+     * If the class table distinguishes between the cases of a lower-case
+     * residue in the range, the residues are tested one at a time instead.
+     **
+     * @param  start   the position of the first residue to test.
+     * @param  end     the position after the last residue to test.
+     * @param  classes the class flags of each ASCII character (the last entry
+     *                 holds the class flags of all non-ASCII characters).
+     * @param  flags   the class flags to test for.
+     * @return whether any residue in the range belongs to one of the classes.
+     */
+    boolean containsClass(int start, int end, byte[] classes, int flags) {
+        // The encoding parameters (cached locally for speed).
+        final int bits = encoding.bits;
+        final long mask = encoding.mask;
+        // The index of the last entry in the class table.
+        final int last = classes.length - 1;
+        // Whether each residue code belongs to one of the classes (null for
+        // the CHAR encoding, where the code is the character).
+        boolean[] hits = null;
+        // The index of the word containing the current residue.
+        int word;
+        // The bit offset of the current residue within its word.
+        int shift;
+        // The current word being decoded.
+        long current;
+        // Whether the case of the residues must be considered.
+        boolean cased = false;
+        // The character represented by the current residue code.
+        char c;
+        // Whether a residue belonging to one of the classes was found.
+        boolean found = false;
+
+        if (start < 0 || end > length || start > end) {
+            throw new StringIndexOutOfBoundsException("start " + start
+                    + ", end " + end + ", length " + length);
+        }
+
+        if (start < end) {
+            word = start / encoding.perWord;
+            shift = (start % encoding.perWord) * bits;
+            current = words[word];
+
+            if (bits <= 8) {
+                hits = new boolean[1 << bits];
+                for (int code = 0; code < hits.length; code++) {
+                    // Skip codes which are not in the encoding's alphabet
+                    // (e.g. the last three 5-bit PROTEIN codes).
+                    if (encoding.decoder == null
+                            || code < encoding.decoder.length) {
+                        c = encoding.decode(code);
+                        hits[code] = (classes[Math.min(c, last)] & flags) != 0;
+                        cased |= lower != null && hits[code] != ((classes[
+                                Math.min(Character.toLowerCase(c), last)]
+                                & flags) != 0);
+                    }
+                }
+            }
+
+            for (int count = start; cased && !found && count < end; count++) {
+                found = (classes[Math.min(charAt(count), last)] & flags) != 0;
+            }
+            for (int count = start; !cased && !found && count < end; count++) {
+                if (hits != null) {
+                    found = hits[(int) ((current >>> shift) & mask)];
+                } else {
+                    found = (classes[Math.min((int) ((current >>> shift)
+                            & mask), last)] & flags) != 0;
+                }
+                shift += bits;
+                if (shift + bits > 64 && count + 1 < end) {
+                    shift = 0;
+                    word++;
+                    current = words[word];
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Inserts characters into the store.
+     **
+     * @param index  the position within the store to insert the characters.
+     * @param text   the array containing the characters to insert.
+     * @param offset the offset of the first character in the array to insert.
+     * @param count  the number of characters from the array to insert.
+     */
+    void insert(int index, char[] text, int offset, int count) {
+        if (index < 0 || index > length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+
+        if (count > 0) {
+            // Widen the encoding, if any of the new characters cannot be
+            // represented by the current encoding.
+            for (int pos = offset; pos < offset + count; pos++) {
+                if (encoding.encode(text[pos]) < 0) {
+                    widen(text[pos]);
+                }
+            }
+
+            ensureCapacity(length + count);
+
+            // Shift the residues after the insertion point (if any).
+            move(index, index + count, length - index);
+
+            // Pack the new characters into the store.
+            for (int pos = 0; pos < count; pos++) {
+                set(index + pos, encoding.encode(text[offset + pos]));
+            }
+            length += count;
+
+            // Record the case of the new characters.
+            if (lower != null) {
+                lower.open(index, count);
+            }
+            if (encoding.folded()) {
+                for (int pos = 0; pos < count; pos++) {
+                    if (Character.isLowerCase(text[offset + pos])) {
+                        mask().mark(index + pos, index + pos + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends characters to the end of the store.
+     **
+     * @param text   the array containing the characters to append.
+     * @param offset the offset of the first character in the array to append.
+     * @param count  the number of characters from the array to append.
+     */
+    void append(char[] text, int offset, int count) {
+        insert(length, text, offset, count);
+    }
+
+    /**
+     * Deletes residues from the store.
+     **
+     * @param start the position of the first residue to delete.
+     * @param end   the position after the last residue to delete.
+     */
+    void delete(int start, int end) {
+        end = Math.min(end, length);
+
+        if (start < 0 || start > end) {
+            throw new StringIndexOutOfBoundsException(start);
+        }
+
+        // Shift the residues after the deletion down to the deletion point.
+        move(end, start, length - end);
+        length -= end - start;
+        if (lower != null) {
+            lower.cut(start, end);
+        }
+    }
+
+    /**
+     * Returns the encoding currently used to store the residues.
+     **
+     * @return the current encoding of the store.
+     */
+    Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Releases any unused capacity held by the store.
+     */
+    void trimToSize() {
+        int size = wordsFor(length, encoding);
+
+        if (size < words.length) {
+            words = Arrays.copyOf(words, size);
+        }
+        if (lower != null && lower.isEmpty()) {
+            lower = null;
+        } else if (lower != null) {
+            lower.trimToSize();
+        }
+    }
+
+///////////////////////
+//*******************//
+//* PACKING HELPERS *//
+//*******************//
+///////////////////////
+    /**
+     * Reads a single residue code from the packed array.
+     **
+     * @param  index the position of the residue code to read.
+     * @return the residue code.
+     */
+    private int get(int index) {
+        return (int) ((words[index / encoding.perWord]
+                >>> ((index % encoding.perWord) * encoding.bits))
+                & encoding.mask);
+    }
+
+    /**
+     * Writes a single residue code into the packed array.
+     **
+     * @param index the position of the residue code to write.
+     * @param code  the residue code to write.
+     */
+    private void set(int index, int code) {
+        final int word = index / encoding.perWord;
+        final int shift = (index % encoding.perWord) * encoding.bits;
+
+        words[word] = (words[word] & ~(encoding.mask << shift))
+                | ((long) code << shift);
+    }
+
+    /**
+     * Moves a block of residue codes within the packed array.  The source and
+     * destination blocks may overlap.
+     **
+     * @param from  the position of the first residue code to move.
+     * @param to    the position to move the first residue code to.
+     * @param count the number of residue codes to move.
+     */
+    private void move(int from, int to, int count) {
+        if (to > from) {
+            for (int pos = count - 1; pos >= 0; pos--) {
+                set(to + pos, get(from + pos));
+            }
+        } else if (to < from) {
+            for (int pos = 0; pos < count; pos++) {
+                set(to + pos, get(from + pos));
+            }
+        }
+    }
+
+    /**
+     * Ensures the packed array can hold at least a given number of residues.
+     **
+     * @param size the minimum number of residues the array must hold.
+     */
+    private void ensureCapacity(int size) {
+        final int needed = wordsFor(size, encoding);
+
+        if (needed > words.length) {
+            words = Arrays.copyOf(words,
+                    Math.max(needed, words.length * 2 + 1));
+        }
+    }
+
+    /**
+     * Repacks the store using the narrowest encoding wider than the current
+     * one, which can represent a given character.
+     **
+     * @param c the character which must be representable after widening.
+     */
+    private void widen(char c) {
+        // The residues decoded from the old array.
+        final char[] data = new char[length];
+
+        getChars(0, length, data, 0);
+
+        // Select the new encoding.  The case of the residues is kept in the
+        // codes of the wider unpacked encodings.
+        encoding = encoding.wider().fit(c);
+        if (!encoding.folded()) {
+            lower = null;
+        }
+
+        // Repack the residues using the new encoding.
+        words = new long[wordsFor(length, encoding)];
+        for (int count = 0; count < length; count++) {
+            set(count, encoding.encode(data[count]));
+        }
+    }
+
+    /**
+     * Returns the lower-case mask of the store, creating it if the store does
+     * not yet have any lower-case residues.
+     **
+     * @return the lower-case mask.
+     */
+    private CaseMask mask() {
+        if (lower == null) {
+            lower = new CaseMask();
+        }
+        return lower;
+    }
+
+    /**
+     * Calculates the number of words required to store a number of residues.
+     **
+     * @param  size     the number of residues to store.
+     * @param  encoding the encoding used to store the residues.
+     * @return the number of long words required.
+     */
+    static int wordsFor(int size, Encoding encoding) {
+        return (size + encoding.perWord - 1) / encoding.perWord;
+    }
+}
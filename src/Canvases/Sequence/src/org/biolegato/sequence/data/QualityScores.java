@@ -0,0 +1,191 @@
+/*
+ * QualityScores.java
+ *
+ * Created on October 19, 2026, 1:30 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>The per-residue quality scores of a sequence (e.g. a sequence read from
+ * a FASTQ file).</p>
+ *
+ * <p>The scores are stored as Phred scores, one byte per residue, in an array
+ * parallel to the residues of the sequence (the score at index i belongs to
+ * the residue at position i).  The Dataset keeps the scores consistent with
+ * the residues: residues inserted into the sequence are given the score
+ * UNKNOWN, and the scores of deleted residues are deleted along with them.</p>
+ *
+ * <p>Unlike the residues, the scores are not wrapped by a piece-table; an
+ * edit shifts the scores after the edit.  This is acceptable, because quality
+ * scores come from sequencing reads, which are short.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.FastQFile
+ */
+final class QualityScores implements Serializable {
+
+    /**
+     * The score given to residues which have no quality score (i.e. residues
+     * inserted into the sequence after it was read).
+     */
+    static final byte UNKNOWN = 0;
+    /**
+     * The largest score which may be written to a FASTQ file (the Sanger
+     * encoding uses the characters '!' to '~').
+     */
+    static final byte MAX_SCORE = 93;
+    /**
+     * The scores.
+     */
+    private byte[] scores;
+    /**
+     * The number of scores in the array.
+     */
+    private int length = 0;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777131L;
+
+    /**
+     * Creates a new, empty, quality score store.
+     **
+     * @param capacity the initial capacity of the store.
+     */
+    QualityScores(int capacity) {
+        this.scores = new byte[Math.max(16, capacity)];
+    }
+
+    /**
+     * Returns the number of scores in the store.
+     **
+     * @return the number of scores.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Returns the score of a single residue.
+     **
+     * @param  index the position of the residue.
+     * @return the score of the residue.
+     */
+    byte get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index
+                    + ", length: " + length);
+        }
+        return scores[index];
+    }
+
+    /**
+     * Copies scores from the store into a byte array.
+     **
+     * @param srcBegin the position of the first score to copy.
+     * @param srcEnd   the position after the last score to copy.
+     * @param dst      the destination array.
+     * @param dstBegin the index within the destination array to copy to.
+     */
+    void getScores(int srcBegin, int srcEnd, byte[] dst, int dstBegin) {
+        if (srcBegin < 0 || srcEnd > length || srcBegin > srcEnd) {
+            throw new IndexOutOfBoundsException("range: " + srcBegin + "-"
+                    + srcEnd + ", length: " + length);
+        }
+        System.arraycopy(scores, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+    }
+
+    /**
+     * Appends scores to the end of the store.
+     **
+     * @param source the scores to append.
+     * @param offset the index of the first score to append.
+     * @param count  the number of scores to append.
+     */
+    void append(byte[] source, int offset, int count) {
+        insert(length, source, offset, count);
+    }
+
+    /**
+     * Inserts scores into the store.
+     **
+     * @param position the position to insert the scores at.
+     * @param source   the scores to insert (null to insert UNKNOWN scores).
+     * @param offset   the index of the first score to insert.
+     * @param count    the number of scores to insert.
+     */
+    void insert(int position, byte[] source, int offset, int count) {
+        if (position < 0 || position > length) {
+            throw new IndexOutOfBoundsException("position: " + position
+                    + ", length: " + length);
+        }
+        if (length + count > scores.length) {
+            scores = Arrays.copyOf(scores,
+                    Math.max(length + count, scores.length * 2));
+        }
+        System.arraycopy(scores, position, scores, position + count,
+                length - position);
+        if (source != null) {
+            System.arraycopy(source, offset, scores, position, count);
+        } else {
+            Arrays.fill(scores, position, position + count, UNKNOWN);
+        }
+        length += count;
+    }
+
+    /**
+     * Replaces scores within the store (e.g. to restore the scores of
+     * residues which were deleted, and then re-inserted by an undo).
+     **
+     * @param position the position of the first score to replace.
+     * @param source   the new scores.
+     */
+    void set(int position, byte[] source) {
+        if (position < 0 || position + source.length > length) {
+            throw new IndexOutOfBoundsException("position: " + position
+                    + ", length: " + length);
+        }
+        System.arraycopy(source, 0, scores, position, source.length);
+    }
+
+    /**
+     * Deletes scores from the store.
+     **
+     * @param start the position of the first score to delete.
+     * @param end   the position after the last score to delete.
+     */
+    void delete(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("range: " + start + "-"
+                    + end + ", length: " + length);
+        }
+        System.arraycopy(scores, end, scores, start, length - end);
+        length -= end - start;
+    }
+
+    /**
+     * Returns a copy of the store (e.g. for a snapshot of the sequence).
+     **
+     * @return the copy of the store.
+     */
+    QualityScores copy() {
+        // The copy of the store.
+        final QualityScores result = new QualityScores(length);
+
+        result.append(scores, 0, length);
+        return result;
+    }
+
+    /**
+     * Releases any unused capacity of the store.
+     */
+    void trimToSize() {
+        if (scores.length > length) {
+            scores = Arrays.copyOf(scores, length);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * ResidueStore.java
+ *
+ * Created on October 18, 2026, 1:05 PM
+ */
+package org.biolegato.sequence.data;
+
+/**
+ * <p>A read-only source of residues, which may be referenced by the pieces of
+ * a SequenceBuffer.</p>
+ *
+ * <p>Residue stores may be kept on the Java heap (PackedSequence), or outside
+ * of the heap (e.g. MappedResidues, which reads residues from a memory-mapped
+ * scratch file).  SequenceBuffer only ever reads windows of residues from
+ * its stores, so the residues of a store need not all be in memory at once.
+ * </p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.SequenceBuffer
+ */
+interface ResidueStore {
+
+    /**
+     * Returns the number of residues in the store.
+     **
+     * @return the number of residues in the store.
+     */
+    public int length();
+
+    /**
+     * Returns a single residue from the store.
+     **
+     * @param  index the position of the residue to return.
+     * @return the residue at the given position.
+     */
+    public char charAt(int index);
+
+    /**
+     * Copies residues from the store into a character array.
+     **
+     * @param srcBegin the position of the first residue to copy.
+     * @param srcEnd   the position after the last residue to copy.
+     * @param dst      the destination array.
+     * @param dstBegin the index within the destination array to copy to.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin);
+}
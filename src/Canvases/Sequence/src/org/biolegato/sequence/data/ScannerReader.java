@@ -0,0 +1,96 @@
+/*
+ * ScannerReader.java
+ *
+ * Created on October 18, 2026, 7:10 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.Reader;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Reads the remaining (unparsed) text of a Scanner object as a Reader.</p>
+ *
+ * <p>The DataFormat parsers receive their input as Scanner objects, which may
+ * already have been partially consumed (e.g. by DataFormat.autodetect).
+ * Because a Scanner buffers the text it reads, the underlying Reader cannot
+ * be read directly; instead, this class pulls the remaining text from the
+ * Scanner in fixed-size blocks, so the streaming parsers can read it without
+ * splitting it into tokens.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.FastAReader
+ */
+final class ScannerReader extends Reader {
+
+    /**
+     * The number of characters to pull from the Scanner at a time.
+     */
+    private static final int BLOCK_SIZE = 8192;
+    /**
+     * Matches a block of up to BLOCK_SIZE characters (of any kind).
+     */
+    private static final Pattern BLOCK = Pattern.compile(
+            "(?s).{1," + BLOCK_SIZE + "}");
+    /**
+     * The Scanner to read from.
+     */
+    private final Scanner source;
+    /**
+     * The block most recently pulled from the Scanner (null if no block has
+     * been pulled, or the Scanner has no text left).
+     */
+    private String block = null;
+    /**
+     * The position of the next character to read within the current block.
+     */
+    private int position = 0;
+
+    /**
+     * Creates a new Reader for the remaining text of a Scanner.
+     **
+     * @param source the Scanner to read from.
+     */
+    ScannerReader(Scanner source) {
+        this.source = source;
+    }
+
+    /**
+     * Reads characters into an array.
+     **
+     * @param  cbuf   the destination array.
+     * @param  offset the offset within the array to start storing characters.
+     * @param  length the maximum number of characters to read.
+     * @return the number of characters read, or -1 if the end of the Scanner's
+     *         text has been reached.
+     */
+    @Override
+    public int read(char[] cbuf, int offset, int length) {
+        // The number of characters read.
+        int count = -1;
+
+        // Pull the next block from the Scanner, if the current block has been
+        // read completely.
+        if (block == null || position >= block.length()) {
+            block = source.findWithinHorizon(BLOCK, BLOCK_SIZE);
+            position = 0;
+        }
+
+        if (block != null) {
+            count = Math.min(length, block.length() - position);
+            block.getChars(position, position + count, cbuf, offset);
+            position += count;
+        }
+        return count;
+    }
+
+    /**
+     * Does nothing (the Scanner is owned by the caller, and must not be
+     * closed by the parser).
+     */
+    @Override
+    public void close() {
+    }
+}
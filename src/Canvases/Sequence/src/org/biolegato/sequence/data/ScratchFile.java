@@ -0,0 +1,366 @@
+/*
+ * ScratchFile.java
+ *
+ * Created on October 18, 2026, 1:10 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>A memory-mapped temporary file used to store sequence residues outside
+ * of the Java heap.</p>
+ *
+ * <p>The file is divided into fixed size segments, each of which is mapped
+ * into memory (using NIO MappedByteBuffer objects) the first time it is
+ * used.  Packed residues are written into the segments, and read back through
+ * MappedResidues objects.  Because the operating system pages the mapped
+ * segments in and out of memory as needed, only the residues which are
+ * actually read (e.g. the rows and columns visible in the sequence text area)
+ * occupy physical memory.</p>
+ *
+ * <p>Residues stored in a scratch file are never modified.  When a region of
+ * residues is no longer needed (e.g. a sequence buffer has been compacted into
+ * a new region), the region is released, and its space is reused by later
+ * stores; thus, repeatedly compacting a sequence does not grow the file.  The
+ * scratch file is deleted when it is closed, or when BioLegato exits.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.MappedResidues
+ */
+final class ScratchFile {
+
+    /**
+     * The size (in bytes) of each mapped segment of the scratch file.
+     */
+    static final long SEGMENT_SIZE = 1L << 28;
+    /**
+     * The number of residues read from a residue store at a time, when the
+     * residues are written into the scratch file.
+     */
+    private static final int WINDOW = 1 << 16;
+    /**
+     * The temporary file backing the scratch file.
+     */
+    private final File file;
+    /**
+     * The random access file object used to obtain the file channel.
+     */
+    private final RandomAccessFile raf;
+    /**
+     * The file channel used to map segments of the scratch file.
+     */
+    private final FileChannel channel;
+    /**
+     * The mapped segments of the scratch file (null for segments which have
+     * not yet been mapped).
+     */
+    private final List<MappedByteBuffer> segments
+            = new ArrayList<MappedByteBuffer>();
+    /**
+     * The released (unused) regions of the scratch file, before the position
+     * of the next unused byte.  Each entry maps the position of a region to
+     * its size (in bytes); adjacent regions are merged as they are released.
+     */
+    private final TreeMap<Long, Long> free = new TreeMap<Long, Long>();
+    /**
+     * The position of the next unused byte within the scratch file.
+     */
+    private long position = 0;
+
+    /**
+     * Creates a new scratch file.
+     **
+     * @param  directory   the directory to create the scratch file in (null
+     *                     for the system's default temporary directory).
+     * @throws IOException if the scratch file could not be created.
+     */
+    ScratchFile(File directory) throws IOException {
+        file = File.createTempFile("bioseq", ".scratch", directory);
+        file.deleteOnExit();
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+    }
+
+    /**
+     * <p>Copies the residues from a residue store into the scratch file.</p>
+     *
+     * <p>The residues are read, packed and written WINDOW residues at a time,
+     * so only a small window of the residues is ever held on the Java heap
+     * (regardless of the length of the store).  The encoding must be able to
+     * represent every residue in the store.  For the case-insensitive packed
+     * encodings, the case of the residues is kept in a mask on the heap.</p>
+     **
+     * @param  data        the residues to copy.
+     * @param  encoding    the encoding to pack the residues with.
+     * @return a residue store which reads the residues from the scratch file.
+     * @throws IOException if the residues could not be written.
+     */
+    synchronized MappedResidues store(ResidueStore data,
+            PackedSequence.Encoding encoding) throws IOException {
+        // The number of residues to copy.
+        final int length = data.length();
+        // The number of bytes required to store the packed residues.
+        final long size = (long) PackedSequence.wordsFor(length, encoding) * 8;
+        // The window of residues currently being packed.
+        final char[] window = new char[Math.min(length, WINDOW)];
+        // The position of the residues within the scratch file.
+        long offset = 0;
+        // The buffer to write the packed residues into.
+        ByteBuffer region = ByteBuffer.allocate(0);
+        // The long view of the buffer to write the packed residues into.
+        LongBuffer words;
+        // The number of residues in the current window.
+        int end;
+        // The code of the current residue.
+        int code;
+        // The word currently being packed.
+        long word = 0;
+        // The number of residues packed into the current word.
+        int packed = 0;
+        // The lower-case residues (null if none have been found).
+        CaseMask lower = null;
+
+        if (!channel.isOpen()) {
+            throw new IOException("The scratch file has been closed");
+        }
+
+        if (size > 0) {
+            offset = allocate(size);
+            region = map(offset, size);
+        }
+
+        // Pack the residues into the scratch file, one window at a time.
+        words = region.asLongBuffer();
+        for (int start = 0; start < length; start += window.length) {
+            end = Math.min(length - start, window.length);
+            data.getChars(start, start + end, window, 0);
+            for (int index = 0; index < end; index++) {
+                code = encoding.encode(window[index]);
+                if (code < 0) {
+                    throw new IllegalArgumentException("The residue '"
+                            + window[index] + "' cannot be represented by the "
+                            + encoding + " encoding");
+                }
+                if (encoding.folded()
+                        && Character.isLowerCase(window[index])) {
+                    if (lower == null) {
+                        lower = new CaseMask();
+                    }
+                    lower.mark(start + index, start + index + 1);
+                }
+                word |= (long) code << (packed * encoding.bits);
+                packed++;
+                if (packed == encoding.perWord) {
+                    words.put(word);
+                    word = 0;
+                    packed = 0;
+                }
+            }
+        }
+        if (packed > 0) {
+            words.put(word);
+        }
+
+        if (lower != null) {
+            lower.trimToSize();
+        }
+        return new MappedResidues(encoding, region.asLongBuffer(), lower,
+                length, this, offset, size);
+    }
+
+    /**
+     * Releases the region of the scratch file used by a residue store, so the
+     * space may be reused by later stores.  The residue store must not be
+     * used after it is released.  Residue stores which were not obtained from
+     * this scratch file are ignored.
+     **
+     * @param data the residue store to release.
+     */
+    synchronized void release(MappedResidues data) {
+        // The start of the released region (after merging).
+        long start = data.offset;
+        // The end of the released region (after merging).
+        long end = data.offset + data.size;
+        // The free region preceding the released region (if any).
+        Map.Entry<Long, Long> before;
+        // The size of the free region following the released region (if any).
+        Long after;
+
+        if (data.file == this && data.size > 0) {
+            // Merge the region with any adjacent free regions.
+            before = free.lowerEntry(start);
+            if (before != null
+                    && before.getKey() + before.getValue() == start) {
+                start = before.getKey();
+                free.remove(start);
+            }
+            after = free.remove(end);
+            if (after != null) {
+                end += after;
+            }
+
+            // If the region is at the end of the used space, shrink the used
+            // space; otherwise, record the region as free.
+            if (end == position) {
+                position = start;
+            } else {
+                free.put(start, end - start);
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the space used within the scratch file (i.e. the
+     * position after the last region in use).
+     **
+     * @return the number of bytes used within the scratch file.
+     */
+    synchronized long extent() {
+        return position;
+    }
+
+    /**
+     * Closes and deletes the scratch file.  Any residue stores obtained from
+     * the scratch file must not be used after the file is closed.
+     */
+    synchronized void close() {
+        try {
+            segments.clear();
+            free.clear();
+            channel.close();
+            raf.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace(System.err);
+        }
+        file.delete();
+    }
+
+    /**
+     * Reserves a region of the scratch file.  Released regions are reused if
+     * possible (first fit); otherwise, the region is added to the end of the
+     * used space.
+     **
+     * @param  size the size of the region to reserve (in bytes).
+     * @return the position of the reserved region.
+     */
+    private long allocate(long size) {
+        // The position of the reserved region.
+        long result = -1;
+        // The start of the free region being considered.
+        long start = 0;
+        // The end of the free region being considered.
+        long end = 0;
+
+        for (Map.Entry<Long, Long> region : free.entrySet()) {
+            start = region.getKey();
+            end = start + region.getValue();
+            if (align(start, size) + size <= end) {
+                result = align(start, size);
+                break;
+            }
+        }
+
+        if (result >= 0) {
+            // Return any unused space around the reserved region to the free
+            // list.
+            free.remove(start);
+            if (result > start) {
+                free.put(start, result - start);
+            }
+            if (result + size < end) {
+                free.put(result + size, end - result - size);
+            }
+        } else {
+            result = align(position, size);
+            if (result > position) {
+                free.put(position, result - position);
+            }
+            position = result + size;
+        }
+        return result;
+    }
+
+    /**
+     * Obtains a buffer for a region of the scratch file.
+     **
+     * @param  offset      the position of the region.
+     * @param  size        the size of the region (in bytes).
+     * @return the buffer for the region.
+     * @throws IOException if the region could not be mapped.
+     */
+    private ByteBuffer map(long offset, long size) throws IOException {
+        // The buffer for the region.
+        ByteBuffer region;
+
+        if (size > SEGMENT_SIZE) {
+            // Very large sequences are given their own mapping.
+            region = channel.map(FileChannel.MapMode.READ_WRITE, offset, size);
+        } else {
+            region = segment((int) (offset / SEGMENT_SIZE)).duplicate();
+            region.position((int) (offset % SEGMENT_SIZE));
+            region.limit((int) (offset % SEGMENT_SIZE + size));
+            region = region.slice();
+        }
+        return region;
+    }
+
+    /**
+     * Obtains a mapped segment of the scratch file, mapping it if necessary.
+     **
+     * @param  index       the index of the segment to obtain.
+     * @return the mapped segment.
+     * @throws IOException if the segment could not be mapped.
+     */
+    private MappedByteBuffer segment(int index) throws IOException {
+        while (segments.size() <= index) {
+            segments.add(null);
+        }
+        if (segments.get(index) == null) {
+            segments.set(index, channel.map(FileChannel.MapMode.READ_WRITE,
+                    index * SEGMENT_SIZE, SEGMENT_SIZE));
+        }
+        return segments.get(index);
+    }
+
+    /**
+     * Aligns the position of a region, so that regions no larger than a
+     * segment do not straddle two segments, and larger regions (which are
+     * given their own mapping) begin on a segment boundary.
+     **
+     * @param  value the position to align.
+     * @param  size  the size of the region (in bytes).
+     * @return the aligned position.
+     */
+    private static long align(long value, long size) {
+        long result = value;
+
+        if (size > SEGMENT_SIZE
+                || (value % SEGMENT_SIZE) + size > SEGMENT_SIZE) {
+            result = roundUp(value);
+        }
+        return result;
+    }
+
+    /**
+     * Rounds a position within the scratch file up to the next segment
+     * boundary.
+     **
+     * @param  value the position to round.
+     * @return the rounded position.
+     */
+    private static long roundUp(long value) {
+        return ((value + SEGMENT_SIZE - 1) / SEGMENT_SIZE) * SEGMENT_SIZE;
+    }
+}
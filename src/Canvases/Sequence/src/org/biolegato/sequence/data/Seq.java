@@ -331,6 +331,12 @@ public final class Seq implements Cloneable, Serializable {
      * This variable stores the numerical groupID for the sequence.
      */
     transient int groupID = 0;
+    /**
+     * The row (line number) of the sequence within the Dataset containing it.
+     * This is maintained by the Dataset, so the line numbers of the sequences
+     * in a group can be found without searching the Dataset.
+     */
+    transient int row = -1;
     /**
      * This variable stores the sequence type for the data.
      */
@@ -358,9 +364,17 @@ public final class Seq implements Cloneable, Serializable {
      */
     Strandedness strandedness = Strandedness.SINGLE;
     /**
-     * The actual sequence data for the current sequence.
+     * The actual sequence data for the current sequence.  The residues are
+     * stored in a packed format (4 bits per residue for nucleotides, and
+     * 5 bits per residue for amino acids), to reduce the memory required for
+     * large sequences.  The packed residues are wrapped by a piece-table, so
+     * that editing does not shift the residues after the edit.  Please see
+     * SequenceBuffer and PackedSequence for more details.
+     **
+     * @see org.biolegato.sequence.data.SequenceBuffer
+     * @see org.biolegato.sequence.data.PackedSequence
      */
-    StringBuffer sequence;
+    SequenceBuffer sequence;
     /**
      * The colour mask to display the sequence with.
      */
@@ -477,6 +491,19 @@ public final class Seq implements Cloneable, Serializable {
      * read into BioLegato.</p>
      */
     CharSequence original = null;
+    /**
+     * <p>The per-residue quality scores of the sequence, if the sequence was
+     * read from a file which contains quality scores (e.g. a FASTQ file).
+     * This variable is left null for sequences without quality scores.</p>
+     *
+     * <p>The scores are parallel to the residues stored in 'sequence'; the
+     * Dataset keeps the two consistent when residues are inserted or deleted.
+     * </p>
+     **
+     * @see org.biolegato.sequence.data.QualityScores
+     * @see org.biolegato.sequence.data.FastQFile
+     */
+    QualityScores quality = null;
     /**
      * Used for serialization purposes.
      */
@@ -532,7 +559,12 @@ public final class Seq implements Cloneable, Serializable {
         // Copy the parameters specified in the constructor to the new object.
         this.name = name;
         this.type = type;
-        this.sequence = sequence;
+
+        // Pack the sequence data (the packing width is selected based on the
+        // sequence type).
+        if (sequence != null) {
+            this.sequence = new SequenceBuffer(type, sequence);
+        }
 
         // Set the default protections to false if the sequence is empty.
         if (this.sequence != null && sequence.length() == 0) {
@@ -570,6 +602,37 @@ public final class Seq implements Cloneable, Serializable {
         this.description = description;
     }
 
+    /**
+     * <p>Constructs new instances of a sequence object, wrapping an existing
+     * sequence buffer (rather than copying the sequence text).</p>
+     *
+     * <p>The only thing really noteworthy is that if the sequence provided is
+     * empty, the character protection settings will all be set to false.</p>
+     *
+     * <p>This constructor is called by BioLegato's lazy FastA file indexer,
+     * whose sequence buffers read their residues from the file on demand.</p>
+     **
+     * @param type the type of data to store in the sequence object.
+     * @param name the name of the sequence object.
+     * @param sequence the sequence buffer to store in the sequence object.
+     * @param description the description of the sequence object.
+     * @see org.biolegato.sequence.data.FastAFile#readIndexed(org.biolegato.sequence.data.Dataset, java.io.File, int)
+     */
+    Seq(Type type, String name, SequenceBuffer sequence, String description) {
+        // Copy the parameters specified in the constructor to the new object.
+        this.name = name;
+        this.type = type;
+        this.sequence = sequence;
+        this.description = description;
+
+        // Set the default protections to false if the sequence is empty.
+        if (sequence.length() == 0) {
+            protect_align = false;
+            protect_ambig = false;
+            protect_unambig = false;
+        }
+    }
+
     /**
      * <p>Constructs new instances of a sequence object.  The names of the
      * constructor parameters passed correspond directly with the class fields
@@ -701,6 +764,7 @@ public final class Seq implements Cloneable, Serializable {
         this.protect_unambig = data.protect_unambig;
         this.sequence = data.sequence;
         this.original = data.original;
+        this.quality = data.quality;
     }
 
 //////////////////////////
@@ -813,7 +877,7 @@ public final class Seq implements Cloneable, Serializable {
      *         stored by this object.
      * @see org.biolegato.sequence.data.Seq#sequence
      */
-    final StringBuffer getSequence() {
+    final SequenceBuffer getSequence() {
         return sequence;
     }
     
@@ -830,6 +894,18 @@ public final class Seq implements Cloneable, Serializable {
         return mask;
     }
 
+    /**
+     * Return the per-residue quality scores of the sequence object.  This is
+     * only applicable if the sequence was read from a file which contains
+     * quality scores (e.g. a FASTQ file).
+     **
+     * @return the quality scores of the sequence (null if not present).
+     * @see org.biolegato.sequence.data.Seq#quality
+     */
+    final QualityScores getQuality() {
+        return quality;
+    }
+
     /**
      * <p>Creates a string representation of the Seq and its fields
      * This representation is limited to '[GROUP#|_] NAME' because the toString
@@ -903,6 +979,28 @@ public final class Seq implements Cloneable, Serializable {
         return new Seq(this);
     }
 
+    /**
+     * Returns a snapshot of the current sequence object (e.g. for copying the
+     * sequence to the clipboard), which is not affected by later edits to the
+     * sequence.  Unlike a clone, the snapshot does not share the sequence's
+     * residue buffer; however, only the piece table of the residue buffer is
+     * copied (see SequenceBuffer.snapshot), so taking a snapshot of a long
+     * sequence is cheap.  The snapshot should not be edited.
+     **
+     * @return the snapshot of this sequence object.
+     */
+    Seq snapshot() {
+        // The snapshot of the sequence object.
+        final Seq result = new Seq(this);
+
+        result.description = description;
+        result.sequence = sequence.snapshot();
+        if (quality != null) {
+            result.quality = quality.copy();
+        }
+        return result;
+    }
+
     /**
      * <p>This function detects the type of a sequence (RNA, DNA, or protein).
      * </p>
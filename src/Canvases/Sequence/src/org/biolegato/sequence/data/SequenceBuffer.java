@@ -0,0 +1,718 @@
+/*
+ * SequenceBuffer.java
+ *
+ * Created on October 18, 2026, 11:40 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>A piece-table editing buffer for the residues of a single sequence.</p>
+ *
+ * <p>The sequence is represented as an ordered list of "pieces", each of which
+ * refers to a range of residues within one of two residue stores:</p>
+ * <ol>
+ *      <li><b>original</b> -- the residues the buffer was created with.  This
+ *              store is never modified.</li>
+ *      <li><b>added</b> -- every residue inserted into the buffer, in the order
+ *              it was inserted.  This store is only ever appended to, and
+ *              is replaced by a new store (rather than appended to) once a
+ *              snapshot of the buffer shares it.</li>
+ * </ol>
+ *
+ * <p>Inserting or deleting text only splits, trims or adds pieces; the
+ * residues themselves are never shifted.  Thus, the cost of an edit depends
+ * on the number of pieces rather than on the length of the sequence (i.e.
+ * typing into the middle of a 5 Mb chromosome does not move 5 Mb of data).
+ * Consecutive insertions (such as typing) extend the previous piece, rather
+ * than adding a new piece for each keystroke.  When the number of pieces
+ * exceeds MAX_PIECES, the buffer is compacted back into a single piece.</p>
+ *
+ * <p>Reading a window of the sequence (e.g. for painting) only decodes the
+ * pieces which overlap the window.</p>
+ *
+ * <p>The original residues may be moved out of the Java heap, into a
+ * memory-mapped scratch file (see the spill method).  Residues inserted after
+ * the buffer is spilled remain on the heap, until the buffer is next
+ * compacted (at which point they are also written to the scratch file).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+final class SequenceBuffer implements CharSequence, ResidueStore,
+                                                                Serializable {
+
+    /**
+     * The maximum number of pieces before the buffer is compacted.
+     */
+    private static final int MAX_PIECES = 2048;
+    /**
+     * The number of residues decoded at a time when the buffer is compacted.
+     */
+    private static final int WINDOW = 1 << 16;
+    /**
+     * The sequence type used to select the encoding of new packed stores.
+     */
+    private final Seq.Type type;
+    /**
+     * The residues the buffer was created with (or last compacted into).
+     */
+    private ResidueStore original;
+    /**
+     * The append-only store of all residues inserted into the buffer.
+     */
+    private PackedSequence added;
+    /**
+     * The residue store referenced by each piece.
+     */
+    private ResidueStore[] sources = new ResidueStore[4];
+    /**
+     * The offset, within its packed store, of the first residue of each piece.
+     */
+    private int[] starts = new int[4];
+    /**
+     * The position within the sequence after the last residue of each piece
+     * (i.e. the cumulative length of all pieces up to and including the
+     * piece).  This array is used to binary search for positions.
+     */
+    private int[] ends = new int[4];
+    /**
+     * The number of pieces currently in the buffer.
+     */
+    private int count = 0;
+    /**
+     * The scratch file to write the residues to when the buffer is compacted
+     * (null if the residues should be kept on the Java heap).
+     */
+    private transient ScratchFile scratch = null;
+    /**
+     * Whether the original store is shared with a snapshot of the buffer (in
+     * which case, its scratch file region is not released when the buffer is
+     * compacted, because the snapshot may still read it).
+     */
+    private transient boolean shared = false;
+    /**
+     * Whether the 'added' store is shared with a snapshot of the buffer (in
+     * which case, the next insertion starts a new 'added' store, because
+     * appending may re-encode the store while the snapshot is being read).
+     */
+    private transient boolean frozen = false;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777126L;
+
+    /**
+     * Creates a new sequence buffer containing a copy of some text.
+     **
+     * @param type the sequence type, used to select the packed encoding.
+     * @param data the initial residues for the buffer (may be null).
+     */
+    SequenceBuffer(Seq.Type type, CharSequence data) {
+        this(type, (ResidueStore) new PackedSequence(type, data));
+    }
+
+    /**
+     * Creates a new sequence buffer wrapping an existing residue store.  The
+     * residue store must not be modified after it is passed to the buffer.
+     **
+     * @param type the sequence type, used to select the packed encoding.
+     * @param data the initial residues for the buffer.
+     */
+    SequenceBuffer(Seq.Type type, ResidueStore data) {
+        this.type = type;
+        this.original = data;
+        this.added = new PackedSequence(type);
+
+        if (data.length() > 0) {
+            sources[0] = data;
+            starts[0] = 0;
+            ends[0] = data.length();
+            count = 1;
+        }
+    }
+
+////////////////////
+//****************//
+//* CHARSEQUENCE *//
+//****************//
+////////////////////
+    /**
+     * Returns the number of residues in the buffer.
+     **
+     * @return the number of residues in the buffer.
+     */
+    public int length() {
+        return (count > 0 ? ends[count - 1] : 0);
+    }
+
+    /**
+     * Returns a single residue from the buffer.
+     **
+     * @param  index the position of the residue to return.
+     * @return the residue at the given position.
+     */
+    public char charAt(int index) {
+        // The piece containing the residue.
+        final int piece = find(index);
+
+        if (index < 0 || piece >= count) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return sources[piece].charAt(starts[piece] + index
+                - pieceStart(piece));
+    }
+
+    /**
+     * Returns a copy of a portion of the buffer as a string.
+     **
+     * @param  start the position of the first residue to copy.
+     * @param  end   the position after the last residue to copy.
+     * @return the residues between the two positions.
+     */
+    public CharSequence subSequence(int start, int end) {
+        char[] result = new char[end - start];
+
+        getChars(start, end, result, 0);
+        return new String(result);
+    }
+
+    /**
+     * Returns a copy of all of the residues in the buffer as a string.
+     **
+     * @return the residues in the buffer.
+     */
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+
+////////////////////////
+//********************//
+//* BUFFER FUNCTIONS *//
+//********************//
+////////////////////////
+    /**
+     * Copies residues from the buffer into a character array.  Only the
+     * pieces overlapping the range are read.
+     **
+     * @param srcBegin the position of the first residue to copy.
+     * @param srcEnd   the position after the last residue to copy.
+     * @param dst      the destination array.
+     * @param dstBegin the index within the destination array to copy to.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst,
+            int dstBegin) {
+        // The current piece to copy residues from.
+        int piece;
+        // The start position of the current piece within the sequence.
+        int pstart;
+        // The number of residues to copy from the current piece.
+        int amount;
+
+        if (srcBegin < 0 || srcEnd > length() || srcBegin > srcEnd) {
+            throw new StringIndexOutOfBoundsException("srcBegin " + srcBegin
+                    + ", srcEnd " + srcEnd + ", length " + length());
+        }
+
+        // Copy the residues piece by piece.
+        for (piece = find(srcBegin); srcBegin < srcEnd; piece++) {
+            pstart = pieceStart(piece);
+            amount = Math.min(srcEnd, ends[piece]) - srcBegin;
+            sources[piece].getChars(starts[piece] + srcBegin - pstart,
+                    starts[piece] + srcBegin - pstart + amount, dst, dstBegin);
+            srcBegin += amount;
+            dstBegin += amount;
+        }
+    }
+
+    /**
+     * Determines whether any residue within a range of the buffer belongs to
+     * one of a set of character classes (e.g. the residues protected by a
+     * sequence's protection settings).  Only the pieces overlapping the range
+     * are read, and the residues are tested in place (no copy of the range is
+     * made).
+     **
+     * @param  start   the position of the first residue to test.
+     * @param  end     the position after the last residue to test.
+     * @param  classes the class flags of each ASCII character (the last entry
+     *                 holds the class flags of all non-ASCII characters).
+     * @param  flags   the class flags to test for.
+     * @return whether any residue in the range belongs to one of the classes.
+     */
+    boolean containsClass(int start, int end, byte[] classes, int flags) {
+        // The index of the last entry in the class table.
+        final int last = classes.length - 1;
+        // The current piece to test residues from.
+        int piece;
+        // The offset of the first residue to test within the current piece's
+        // residue store.
+        int from;
+        // The number of residues to test from the current piece.
+        int amount;
+        // Whether a residue belonging to one of the classes was found.
+        boolean found = false;
+
+        if (start < 0 || end > length() || start > end) {
+            throw new StringIndexOutOfBoundsException("start " + start
+                    + ", end " + end + ", length " + length());
+        }
+
+        // Test the residues piece by piece.
+        for (piece = find(start); !found && start < end; piece++) {
+            from = starts[piece] + start - pieceStart(piece);
+            amount = Math.min(end, ends[piece]) - start;
+
+            // Packed stores are tested as their words are decoded; any other
+            // store is tested one residue at a time.
+            if (sources[piece] instanceof PackedSequence) {
+                found = ((PackedSequence) sources[piece]).containsClass(from,
+                        from + amount, classes, flags);
+            } else {
+                for (int count = from; !found && count < from + amount;
+                        count++) {
+                    found = (classes[Math.min(sources[piece].charAt(count),
+                            last)] & flags) != 0;
+                }
+            }
+            start += amount;
+        }
+        return found;
+    }
+
+    /**
+     * Inserts characters into the buffer.
+     **
+     * @param index  the position within the buffer to insert the characters.
+     * @param text   the array containing the characters to insert.
+     * @param offset the offset of the first character in the array to insert.
+     * @param length the number of characters from the array to insert.
+     */
+    void insert(int index, char[] text, int offset, int length) {
+        // The offset of the inserted text within the 'added' store.
+        int addStart;
+        // The piece containing the insertion point.
+        int piece;
+
+        if (index < 0 || index > length()) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+
+        if (length > 0) {
+            if (frozen) {
+                // Leave the store shared with a snapshot unchanged (pieces
+                // of the buffer may still reference it).
+                added = new PackedSequence(type);
+                frozen = false;
+            }
+            addStart = added.length();
+            added.append(text, offset, length);
+            piece = find(index);
+
+            if (piece > 0 && index == ends[piece - 1]
+                    && sources[piece - 1] == added
+                    && starts[piece - 1] + pieceLength(piece - 1) == addStart) {
+                // If the text is inserted directly after the most recently
+                // inserted text (e.g. typing), simply extend that piece.
+                shiftEnds(piece - 1, length);
+            } else if (piece >= count || index == pieceStart(piece)) {
+                // If the text is inserted at a piece boundary, add a new
+                // piece without splitting any existing pieces.
+                openPieces(piece, 1);
+                sources[piece] = added;
+                starts[piece] = addStart;
+                ends[piece] = index;
+                shiftEnds(piece, length);
+            } else {
+                // Otherwise, split the piece containing the insertion point
+                // into two, and add a new piece between the two halves.
+                openPieces(piece + 1, 2);
+                sources[piece + 2] = sources[piece];
+                starts[piece + 2] = starts[piece] + index - pieceStart(piece);
+                ends[piece + 2] = ends[piece];
+                ends[piece] = index;
+                sources[piece + 1] = added;
+                starts[piece + 1] = addStart;
+                ends[piece + 1] = index;
+                shiftEnds(piece + 1, length);
+            }
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Appends characters to the end of the buffer.
+     **
+     * @param text   the array containing the characters to append.
+     * @param offset the offset of the first character in the array to append.
+     * @param length the number of characters from the array to append.
+     */
+    void append(char[] text, int offset, int length) {
+        insert(length(), text, offset, length);
+    }
+
+    /**
+     * Deletes residues from the buffer.
+     **
+     * @param start the position of the first residue to delete.
+     * @param end   the position after the last residue to delete.
+     */
+    void delete(int start, int end) {
+        // The first piece affected by the deletion.
+        int first;
+        // The last piece affected by the deletion.
+        int last;
+        // The number of pieces affected by the deletion.
+        int span;
+        // Whether a portion of the first piece remains after the deletion.
+        boolean head;
+        // Whether a portion of the last piece remains after the deletion.
+        boolean tail;
+        // The number of pieces which remain (i.e. the remnants of the first
+        // and last pieces).
+        int keep;
+        // The index of the next piece to write a remnant into.
+        int at;
+        // The residue store, offset and end position of the remnant of the
+        // last piece (recorded before the piece arrays are modified).
+        ResidueStore tailSource = null;
+        int tailStart = 0;
+        int tailEnd = 0;
+
+        end = Math.min(end, length());
+
+        if (start < 0 || start > end) {
+            throw new StringIndexOutOfBoundsException(start);
+        }
+
+        if (start < end) {
+            first = find(start);
+            last = find(end - 1);
+            span = last - first + 1;
+            head = start > pieceStart(first);
+            tail = end < ends[last];
+            keep = (head ? 1 : 0) + (tail ? 1 : 0);
+
+            if (tail) {
+                tailSource = sources[last];
+                tailStart = starts[last] + end - pieceStart(last);
+                tailEnd = ends[last];
+            }
+
+            // Resize the affected range of pieces to fit the remnants.  This
+            // only requires opening a new piece when the deletion lies
+            // entirely within a single piece (splitting it in two).
+            if (keep > span) {
+                openPieces(first + 1, keep - span);
+            } else {
+                closePieces(first + keep, span - keep);
+            }
+
+            // Write the remnants of the first and last pieces.
+            at = first;
+            if (head) {
+                ends[at] = start;
+                at++;
+            }
+            if (tail) {
+                sources[at] = tailSource;
+                starts[at] = tailStart;
+                ends[at] = tailEnd;
+                at++;
+            }
+
+            // Shift the end positions of the last remnant (if any) and every
+            // piece after it.
+            shiftEnds(tail ? at - 1 : at, start - end);
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the buffer (e.g. for copying the buffer to the
+     * clipboard), which is not affected by later edits to the buffer.  The
+     * residue stores are never modified (except by appending to the 'added'
+     * store, and compaction replaces the stores rather than modifying them);
+     * thus, the snapshot shares the buffer's residue stores, and only the
+     * piece table is copied.  Because appending may re-encode the 'added'
+     * store, the buffer appends any further insertions to a new store, so
+     * the snapshot may be read by another thread (e.g. while the clipboard
+     * contents are written out) while the buffer is edited.  The snapshot
+     * should not be edited.  Once a snapshot has been taken, the scratch
+     * file region holding the original residues (if any) is no longer
+     * released when the buffer is compacted.
+     **
+     * @return the snapshot of the buffer.
+     */
+    SequenceBuffer snapshot() {
+        // The snapshot of the buffer.
+        final SequenceBuffer result = new SequenceBuffer(type, original);
+
+        result.added = added;
+        result.sources = Arrays.copyOf(sources, Math.max(4, count));
+        result.starts = Arrays.copyOf(starts, Math.max(4, count));
+        result.ends = Arrays.copyOf(ends, Math.max(4, count));
+        result.count = count;
+        result.shared = true;
+        result.frozen = true;
+        shared = true;
+        frozen = true;
+        return result;
+    }
+
+    /**
+     * Returns the number of pieces currently in the buffer.
+     **
+     * @return the number of pieces in the buffer.
+     */
+    int pieceCount() {
+        return count;
+    }
+
+    /**
+     * Returns the encoding of the original residues of the buffer, if they
+     * are packed on the Java heap.
+     **
+     * @return the encoding of the original residues (null if the original
+     *         residues are not stored in a PackedSequence).
+     */
+    PackedSequence.Encoding originalEncoding() {
+        return (original instanceof PackedSequence
+                ? ((PackedSequence) original).getEncoding() : null);
+    }
+
+    /**
+     * Moves the residues of the buffer into a memory-mapped scratch file.  If
+     * the original residues are on the Java heap, the buffer is compacted into
+     * a single piece, which is written to the scratch file.  Buffers whose
+     * original residues are already stored outside of the heap (e.g. in a
+     * lazily read sequence file, or in a scratch file) are left as they are,
+     * so their residues are not read early.  Any future compactions will be
+     * written to the scratch file.
+     **
+     * @param file the scratch file to move the residues into.
+     */
+    void spill(ScratchFile file) {
+        scratch = file;
+        if (original instanceof PackedSequence) {
+            compact();
+        }
+    }
+
+    /**
+     * <p>Compacts the buffer into a single piece.  This releases any residues
+     * in the 'added' store which are no longer referenced (i.e. were deleted).
+     * </p>
+     *
+     * <p>The residues are repacked WINDOW residues at a time, so compacting a
+     * long sequence never decodes the whole sequence at once.  If the buffer
+     * has been spilled to a scratch file, the compacted residues are written
+     * to the scratch file, and the region holding the previous compaction is
+     * released for reuse.</p>
+     */
+    void compact() {
+        // The number of residues in the buffer.
+        final int size = length();
+        // The residue store replaced by the compaction.
+        final ResidueStore previous = original;
+        // The compacted residues.
+        ResidueStore packed = null;
+
+        if (scratch != null) {
+            try {
+                packed = scratch.store(this, encoding());
+            } catch (IOException ioe) {
+                // If the scratch file cannot be written, keep the residues on
+                // the Java heap.
+                ioe.printStackTrace(System.err);
+            }
+        }
+        if (packed == null) {
+            packed = pack();
+        }
+
+        // Release the scratch file region holding the previous compaction
+        // (unless a snapshot of the buffer may still read it).
+        if (previous instanceof MappedResidues && !shared) {
+            ((MappedResidues) previous).file.release(
+                    (MappedResidues) previous);
+        }
+
+        original = packed;
+        shared = false;
+        frozen = false;
+        added = new PackedSequence(type);
+        sources = new ResidueStore[4];
+        starts = new int[4];
+        ends = new int[4];
+        count = 0;
+
+        if (size > 0) {
+            sources[0] = original;
+            ends[0] = size;
+            count = 1;
+        }
+    }
+
+    /**
+     * Packs the residues of the buffer into a new on-heap packed store.
+     **
+     * @return the packed residues.
+     */
+    private PackedSequence pack() {
+        // The number of residues in the buffer.
+        final int size = length();
+        // The window of residues currently being packed.
+        final char[] window = new char[Math.min(size, WINDOW)];
+        // The packed residues.
+        final PackedSequence result = new PackedSequence(type);
+        // The number of residues in the current window.
+        int amount;
+
+        for (int start = 0; start < size; start += window.length) {
+            amount = Math.min(size - start, window.length);
+            getChars(start, start + amount, window, 0);
+            result.append(window, 0, amount);
+        }
+        result.trimToSize();
+        return result;
+    }
+
+    /**
+     * Selects the narrowest encoding which can represent every residue in the
+     * buffer (used to pack the residues into a scratch file, where the
+     * encoding must be chosen before the residues are written).
+     **
+     * @return the encoding for the residues of the buffer.
+     */
+    private PackedSequence.Encoding encoding() {
+        // The number of residues in the buffer.
+        final int size = length();
+        // The window of residues currently being scanned.
+        final char[] window = new char[Math.min(size, WINDOW)];
+        // The encoding selected so far.
+        PackedSequence.Encoding result = PackedSequence.Encoding.forType(type);
+        // The number of residues in the current window.
+        int amount;
+
+        for (int start = 0; start < size; start += window.length) {
+            amount = Math.min(size - start, window.length);
+            getChars(start, start + amount, window, 0);
+            for (int index = 0; index < amount; index++) {
+                result = result.fit(window[index]);
+            }
+        }
+        return result;
+    }
+
+///////////////////
+//***************//
+//* PIECE TABLE *//
+//***************//
+///////////////////
+    /**
+     * Finds the piece containing a position within the sequence.
+     **
+     * @param  position the position to search for.
+     * @return the index of the piece containing the position (or the number
+     *         of pieces, if the position is at or past the end of the buffer).
+     */
+    private int find(int position) {
+        // The range of pieces to search.
+        int low = 0;
+        int high = count;
+        // The middle of the range to search.
+        int mid;
+
+        // Binary search for the first piece ending after the position.
+        while (low < high) {
+            mid = (low + high) >>> 1;
+            if (ends[mid] > position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position within the sequence of the first residue of a piece.
+     **
+     * @param  piece the index of the piece.
+     * @return the start position of the piece.
+     */
+    private int pieceStart(int piece) {
+        return (piece > 0 ? ends[piece - 1] : 0);
+    }
+
+    /**
+     * Returns the number of residues in a piece.
+     **
+     * @param  piece the index of the piece.
+     * @return the length of the piece.
+     */
+    private int pieceLength(int piece) {
+        return ends[piece] - pieceStart(piece);
+    }
+
+    /**
+     * Adds a value to the end positions of a piece and every piece after it.
+     **
+     * @param from   the index of the first piece to shift.
+     * @param amount the amount to shift the end positions by.
+     */
+    private void shiftEnds(int from, int amount) {
+        for (int piece = from; piece < count; piece++) {
+            ends[piece] += amount;
+        }
+    }
+
+    /**
+     * Opens space for new pieces within the piece arrays.
+     **
+     * @param at     the index to open space at.
+     * @param amount the number of pieces to open space for.
+     */
+    private void openPieces(int at, int amount) {
+        if (count + amount > ends.length) {
+            sources = Arrays.copyOf(sources, (count + amount) * 2);
+            starts = Arrays.copyOf(starts, (count + amount) * 2);
+            ends = Arrays.copyOf(ends, (count + amount) * 2);
+        }
+        System.arraycopy(sources, at, sources, at + amount, count - at);
+        System.arraycopy(starts, at, starts, at + amount, count - at);
+        System.arraycopy(ends, at, ends, at + amount, count - at);
+        count += amount;
+    }
+
+    /**
+     * Removes pieces from the piece arrays.
+     **
+     * @param at     the index of the first piece to remove.
+     * @param amount the number of pieces to remove.
+     */
+    private void closePieces(int at, int amount) {
+        if (amount > 0) {
+            System.arraycopy(sources, at + amount, sources, at,
+                    count - at - amount);
+            System.arraycopy(starts, at + amount, starts, at,
+                    count - at - amount);
+            System.arraycopy(ends, at + amount, ends, at, count - at - amount);
+            count -= amount;
+            Arrays.fill(sources, count, count + amount, null);
+        }
+    }
+
+    /**
+     * Compacts the buffer if it contains too many pieces.
+     */
+    private void compactIfNeeded() {
+        if (count > MAX_PIECES) {
+            compact();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * SequenceRegion.java
+ *
+ * Created on October 19, 2026, 12:05 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.Set;
+
+/**
+ * <p>A region of a named sequence, as used to read parts of indexed sequence
+ * files (e.g. indexed FastA and 2bit files).</p>
+ *
+ * <p>Regions are specified in the same way as for samtools faidx: "name"
+ * (the whole sequence), "name:start" or "name:start-" (from the start
+ * position to the end of the sequence) or "name:start-end".  Positions are
+ * one-based and inclusive, and may contain commas (e.g. "chr1:1,000-2,000").
+ * As with samtools, a region which is the name of a sequence is the whole
+ * sequence, even if the name contains a ':' character.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.IndexedFastAFile
+ * @see org.biolegato.sequence.data.TwoBitFile
+ */
+final class SequenceRegion {
+
+    /**
+     * The name of the sequence.
+     */
+    final String name;
+    /**
+     * The start of the region (one-based).
+     */
+    private final long start;
+    /**
+     * The end of the region (one-based, inclusive).
+     */
+    private final long end;
+
+    /**
+     * Creates a new sequence region.
+     **
+     * @param name  the name of the sequence.
+     * @param start the start of the region (one-based).
+     * @param end   the end of the region (one-based, inclusive).
+     */
+    private SequenceRegion(String name, long start, long end) {
+        this.name = name;
+        this.start = Math.max(1, start);
+        this.end = end;
+    }
+
+    /**
+     * Parses a region.
+     **
+     * @param  region   the region to parse (e.g. "chr1:1000-2000").
+     * @param  names    the names of the sequences which may be read.
+     * @return the region parsed, or null if the region is invalid, or its
+     *         sequence name is not one of the names given.
+     */
+    static SequenceRegion parse(String region, Set<String> names) {
+        // The region parsed.
+        SequenceRegion result = null;
+        // The position of the ':' character in the region.
+        final int colon = region.lastIndexOf(':');
+        // The position of the '-' character in the region.
+        int dash;
+
+        if (names.contains(region)) {
+            result = new SequenceRegion(region, 1, Long.MAX_VALUE);
+        } else if (colon > 0 && names.contains(region.substring(0, colon))) {
+            try {
+                dash = region.indexOf('-', colon);
+                if (dash < 0 || "".equals(
+                        region.substring(dash + 1).trim())) {
+                    result = new SequenceRegion(region.substring(0, colon),
+                            position(region.substring(colon + 1,
+                            (dash < 0 ? region.length() : dash))),
+                            Long.MAX_VALUE);
+                } else {
+                    result = new SequenceRegion(region.substring(0, colon),
+                            position(region.substring(colon + 1, dash)),
+                            position(region.substring(dash + 1)));
+                }
+            } catch (NumberFormatException nfe) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines whether the region contains any residues of a sequence.
+     **
+     * @param  length   the length of the sequence.
+     * @return whether the region is empty (i.e. starts after its end, or
+     *         after the end of the sequence).
+     */
+    boolean isEmpty(int length) {
+        return start > Math.min(end, length);
+    }
+
+    /**
+     * Returns the start of the region, clipped to the sequence.
+     **
+     * @param  length   the length of the sequence.
+     * @return the position (zero-based) of the first residue in the region.
+     */
+    int start(int length) {
+        return (int) Math.min(start - 1, length);
+    }
+
+    /**
+     * Returns the end of the region, clipped to the sequence.
+     **
+     * @param  length   the length of the sequence.
+     * @return the position (zero-based) after the last residue in the region.
+     */
+    int end(int length) {
+        return (int) Math.min(end, length);
+    }
+
+    /**
+     * Returns the name of a sequence object containing the region.  A region
+     * which spans the whole sequence is named after the sequence; otherwise,
+     * the name is "name:start-end" (clipped to the sequence).
+     **
+     * @param  length   the length of the sequence.
+     * @return the name for the region.
+     */
+    String label(int length) {
+        return (start(length) == 0 && end(length) == length ? name
+                : name + ":" + (start(length) + 1) + "-" + end(length));
+    }
+
+    /**
+     * Parses a one-based position within a region (commas are ignored, as by
+     * samtools faidx).
+     **
+     * @param  position the position to parse.
+     * @return the position parsed.
+     * @throws NumberFormatException if the position is not a number.
+     */
+    private static long position(String position) {
+        return Long.parseLong(position.replace(",", "").trim());
+    }
+}
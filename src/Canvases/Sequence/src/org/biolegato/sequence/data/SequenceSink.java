@@ -0,0 +1,101 @@
+/*
+ * SequenceSink.java
+ *
+ * Created on October 19, 2026, 5:00 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * <p>A data model which does not store the sequences added to it; instead,
+ * each group of sequences added is passed on to the accept method, as soon as
+ * it is added.</p>
+ *
+ * <p>The size of a sink is the total number of sequences added to it; thus,
+ * the file format parsers (DataFormat.convertFrom) add each sequence to the
+ * end of the sink, as they would to an ordinary data model.  Because the sink
+ * holds no sequences, a file of any size may be parsed into a sink in bounded
+ * memory (the parsers pass their sequences on in batches of at most
+ * Dataset.LOAD_BATCH sequences).  A sink is not associated with any sequence
+ * canvas.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.FormatConverter
+ */
+public abstract class SequenceSink extends Dataset {
+
+    /**
+     * The total number of sequences added.
+     */
+    private int size = 0;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777132L;
+
+    /**
+     * Creates a new sequence sink.
+     */
+    public SequenceSink() {
+        super();
+    }
+
+    /**
+     * Receives sequences added to the sink.
+     **
+     * @param seqs the sequences, in the order they were added (the collection
+     *             is never empty).
+     */
+    protected abstract void accept(Collection<Seq> seqs);
+
+    /**
+     * Adds a sequence to the end of the sink.
+     **
+     * @param  y    ignored (the sequence is always added to the end).
+     * @param  seq  the sequence object to add.
+     * @return true if the sequence was added, otherwise false.
+     */
+    @Override
+    public boolean add(int y, Seq seq) {
+        // Whether the sequence was added.
+        boolean result = false;
+
+        if (seq != null) {
+            result = addSequences(y, Collections.singletonList(seq));
+        }
+        return result;
+    }
+
+    /**
+     * Adds sequences to the end of the sink.
+     **
+     * @param  y    ignored (the sequences are always added to the end).
+     * @param  seqs the collection of sequence objects to add.
+     * @return true if the sequences were added, otherwise false.
+     */
+    @Override
+    public boolean addSequences(int y, Collection<Seq> seqs) {
+        // Whether the sequences were added.
+        boolean result = false;
+
+        if (seqs != null && !seqs.isEmpty()) {
+            accept(seqs);
+            size += seqs.size();
+            result = true;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total number of sequences added to the sink.
+     **
+     * @return the number of sequences added.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,723 @@
+/*
+ * TwoBitFile.java
+ *
+ * Created on October 19, 2026, 12:40 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * <p>UCSC 2bit file format parser and writer.</p>
+ *
+ * <p>2bit files store nucleotide sequences in a packed binary layout (four
+ * nucleotides per byte), with separate lists of blocks of 'N' residues and
+ * blocks of soft-masked (lower-case) residues.  Thus, 2bit files are about
+ * four times smaller than FastA files, and need no parsing.  The file begins
+ * with an index of the sequence names and their offsets, so any sequence (or
+ * region of a sequence) can be read by seeking into the file.</p>
+ *
+ * <p>2bit files are read lazily: the index and the block lists are read when
+ * the file is opened, but the packed nucleotides are only read when they are
+ * first needed (see TwoBitResidues).  As with indexed FastA files, either the
+ * whole file, or a list of regions (see SequenceRegion) may be read.  Both
+ * byte orders, and both version 0 (32-bit offsets) and version 1 (64-bit
+ * offsets) files are read.</p>
+ *
+ * <p>Because 2bit files are binary, they can only be read from (and written
+ * to) files; they cannot be pasted, or passed through PCD temporary files
+ * (although regions of 2bit files may be requested through a PCD temporary
+ * file, using the indexed FastA format; see IndexedFastAFile).
+ * 2bit files are written in little-endian byte order (version 0, unless the
+ * file is larger than 4 GB).  Only the nucleotides A, C, G and T can be
+ * stored in a 2bit file; all other residues (including gaps) are written as
+ * N, and lower-case residues are written as soft-masked.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.TwoBitResidues
+ */
+public class TwoBitFile extends DataFormat {
+
+    /**
+     * The signature (magic number) at the beginning of every 2bit file.
+     */
+    static final int SIGNATURE = 0x1A412743;
+    /**
+     * The 2-bit code of each nucleotide (indexed by the upper-case character;
+     * all other characters are coded as T, and stored in N-blocks).
+     */
+    private static final byte[] CODES = new byte[128];
+    /**
+     * The size of the buffer used to write 2bit files.
+     */
+    private static final int WRITE_SIZE = 1 << 16;
+    /**
+     * The regions to read (whitespace separated), or null to read every
+     * sequence in the file.
+     */
+    private final String regions;
+
+    /**
+     * Initialize the nucleotide code table.
+     */
+    static {
+        CODES['T'] = 0;
+        CODES['C'] = 1;
+        CODES['A'] = 2;
+        CODES['G'] = 3;
+    }
+
+    /**
+     * Creates a new instance of TwoBitFile, which reads every sequence in a
+     * file.
+     */
+    public TwoBitFile() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of TwoBitFile, which reads a list of regions from
+     * each file.
+     **
+     * @param regions   the regions to read (whitespace separated), or null to
+     *                  read every sequence in the file.
+     */
+    private TwoBitFile(String regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * Returns a 2bit format object, which reads only the regions listed from
+     * each file (e.g. "chr1:1000-2000 chr2").  A blank or null list reads
+     * every sequence in the file.
+     **
+     * @param  regions  the regions to read, separated by whitespace.
+     * @return a 2bit format object for the regions.
+     */
+    public TwoBitFile forRegions(String regions) {
+        return new TwoBitFile(regions == null || "".equals(regions.trim())
+                ? null : regions.trim());
+    }
+
+    /**
+     * 2bit files cannot be written to text streams (see writeFile).
+     **
+     * @param  result       the destination Appendable to write the data to.
+     * @param  seq          the sequence object to convert.
+     * @param  offset       the offset in the sequence to start the conversion.
+     * @param  length       the number of characters to convert.
+     * @throws IOException  always.
+     */
+    public void convertTo(Appendable result, Seq seq, int offset, int length)
+                                                            throws IOException {
+        throw new IOException("2bit data can only be written to a file");
+    }
+
+    /**
+     * 2bit data cannot be read from text streams (see readFile).
+     **
+     * @param  datamodel    the destination data model.
+     * @param  data         the Reader object to parse data from.
+     * @param  x            the X-coordinate to insert the data.
+     * @param  y            the Y-coordinate to insert the data.
+     * @throws IOException  always.
+     */
+    @Override
+    public void convertFrom(Dataset datamodel, Reader data, int x, int y)
+                                                            throws IOException {
+        throw new IOException("2bit data can only be read from an"
+                + " uncompressed file");
+    }
+
+    /**
+     * 2bit data cannot be read from text streams (see readFile).
+     **
+     * @param  datamodel    the destination data model.
+     * @param  source       the data source to parse data from.
+     * @param  x            the X-coordinate to insert the data.
+     * @param  y            the Y-coordinate to insert the data.
+     * @param  addonly      ignored.
+     * @return never returns.
+     * @throws IOException  always.
+     */
+    public boolean convertSequence(Dataset datamodel, Scanner source,
+                            int x, int y, boolean addonly) throws IOException {
+        throw new IOException("2bit data can only be read from an"
+                + " uncompressed file");
+    }
+
+    /**
+     * Reads sequences from a 2bit file into BioLegato.  If the format object
+     * was created by forRegions, only the regions listed are read; otherwise,
+     * every sequence in the file is read.
+     **
+     * @param  datamodel    the destination data model to store the sequences.
+     * @param  file         the 2bit file to read.
+     * @param  y            the Y-coordinate (line) in the data model to add
+     *                      the sequences at.
+     * @throws IOException  any exceptions that occur while reading the file.
+     */
+    public void readFile(Dataset datamodel, File file, int y)
+                                                        throws IOException {
+        readFile(datamodel, file, regions, y);
+    }
+
+    /**
+     * Reads a list of regions from a 2bit file into BioLegato.  Regions
+     * which are not found in the file are skipped (with a warning).
+     **
+     * @param  datamodel    the destination data model to store the sequences.
+     * @param  file         the 2bit file to read.
+     * @param  regions      the regions to read (whitespace separated), or
+     *                      null to read every sequence in the file.
+     * @param  y            the Y-coordinate (line) in the data model to add
+     *                      the sequences at.
+     * @return the number of sequences added to the data model.
+     * @throws IOException  any exceptions that occur while reading the file.
+     */
+    static int readFile(Dataset datamodel, File file, String regions, int y)
+                                                        throws IOException {
+        // The sequences read from the file.
+        final List<Seq> seqs = new ArrayList<Seq>();
+        // The offsets of the sequences within the file, by name.
+        final Map<String, Long> index = new LinkedHashMap<String, Long>();
+        // The byte order of the file.
+        final ByteOrder order;
+        // The file to read the sequence records from.
+        final RandomAccessFile in;
+        // The current region parsed.
+        SequenceRegion parsed;
+        // The sequence object for the current region.
+        Seq seq;
+
+        order = readIndex(file, index);
+        in = new RandomAccessFile(file, "r");
+        try {
+            if (regions == null) {
+                for (Map.Entry<String, Long> entry : index.entrySet()) {
+                    seqs.add(region(file, in, order, entry.getKey(),
+                            entry.getValue(), null));
+                }
+            } else {
+                for (String region : regions.trim().split("\\s+")) {
+                    parsed = SequenceRegion.parse(region, index.keySet());
+                    seq = (parsed != null ? region(file, in, order,
+                            parsed.name, index.get(parsed.name), parsed)
+                            : null);
+                    if (seq != null) {
+                        seqs.add(seq);
+                    } else {
+                        System.err.println("WARNING: " + file.getPath()
+                                + " does not contain the region " + region);
+                    }
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        // Add all of the sequences to the data model at once.
+        if (!seqs.isEmpty()) {
+            datamodel.addSequences(y, seqs);
+        }
+        return seqs.size();
+    }
+
+    /**
+     * Writes the sequences in a data model to a 2bit file.
+     **
+     * @param  datamodel    the data model containing the sequences.
+     * @param  out          the stream to write the 2bit file to.
+     * @throws IOException  if an error occurs while writing the file.
+     */
+    public void writeFile(Dataset datamodel, OutputStream out)
+                                                        throws IOException {
+        // The number of sequences to write.
+        final int count = datamodel.getSize();
+        // The N-blocks of each sequence.
+        final Blocks[] nBlocks = new Blocks[count];
+        // The mask blocks of each sequence.
+        final Blocks[] maskBlocks = new Blocks[count];
+        // The names of each sequence (as ASCII bytes).
+        final byte[][] names = new byte[count][];
+        // The offsets of each sequence record within the file.
+        final long[] offsets = new long[count];
+        // The output buffer.
+        final ByteBuffer buffer
+                = ByteBuffer.allocate(WRITE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        // The residues of the current sequence.
+        final char[] chars = new char[WRITE_SIZE];
+        // The current sequence.
+        SequenceBuffer sequence;
+        // Whether the offsets are 64-bit (version 1).
+        final boolean wide;
+        // Whether any residues were converted to N.
+        boolean converted = false;
+        // The number of residues in the current chunk.
+        int amount;
+        // The current packed byte.
+        int packed;
+        // The current residue.
+        char c;
+        // Whether the current residue is written as an N.
+        boolean unknown;
+
+        // Find the blocks of each sequence.
+        for (int y = 0; y < count; y++) {
+            sequence = datamodel.getLine(y).getSequence();
+            names[y] = datamodel.getLine(y).getName().getBytes("ISO-8859-1");
+            if (names[y].length > 255) {
+                names[y] = Arrays.copyOf(names[y], 255);
+            }
+            nBlocks[y] = new Blocks();
+            maskBlocks[y] = new Blocks();
+            for (int start = 0; start < sequence.length(); start += amount) {
+                amount = Math.min(chars.length, sequence.length() - start);
+                sequence.getChars(start, start + amount, chars, 0);
+                for (int index = 0; index < amount; index++) {
+                    c = Character.toUpperCase(chars[index]);
+                    unknown = (c != 'A' && c != 'C' && c != 'G' && c != 'T');
+                    nBlocks[y].set(start + index, unknown);
+                    maskBlocks[y].set(start + index,
+                            Character.isLowerCase(chars[index]));
+                    converted |= (unknown && c != 'N');
+                }
+            }
+        }
+
+        // Calculate the offsets of the sequence records (using 64-bit
+        // offsets only if the 32-bit offsets would overflow).
+        layout(datamodel, names, nBlocks, maskBlocks, offsets, false);
+        wide = (count > 0 && offsets[count - 1] > 0xFFFFFFFFL);
+        if (wide) {
+            layout(datamodel, names, nBlocks, maskBlocks, offsets, true);
+        }
+
+        // Write the header and the index.
+        buffer.putInt(SIGNATURE).putInt(wide ? 1 : 0).putInt(count).putInt(0);
+        for (int y = 0; y < count; y++) {
+            flush(out, buffer, 1 + names[y].length + 8);
+            buffer.put((byte) names[y].length).put(names[y]);
+            if (wide) {
+                buffer.putLong(offsets[y]);
+            } else {
+                buffer.putInt((int) offsets[y]);
+            }
+        }
+
+        // Write the sequence records.
+        for (int y = 0; y < count; y++) {
+            sequence = datamodel.getLine(y).getSequence();
+            flush(out, buffer, 4);
+            buffer.putInt(sequence.length());
+            nBlocks[y].write(out, buffer);
+            maskBlocks[y].write(out, buffer);
+            flush(out, buffer, 4);
+            buffer.putInt(0);
+
+            // Write the packed nucleotides (four per byte, the first in the
+            // most significant bits; the chunks are a multiple of four).
+            for (int start = 0; start < sequence.length(); start += amount) {
+                amount = Math.min(chars.length, sequence.length() - start);
+                sequence.getChars(start, start + amount, chars, 0);
+                for (int index = 0; index < amount; index += 4) {
+                    packed = 0;
+                    for (int shift = 0; shift < 4; shift++) {
+                        c = (index + shift < amount
+                                ? Character.toUpperCase(chars[index + shift])
+                                : 'T');
+                        packed = (packed << 2) | (c < 128 ? CODES[c] : 0);
+                    }
+                    flush(out, buffer, 1);
+                    buffer.put((byte) packed);
+                }
+            }
+        }
+        flush(out, buffer, buffer.capacity());
+        out.flush();
+
+        if (converted) {
+            System.err.println("WARNING: residues other than A, C, G and T"
+                    + " were written to the 2bit file as N");
+        }
+    }
+
+    /**
+     * Determines whether a file is a 2bit file (by its signature).
+     **
+     * @param  file the file to test.
+     * @return whether the file begins with the 2bit signature (in either byte
+     *         order).
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isTwoBit(File file) throws IOException {
+        // The first four bytes of the file.
+        final byte[] bytes = new byte[4];
+        // The stream used to read the signature.
+        final InputStream in = new FileInputStream(file);
+        // The number of bytes read.
+        int read = 0;
+
+        try {
+            for (int count = 0; read < bytes.length && count >= 0;
+                    read += Math.max(0, count)) {
+                count = in.read(bytes, read, bytes.length - read);
+            }
+        } finally {
+            in.close();
+        }
+        return read == bytes.length && (ByteBuffer.wrap(bytes).getInt()
+                == SIGNATURE || ByteBuffer.wrap(bytes).getInt()
+                == Integer.reverseBytes(SIGNATURE));
+    }
+
+    /**
+     * Used as part of the DataFormat auto-detection algorithm.  This method
+     * tests if the data represented by a prefix of the input begins with the
+     * 2bit signature (the signature bytes are all ASCII characters, so they
+     * are not changed by decoding the input as text).
+     **
+     * @param  prefix the first characters of the input (starting at the first
+     *                character which is not whitespace).
+     * @param  length the number of characters in the prefix.
+     * @return whether the format can be parsed by this DataFormat object
+     */
+    @Override
+    public boolean isFormat(char[] prefix, int length) {
+        // The signature, read from the first four characters (big-endian).
+        int signature = 0;
+
+        for (int index = 0; index < 4 && index < length; index++) {
+            signature = (signature << 8) | (prefix[index] & 0xff);
+        }
+        return length >= 4 && (signature == SIGNATURE
+                || signature == Integer.reverseBytes(SIGNATURE));
+    }
+
+    /**
+     * Determines whether a specified file is a 2bit file (based on
+     * extension).  This method is part of the FileFilter interface.
+     **
+     * @param  file the file to test.
+     * @return true if the file is a 2bit file (otherwise false).
+     * @see    javax.swing.filechooser.FileFilter#accept
+     */
+    public boolean accept(File file) {
+        return (file.isDirectory()
+                || file.getAbsolutePath().toLowerCase().endsWith(".2bit"));
+    }
+
+    /**
+     * Returns a description of the file format that can be displayed to the
+     * user.  This method is part of the FileFilter interface.
+     **
+     * @return the string description of the file format.
+     * @see    javax.swing.filechooser.FileFilter#getDescription
+     */
+    public String getDescription() {
+        return "UCSC 2bit file (*.2bit)";
+    }
+
+    /**
+     * Reads the header and index of a 2bit file.
+     **
+     * @param  file     the 2bit file.
+     * @param  index    the map to store the offsets of the sequence records
+     *                  in, by name.
+     * @return the byte order of the file.
+     * @throws IOException if the file cannot be read, or is not a 2bit file.
+     */
+    private static ByteOrder readIndex(File file, Map<String, Long> index)
+                                                        throws IOException {
+        // The stream used to read the index.
+        final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        // The byte order of the file.
+        ByteOrder order = ByteOrder.BIG_ENDIAN;
+        // The version of the file format.
+        int version;
+        // The number of sequences in the file.
+        int count;
+        // The name of the current sequence.
+        byte[] name;
+
+        try {
+            version = in.readInt();
+            if (version == Integer.reverseBytes(SIGNATURE)) {
+                order = ByteOrder.LITTLE_ENDIAN;
+            } else if (version != SIGNATURE) {
+                throw new IOException(file.getPath() + " is not a 2bit file");
+            }
+            version = readInt(in, order);
+            count = readInt(in, order);
+            readInt(in, order);
+            if (version != 0 && version != 1) {
+                throw new IOException(file.getPath()
+                        + " has an unsupported 2bit version: " + version);
+            }
+
+            for (int y = 0; y < count; y++) {
+                name = new byte[in.readUnsignedByte()];
+                in.readFully(name);
+                index.put(new String(name, "ISO-8859-1"), (version == 0
+                        ? readInt(in, order) & 0xFFFFFFFFL
+                        : (order == ByteOrder.BIG_ENDIAN ? in.readLong()
+                        : Long.reverseBytes(in.readLong()))));
+            }
+        } finally {
+            in.close();
+        }
+        return order;
+    }
+
+    /**
+     * Reads a sequence record from a 2bit file, and creates a sequence object
+     * for a region of the sequence (whose residues are read on demand).
+     **
+     * @param  file     the 2bit file.
+     * @param  in       the 2bit file (opened for reading).
+     * @param  order    the byte order of the file.
+     * @param  name     the name of the sequence.
+     * @param  offset   the offset of the sequence record within the file.
+     * @param  region   the region of the sequence (null for the whole
+     *                  sequence).
+     * @return the new sequence object, or null if the region is empty.
+     * @throws IOException if the file cannot be read.
+     */
+    private static Seq region(File file, RandomAccessFile in, ByteOrder order,
+            String name, long offset, SequenceRegion region)
+                                                        throws IOException {
+        // The number of residues in the sequence.
+        final int length;
+        // The N-blocks of the sequence.
+        final int[] nBlocks;
+        // The mask blocks of the sequence.
+        final int[] maskBlocks;
+        // The start of the region.
+        int start = 0;
+        // The end of the region.
+        int end;
+        // The new sequence object.
+        Seq result = null;
+
+        in.seek(offset);
+        length = readInt(in, order);
+        nBlocks = readBlocks(in, order);
+        maskBlocks = readBlocks(in, order);
+        readInt(in, order);
+        end = length;
+        if (region != null) {
+            start = region.start(length);
+            end = region.end(length);
+        }
+
+        if (region == null || !region.isEmpty(length)) {
+            result = new Seq(Seq.Type.DNA, (region != null
+                    ? region.label(length) : name), new SequenceBuffer(
+                    Seq.Type.DNA, new TwoBitResidues(file, in.getFilePointer(),
+                    start, end - start, clip(nBlocks, start, end),
+                    clip(maskBlocks, start, end))), "");
+        }
+        return result;
+    }
+
+    /**
+     * Reads a list of blocks (the number of blocks, followed by the start
+     * positions, and then by the sizes of the blocks) from a 2bit file.
+     **
+     * @param  in       the 2bit file.
+     * @param  order    the byte order of the file.
+     * @return the blocks (as pairs of start and end positions).
+     * @throws IOException if the file cannot be read.
+     */
+    private static int[] readBlocks(RandomAccessFile in, ByteOrder order)
+                                                        throws IOException {
+        // The number of blocks.
+        final int count = readInt(in, order);
+        // The start positions and sizes of the blocks.
+        final byte[] bytes = new byte[count * 8];
+        // The blocks read.
+        final int[] result = new int[count * 2];
+        // The start positions and sizes of the blocks, as integers.
+        final ByteBuffer values = ByteBuffer.wrap(bytes).order(order);
+
+        in.readFully(bytes);
+        for (int block = 0; block < count; block++) {
+            result[block * 2] = values.getInt(block * 4);
+            result[block * 2 + 1] = result[block * 2]
+                    + values.getInt((count + block) * 4);
+        }
+        return result;
+    }
+
+    /**
+     * Clips a list of blocks to a region, and makes the blocks relative to
+     * the start of the region.
+     **
+     * @param  blocks   the blocks to clip (as pairs of start and end
+     *                  positions).
+     * @param  start    the start of the region.
+     * @param  end      the end of the region.
+     * @return the blocks overlapping the region.
+     */
+    private static int[] clip(int[] blocks, int start, int end) {
+        // The blocks overlapping the region.
+        final int[] result = new int[blocks.length];
+        // The number of values in the result.
+        int count = 0;
+
+        for (int block = 0; block < blocks.length; block += 2) {
+            if (blocks[block] < end && blocks[block + 1] > start) {
+                result[count++] = Math.max(start, blocks[block]) - start;
+                result[count++] = Math.min(end, blocks[block + 1]) - start;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Calculates the offsets of the sequence records within a 2bit file.
+     **
+     * @param datamodel     the data model containing the sequences.
+     * @param names         the names of the sequences (as bytes).
+     * @param nBlocks       the N-blocks of each sequence.
+     * @param maskBlocks    the mask blocks of each sequence.
+     * @param offsets       the array to store the offsets in.
+     * @param wide          whether the index uses 64-bit offsets.
+     */
+    private static void layout(Dataset datamodel, byte[][] names,
+            Blocks[] nBlocks, Blocks[] maskBlocks, long[] offsets,
+            boolean wide) {
+        // The offset of the next part of the file.
+        long size = 16;
+
+        for (byte[] name : names) {
+            size += 1 + name.length + (wide ? 8 : 4);
+        }
+        for (int y = 0; y < offsets.length; y++) {
+            offsets[y] = size;
+            size += 16 + 8L * (nBlocks[y].count + maskBlocks[y].count)
+                    + (datamodel.getLine(y).getSequence().length() + 3) / 4;
+        }
+    }
+
+    /**
+     * Reads a 32-bit integer from a 2bit file.
+     **
+     * @param  in       the 2bit file.
+     * @param  order    the byte order of the file.
+     * @return the integer read.
+     * @throws IOException if the file cannot be read.
+     */
+    private static int readInt(DataInput in, ByteOrder order)
+                                                        throws IOException {
+        // The integer read (in big-endian byte order).
+        final int value = in.readInt();
+
+        return (order == ByteOrder.BIG_ENDIAN ? value
+                : Integer.reverseBytes(value));
+    }
+
+    /**
+     * Writes the contents of an output buffer to a stream, if the buffer does
+     * not have enough space remaining for the next value.
+     **
+     * @param  out      the stream to write to.
+     * @param  buffer   the output buffer.
+     * @param  needed   the number of bytes needed for the next value.
+     * @throws IOException if the stream cannot be written.
+     */
+    private static void flush(OutputStream out, ByteBuffer buffer, int needed)
+                                                        throws IOException {
+        if (buffer.remaining() < needed) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    /**
+     * A list of blocks (runs of N residues, or of masked residues) within a
+     * sequence, built one residue at a time when writing a 2bit file.
+     */
+    private static final class Blocks {
+
+        /**
+         * The start positions of the blocks.
+         */
+        int[] starts = new int[16];
+        /**
+         * The sizes of the blocks.
+         */
+        int[] sizes = new int[16];
+        /**
+         * The number of blocks.
+         */
+        int count = 0;
+        /**
+         * Whether the last residue examined was within a block.
+         */
+        boolean inside = false;
+
+        /**
+         * Adds a residue to the block list.
+         **
+         * @param position  the position of the residue (residues must be
+         *                  added in order).
+         * @param block     whether the residue is within a block.
+         */
+        void set(int position, boolean block) {
+            if (block && !inside) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    sizes = Arrays.copyOf(sizes, count * 2);
+                }
+                starts[count] = position;
+                sizes[count] = 0;
+                count++;
+            }
+            if (block) {
+                sizes[count - 1]++;
+            }
+            inside = block;
+        }
+
+        /**
+         * Writes the block list to a 2bit file (the number of blocks, the
+         * start positions, and then the sizes).
+         **
+         * @param  out      the stream to write to.
+         * @param  buffer   the output buffer.
+         * @throws IOException if the stream cannot be written.
+         */
+        void write(OutputStream out, ByteBuffer buffer) throws IOException {
+            flush(out, buffer, 4);
+            buffer.putInt(count);
+            for (int block = 0; block < count; block++) {
+                flush(out, buffer, 4);
+                buffer.putInt(starts[block]);
+            }
+            for (int block = 0; block < count; block++) {
+                flush(out, buffer, 4);
+                buffer.putInt(sizes[block]);
+            }
+        }
+    }
+}
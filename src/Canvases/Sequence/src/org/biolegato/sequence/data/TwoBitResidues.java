@@ -0,0 +1,272 @@
+/*
+ * TwoBitResidues.java
+ *
+ * Created on October 19, 2026, 12:20 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+
+/**
+ * <p>A read-only residue store, which reads its residues from a region of a
+ * sequence in a UCSC 2bit file the first time they are needed.</p>
+ *
+ * <p>Only the packed bytes of the region are read from the file.  The bytes
+ * are unpacked (four nucleotides per byte), and the N-blocks and soft-mask
+ * blocks which overlap the region are applied (replacing residues with 'N',
+ * and converting masked residues to lower-case, respectively).  The residues
+ * are then packed into a PackedSequence, which is held by a soft reference
+ * (as in LazyResidues).</p>
+ *
+ * <p>The 2bit file must not be modified while the residues are in use.</p>
+ *
+ * <p>When serialized, a 2bit residue store is replaced by an equivalent
+ * PackedSequence (because the 2bit file may not be available when the object
+ * is deserialized).</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.TwoBitFile
+ * @see org.biolegato.sequence.data.LazyResidues
+ */
+final class TwoBitResidues implements ResidueStore, Serializable {
+
+    /**
+     * The nucleotides represented by each 2-bit code.
+     */
+    private static final char[] BASES = new char[]{'T', 'C', 'A', 'G'};
+    /**
+     * The number of packed bytes to read from the 2bit file at a time.
+     */
+    private static final int READ_SIZE = 1 << 14;
+    /**
+     * The 2bit file containing the residues.
+     */
+    private final File file;
+    /**
+     * The offset (in bytes) of the sequence's packed nucleotides within the
+     * 2bit file.
+     */
+    private final long dnaOffset;
+    /**
+     * The position of the region within the sequence.
+     */
+    private final int start;
+    /**
+     * The number of residues in the region.
+     */
+    private final int length;
+    /**
+     * The blocks of 'N' residues within the region (as pairs of start and end
+     * positions, relative to the start of the region).
+     */
+    private final int[] nBlocks;
+    /**
+     * The blocks of lower-case (soft-masked) residues within the region (as
+     * pairs of start and end positions, relative to the start of the region).
+     */
+    private final int[] maskBlocks;
+    /**
+     * The residues read from the 2bit file (null if the residues have not yet
+     * been read, or have been discarded).
+     */
+    private transient SoftReference<PackedSequence> cache = null;
+    /**
+     * Used for serialization purposes.
+     */
+    private static final long serialVersionUID = 7526472295622777130L;
+
+    /**
+     * Creates a new 2bit residue store.
+     **
+     * @param file          the 2bit file containing the residues.
+     * @param dnaOffset     the offset of the sequence's packed nucleotides.
+     * @param start         the position of the region within the sequence.
+     * @param length        the number of residues in the region.
+     * @param nBlocks       the N-blocks within the region (start and end
+     *                      pairs, relative to the start of the region).
+     * @param maskBlocks    the soft-mask blocks within the region (start and
+     *                      end pairs, relative to the start of the region).
+     */
+    TwoBitResidues(File file, long dnaOffset, int start, int length,
+            int[] nBlocks, int[] maskBlocks) {
+        this.file = file;
+        this.dnaOffset = dnaOffset;
+        this.start = start;
+        this.length = length;
+        this.nBlocks = nBlocks;
+        this.maskBlocks = maskBlocks;
+    }
+
+    /**
+     * Returns the number of residues in the store.  This does not require
+     * reading the residues from the 2bit file.
+     **
+     * @return the number of residues in the store.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns a single residue from the store.
+     **
+     * @param  index the position of the residue to return.
+     * @return the residue at the given position.
+     */
+    public char charAt(int index) {
+        return residues().charAt(index);
+    }
+
+    /**
+     * Copies residues from the store into a character array.
+     **
+     * @param srcBegin the position of the first residue to copy.
+     * @param srcEnd   the position after the last residue to copy.
+     * @param dst      the destination array.
+     * @param dstBegin the index within the destination array to copy to.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        residues().getChars(srcBegin, srcEnd, dst, dstBegin);
+    }
+
+    /**
+     * Returns the packed residues, reading them from the 2bit file if they
+     * have not yet been read (or have been discarded).
+     **
+     * @return the packed residues.
+     */
+    private synchronized PackedSequence residues() {
+        // The packed residues.
+        PackedSequence result = (cache != null ? cache.get() : null);
+        // The gaps substituted for the residues, if the file is unreadable.
+        char[] gaps;
+
+        if (result == null) {
+            try {
+                result = read();
+                cache = new SoftReference<PackedSequence>(result);
+            } catch (IOException ioe) {
+                // If the file cannot be read, substitute gaps for the
+                // residues, so the sequence still has its indexed length.
+                // The gaps are not cached, so the file will be read again
+                // the next time the residues are needed.
+                ioe.printStackTrace(System.err);
+                gaps = new char[length];
+                Arrays.fill(gaps, '-');
+                result = new PackedSequence(Seq.Type.DNA);
+                result.append(gaps, 0, gaps.length);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads, unpacks and packs the residues from the 2bit file.
+     **
+     * @return the packed residues.
+     * @throws IOException if the 2bit file could not be read.
+     */
+    private PackedSequence read() throws IOException {
+        // The packed bytes read from the 2bit file.
+        final byte[] bytes = new byte[READ_SIZE];
+        // The residues unpacked from the bytes read.
+        final char[] chars = new char[READ_SIZE * 4];
+        // The packed residues.
+        final PackedSequence result = new PackedSequence(Seq.Type.DNA);
+        // The 2bit file to read from.
+        final RandomAccessFile in = new RandomAccessFile(file, "r");
+        // The position (within the sequence) of the next residue to unpack.
+        int position = start;
+        // The position (within the sequence) after the last residue to
+        // unpack in the current chunk.
+        int end;
+        // The number of packed bytes in the current chunk.
+        int count;
+        // The index of the next N-block to apply.
+        int nBlock = 0;
+        // The index of the next mask block to apply.
+        int maskBlock = 0;
+
+        try {
+            in.seek(dnaOffset + start / 4);
+            while (position < start + length) {
+                // Read the packed bytes containing the next chunk of residues
+                // (each chunk begins on a byte boundary, except the first).
+                end = Math.min(start + length,
+                        (position / 4 + READ_SIZE) * 4);
+                count = (end + 3) / 4 - position / 4;
+                in.readFully(bytes, 0, count);
+
+                // Unpack the residues.
+                for (int index = position; index < end; index++) {
+                    chars[index - position] = BASES[(bytes[index / 4
+                            - position / 4] >> (6 - 2 * (index % 4))) & 3];
+                }
+
+                // Apply the N-blocks and mask blocks (relative to the start
+                // of the region) which overlap the chunk.
+                nBlock = apply(nBlocks, nBlock, chars, position - start,
+                        end - start, false);
+                maskBlock = apply(maskBlocks, maskBlock, chars,
+                        position - start, end - start, true);
+
+                result.append(chars, 0, end - position);
+
+                // The next chunk begins after the last byte read (the last
+                // byte read is only partially used at the end of the region).
+                position = end;
+            }
+        } finally {
+            in.close();
+        }
+        return result;
+    }
+
+    /**
+     * Applies the blocks which overlap a chunk of residues.
+     **
+     * @param  blocks   the blocks to apply (start and end pairs).
+     * @param  block    the index of the first block which may overlap the
+     *                  chunk (blocks are sorted by position).
+     * @param  chars    the residues of the chunk.
+     * @param  from     the position of the start of the chunk.
+     * @param  to       the position of the end of the chunk.
+     * @param  mask     whether to convert the residues to lower-case (true),
+     *                  or replace them with 'N' (false).
+     * @return the index of the first block which may overlap the next chunk.
+     */
+    private static int apply(int[] blocks, int block, char[] chars, int from,
+                                                    int to, boolean mask) {
+        // Whether the current block extends into the next chunk.
+        boolean more = false;
+
+        for (; block < blocks.length && blocks[block] < to && !more;
+                block += 2) {
+            for (int index = Math.max(from, blocks[block]);
+                    index < Math.min(to, blocks[block + 1]); index++) {
+                chars[index - from] = (mask
+                        ? Character.toLowerCase(chars[index - from]) : 'N');
+            }
+            more = (blocks[block + 1] > to);
+        }
+        return (more ? block - 2 : block);
+    }
+
+    /**
+     * Replaces the 2bit residue store with an equivalent on-heap packed
+     * residue store, when serializing.
+     **
+     * @return a PackedSequence containing the same residues.
+     * @throws ObjectStreamException never (required by the serialization API).
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return residues();
+    }
+}
@@ -0,0 +1,778 @@
+/*
+ * UndoJournal.java
+ *
+ * Created on October 18, 2026, 4:05 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * <p>The undo/redo history of a Dataset.</p>
+ *
+ * <p>Rather than storing snapshots of the Dataset, the journal records each
+ * modification as a compact delta (e.g. the position and characters of an
+ * insertion, or the characters removed by a deletion).  Undoing a delta
+ * applies its inverse to the Dataset; redoing it applies the delta again.
+ * All of the modifications made within an edit batch are recorded as a single
+ * compound entry, so they are undone together.</p>
+ *
+ * <p>The memory used by the journal is bounded.  Each entry estimates the
+ * number of bytes it retains (which depends on whether the entry is in the
+ * undo or the redo history; e.g. the sequences of an undone addition are
+ * only retained by the journal); when the total exceeds the journal's limit,
+ * the oldest entries are discarded.  Entries made by typing (i.e. batches opened
+ * with coalescing enabled) are merged with the previous entry when they
+ * continue it, so a word typed into a sequence is undone as one step, and
+ * only costs a few bytes per keystroke.</p>
+ *
+ * <p>Edit batches may also belong to an undo step (e.g. the batches of a
+ * paste, which are inserted as they are parsed in the background).  Each
+ * batch of a step is recorded when it is closed, like any other batch, but is
+ * merged into the previous entry if that entry was recorded by the same
+ * step.  Thus, the batches of a step are undone together, while any edits
+ * made between them (and undoing or redoing) still work as usual; an edit
+ * made between two batches simply splits the step in two.</p>
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ * @see org.biolegato.sequence.data.Dataset#undo()
+ * @see org.biolegato.sequence.data.Dataset#redo()
+ */
+final class UndoJournal {
+
+    /**
+     * The default memory limit (in bytes) of the journal.
+     */
+    static final long DEFAULT_LIMIT = 16L << 20;
+    /**
+     * The estimated memory overhead (in bytes) of each entry.
+     */
+    private static final long ENTRY_SIZE = 32;
+    /**
+     * The estimated memory overhead (in bytes) of each sequence retained by
+     * an entry (not including its residues).
+     */
+    private static final long SEQ_SIZE = 64;
+    /**
+     * The entries which may be undone (the most recent entry is last).
+     */
+    private final LinkedList<Entry> undo = new LinkedList<Entry>();
+    /**
+     * The entries which may be redone (the most recently undone entry is
+     * last).  This list is cleared whenever a new entry is recorded.
+     */
+    private final LinkedList<Entry> redo = new LinkedList<Entry>();
+    /**
+     * The estimated number of bytes retained by all of the entries in the
+     * journal (both undo and redo).
+     */
+    private long size = 0;
+    /**
+     * The maximum number of bytes the entries in the journal may retain
+     * (zero disables the journal).
+     */
+    private long limit = DEFAULT_LIMIT;
+    /**
+     * The number of edit batches currently open.
+     */
+    private int depth = 0;
+    /**
+     * The compound entry for the current edit batch (null if no batch is
+     * open).
+     */
+    private Compound pending = null;
+    /**
+     * Whether the current edit batch may be merged with the previous entry.
+     */
+    private boolean pendingCoalesce = false;
+    /**
+     * The undo step of the current edit batch (zero if the batch does not
+     * belong to an undo step).
+     */
+    private int pendingStep = 0;
+    /**
+     * Whether the most recent entry may be merged with the next entry.
+     */
+    private boolean lastCoalesce = false;
+    /**
+     * The undo step which recorded the most recent entry (zero if the entry
+     * does not belong to an undo step, or may not be merged with).
+     */
+    private int lastStep = 0;
+    /**
+     * The number of undo steps created (used to assign each step its ID).
+     */
+    private int steps = 0;
+    /**
+     * Whether the journal is replaying an entry (modifications made to the
+     * Dataset while replaying are not recorded).
+     */
+    private boolean replaying = false;
+    /**
+     * The number of loads in progress (modifications are not recorded while a
+     * load is in progress).
+     **
+     * @see org.biolegato.sequence.data.Dataset#beginLoad()
+     */
+    private int loading = 0;
+
+    /**
+     * Sets the memory limit of the journal, discarding the oldest entries if
+     * the journal exceeds the new limit.
+     **
+     * @param limit the maximum number of bytes the journal may retain (zero
+     *              disables undo).
+     */
+    void setLimit(long limit) {
+        this.limit = Math.max(0, limit);
+        trim();
+    }
+
+    /**
+     * Determines whether modifications to the Dataset should be recorded.
+     * Callers use this to avoid copying residues when the journal is
+     * disabled, or replaying an entry.
+     **
+     * @return whether modifications should be recorded.
+     */
+    boolean isRecording() {
+        return limit > 0 && !replaying && loading == 0;
+    }
+
+    /**
+     * Starts a load (e.g. reading a file into the Dataset).  Modifications are
+     * not recorded until the matching call to endLoad.
+     */
+    void beginLoad() {
+        loading++;
+    }
+
+    /**
+     * Ends a load started by beginLoad.
+     */
+    void endLoad() {
+        if (loading > 0) {
+            loading--;
+        }
+    }
+
+    /**
+     * Sets whether the journal is replaying an entry.
+     **
+     * @param replaying whether the journal is replaying an entry.
+     */
+    void setReplaying(boolean replaying) {
+        this.replaying = replaying;
+    }
+
+    /**
+     * Creates a new undo step, whose batches are merged with each other (see
+     * begin).
+     **
+     * @return the ID of the new undo step.
+     */
+    int newStep() {
+        return ++steps;
+    }
+
+    /**
+     * Opens an edit batch.  All entries recorded until the matching call to
+     * end are combined into a single entry.
+     **
+     * @param coalesce whether the batch may be merged with the previous entry
+     *                 (e.g. consecutive keystrokes).
+     */
+    void begin(boolean coalesce) {
+        begin(coalesce, 0);
+    }
+
+    /**
+     * Opens an edit batch belonging to an undo step.  All entries recorded
+     * until the matching call to end are combined into a single entry, which
+     * is merged into the previous entry if that entry was recorded by the
+     * same undo step.
+     **
+     * @param coalesce whether the batch may be merged with the previous entry
+     *                 (e.g. consecutive keystrokes).
+     * @param step     the ID of the undo step (zero for none).
+     */
+    void begin(boolean coalesce, int step) {
+        if (!replaying && depth++ == 0) {
+            pending = new Compound();
+            pendingCoalesce = coalesce;
+            pendingStep = step;
+        }
+    }
+
+    /**
+     * Closes an edit batch.  If this closes the outermost batch, the entries
+     * recorded within the batch are added to the journal.
+     */
+    void end() {
+        // The compound entry for the batch.
+        final Compound batch = pending;
+
+        if (!replaying && depth > 0 && --depth == 0) {
+            pending = null;
+            if (batch.entries.size() == 1) {
+                push(batch.entries.get(0), pendingCoalesce, pendingStep);
+            } else if (batch.entries.size() > 1) {
+                push(batch, pendingCoalesce, pendingStep);
+            }
+        }
+    }
+
+    /**
+     * Records a modification to the Dataset.
+     **
+     * @param entry the modification to record.
+     */
+    void record(Entry entry) {
+        if (isRecording()) {
+            if (pending != null) {
+                pending.entries.add(entry);
+            } else {
+                push(entry, false, 0);
+            }
+        }
+    }
+
+    /**
+     * Undoes the most recent entry in the journal.
+     **
+     * @param  data the Dataset to undo the entry in.
+     * @return whether there was an entry to undo.
+     */
+    boolean undo(Dataset data) {
+        // The entry to undo.
+        final Entry entry = (pending == null ? undo.pollLast() : null);
+
+        if (entry != null) {
+            size -= entry.size(false);
+            entry.undo(data);
+            redo.addLast(entry);
+            size += entry.size(true);
+            lastCoalesce = false;
+            lastStep = 0;
+            trim();
+        }
+        return entry != null;
+    }
+
+    /**
+     * Redoes the most recently undone entry in the journal.
+     **
+     * @param  data the Dataset to redo the entry in.
+     * @return whether there was an entry to redo.
+     */
+    boolean redo(Dataset data) {
+        // The entry to redo.
+        final Entry entry = (pending == null ? redo.pollLast() : null);
+
+        if (entry != null) {
+            size -= entry.size(true);
+            entry.redo(data);
+            undo.addLast(entry);
+            size += entry.size(false);
+            lastCoalesce = false;
+            lastStep = 0;
+            trim();
+        }
+        return entry != null;
+    }
+
+    /**
+     * Adds an entry to the journal (merging it with the previous entry, if
+     * possible), clears the redo history, and enforces the memory limit.
+     **
+     * @param entry    the entry to add.
+     * @param coalesce whether the entry may be merged with the previous entry.
+     * @param step     the undo step which recorded the entry (zero for none).
+     */
+    private void push(Entry entry, boolean coalesce, int step) {
+        // The previous entry in the journal.
+        final Entry last = undo.peekLast();
+        // The previous entry and the new entry, combined.
+        final Compound combined;
+
+        for (Entry old : redo) {
+            size -= old.size(true);
+        }
+        redo.clear();
+
+        if (step != 0 && step == lastStep && last != null) {
+            // Append the entry to the previous batches of the undo step.
+            size -= last.size(false);
+            if (last instanceof Compound) {
+                combined = (Compound) last;
+            } else {
+                combined = new Compound();
+                combined.entries.add(undo.removeLast());
+                undo.addLast(combined);
+            }
+            if (entry instanceof Compound) {
+                combined.entries.addAll(((Compound) entry).entries);
+            } else {
+                combined.entries.add(entry);
+            }
+            size += combined.size(false);
+        } else if (coalesce && lastCoalesce && last != null
+                && last.canMerge(entry)) {
+            size -= last.size(false);
+            last.merge(entry);
+            size += last.size(false);
+        } else {
+            undo.addLast(entry);
+            size += entry.size(false);
+        }
+        lastCoalesce = coalesce;
+        lastStep = step;
+        trim();
+    }
+
+    /**
+     * Discards the oldest entries in the journal until the journal is within
+     * its memory limit.  Redo entries are discarded before undo entries.
+     */
+    private void trim() {
+        while (size > limit && !redo.isEmpty()) {
+            size -= redo.removeFirst().size(true);
+        }
+        while (size > limit && !undo.isEmpty()) {
+            size -= undo.removeFirst().size(false);
+        }
+        if (undo.isEmpty()) {
+            lastCoalesce = false;
+            lastStep = 0;
+        }
+    }
+
+    /**
+     * Estimates the number of bytes retained by an array of sequences.
+     **
+     * @param  seqs the sequences to estimate.
+     * @return the estimated number of bytes retained.
+     */
+    private static long sizeOf(Seq[] seqs) {
+        // The estimated number of bytes retained.
+        long result = ENTRY_SIZE;
+
+        for (Seq seq : seqs) {
+            result += SEQ_SIZE + (seq.sequence != null
+                    ? seq.sequence.length() : 0);
+        }
+        return result;
+    }
+
+/////////////////////
+//*****************//
+//* JOURNAL ENTRY *//
+//*****************//
+/////////////////////
+    /**
+     * A single modification recorded in the journal.
+     */
+    abstract static class Entry {
+
+        /**
+         * Reverts the modification.
+         **
+         * @param data the Dataset to revert the modification in.
+         */
+        abstract void undo(Dataset data);
+
+        /**
+         * Applies the modification again.
+         **
+         * @param data the Dataset to apply the modification to.
+         */
+        abstract void redo(Dataset data);
+
+        /**
+         * Estimates the number of bytes retained by the entry.
+         **
+         * @param  undone whether the entry is in the redo history (i.e. has
+         *                been undone), rather than the undo history.
+         * @return the estimated number of bytes retained.
+         */
+        abstract long size(boolean undone);
+
+        /**
+         * Determines whether another entry continues this entry (e.g. the
+         * next character typed), and thus may be merged into it.
+         **
+         * @param  next the entry which follows this entry.
+         * @return whether the entries may be merged.
+         */
+        boolean canMerge(Entry next) {
+            return false;
+        }
+
+        /**
+         * Merges another entry into this entry.  This may only be called if
+         * canMerge returns true.
+         **
+         * @param next the entry which follows this entry.
+         */
+        void merge(Entry next) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * An insertion of residues into a sequence.
+     */
+    static final class Insert extends Entry {
+
+        /**
+         * The row of the sequence modified.
+         */
+        private final int y;
+        /**
+         * The column where the residues were inserted.
+         */
+        private final int x;
+        /**
+         * The residues inserted (a StringBuilder is used, so that merging
+         * each keystroke of a long run of typing does not copy the residues
+         * typed before it).
+         */
+        private final StringBuilder text;
+
+        /**
+         * Creates a new insertion entry.
+         **
+         * @param x    the column where the residues were inserted.
+         * @param y    the row of the sequence modified.
+         * @param text the residues inserted.
+         */
+        Insert(int x, int y, char[] text) {
+            this.x = x;
+            this.y = y;
+            this.text = new StringBuilder(text.length).append(text);
+        }
+
+        void undo(Dataset data) {
+            data.delete(x, y, text.length(), false);
+        }
+
+        void redo(Dataset data) {
+            // The residues to insert again.
+            final char[] residues = new char[text.length()];
+
+            text.getChars(0, residues.length, residues, 0);
+            data.insert(x, y, residues, 0, residues.length, false);
+        }
+
+        long size(boolean undone) {
+            return ENTRY_SIZE + 2L * text.capacity();
+        }
+
+        boolean canMerge(Entry next) {
+            return next instanceof Insert && ((Insert) next).y == y
+                    && ((Insert) next).x == x + text.length();
+        }
+
+        void merge(Entry next) {
+            text.append(((Insert) next).text);
+        }
+    }
+
+    /**
+     * A deletion of residues from a sequence.
+     */
+    static final class Delete extends Entry {
+
+        /**
+         * The row of the sequence modified.
+         */
+        private final int y;
+        /**
+         * The column of the first residue deleted.
+         */
+        private int x;
+        /**
+         * The residues deleted.
+         */
+        private char[] text;
+        /**
+         * The quality scores of the residues deleted (null if the sequence
+         * has no quality scores).
+         */
+        private byte[] scores;
+
+        /**
+         * Creates a new deletion entry.
+         **
+         * @param x      the column of the first residue deleted.
+         * @param y      the row of the sequence modified.
+         * @param text   the residues deleted.
+         * @param scores the quality scores of the residues deleted (null if
+         *               the sequence has no quality scores).
+         */
+        Delete(int x, int y, char[] text, byte[] scores) {
+            this.x = x;
+            this.y = y;
+            this.text = text;
+            this.scores = scores;
+        }
+
+        void undo(Dataset data) {
+            data.insert(x, y, text, 0, text.length, false);
+            if (scores != null) {
+                data.setQuality(x, y, scores);
+            }
+        }
+
+        void redo(Dataset data) {
+            data.delete(x, y, text.length, false);
+        }
+
+        long size(boolean undone) {
+            return ENTRY_SIZE + 2L * text.length
+                    + (scores != null ? scores.length : 0);
+        }
+
+        boolean canMerge(Entry next) {
+            // Consecutive backspaces end where this deletion began, while
+            // consecutive forward deletions begin at the same column.
+            return next instanceof Delete && ((Delete) next).y == y
+                    && (((Delete) next).x == x
+                    || ((Delete) next).x + ((Delete) next).text.length == x);
+        }
+
+        void merge(Entry next) {
+            // The next deletion.
+            final Delete more = (Delete) next;
+            // The combined residues.
+            final char[] combined = new char[text.length + more.text.length];
+
+            // The combined quality scores (both deletions are from the same
+            // sequence, so either both or neither have quality scores).
+            final byte[] scored = (scores != null && more.scores != null
+                    ? new byte[combined.length] : null);
+
+            if (more.x == x) {
+                System.arraycopy(text, 0, combined, 0, text.length);
+                System.arraycopy(more.text, 0, combined, text.length,
+                        more.text.length);
+                if (scored != null) {
+                    System.arraycopy(scores, 0, scored, 0, scores.length);
+                    System.arraycopy(more.scores, 0, scored, scores.length,
+                            more.scores.length);
+                }
+            } else {
+                System.arraycopy(more.text, 0, combined, 0, more.text.length);
+                System.arraycopy(text, 0, combined, more.text.length,
+                        text.length);
+                if (scored != null) {
+                    System.arraycopy(more.scores, 0, scored, 0,
+                            more.scores.length);
+                    System.arraycopy(scores, 0, scored, more.scores.length,
+                            scores.length);
+                }
+                x = more.x;
+            }
+            text = combined;
+            scores = scored;
+        }
+    }
+
+    /**
+     * An addition of sequences to the Dataset.
+     */
+    static final class AddRows extends Entry {
+
+        /**
+         * The row of the first sequence added.
+         */
+        private final int y;
+        /**
+         * The sequences added.
+         */
+        private final Seq[] seqs;
+
+        /**
+         * Creates a new sequence addition entry.
+         **
+         * @param y    the row of the first sequence added.
+         * @param seqs the sequences added.
+         */
+        AddRows(int y, Collection<Seq> seqs) {
+            this.y = y;
+            this.seqs = seqs.toArray(new Seq[seqs.size()]);
+        }
+
+        void undo(Dataset data) {
+            // The rows of the sequences to remove.
+            final int[] rows = new int[seqs.length];
+
+            for (int count = 0; count < rows.length; count++) {
+                rows[count] = y + count;
+            }
+            data.removeSequences(rows);
+        }
+
+        void redo(Dataset data) {
+            data.addSequences(y, Arrays.asList(seqs));
+        }
+
+        long size(boolean undone) {
+            // While this entry can be undone, the sequences are also held by
+            // the Dataset; thus, only the references are counted.  Once it is
+            // undone, the journal is the only owner of the sequences.
+            return (undone ? sizeOf(seqs) : ENTRY_SIZE + 8L * seqs.length);
+        }
+    }
+
+    /**
+     * A removal of sequences from the Dataset.
+     */
+    static final class RemoveRows extends Entry {
+
+        /**
+         * The rows of the sequences removed (in ascending order).
+         */
+        private final int[] rows;
+        /**
+         * The sequences removed (in the same order as the rows).
+         */
+        private final Seq[] seqs;
+        /**
+         * The estimated number of bytes retained by the entry (while the
+         * sequences are removed from the Dataset).
+         */
+        private final long size;
+
+        /**
+         * Creates a new sequence removal entry.
+         **
+         * @param rows the rows of the sequences removed (in ascending order).
+         * @param seqs the sequences removed.
+         */
+        RemoveRows(int[] rows, Seq[] seqs) {
+            this.rows = rows;
+            this.seqs = seqs;
+            this.size = sizeOf(seqs);
+        }
+
+        void undo(Dataset data) {
+            // Adding the sequences in ascending order restores each one to
+            // its original row.
+            for (int count = 0; count < rows.length; count++) {
+                data.add(rows[count], seqs[count]);
+            }
+        }
+
+        void redo(Dataset data) {
+            data.removeSequences(rows.clone());
+        }
+
+        long size(boolean undone) {
+            // Once this entry is undone, the sequences are held by the Dataset
+            // again; thus, only the references are counted.
+            return (undone ? ENTRY_SIZE + 8L * seqs.length : size);
+        }
+    }
+
+    /**
+     * A change to the groups of sequences in the Dataset.
+     */
+    static final class Regroup extends Entry {
+
+        /**
+         * The rows of the sequences regrouped.
+         */
+        private final int[] rows;
+        /**
+         * The group IDs of the sequences before they were regrouped.
+         */
+        private final int[] before;
+        /**
+         * The group IDs of the sequences after they were regrouped.
+         */
+        private final int[] after;
+
+        /**
+         * Creates a new regrouping entry.
+         **
+         * @param rows   the rows of the sequences regrouped.
+         * @param before the group IDs of the sequences before regrouping.
+         * @param after  the group IDs of the sequences after regrouping.
+         */
+        Regroup(int[] rows, int[] before, int[] after) {
+            this.rows = rows;
+            this.before = before;
+            this.after = after;
+        }
+
+        void undo(Dataset data) {
+            data.setGroupIDs(rows, before);
+        }
+
+        void redo(Dataset data) {
+            data.setGroupIDs(rows, after);
+        }
+
+        long size(boolean undone) {
+            return ENTRY_SIZE + 12L * rows.length;
+        }
+    }
+
+    /**
+     * A set of modifications made within a single edit batch.
+     */
+    static final class Compound extends Entry {
+
+        /**
+         * The modifications made within the batch (in order).
+         */
+        private final List<Entry> entries = new ArrayList<Entry>();
+
+        void undo(Dataset data) {
+            for (int count = entries.size() - 1; count >= 0; count--) {
+                entries.get(count).undo(data);
+            }
+        }
+
+        void redo(Dataset data) {
+            for (Entry entry : entries) {
+                entry.redo(data);
+            }
+        }
+
+        long size(boolean undone) {
+            // The estimated number of bytes retained.
+            long result = ENTRY_SIZE + 8L * entries.size();
+
+            for (Entry entry : entries) {
+                result += entry.size(undone);
+            }
+            return result;
+        }
+
+        boolean canMerge(Entry next) {
+            // Batches are merged entry by entry (e.g. typing into every
+            // sequence of a group inserts into the same rows each time).
+            boolean result = next instanceof Compound
+                    && ((Compound) next).entries.size() == entries.size();
+
+            for (int count = 0; result && count < entries.size(); count++) {
+                result = entries.get(count).canMerge(
+                        ((Compound) next).entries.get(count));
+            }
+            return result;
+        }
+
+        void merge(Entry next) {
+            for (int count = 0; count < entries.size(); count++) {
+                entries.get(count).merge(((Compound) next).entries.get(count));
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * RootSuite.java
+ *
+ * Created on October 20, 2026, 9:00 AM
+ */
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+/**
+ * The test suite for the sequence canvas (run by the "test" target of the
+ * sequence canvas's ant build file).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+    org.biolegato.sequence.data.PackedSequenceTest.class,
+    org.biolegato.sequence.data.SequenceBufferTest.class,
+    org.biolegato.sequence.data.ScratchFileTest.class,
+    org.biolegato.sequence.data.FastAFileTest.class,
+    org.biolegato.sequence.data.DatasetGroupTest.class,
+    org.biolegato.sequence.data.DatasetBatchTest.class,
+    org.biolegato.sequence.data.UndoJournalTest.class,
+    org.biolegato.sequence.data.ProtectionTest.class,
+    org.biolegato.sequence.data.ColumnStatisticsTest.class,
+    org.biolegato.sequence.data.MotifSearchTest.class,
+    org.biolegato.sequence.data.FastAReaderTest.class,
+    org.biolegato.sequence.data.GenBankReaderTest.class,
+    org.biolegato.sequence.data.GenBankHeaderTest.class,
+    org.biolegato.sequence.canvas.StagingDatasetTest.class,
+    org.biolegato.sequence.data.CompressedFileTest.class,
+    org.biolegato.sequence.data.AutodetectTest.class,
+    org.biolegato.sequence.data.WriterTest.class,
+    org.biolegato.sequence.data.IndexedFastATest.class,
+    org.biolegato.sequence.data.TwoBitTest.class,
+    org.biolegato.sequence.data.FastQTest.class,
+    org.biolegato.sequence.data.BatchLoadTest.class,
+    org.biolegato.sequence.data.InsertSequencesTest.class,
+    org.biolegato.sequence.data.FormatConverterTest.class
+})
+public class RootSuite {
+}
@@ -0,0 +1,125 @@
+/*
+ * StagingDatasetTest.java
+ *
+ * Created on October 20, 2026, 5:40 PM
+ */
+package org.biolegato.sequence.canvas;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.biolegato.sequence.data.DataFormat;
+import org.biolegato.sequence.data.Dataset;
+import org.biolegato.sequence.data.Seq;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the staging data models used to import files in parallel
+ * (StagingDataset), which pass the sequences read on in batches.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class StagingDatasetTest {
+
+    /**
+     * Tests that every sequence read is delivered, in order, in batches of
+     * about Dataset.LOAD_BATCH sequences, and that the sequences are counted.
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testBatches() throws IOException {
+        final AtomicInteger count = new AtomicInteger(0);
+        final List<List<Seq>> batches = new ArrayList<List<Seq>>();
+        final StagingDataset staging = new StagingDataset(task(), count) {
+            void deliver(List<Seq> batch) {
+                batches.add(batch);
+            }
+        };
+        // The number of sequences delivered.
+        int delivered = 0;
+
+        DataFormat.FASTA.convertFrom(staging, new StringReader(fasta(2500)),
+                0, 0);
+        staging.flush();
+
+        assertEquals(2500, count.get());
+        assertEquals(2500, staging.getSize());
+        assertTrue(batches.size() >= 2);
+        for (List<Seq> batch : batches) {
+            assertTrue(batch.size() < 2 * Dataset.LOAD_BATCH);
+            for (Seq seq : batch) {
+                assertEquals("_ seq" + delivered, seq.toString());
+                delivered++;
+            }
+        }
+        assertEquals(2500, delivered);
+
+        // Flushing an empty staging data model delivers nothing.
+        delivered = batches.size();
+        staging.flush();
+        assertEquals(delivered, batches.size());
+    }
+
+    /**
+     * Tests that reading into a staging data model stops once its task is
+     * cancelled.
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testCancelled() throws IOException {
+        final AtomicInteger count = new AtomicInteger(0);
+        final FutureTask<Void> task = task();
+        final StagingDataset staging = new StagingDataset(task, count) {
+            void deliver(List<Seq> batch) {
+            }
+        };
+
+        task.cancel(true);
+        try {
+            DataFormat.FASTA.convertFrom(staging,
+                    new StringReader(fasta(10)), 0, 0);
+            fail("The cancelled import was not stopped");
+        } catch (CancellationException ce) {
+        }
+        assertEquals(0, count.get());
+    }
+
+    /**
+     * Creates a background task (which does nothing) for staging data
+     * models.
+     **
+     * @return the new task.
+     */
+    private static FutureTask<Void> task() {
+        return new FutureTask<Void>(new Runnable() {
+            public void run() {
+            }
+        }, null);
+    }
+
+    /**
+     * Generates FastA data containing a number of short sequences (named
+     * "seq0", "seq1", and so on).
+     **
+     * @param  count the number of sequences to generate.
+     * @return the FastA data.
+     */
+    private static String fasta(int count) {
+        final StringBuilder result = new StringBuilder();
+
+        for (int y = 0; y < count; y++) {
+            result.append(">seq").append(y).append("\nACGT\n");
+        }
+        return result.toString();
+    }
+}
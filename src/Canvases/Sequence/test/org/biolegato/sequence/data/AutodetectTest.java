@@ -0,0 +1,165 @@
+/*
+ * AutodetectTest.java
+ *
+ * Created on October 20, 2026, 6:30 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests detecting the format of sequence data from a bounded prefix of the
+ * data (DataFormat.autodetect).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class AutodetectTest {
+
+    /**
+     * Tests detecting each text file format, and that the data is replayed
+     * for the parser (without its leading whitespace).
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testFormats() throws IOException {
+        assertDetected(DataFormat.FASTA, "\n  \t", ">seq\nACGT\n");
+        assertDetected(DataFormat.GENBANK, "\r\n",
+                "locus       seq 4 bp DNA\nORIGIN\n 1 acgt\n//\n");
+        assertDetected(DataFormat.GDEFLAT, "", "#seq\nACGT\n");
+        assertDetected(DataFormat.GDEFLAT, "", "no recognizable format");
+        assertDetected(DataFormat.GDEFLAT, " \n", "");
+    }
+
+    /**
+     * Tests that the text before the first '{' of a GDE file is skipped, and
+     * that a '{' after the first line does not make the data a GDE file.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testGDE() throws IOException {
+        final PushbackReader reader = reader("junk {\nname \"seq\"\n}\n");
+
+        assertSame(DataFormat.GDEFILE, DataFormat.autodetect(reader));
+        assertEquals("{\nname \"seq\"\n}\n", read(reader));
+        assertDetected(DataFormat.GDEFLAT, "", "#seq\n{\n");
+    }
+
+    /**
+     * Tests that only a bounded prefix of the data is read, no matter how
+     * long its first line is, or how much whitespace precedes it.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testBounded() throws IOException {
+        final StringBuilder whitespace = new StringBuilder();
+        final StringBuilder data = new StringBuilder(">");
+        // The reader which counts the characters read.
+        final CountingReader counter;
+        // The reader passed to autodetect.
+        final PushbackReader reader;
+
+        for (int count = 0; count < 3 * DataFormat.SNIFF_SIZE; count++) {
+            whitespace.append(count % 2 == 0 ? ' ' : '\n');
+        }
+        for (int count = 0; count < 1000000; count++) {
+            data.append('A');
+        }
+        counter = new CountingReader(whitespace + data.toString());
+        reader = new PushbackReader(counter, DataFormat.SNIFF_SIZE);
+
+        assertSame(DataFormat.FASTA, DataFormat.autodetect(reader));
+        assertTrue(counter.count <= whitespace.length()
+                + 2 * DataFormat.SNIFF_SIZE);
+        assertEquals(data.toString(), read(reader));
+    }
+
+    /**
+     * Asserts that data is detected as a file format, and that the data
+     * (without its leading whitespace) is replayed for the parser.
+     **
+     * @param  format      the file format expected.
+     * @param  whitespace  the whitespace preceding the data.
+     * @param  data        the data to detect the format of.
+     * @throws IOException if the data cannot be read.
+     */
+    private static void assertDetected(DataFormat format, String whitespace,
+            String data) throws IOException {
+        final PushbackReader reader = reader(whitespace + data);
+
+        assertSame(data, format, DataFormat.autodetect(reader));
+        assertEquals(data, read(reader));
+    }
+
+    /**
+     * Creates a reader which can replay a detected prefix.
+     **
+     * @param  data the data to read.
+     * @return the reader.
+     */
+    private static PushbackReader reader(String data) {
+        return new PushbackReader(new StringReader(data),
+                DataFormat.SNIFF_SIZE);
+    }
+
+    /**
+     * Reads the remaining text of a reader.
+     **
+     * @param  reader      the reader to read.
+     * @return the remaining text.
+     * @throws IOException if the reader cannot be read.
+     */
+    private static String read(Reader reader) throws IOException {
+        final StringBuilder result = new StringBuilder();
+        final char[] buffer = new char[4096];
+        // The number of characters read.
+        int count;
+
+        while ((count = reader.read(buffer)) > 0) {
+            result.append(buffer, 0, count);
+        }
+        return result.toString();
+    }
+
+    /**
+     * A reader which counts the characters read from it.
+     */
+    private static final class CountingReader extends StringReader {
+
+        /**
+         * The number of characters read.
+         */
+        int count = 0;
+
+        /**
+         * Creates a new counting reader.
+         **
+         * @param text the text to read.
+         */
+        CountingReader(String text) {
+            super(text);
+        }
+
+        @Override
+        public int read(char[] cbuf, int offset, int length)
+                throws IOException {
+            // The number of characters read.
+            final int result = super.read(cbuf, offset, length);
+
+            if (result > 0) {
+                count += result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * BatchLoadTest.java
+ *
+ * Created on October 20, 2026, 8:35 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the stream parsers add the sequences of large files to the
+ * data model in batches, so they appear in the canvas as the file is read.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class BatchLoadTest {
+
+    /**
+     * The number of sequences in each test file.
+     */
+    private static final int COUNT = 2 * Dataset.LOAD_BATCH + 500;
+
+    /**
+     * Tests reading FastA data in batches.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testFastA() throws IOException {
+        assertBatches(DataFormat.FASTA, ">seq%d\nACGT\n");
+    }
+
+    /**
+     * Tests reading FASTQ data in batches.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testFastQ() throws IOException {
+        assertBatches(DataFormat.FASTQ, "@seq%d\nACGT\n+\nIIII\n");
+    }
+
+    /**
+     * Tests reading GenBank data in batches.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testGenBank() throws IOException {
+        assertBatches(DataFormat.GENBANK, "LOCUS       seq%d 4 bp DNA\n"
+                + "ORIGIN\n        1 acgt\n//\n");
+    }
+
+    /**
+     * Tests that sequences read into existing sequences are inserted into
+     * them, and that only the rest are added (after the existing sequences).
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testInsert() throws IOException {
+        final Dataset data = new Dataset();
+        final List<ListDataEvent> added = listen(data);
+
+        data.add(0, new Seq(Seq.Type.DNA, "old", new StringBuffer("TT")));
+        added.clear();
+        DataFormat.FASTA.convertFrom(data, new StringReader(
+                ">a\n--\n>b\nGG\n>c\nCC\n"), 1, 0);
+        assertEquals(3, data.getSize());
+        assertEquals("T--T", data.getLine(0).sequence.toString());
+        assertEquals("_ b", data.getLine(1).toString());
+        assertEquals("_ c", data.getLine(2).toString());
+        assertEquals(1, added.size());
+        assertEquals(1, added.get(0).getIndex0());
+        assertEquals(2, added.get(0).getIndex1());
+    }
+
+    /**
+     * Asserts that a file format reads a large file into a data model in
+     * batches of at most Dataset.LOAD_BATCH sequences, and in order.
+     **
+     * @param  format      the file format to read.
+     * @param  record      the format of each record in the file (the record
+     *                     number replaces "%d").
+     * @throws IOException if the data cannot be read.
+     */
+    private static void assertBatches(DataFormat format, String record)
+            throws IOException {
+        final Dataset data = new Dataset();
+        final List<ListDataEvent> added = listen(data);
+        final StringBuilder text = new StringBuilder();
+        // The first row expected in the next batch.
+        int next = 0;
+
+        for (int y = 0; y < COUNT; y++) {
+            text.append(record.replace("%d", Integer.toString(y)));
+        }
+        format.convertFrom(data, new StringReader(text.toString()), 0, 0);
+
+        assertEquals(COUNT, data.getSize());
+        assertTrue(added.size() >= 3);
+        for (ListDataEvent event : added) {
+            assertEquals(next, event.getIndex0());
+            assertTrue(event.getIndex1() - event.getIndex0() + 1
+                    <= Dataset.LOAD_BATCH);
+            next = event.getIndex1() + 1;
+        }
+        assertEquals(COUNT, next);
+        for (int y = 0; y < COUNT; y++) {
+            assertEquals("_ seq" + y, data.getLine(y).toString());
+        }
+    }
+
+    /**
+     * Records the rows added to a data model.
+     **
+     * @param  data the data model to listen to.
+     * @return the list of events for the rows added.
+     */
+    private static List<ListDataEvent> listen(Dataset data) {
+        final List<ListDataEvent> result = new ArrayList<ListDataEvent>();
+
+        data.addListDataListener(new ListDataListener() {
+            public void intervalAdded(ListDataEvent e) {
+                result.add(e);
+            }
+
+            public void intervalRemoved(ListDataEvent e) {
+            }
+
+            public void contentsChanged(ListDataEvent e) {
+            }
+        });
+        return result;
+    }
+}
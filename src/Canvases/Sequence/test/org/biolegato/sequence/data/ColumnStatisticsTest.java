@@ -0,0 +1,175 @@
+/*
+ * ColumnStatisticsTest.java
+ *
+ * Created on October 20, 2026, 3:05 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the per-column residue statistics of a Dataset (ColumnStatistics),
+ * which are updated incrementally as the Dataset is edited.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class ColumnStatisticsTest {
+
+    /**
+     * Tests the consensus, conservation and gap fraction of each column.
+     */
+    @Test
+    public void testColumns() {
+        final Dataset data = dataset("ACGT", "ACG-", "aTg", "*C");
+        final ColumnStatistics stats = data.getColumnStatistics();
+
+        assertEquals(4, stats.getRowCount());
+        assertEquals(4, stats.getWidth());
+        assertEquals('A', stats.getConsensus(0));
+        assertEquals(0.75, stats.getConservation(0), 1e-9);
+        assertEquals(1, stats.getCount(0, '#'));
+        assertEquals('C', stats.getConsensus(1));
+        assertEquals(0.0, stats.getGapFraction(1), 1e-9);
+        assertEquals(0.75, stats.getGapFraction(3), 1e-9);
+        assertEquals('-', stats.getConsensus(10));
+    }
+
+    /**
+     * Tests that the statistics follow edits made after they are built,
+     * including edits made while the edited columns are being queried.
+     */
+    @Test
+    public void testEdits() {
+        final Dataset data = dataset("AAAA", "CCCC");
+        final ColumnStatistics stats = data.getColumnStatistics();
+
+        data.insert(1, 0, "GG".toCharArray(), 0, 2, false);
+        assertEquals(1, stats.getCount(1, 'G'));
+        data.insert(3, 0, "T".toCharArray(), 0, 1, false);
+        data.delete(0, 0, 1, false);
+        assertEquals(1, stats.getCount(0, 'G'));
+        assertEquals(1, stats.getCount(2, 'T'));
+        assertEquals(0, stats.getCount(2, 'G'));
+        assertEquals(6, stats.getWidth());
+
+        data.removeSequences(new int[] {0});
+        assertEquals(1, stats.getRowCount());
+        assertEquals(4, stats.getWidth());
+        assertEquals(0, stats.getCount(0, 'G'));
+        assertEquals(1, stats.getCount(3, 'C'));
+    }
+
+    /**
+     * Tests that the statistics match statistics built from scratch, after a
+     * series of random edits (interleaved with random queries).
+     **
+     * @throws IOException if the statistics table cannot be written.
+     */
+    @Test
+    public void testMatchesRebuild() throws IOException {
+        final Random random = new Random(9);
+        final Dataset data = dataset("ACGT-ACGT", "NNNN", "", "AC--GT");
+        final ColumnStatistics stats = data.getColumnStatistics();
+        final List<Seq> seqs = new ArrayList<Seq>();
+        final char[] text = new char[8];
+        // The sequence to edit.
+        int y;
+        // The length of the sequence to edit.
+        int length;
+
+        for (int step = 0; step < 2000; step++) {
+            y = random.nextInt(data.getSize());
+            length = data.getLine(y).sequence.length();
+            for (int count = 0; count < text.length; count++) {
+                text[count] = "ACGTN-*a".charAt(random.nextInt(8));
+            }
+            switch (random.nextInt(10)) {
+                case 0:
+                    data.add(random.nextInt(data.getSize() + 1),
+                            new Seq(Seq.Type.DNA, "added",
+                            new StringBuffer(new String(text))));
+                    break;
+                case 1:
+                    if (data.getSize() > 1) {
+                        data.removeSequences(new int[] {y});
+                    }
+                    break;
+                case 2:
+                case 3:
+                case 4:
+                    data.delete(random.nextInt(length + 1), y,
+                            random.nextInt(4), false);
+                    break;
+                default:
+                    data.insert(random.nextInt(length + 3), y, text, 0,
+                            1 + random.nextInt(text.length), false);
+                    break;
+            }
+            if (random.nextBoolean()) {
+                stats.getResidueCount(random.nextInt(40));
+            }
+        }
+
+        for (y = 0; y < data.getSize(); y++) {
+            seqs.add(data.getLine(y));
+        }
+        assertEquals(table(new ColumnStatistics(seqs)), table(stats));
+        assertEquals(seqs.size(), stats.getRowCount());
+    }
+
+    /**
+     * Tests that only the pending edits up to the column queried are brought
+     * up to date, and that earlier edits undo that work correctly.
+     */
+    @Test
+    public void testPartialResolve() {
+        final Dataset data = dataset("ACGTACGTAC", "ACGTACGTAC");
+        final ColumnStatistics stats = data.getColumnStatistics();
+
+        data.insert(5, 0, "---".toCharArray(), 0, 3, false);
+        assertEquals(1, stats.getResidueCount(6));
+        data.delete(2, 0, 1, false);
+        assertEquals(2, stats.getResidueCount(1));
+        assertEquals(1, stats.getCount(2, 'T'));
+        assertEquals(1, stats.getResidueCount(4));
+        assertEquals(2, stats.getResidueCount(8));
+        assertEquals(1, stats.getCount(11, 'C'));
+        assertEquals(12, stats.getWidth());
+    }
+
+    /**
+     * Creates a Dataset containing DNA sequences.
+     **
+     * @param  residues the residues of each sequence.
+     * @return the new Dataset.
+     */
+    private static Dataset dataset(String... residues) {
+        final Dataset result = new Dataset();
+
+        for (int y = 0; y < residues.length; y++) {
+            result.add(y, new Seq(Seq.Type.DNA, "seq" + y,
+                    new StringBuffer(residues[y])));
+        }
+        return result;
+    }
+
+    /**
+     * Writes the table of a statistics object to a string.
+     **
+     * @param  stats       the statistics to write.
+     * @return the table written.
+     * @throws IOException if the table cannot be written.
+     */
+    private static String table(ColumnStatistics stats) throws IOException {
+        final StringBuilder result = new StringBuilder();
+
+        stats.writeTable(result);
+        return result.toString();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * CompressedFileTest.java
+ *
+ * Created on October 20, 2026, 6:05 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import org.biopcd.parser.CompressedIO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reading and writing gzip-compressed sequence files (CompressedIO).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class CompressedFileTest {
+
+    /**
+     * The directory to write the test files into.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests writing sequences to a compressed (and an uncompressed) file, and
+     * reading them back in.
+     **
+     * @throws IOException if the test files cannot be written or read.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Dataset data = new Dataset();
+        // The text of the FastA data written.
+        final StringBuilder fasta = new StringBuilder();
+        // The file to write.
+        File file;
+
+        for (int y = 0; y < 50; y++) {
+            data.add(y, new Seq(Seq.Type.DNA, "seq" + y,
+                    new StringBuffer(GenBankReaderTest.repeat("ACGTN", y))));
+            DataFormat.FASTA.convertTo(fasta, data.getLine(y), 0, 5 * y);
+        }
+
+        for (boolean compress : new boolean[] {true, false}) {
+            file = folder.newFile("test" + compress + ".fasta");
+            write(file, compress, data);
+            assertEquals(compress, CompressedIO.isGzip(file));
+            assertEquals(fasta.toString(), read(file));
+            if (compress) {
+                assertTrue(file.length() < fasta.length());
+            }
+        }
+    }
+
+    /**
+     * Tests reading binary data (e.g. 2bit files) from a compressed file.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testBinary() throws IOException {
+        final File file = folder.newFile("test.2bit");
+        final OutputStream out = CompressedIO.openOutputStream(file, true);
+        final byte[] data = new byte[100000];
+        final byte[] read = new byte[data.length];
+        // The stream used to read the file.
+        final InputStream in;
+        // The number of bytes read.
+        int count = 0;
+        // The number of bytes read by the current read.
+        int amount;
+
+        for (int index = 0; index < data.length; index++) {
+            data[index] = (byte) (index * 31);
+        }
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+
+        in = CompressedIO.openInputStream(file);
+        try {
+            while (count < read.length && (amount = in.read(read, count,
+                    read.length - count)) > 0) {
+                count += amount;
+            }
+            assertEquals(-1, in.read());
+        } finally {
+            in.close();
+        }
+        assertEquals(data.length, count);
+        assertTrue(Arrays.equals(data, read));
+    }
+
+    /**
+     * Tests that streams shorter than the gzip magic number are read
+     * unchanged.
+     **
+     * @throws IOException if the streams cannot be read.
+     */
+    @Test
+    public void testShortStreams() throws IOException {
+        // The stream read.
+        InputStream in;
+
+        in = CompressedIO.decompress(new ByteArrayInputStream(new byte[0]));
+        assertEquals(-1, in.read());
+        in = CompressedIO.decompress(new ByteArrayInputStream(
+                new byte[] {0x1f}));
+        assertEquals(0x1f, in.read());
+        assertEquals(-1, in.read());
+    }
+
+    /**
+     * Tests the file format names which select compression.
+     */
+    @Test
+    public void testFormatNames() {
+        assertTrue(CompressedIO.isCompressed("genbank.gz"));
+        assertTrue(CompressedIO.isCompressed("FASTA.GZ"));
+        assertFalse(CompressedIO.isCompressed("fasta"));
+        assertFalse(CompressedIO.isCompressed(null));
+        assertEquals("genbank", CompressedIO.baseFormat("genbank.gz"));
+        assertEquals("fasta", CompressedIO.baseFormat("fasta"));
+    }
+
+    /**
+     * Writes the sequences in a Dataset to a FastA file.
+     **
+     * @param  file        the file to write.
+     * @param  compress    whether to compress the file.
+     * @param  data        the sequences to write.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void write(File file, boolean compress, Dataset data)
+            throws IOException {
+        final Writer out = CompressedIO.openWriter(file, compress);
+        // The current sequence.
+        Seq seq;
+
+        try {
+            for (int y = 0; y < data.getSize(); y++) {
+                seq = data.getLine(y);
+                DataFormat.FASTA.convertTo(out, seq, 0,
+                        seq.sequence.length());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the (decompressed) text of a file.
+     **
+     * @param  file        the file to read.
+     * @return the text of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    private static String read(File file) throws IOException {
+        final Reader in = CompressedIO.openReader(file);
+        final StringBuilder result = new StringBuilder();
+        final char[] buffer = new char[4096];
+        // The number of characters read.
+        int count;
+
+        try {
+            while ((count = in.read(buffer)) > 0) {
+                result.append(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * DatasetBatchTest.java
+ *
+ * Created on October 20, 2026, 12:10 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests batched multi-row edits in a Dataset (beginEdit, endEdit, and the
+ * multi-row insert and delete methods).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class DatasetBatchTest {
+
+    /**
+     * Tests that inserting into many rows fires a single change event, which
+     * covers every row modified.
+     */
+    @Test
+    public void testInsertCoalesces() {
+        final Dataset data = dataset(100);
+        final Events events = new Events(data);
+        final int[] rows = new int[50];
+
+        for (int count = 0; count < rows.length; count++) {
+            rows[count] = 10 + count;
+        }
+        assertTrue(data.insert(2, rows, "--".toCharArray(), 0, 2, false));
+        assertEquals(1, events.changes.size());
+        assertEquals("10-59", events.changes.get(0));
+        assertEquals("AC--GT", data.getLine(10).sequence.toString());
+        assertEquals("ACGT", data.getLine(60).sequence.toString());
+
+        assertTrue(data.delete(2, rows, 2, false));
+        assertEquals(2, events.changes.size());
+        assertEquals("ACGT", data.getLine(10).sequence.toString());
+    }
+
+    /**
+     * Tests that nested batches fire one change event, when the outermost
+     * batch is closed, and are undone as a single step.
+     */
+    @Test
+    public void testNestedBatches() {
+        final Dataset data = dataset(10);
+        final Events events = new Events(data);
+
+        data.beginEdit();
+        data.insert(0, 2, "A".toCharArray(), 0, 1, false);
+        data.beginEdit();
+        data.insert(0, 7, "C".toCharArray(), 0, 1, false);
+        data.delete(0, 5, 1, false);
+        data.endEdit();
+        assertEquals(0, events.changes.size());
+        data.endEdit();
+        assertEquals(1, events.changes.size());
+        assertEquals("2-7", events.changes.get(0));
+
+        assertTrue(data.undo());
+        assertEquals("ACGT", data.getLine(2).sequence.toString());
+        assertEquals("ACGT", data.getLine(5).sequence.toString());
+        assertEquals("ACGT", data.getLine(7).sequence.toString());
+    }
+
+    /**
+     * Tests that the multi-row insert skips the rows whose protections forbid
+     * the text, and modifies the others.
+     */
+    @Test
+    public void testProtections() {
+        final Dataset data = dataset(4);
+
+        data.getLine(1).protect_align = true;
+        data.getLine(3).protect_align = true;
+        assertTrue(data.insert(0, new int[] {0, 1, 2, 3}, "-".toCharArray(),
+                0, 1, true));
+        assertEquals("-ACGT", data.getLine(0).sequence.toString());
+        assertEquals("ACGT", data.getLine(1).sequence.toString());
+        assertEquals("-ACGT", data.getLine(2).sequence.toString());
+        assertEquals("ACGT", data.getLine(3).sequence.toString());
+
+        // Every row protects unambiguous residues by default.
+        assertFalse(data.insert(0, new int[] {0, 1}, "G".toCharArray(), 0, 1,
+                true));
+        assertFalse(data.delete(1, new int[] {0, 2}, 1, true));
+        assertTrue(data.delete(0, new int[] {0, 2}, 1, true));
+        assertEquals("ACGT", data.getLine(0).sequence.toString());
+    }
+
+    /**
+     * Tests that the length change reported for an edit is the length of the
+     * text inserted (not the length of the array holding it), at the column
+     * where the text was actually inserted, for single-row batches and for
+     * edits outside of a batch.
+     */
+    @Test
+    public void testLengthChanges() {
+        final List<String> changes = new ArrayList<String>();
+        final Dataset data = new Dataset() {
+            @Override
+            void lengthChanged(int x, int y, int length) {
+                changes.add(x + "," + y + "," + length);
+            }
+        };
+        final char[] text = "ACG--TT".toCharArray();
+
+        for (int y = 0; y < 4; y++) {
+            data.add(y, new Seq(Seq.Type.DNA, "seq" + y,
+                    new StringBuffer("ACGT")));
+        }
+        assertTrue(data.insert(1, new int[] {2}, text, 3, 2, false));
+        assertTrue(data.insert(9, 3, text, 3, 2, false));
+        assertTrue(data.delete(1, new int[] {2}, 2, false));
+        assertEquals("[1,2,2, 4,3,2, 1,2,-2]", changes.toString());
+        assertEquals("ACGT--", data.getLine(3).sequence.toString());
+    }
+
+    /**
+     * Creates a Dataset containing a number of short DNA sequences.
+     **
+     * @param  size the number of sequences to create.
+     * @return the new Dataset.
+     */
+    private static Dataset dataset(int size) {
+        final Dataset result = new Dataset();
+
+        for (int y = 0; y < size; y++) {
+            result.add(y, new Seq(Seq.Type.DNA, "seq" + y,
+                    new StringBuffer("ACGT")));
+        }
+        return result;
+    }
+
+    /**
+     * Records the change events fired by a Dataset.
+     */
+    private static final class Events implements ListDataListener {
+
+        /**
+         * The range of rows of each change event fired ("first-last").
+         */
+        final List<String> changes = new ArrayList<String>();
+
+        /**
+         * Creates a new event recorder, listening to a Dataset.
+         **
+         * @param data the Dataset to listen to.
+         */
+        Events(Dataset data) {
+            data.addListDataListener(this);
+        }
+
+        public void contentsChanged(ListDataEvent e) {
+            changes.add(e.getIndex0() + "-" + e.getIndex1());
+        }
+
+        public void intervalAdded(ListDataEvent e) {
+        }
+
+        public void intervalRemoved(ListDataEvent e) {
+        }
+    }
+}
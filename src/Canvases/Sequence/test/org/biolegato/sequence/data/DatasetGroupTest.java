@@ -0,0 +1,128 @@
+/*
+ * DatasetGroupTest.java
+ *
+ * Created on October 20, 2026, 11:40 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests sequence groups within a Dataset (group, ungroup and getgroup).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class DatasetGroupTest {
+
+    /**
+     * Tests that getgroup returns the current line numbers of a group's
+     * sequences, after rows are added and removed above them.
+     */
+    @Test
+    public void testRowsFollowEdits() {
+        final Dataset data = dataset(6);
+
+        data.group(new int[] {1, 3, 4});
+        assertArrayEquals(new int[] {1, 3, 4}, group(data, 3));
+
+        data.removeSequences(new int[] {0, 2});
+        assertArrayEquals(new int[] {0, 1, 2}, group(data, 0));
+
+        data.add(0, new Seq(Seq.Type.DNA, "new", new StringBuffer("ACGT")));
+        assertArrayEquals(new int[] {1, 2, 3}, group(data, 2));
+        assertNull(data.getgroup(0));
+    }
+
+    /**
+     * Tests that grouping a sequence removes it from its previous group, and
+     * that ungrouping removes it from every group.
+     */
+    @Test
+    public void testRegroup() {
+        final Dataset data = dataset(5);
+
+        data.group(new int[] {0, 1, 2});
+        data.group(new int[] {2, 3});
+        assertArrayEquals(new int[] {0, 1}, group(data, 0));
+        assertArrayEquals(new int[] {2, 3}, group(data, 3));
+        assertTrue(data.getLine(0).groupID != data.getLine(2).groupID);
+
+        data.ungroup(new int[] {3});
+        assertArrayEquals(new int[] {2}, group(data, 2));
+        assertNull(data.getgroup(3));
+        assertEquals(0, data.getLine(3).groupID);
+    }
+
+    /**
+     * Tests that each Dataset has its own groups.
+     */
+    @Test
+    public void testIndependentDatasets() {
+        final Dataset first = dataset(3);
+        final Dataset second = dataset(3);
+
+        first.group(new int[] {0, 1});
+        second.group(new int[] {1, 2});
+        assertArrayEquals(new int[] {0, 1}, group(first, 0));
+        assertArrayEquals(new int[] {1, 2}, group(second, 1));
+        assertNull(second.getgroup(0));
+    }
+
+    /**
+     * Tests that sequences added with a group ID (e.g. read from a GDE file)
+     * are registered in the Dataset's groups, and that new groups do not
+     * reuse their group ID.
+     */
+    @Test
+    public void testAddedGroups() {
+        final Dataset data = dataset(2);
+        final Seq first = new Seq(Seq.Type.DNA, "g1", new StringBuffer("A"));
+        final Seq second = new Seq(Seq.Type.DNA, "g2", new StringBuffer("C"));
+
+        first.groupID = 1;
+        second.groupID = 1;
+        data.addSequences(2, Arrays.asList(first, second));
+        assertArrayEquals(new int[] {2, 3}, group(data, 2));
+
+        data.group(new int[] {0, 1});
+        assertTrue(data.getLine(0).groupID != 1);
+        assertArrayEquals(new int[] {0, 1}, group(data, 0));
+        assertArrayEquals(new int[] {2, 3}, group(data, 3));
+    }
+
+    /**
+     * Creates a Dataset containing a number of short DNA sequences.
+     **
+     * @param  size the number of sequences to create.
+     * @return the new Dataset.
+     */
+    private static Dataset dataset(int size) {
+        final Dataset result = new Dataset();
+
+        for (int y = 0; y < size; y++) {
+            result.add(y, new Seq(Seq.Type.DNA, "seq" + y,
+                    new StringBuffer("ACGT")));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sorted line numbers of the group containing a sequence.
+     **
+     * @param  data the Dataset containing the sequence.
+     * @param  y    the line number of the sequence.
+     * @return the line numbers of the group, in ascending order.
+     */
+    private static int[] group(Dataset data, int y) {
+        final int[] result = data.getgroup(y);
+
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * FastAFileTest.java
+ *
+ * Created on October 20, 2026, 11:00 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests indexing FastA files on open (FastAFile.readIndexed), against the
+ * streaming FastA reader.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class FastAFileTest {
+
+    /**
+     * The directory to write the test files into.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /**
+     * The number of test files written (used to name the test files).
+     */
+    private int files = 0;
+
+    /**
+     * Tests that a FastA file whose first name line has leading whitespace is
+     * indexed in full (as it is by the streaming reader).
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testLeadingWhitespace() throws IOException {
+        final String fasta = "\n\n   >x\nAAA\n>y\nCCC\n";
+
+        assertEquals(Arrays.asList("x||DNA|AAA", "y||DNA|CCC"),
+                indexed(fasta));
+        assertEquals(parsed(fasta), indexed(fasta));
+    }
+
+    /**
+     * Tests that the indexed and streaming readers agree, for wrapped lines,
+     * blank lines, descriptions, protein sequences and CRLF line endings.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testMatchesReader() throws IOException {
+        final String fasta = ">seq1 first sequence\nACGTACGTAC\nGTACGT\n\n"
+                + ">seq2\nMKVLLAW*\n>seq3 rna\nACGUU\n-ACG\n>empty\n"
+                + ">last\nNNNN";
+
+        assertEquals(5, indexed(fasta).size());
+        assertEquals(parsed(fasta), indexed(fasta));
+        assertEquals(parsed(fasta), indexed(fasta.replace("\n", "\r\n")));
+        assertEquals("seq1|first sequence|DNA|ACGTACGTACGTACGT",
+                indexed(fasta.replace("\n", "\r\n")).get(0));
+    }
+
+    /**
+     * Tests reading windows of a lazily read sequence.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testWindow() throws IOException {
+        final StringBuilder residues = new StringBuilder();
+        final StringBuilder fasta = new StringBuilder(">long\n");
+        final Dataset data = new Dataset();
+        final char[] window = new char[100];
+
+        for (int line = 0; line < 500; line++) {
+            for (int column = 0; column < 60; column++) {
+                residues.append("ACGT".charAt((line + column) % 4));
+            }
+            fasta.append(residues, line * 60, line * 60 + 60).append("\r\n");
+        }
+
+        ((FastAFile) DataFormat.FASTA).readIndexed(data,
+                write(fasta.toString()), 0);
+        assertEquals(residues.length(), data.getLine(0).sequence.length());
+        data.getLine(0).sequence.getChars(12345, 12445, window, 0);
+        assertEquals(residues.substring(12345, 12445), new String(window));
+    }
+
+    /**
+     * Indexes FastA data (written to a temporary file).
+     **
+     * @param  fasta       the FastA data to index.
+     * @return the sequences read (see describe).
+     * @throws IOException if the test file cannot be written or read.
+     */
+    private List<String> indexed(String fasta) throws IOException {
+        final Dataset data = new Dataset();
+
+        ((FastAFile) DataFormat.FASTA).readIndexed(data, write(fasta), 0);
+        return describe(data);
+    }
+
+    /**
+     * Parses FastA data with the streaming reader.
+     **
+     * @param  fasta       the FastA data to parse.
+     * @return the sequences read (see describe).
+     * @throws IOException if the data cannot be read.
+     */
+    private static List<String> parsed(String fasta) throws IOException {
+        final Dataset data = new Dataset();
+
+        DataFormat.FASTA.convertFrom(data, new StringReader(fasta), 0, 0);
+        return describe(data);
+    }
+
+    /**
+     * Describes each sequence in a Dataset as a string (the name, description,
+     * type and residues of the sequence, separated by '|' characters).
+     **
+     * @param  data the Dataset to describe.
+     * @return the description of each sequence.
+     */
+    private static List<String> describe(Dataset data) {
+        final List<String> result = new ArrayList<String>();
+        Seq seq;
+
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            result.add(seq.getName() + "|"
+                    + (seq.getDescription() == null ? ""
+                    : seq.getDescription()) + "|" + seq.getType() + "|"
+                    + seq.sequence);
+        }
+        return result;
+    }
+
+    /**
+     * Writes text to a new temporary file.
+     **
+     * @param  text        the text to write.
+     * @return the temporary file.
+     * @throws IOException if the file cannot be written.
+     */
+    private File write(String text) throws IOException {
+        final File result = folder.newFile("test" + (files++)
+                + ".fasta");
+        final OutputStream out = new FileOutputStream(result);
+
+        try {
+            out.write(text.getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * FastAReaderTest.java
+ *
+ * Created on October 20, 2026, 4:10 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the streaming FastA parser (FastAReader), and reading FastA data into
+ * a Dataset (FastAFile.convertFrom).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class FastAReaderTest {
+
+    /**
+     * Tests parsing names, descriptions and residues, and detecting the type
+     * of each sequence.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testRecords() throws IOException {
+        assertEquals(Arrays.asList("dna|a test|DNA|ACGTac-",
+                "rna||RNA|ACGU", "protein|x|Protein|MKLF*", "empty||DNA|"),
+                read(new StringReader("\r\n >dna a test\nAC GT 12\nac-\n"
+                + ">rna\nACGU\n\n>protein x\r\nMK\r\nLF*\r\n>empty\n")));
+    }
+
+    /**
+     * Tests that text before the first '>' is read as a name line, and that a
+     * sequence without a new-line after its name line is skipped.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testIncompleteRecords() throws IOException {
+        assertEquals(Arrays.asList("first||DNA|ACGT", "x||DNA|A"),
+                read(new StringReader("first\nACGT\n>x\nA\n>truncated")));
+        assertEquals(Arrays.asList(), read(new StringReader(">name only")));
+        assertEquals(Arrays.asList(), read(new StringReader("\n\n")));
+    }
+
+    /**
+     * Tests that records split across reads (a character at a time, and
+     * across the parser's buffer) are parsed the same as whole records.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testSplitReads() throws IOException {
+        final StringBuilder fasta = new StringBuilder();
+
+        for (int y = 0; y < 4; y++) {
+            fasta.append(">seq").append(y).append(" description ").append(y)
+                    .append('\n');
+            for (int line = 0; line < 400 * y; line++) {
+                fasta.append("ACGTNacgtn-ACGTNacgtn-ACGTNacgtn-ACGTNacgtn-"
+                        + "ACGTNacgtn-ACGTN\n");
+            }
+        }
+        assertEquals(read(new StringReader(fasta.toString())),
+                read(new TrickleReader(fasta.toString())));
+        assertEquals(1200 * 60, read(new StringReader(fasta.toString()))
+                .get(3).length() - "seq3|description 3|DNA|".length());
+    }
+
+    /**
+     * Tests that the Scanner and Reader versions of convertFrom read the same
+     * sequences, and that sequences read into existing rows are inserted at
+     * the column given.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testConvertFrom() throws IOException {
+        final String fasta = ">a\n--\n>b one\n-\n>c\nACGU\n";
+        final Dataset scanned = new Dataset();
+        final Dataset data = new Dataset();
+
+        DataFormat.FASTA.convertFrom(scanned, new Scanner(fasta), 0, 0);
+        DataFormat.FASTA.convertFrom(data, new StringReader(fasta), 0, 0);
+        assertEquals(describe(scanned), describe(data));
+        assertEquals(3, data.getSize());
+
+        DataFormat.FASTA.convertFrom(data, new StringReader(fasta), 1, 1);
+        assertEquals(Arrays.asList("a||DNA|--", "b|one|DNA|---",
+                "c||RNA|A-CGU", "c||RNA|ACGU"), describe(data));
+    }
+
+    /**
+     * Reads every sequence from FastA data.
+     **
+     * @param  source      the FastA data to read.
+     * @return the sequences read (see describe).
+     * @throws IOException if the data cannot be read.
+     */
+    private static List<String> read(Reader source) throws IOException {
+        final FastAReader reader = new FastAReader(source);
+        final List<String> result = new ArrayList<String>();
+        // The current sequence read.
+        Seq seq;
+
+        while ((seq = reader.next()) != null) {
+            result.add(describe(seq));
+        }
+        return result;
+    }
+
+    /**
+     * Describes each sequence in a Dataset (see describe(Seq)).
+     **
+     * @param  data the Dataset to describe.
+     * @return the description of each sequence.
+     */
+    private static List<String> describe(Dataset data) {
+        final List<String> result = new ArrayList<String>();
+
+        for (int y = 0; y < data.getSize(); y++) {
+            result.add(describe(data.getLine(y)));
+        }
+        return result;
+    }
+
+    /**
+     * Describes a sequence as a string (the name, description, type and
+     * residues of the sequence, separated by '|' characters).
+     **
+     * @param  seq the sequence to describe.
+     * @return the description of the sequence.
+     */
+    private static String describe(Seq seq) {
+        return seq.getName() + "|" + (seq.getDescription() == null ? ""
+                : seq.getDescription()) + "|" + seq.getType() + "|"
+                + seq.sequence;
+    }
+
+    /**
+     * A reader which returns one character per read.
+     */
+    private static final class TrickleReader extends Reader {
+
+        /**
+         * The text to read.
+         */
+        private final String text;
+        /**
+         * The position of the next character to read.
+         */
+        private int position = 0;
+
+        /**
+         * Creates a new reader.
+         **
+         * @param text the text to read.
+         */
+        TrickleReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] cbuf, int offset, int length) {
+            // The number of characters read.
+            int result = -1;
+
+            if (position < text.length() && length > 0) {
+                cbuf[offset] = text.charAt(position++);
+                result = 1;
+            }
+            return result;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
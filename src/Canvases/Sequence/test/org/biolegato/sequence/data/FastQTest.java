@@ -0,0 +1,155 @@
+/*
+ * FastQTest.java
+ *
+ * Created on October 20, 2026, 8:10 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests reading, writing and editing FASTQ data, with quality scores
+ * (FastQFile, FastQReader and QualityScores).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class FastQTest {
+
+    /**
+     * FASTQ data, in the format written by BioLegato.
+     */
+    private static final String FASTQ = "@read1 first read\nACGTNacgtn\n+\n"
+            + "!\"#$%&'()*\n@read2\nMKLF\n+\n@+~I\n@empty\n\n+\n\n";
+
+    /**
+     * Tests that FASTQ data is written back out unchanged.
+     **
+     * @throws IOException if the data cannot be read or written.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Dataset data = read(FASTQ);
+
+        assertEquals(3, data.getSize());
+        assertEquals("read1", data.getLine(0).getName());
+        assertEquals("first read", data.getLine(0).getDescription());
+        assertEquals(Seq.Type.PROTEIN, data.getLine(1).getType());
+        assertEquals(FASTQ, write(data));
+    }
+
+    /**
+     * Tests reading records whose residue and quality lines are wrapped
+     * (including quality lines which begin with '@' or '+' characters).
+     **
+     * @throws IOException if the data cannot be read or written.
+     */
+    @Test
+    public void testWrapped() throws IOException {
+        final Dataset data = read("@wrapped\r\nACGT\r\nTTGG\r\nCC\r\n+wrapped"
+                + "\r\n@@II\r\n+#I5\r\n55\r\n@next\nAC\n+\nII\n");
+        // The quality scores of the first sequence.
+        final byte[] scores = new byte[10];
+
+        assertEquals(2, data.getSize());
+        assertEquals(10, data.getQuality(scores, 0, 0, scores.length));
+        assertEquals(31, scores[0]);
+        assertEquals(10, scores[4]);
+        assertEquals("@wrapped\nACGTTTGGCC\n+\n@@II+#I555\n"
+                + "@next\nAC\n+\nII\n", write(data));
+    }
+
+    /**
+     * Tests detecting FASTQ data, including files whose first record is
+     * wrapped, or whose first residue line is longer than the prefix read.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testDetection() throws IOException {
+        assertDetected(DataFormat.FASTQ, FASTQ);
+        assertDetected(DataFormat.FASTQ, "@r\nACGT\nAC\n+\nIIII\nII\n");
+        assertDetected(DataFormat.FASTQ, "@r\n"
+                + GenBankReaderTest.repeat("ACGT\n", 2000) + "+\n");
+        assertDetected(DataFormat.FASTQ, "@r\n"
+                + GenBankReaderTest.repeat("A", 2 * DataFormat.SNIFF_SIZE));
+        assertDetected(DataFormat.GDEFLAT, "@mask\n0011223300\n#seq\nACGT\n");
+        assertDetected(DataFormat.GDEFLAT, "@r\nACGT\n#seq\nACGT\n");
+        assertDetected(DataFormat.GDEFLAT, "@r\nACGT\nACGT");
+    }
+
+    /**
+     * Tests that the quality scores follow the residues as a sequence is
+     * edited, and that residues without scores are written with a score of
+     * zero.
+     **
+     * @throws IOException if the data cannot be read or written.
+     */
+    @Test
+    public void testEdits() throws IOException {
+        final Dataset data = read("@r\nACGTACGT\n+\nABCDEFGH\n");
+
+        assertEquals(true, data.delete(2, 0, 3, false));
+        assertEquals("@r\nACCGT\n+\nABFGH\n", write(data));
+        assertEquals(true, data.insert(1, 0, "--".toCharArray(), 0, 2,
+                false));
+        assertEquals("@r\nA--CCGT\n+\nA!!BFGH\n", write(data));
+        assertEquals(true, data.undo());
+        assertEquals(true, data.undo());
+        assertEquals("@r\nACGTACGT\n+\nABCDEFGH\n", write(data));
+        assertEquals(true, data.redo());
+        assertEquals("@r\nACCGT\n+\nABFGH\n", write(data));
+    }
+
+    /**
+     * Asserts that FASTQ data is detected as a file format.
+     **
+     * @param  format      the file format expected.
+     * @param  data        the data to detect the format of.
+     * @throws IOException if the data cannot be read.
+     */
+    private static void assertDetected(DataFormat format, String data)
+            throws IOException {
+        assertSame(data, format, DataFormat.autodetect(new PushbackReader(
+                new StringReader(data), DataFormat.SNIFF_SIZE)));
+    }
+
+    /**
+     * Reads FASTQ data into a new Dataset.
+     **
+     * @param  fastq       the FASTQ data to read.
+     * @return the Dataset containing the sequences read.
+     * @throws IOException if the data cannot be read.
+     */
+    private static Dataset read(String fastq) throws IOException {
+        final Dataset result = new Dataset();
+
+        DataFormat.FASTQ.convertFrom(result, new StringReader(fastq), 0, 0);
+        return result;
+    }
+
+    /**
+     * Writes every sequence in a Dataset as FASTQ data.
+     **
+     * @param  data        the Dataset to write.
+     * @return the FASTQ data.
+     * @throws IOException if the data cannot be written.
+     */
+    private static String write(Dataset data) throws IOException {
+        final StringBuilder result = new StringBuilder();
+        // The current sequence.
+        Seq seq;
+
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            DataFormat.FASTQ.convertTo(result, seq, 0,
+                    seq.sequence.length());
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * FormatConverterTest.java
+ *
+ * Created on October 20, 2026, 9:40 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests converting sequence files without the user interface
+ * (FormatConverter and SequenceSink).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class FormatConverterTest {
+
+    /**
+     * The number of sequences in each test file.
+     */
+    private static final int COUNT = 2 * Dataset.LOAD_BATCH + 500;
+    /**
+     * The directory to write the test files into.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests converting plain and gzip-compressed files into the output
+     * directory, and that the output matches the sequences read.
+     **
+     * @throws IOException if the test files cannot be written or read.
+     */
+    @Test
+    public void testConvert() throws IOException {
+        final String fasta = fasta();
+        final File output = folder.newFolder("output");
+        final FormatConverter converter = new FormatConverter(
+                DataFormat.GENBANK, ".gb", output, false);
+        final File plain = write("plain.fa", fasta.getBytes("US-ASCII"));
+        final File compressed = write("compressed.fa.gz",
+                gzip(fasta.getBytes("US-ASCII")));
+        // The expected GenBank output.
+        final String expected = genbank(fasta);
+
+        assertEquals(0, converter.convertAll(Arrays.asList(plain,
+                compressed), 2));
+        assertEquals(new File(output, "plain.gb"),
+                converter.getOutputFile(plain));
+        assertEquals(new File(output, "compressed.gb"),
+                converter.getOutputFile(compressed));
+        assertEquals(expected, new String(read(new File(output,
+                "plain.gb")), "US-ASCII"));
+        assertEquals(expected, new String(read(new File(output,
+                "compressed.gb")), "US-ASCII"));
+        assertEquals(2, output.list().length);
+    }
+
+    /**
+     * Tests that a conversion which fails part way through neither leaves a
+     * partial output file behind, nor replaces an existing output file.
+     **
+     * @throws IOException if the test files cannot be written or read.
+     */
+    @Test
+    public void testFailure() throws IOException {
+        final byte[] data = gzip(fasta().getBytes("US-ASCII"));
+        final File output = folder.newFolder("failed");
+        final FormatConverter converter = new FormatConverter(
+                DataFormat.FASTA, ".fasta", output, false);
+        // A compressed file which ends part way through.
+        final File truncated = write("truncated.fa.gz",
+                Arrays.copyOf(data, data.length / 2));
+        // The output file of an earlier conversion.
+        final File previous = converter.getOutputFile(truncated);
+        final byte[] old = ">old\nACGT\n".getBytes("US-ASCII");
+
+        writeTo(previous, old);
+        try {
+            converter.convert(truncated);
+            fail("A truncated file was converted");
+        } catch (IOException ioe) {
+        }
+        assertArrayEquals(old, read(previous));
+        assertEquals(1, output.list().length);
+
+        previous.delete();
+        assertEquals(1, converter.convertAll(Arrays.asList(truncated), 1));
+        assertEquals(0, output.list().length);
+    }
+
+    /**
+     * Tests that a sink receives every sequence parsed, in order, in batches
+     * of at most Dataset.LOAD_BATCH sequences.
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testSink() throws IOException {
+        final StringBuilder names = new StringBuilder();
+        final int[] batches = new int[1];
+        final SequenceSink sink = new SequenceSink() {
+            protected void accept(Collection<Seq> seqs) {
+                assertTrue(seqs.size() <= Dataset.LOAD_BATCH);
+                for (Seq seq : seqs) {
+                    names.append(seq.getName()).append(' ');
+                }
+                batches[0]++;
+            }
+        };
+        // The names of the sequences expected.
+        final StringBuilder expected = new StringBuilder();
+
+        DataFormat.FASTA.convertFrom(sink, new StringReader(fasta()), 0, 0);
+        for (int y = 0; y < COUNT; y++) {
+            expected.append("seq").append(y).append(' ');
+        }
+        assertEquals(COUNT, sink.getSize());
+        assertEquals(expected.toString(), names.toString());
+        assertTrue(batches[0] >= 3);
+    }
+
+    /**
+     * Generates the test FastA data.
+     **
+     * @return the FastA data.
+     */
+    private static String fasta() {
+        final StringBuilder result = new StringBuilder();
+
+        for (int y = 0; y < COUNT; y++) {
+            result.append(">seq").append(y).append('\n')
+                    .append("ACGTACGTTTGGCCAA".substring(y % 8)).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Converts FastA data into GenBank data, through a data model.
+     **
+     * @param  fasta       the FastA data.
+     * @return the GenBank data.
+     * @throws IOException if the data cannot be converted.
+     */
+    private static String genbank(String fasta) throws IOException {
+        final Dataset data = new Dataset();
+        final StringBuilder result = new StringBuilder();
+        // The current sequence.
+        Seq seq;
+
+        DataFormat.FASTA.convertFrom(data, new StringReader(fasta), 0, 0);
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            DataFormat.GENBANK.convertTo(result, seq, 0,
+                    seq.getSequence().length());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Compresses data with gzip.
+     **
+     * @param  data        the data to compress.
+     * @return the compressed data.
+     * @throws IOException if the data cannot be compressed.
+     */
+    private static byte[] gzip(byte[] data) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final OutputStream out = new GZIPOutputStream(result);
+
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Writes data to a new file in the test directory.
+     **
+     * @param  name        the name of the file.
+     * @param  data        the data to write.
+     * @return the file written.
+     * @throws IOException if the file cannot be written.
+     */
+    private File write(String name, byte[] data) throws IOException {
+        final File result = new File(folder.getRoot(), name);
+
+        writeTo(result, data);
+        return result;
+    }
+
+    /**
+     * Writes data to a file.
+     **
+     * @param  file        the file to write.
+     * @param  data        the data to write.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeTo(File file, byte[] data) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the contents of a file.
+     **
+     * @param  file        the file to read.
+     * @return the contents of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    private static byte[] read(File file) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final InputStream in = new FileInputStream(file);
+        final byte[] buffer = new byte[8192];
+        // The number of bytes read.
+        int length;
+
+        try {
+            while ((length = in.read(buffer)) >= 0) {
+                result.write(buffer, 0, length);
+            }
+        } finally {
+            in.close();
+        }
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * GenBankHeaderTest.java
+ *
+ * Created on October 20, 2026, 5:15 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests keeping the original headers of GenBank records in their source file
+ * (GenBankFile2008.readFile and GenBankHeader).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class GenBankHeaderTest {
+
+    /**
+     * The directory to write the test files into.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that only the location of each header is kept, and that the
+     * records are written back out unchanged.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testHeaderInFile() throws IOException {
+        final String genbank = GenBankReaderTest.RECORD
+                + GenBankReaderTest.RECORD.replace("AB000001", "AB000002");
+        final Dataset data = read(write("test.gb", genbank));
+
+        assertEquals(2, data.getSize());
+        for (int y = 0; y < data.getSize(); y++) {
+            assertTrue(data.getLine(y).getOriginal() instanceof GenBankHeader);
+        }
+        assertEquals(GenBankReaderTest.RECORD.indexOf("ORIGIN") + 1,
+                data.getLine(1).getOriginal().length());
+        assertEquals(genbank, write(data));
+    }
+
+    /**
+     * Tests that an unmodified record is not written (without its header), if
+     * the file is modified after it is read, and that the error names the
+     * file.  Records which were edited are still written.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testModifiedFile() throws IOException {
+        final File file = write("modified.gb", GenBankReaderTest.RECORD);
+        final Dataset data = read(file);
+
+        write("modified.gb", GenBankReaderTest.RECORD.replace("test",
+                "TEST"));
+        try {
+            write(data);
+            fail("A record was written without its original header");
+        } catch (IOException ioe) {
+            assertTrue(ioe.getMessage().contains(file.getPath()));
+        }
+
+        data.delete(0, 0, 1, false);
+        assertTrue(write(data).startsWith("LOCUS       AB000001"));
+    }
+
+    /**
+     * Tests that headers containing non-ASCII characters are kept in memory
+     * (their character offsets are not byte offsets).
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testNonAscii() throws IOException {
+        final File file = new File(folder.getRoot(), "accent.gb");
+        final OutputStream out = new FileOutputStream(file);
+        // The sequences read.
+        final Dataset data;
+
+        try {
+            out.write(GenBankReaderTest.RECORD.replace("A test",
+                    "A t\u00e9st").getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        data = read(file);
+        assertFalse(data.getLine(0).getOriginal() instanceof GenBankHeader);
+        assertTrue(write(data).startsWith(data.getLine(0).getOriginal()
+                .toString().substring(0, GenBankReaderTest.RECORD.indexOf(
+                "FEATURES"))));
+    }
+
+    /**
+     * Tests that a header object is replaced by its text when serialized.
+     **
+     * @throws IOException            if the test file cannot be written or
+     *                                read.
+     * @throws ClassNotFoundException if the serialized header cannot be read.
+     */
+    @Test
+    public void testSerialization() throws IOException,
+            ClassNotFoundException {
+        final Dataset data = read(write("serial.gb",
+                GenBankReaderTest.RECORD));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        // The header read back in.
+        Object header;
+
+        out.writeObject(data.getLine(0).getOriginal());
+        out.close();
+        header = new ObjectInputStream(new ByteArrayInputStream(
+                bytes.toByteArray())).readObject();
+        assertEquals(data.getLine(0).getOriginal().toString(), header);
+        assertTrue(header.toString().startsWith("LOCUS       AB000001"));
+    }
+
+    /**
+     * Reads a GenBank file, keeping the headers in the file.
+     **
+     * @param  file        the file to read.
+     * @return the Dataset containing the sequences read.
+     * @throws IOException if the file cannot be read.
+     */
+    private static Dataset read(File file) throws IOException {
+        final Dataset result = new Dataset();
+
+        ((GenBankFile2008) DataFormat.GENBANK).readFile(result, file, 0);
+        return result;
+    }
+
+    /**
+     * Writes every sequence in a Dataset as GenBank data.
+     **
+     * @param  data        the Dataset to write.
+     * @return the GenBank data.
+     * @throws IOException if the data cannot be written.
+     */
+    private static String write(Dataset data) throws IOException {
+        final StringBuilder result = new StringBuilder();
+        // The current sequence.
+        Seq seq;
+
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            DataFormat.GENBANK.convertTo(result, seq, 0,
+                    seq.sequence.length());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes text to a temporary file (in the platform's default encoding,
+     * as read by GenBankFile2008.readFile).
+     **
+     * @param  name        the name of the file.
+     * @param  text        the text to write.
+     * @return the file written.
+     * @throws IOException if the file cannot be written.
+     */
+    private File write(String name, String text) throws IOException {
+        final File result = new File(folder.getRoot(), name);
+        final OutputStream out = new FileOutputStream(result);
+
+        try {
+            out.write(text.getBytes(Charset.defaultCharset()));
+        } finally {
+            out.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * GenBankReaderTest.java
+ *
+ * Created on October 20, 2026, 4:45 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the streaming GenBank parser (GenBankReader), and reading and writing
+ * GenBank data (GenBankFile2008).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class GenBankReaderTest {
+
+    /**
+     * A GenBank record, in the format written by BioLegato (so the record may
+     * be written back out unchanged).
+     */
+    static final String RECORD = "LOCUS       AB000001                  "
+            + "70 bp    DNA     linear   PRI 01-JAN-2000\n"
+            + "DEFINITION  A test sequence.\n"
+            + "FEATURES             Location/Qualifiers\n"
+            + "     source          1..70\n"
+            + "ORIGIN\n"
+            + "        1 acgtacgtac gtacgtacgt acgtacgtac gtacgtacgt "
+            + "acgtacgtac gtacgtacgt\n"
+            + "       61 acgtacgtac\n"
+            + "//\n";
+
+    /**
+     * Tests parsing the fields of LOCUS lines.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testLocus() throws IOException {
+        assertEquals(Arrays.asList(
+                "p1|Protein|LINEAR|SINGLE|mklf",
+                "r1|RNA|CIRCULAR|DOUBLE|acgu",
+                "nolength|RNA|LINEAR|SINGLE|AC-GU",
+                "AB000001|DNA|LINEAR|SINGLE|" + repeat("acgt", 17) + "ac"),
+                read("junk before the first record\n"
+                + "LOCUS       p1    4 aa    linear\nORIGIN\n 1 mklf\n//\n"
+                + "LOCUS       r1    4 bp ds-RNA circular VRL\n"
+                + "ORIGIN\n        1 acgu\n//\n\nLOCUS       bad\n"
+                + "ORIGIN\n        1 acgt\n//\n"
+                + "LOCUS       nolength bp mRNA\nORIGIN\n 1 AC-GU 1234\n"
+                + RECORD));
+    }
+
+    /**
+     * Tests that the header of each record (everything before its ORIGIN
+     * line) is kept, and that a record may end at the next LOCUS line
+     * instead of a '//' line.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testHeaders() throws IOException {
+        final GenBankReader reader = new GenBankReader(new StringReader(
+                "LOCUS       a 2 bp DNA\nDEFINITION  first\nORIGIN\n 1 ac\n"
+                + "LOCUS       b 2 bp DNA\nORIGIN\n 1 gt\n//\n"));
+        // The first sequence read.
+        final Seq first = reader.next();
+        // The second sequence read.
+        final Seq second = reader.next();
+
+        assertEquals("LOCUS       a 2 bp DNA\nDEFINITION  first\n\n",
+                first.getOriginal().toString());
+        assertEquals("ac", first.sequence.toString());
+        assertEquals("LOCUS       b 2 bp DNA\n\n",
+                second.getOriginal().toString());
+        assertEquals("gt", second.sequence.toString());
+        assertEquals(null, reader.next());
+    }
+
+    /**
+     * Tests that a record read with its header is written back out
+     * unchanged, and that the Scanner and Reader versions of convertFrom
+     * agree.
+     **
+     * @throws IOException if the data cannot be read or written.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Dataset data = new Dataset();
+        final Dataset scanned = new Dataset();
+        final StringBuilder written = new StringBuilder();
+        // The sequence read.
+        Seq seq;
+
+        DataFormat.GENBANK.convertFrom(data, new StringReader(RECORD + RECORD),
+                0, 0);
+        DataFormat.GENBANK.convertFrom(scanned, new Scanner(RECORD + RECORD),
+                0, 0);
+        assertEquals(2, data.getSize());
+        assertEquals(2, scanned.getSize());
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            assertEquals(seq.sequence.toString(),
+                    scanned.getLine(y).sequence.toString());
+            DataFormat.GENBANK.convertTo(written, seq, 0,
+                    seq.sequence.length());
+        }
+        assertEquals(RECORD + RECORD, written.toString());
+    }
+
+    /**
+     * Tests that the lower-case residues of a GenBank record are packed
+     * using 4 bits per residue, and read back in lower case.
+     **
+     * @throws IOException if the data cannot be read.
+     */
+    @Test
+    public void testLowerCase() throws IOException {
+        final Dataset data = new Dataset();
+        // The sequence read.
+        final Seq seq;
+
+        DataFormat.GENBANK.convertFrom(data, new StringReader(RECORD), 0, 0);
+        seq = data.getLine(0);
+        assertEquals(PackedSequence.Encoding.DNA,
+                seq.sequence.originalEncoding());
+        assertEquals(repeat("acgt", 17) + "ac", seq.sequence.toString());
+    }
+
+    /**
+     * Tests that a record written without its header (e.g. after it was
+     * edited) can be read back in.
+     **
+     * @throws IOException if the data cannot be read or written.
+     */
+    @Test
+    public void testGeneratedHeader() throws IOException {
+        final Seq seq = new Seq(Seq.Type.RNA, "generated",
+                new StringBuffer(repeat("acgu", 40)));
+        final StringBuilder written = new StringBuilder();
+
+        seq.topology = Seq.Topology.CIRCULAR;
+        seq.strandedness = Seq.Strandedness.DOUBLE;
+        DataFormat.GENBANK.convertTo(written, seq, 0, seq.sequence.length());
+        assertEquals(Arrays.asList("generated|RNA|CIRCULAR|DOUBLE|"
+                + repeat("acgu", 40)), read(written.toString()));
+    }
+
+    /**
+     * Reads every sequence from GenBank data.
+     **
+     * @param  genbank     the GenBank data to read.
+     * @return the sequences read (the name, type, topology, strandedness and
+     *         residues of each sequence, separated by '|' characters).
+     * @throws IOException if the data cannot be read.
+     */
+    private static List<String> read(String genbank) throws IOException {
+        final GenBankReader reader = new GenBankReader(
+                new StringReader(genbank));
+        final List<String> result = new ArrayList<String>();
+        // The current sequence read.
+        Seq seq;
+
+        while ((seq = reader.next()) != null) {
+            result.add(seq.getName() + "|" + seq.getType() + "|"
+                    + seq.getTopology().name() + "|"
+                    + seq.getStrandedness().name() + "|" + seq.sequence);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a string repeated a number of times.
+     **
+     * @param  text  the string to repeat.
+     * @param  count the number of times to repeat the string.
+     * @return the repeated string.
+     */
+    static String repeat(String text, int count) {
+        final StringBuilder result = new StringBuilder();
+
+        for (int index = 0; index < count; index++) {
+            result.append(text);
+        }
+        return result.toString();
+    }
+}
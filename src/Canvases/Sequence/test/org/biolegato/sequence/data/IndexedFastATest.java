@@ -0,0 +1,241 @@
+/*
+ * IndexedFastATest.java
+ *
+ * Created on October 20, 2026, 7:20 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests reading regions of FastA files through a samtools-compatible ".fai"
+ * index (IndexedFastAFile).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class IndexedFastATest {
+
+    /**
+     * The indexed FastA file format.
+     */
+    private static final IndexedFastAFile FORMAT
+            = (IndexedFastAFile) DataFormat.FASTAINDEX;
+    /**
+     * The residues of the first test sequence.
+     */
+    private static final String CHR1 = GenBankReaderTest.repeat(
+            "ACGTTGCAAC", 15);
+    /**
+     * The residues of the second test sequence.
+     */
+    private static final String CHR2 = GenBankReaderTest.repeat("ggcc", 30);
+    /**
+     * The directory to write the test files into.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests reading regions from files with UNIX and DOS line endings, and
+     * that the index built matches the index built by samtools faidx.
+     **
+     * @throws IOException if the test files cannot be written or read.
+     */
+    @Test
+    public void testRegions() throws IOException {
+        for (String newline : new String[] {"\n", "\r\n"}) {
+            final String text = fasta(newline, 60);
+            final File file = write("regions" + newline.length() + ".fa",
+                    text);
+            // The sequences read.
+            final Dataset data = new Dataset();
+
+            FORMAT.forRegions(
+                    " chr1:5-130 chr2 chr1:1,41- chr2:3-3 chr1:500-600 ")
+                    .readFile(data, file, 0);
+
+            assertEquals(4, data.getSize());
+            assertRegion("chr1:5-130", CHR1.substring(4, 130),
+                    data.getLine(0));
+            assertRegion("chr2", CHR2, data.getLine(1));
+            assertRegion("chr1:141-150", CHR1.substring(140),
+                    data.getLine(2));
+            assertRegion("chr2:3-3", "c", data.getLine(3));
+            assertEquals("chr1\t150\t" + text.indexOf("ACGT") + "\t60\t"
+                    + (60 + newline.length()) + "\nchr2\t120\t"
+                    + text.indexOf("ggcc") + "\t60\t"
+                    + (60 + newline.length()) + "\n", read(new File(
+                    file.getPath() + IndexedFastAFile.INDEX_SUFFIX)));
+        }
+    }
+
+    /**
+     * Tests reading every sequence in a file, through its saved index (or by
+     * selecting the index file), and without a new-line at the end of the
+     * file.
+     **
+     * @throws IOException if the test files cannot be written or read.
+     */
+    @Test
+    public void testWholeFile() throws IOException {
+        final String text = fasta("\r\n", 70);
+        final File file = write("whole.fasta", text.substring(0,
+                text.length() - 2));
+        // The sequences read.
+        Dataset data;
+
+        for (File read : new File[] {file, new File(file.getPath()
+                + IndexedFastAFile.INDEX_SUFFIX)}) {
+            data = new Dataset();
+            FORMAT.readFile(data, read, 0);
+            assertEquals(2, data.getSize());
+            assertRegion("chr1", CHR1, data.getLine(0));
+            assertRegion("chr2", CHR2, data.getLine(1));
+        }
+    }
+
+    /**
+     * Tests reading region requests (a file path followed by regions) from
+     * a PCD temporary file, and that plain FastA data is still parsed.
+     **
+     * @throws IOException if the test files cannot be written or read.
+     */
+    @Test
+    public void testRequests() throws IOException {
+        final File file = write("requests.fa", fasta("\n", 50));
+        // The sequences read.
+        Dataset data = new Dataset();
+
+        FORMAT.convertFrom(data, new StringReader("\n"
+                + file.getPath() + " chr2:1-4\n\n" + file.getPath()
+                + "  chr1:11-20 chr2:117\n"), 0, 0);
+        assertEquals(3, data.getSize());
+        assertRegion("chr2:1-4", "ggcc", data.getLine(0));
+        assertRegion("chr1:11-20", CHR1.substring(10, 20), data.getLine(1));
+        assertRegion("chr2:117-120", "ggcc", data.getLine(2));
+
+        data = new Dataset();
+        FORMAT.convertFrom(data,
+                new StringReader(">plain\nACGT\n"), 0, 0);
+        assertEquals(1, data.getSize());
+        assertRegion("plain", "ACGT", data.getLine(0));
+    }
+
+    /**
+     * Tests that files whose lines are of different lengths are rejected.
+     **
+     * @throws IOException if the test file cannot be written.
+     */
+    @Test
+    public void testUnevenLines() throws IOException {
+        final File file = write("uneven.fa", ">chr1\nACGT\nAC\nACGT\n");
+
+        try {
+            FORMAT.readFile(new Dataset(), file, 0);
+            fail("A file with uneven lines was indexed");
+        } catch (IOException ioe) {
+            assertTrue(ioe.getMessage().contains("chr1"));
+        }
+    }
+
+    /**
+     * Asserts that a sequence read is a region of an indexed sequence.
+     **
+     * @param name      the expected name of the sequence.
+     * @param residues  the expected residues of the sequence.
+     * @param seq       the sequence read.
+     */
+    private static void assertRegion(String name, String residues, Seq seq) {
+        assertEquals(name, seq.getName());
+        assertEquals(name, residues, seq.sequence.toString());
+    }
+
+    /**
+     * Generates the test FastA file.
+     **
+     * @param  newline  the line ending to use.
+     * @param  width    the number of residues on each line.
+     * @return the text of the FastA file.
+     */
+    private static String fasta(String newline, int width) {
+        final StringBuilder result = new StringBuilder();
+
+        result.append(">chr1").append(newline);
+        wrap(result, CHR1, width, newline);
+        result.append(">chr2 a description").append(newline);
+        wrap(result, CHR2, width, newline);
+        return result.toString();
+    }
+
+    /**
+     * Appends residues to a FastA file, wrapped at a given width.
+     **
+     * @param result    the text of the FastA file.
+     * @param residues  the residues to append.
+     * @param width     the number of residues on each line.
+     * @param newline   the line ending to use.
+     */
+    private static void wrap(StringBuilder result, String residues,
+                             int width, String newline) {
+        for (int start = 0; start < residues.length(); start += width) {
+            result.append(residues, start, Math.min(residues.length(),
+                    start + width)).append(newline);
+        }
+    }
+
+    /**
+     * Writes text to a temporary file.
+     **
+     * @param  name        the name of the file.
+     * @param  text        the text to write.
+     * @return the file written.
+     * @throws IOException if the file cannot be written.
+     */
+    private File write(String name, String text) throws IOException {
+        final File result = new File(folder.getRoot(), name);
+        final OutputStream out = new FileOutputStream(result);
+
+        try {
+            out.write(text.getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the text of a file.
+     **
+     * @param  file        the file to read.
+     * @return the text of the file (with UNIX line endings).
+     * @throws IOException if the file cannot be read.
+     */
+    private static String read(File file) throws IOException {
+        final BufferedReader in = new BufferedReader(new FileReader(file));
+        final StringBuilder result = new StringBuilder();
+        // The current line read.
+        String line;
+
+        try {
+            while ((line = in.readLine()) != null) {
+                result.append(line).append('\n');
+            }
+        } finally {
+            in.close();
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * InsertSequencesTest.java
+ *
+ * Created on October 20, 2026, 9:00 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests inserting batches of parsed sequences into a Dataset, as a paste
+ * does (Dataset.insertSequences), and undoing the whole paste as a single
+ * step (Dataset.newUndoStep).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class InsertSequencesTest {
+
+    /**
+     * Tests that the residues of each sequence are inserted into the existing
+     * sequences (with their quality scores), and that the rest of the
+     * sequences are added to the end of the Dataset.
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testInsert() throws IOException {
+        final Dataset data = fastq("@a\nAC\n+\nII\n@b\nGG\n+\nII\n");
+        final List<ListDataEvent> added = listen(data);
+
+        data.insertSequences(1, 0, parse("@x\n--\n+\n#$\n@y\n-\n+\n%\n"
+                + "@z\nTT\n+\n&'\n@w\nCC\n+\n()\n"));
+        assertEquals(Arrays.asList("A--C", "G-G", "TT", "CC"), rows(data));
+        assertEquals("@a\nA--C\n+\nI#$I\n@b\nG-G\n+\nI%I\n@z\nTT\n+\n&'\n"
+                + "@w\nCC\n+\n()\n", write(data));
+        assertEquals(1, added.size());
+        assertEquals(2, added.get(0).getIndex0());
+        assertEquals(3, added.get(0).getIndex1());
+    }
+
+    /**
+     * Tests that residues refused by the protections of an existing sequence
+     * are not inserted.
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testProtected() throws IOException {
+        final Dataset data = fastq("@a\nAC\n+\nII\n");
+
+        data.insertSequences(1, 0, parse("@x\nGG\n+\nII\n"));
+        assertEquals(Arrays.asList("AC"), rows(data));
+        assertFalse(data.insertSequence(1, 0, parse("@x\nGG\n+\nII\n")
+                .get(0)));
+    }
+
+    /**
+     * Tests that an overwritten selection, and every batch inserted, are
+     * undone (and redone) as a single step, and that each batch is still
+     * shown as it is inserted.
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testUndoStep() throws IOException {
+        final Dataset data = fastq("@a\nACGT\n+\nIIII\n@b\nACGT\n+\nIIII\n");
+        final List<ListDataEvent> added = listen(data);
+        // The text of the Dataset before the paste.
+        final String before = write(data);
+        // The text of the Dataset after the paste.
+        final String after;
+
+        final int step = data.newUndoStep();
+
+        data.beginEdit(step);
+        assertTrue(data.delete(1, new int[] {0, 1}, 2, false));
+        data.endEdit();
+        insert(data, step, 0, "@x\n-\n+\n!\n");
+        insert(data, step, 1, "@y\n--\n+\n!!\n");
+        insert(data, step, 2, "@z\nAAA\n+\n!!!\n");
+        insert(data, step, 3, "@w\nCCC\n+\n!!!\n");
+
+        after = write(data);
+        assertEquals(Arrays.asList("A-T", "A--T", "AAA", "CCC"), rows(data));
+        assertEquals(2, added.size());
+        assertTrue(data.undo());
+        assertEquals(before, write(data));
+        assertFalse(data.undo());
+        assertTrue(data.redo());
+        assertEquals(after, write(data));
+    }
+
+    /**
+     * Tests that undo and redo still work while a paste is in progress, and
+     * that edits made between the batches of a paste are not merged into the
+     * paste's undo step.
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testInterruptedStep() throws IOException {
+        final Dataset data = fastq("@a\nACGT\n+\nIIII\n@b\nACGT\n+\nIIII\n");
+        final int step = data.newUndoStep();
+
+        insert(data, step, 0, "@x\n-\n+\n!\n");
+        assertTrue(data.undo());
+        assertEquals(Arrays.asList("ACGT", "ACGT"), rows(data));
+        assertTrue(data.redo());
+
+        // An edit made by the user between two batches.
+        assertTrue(data.insert(4, 1, "--".toCharArray(), 0, 2, false));
+        insert(data, step, 1, "@y\n-\n+\n!\n");
+        insert(data, step, 2, "@z\nAAA\n+\n!!!\n");
+        assertEquals(Arrays.asList("A-CGT", "A-CGT--", "AAA"), rows(data));
+
+        // The batches after the edit are undone together, then the edit, and
+        // then the batch before the edit.
+        assertTrue(data.undo());
+        assertEquals(Arrays.asList("A-CGT", "ACGT--"), rows(data));
+        assertTrue(data.undo());
+        assertEquals(Arrays.asList("A-CGT", "ACGT"), rows(data));
+        assertTrue(data.undo());
+        assertEquals(Arrays.asList("ACGT", "ACGT"), rows(data));
+        assertFalse(data.undo());
+    }
+
+    /**
+     * Tests finding the line numbers of sequences after other sequences are
+     * added and removed (as the insertion point of a paste is tracked).
+     **
+     * @throws IOException if the test data cannot be read.
+     */
+    @Test
+    public void testIndexOf() throws IOException {
+        final Dataset data = fastq("@a\nA\n+\nI\n@b\nC\n+\nI\n@c\nG\n+\nI\n");
+        final Seq b = data.getLine(1);
+        final Seq c = data.getLine(2);
+
+        assertEquals(1, data.indexOf(b));
+        data.removeSequences(new int[] {0});
+        assertEquals(0, data.indexOf(b));
+        data.addSequences(0, parse("@x\nT\n+\nI\n@y\nT\n+\nI\n"));
+        assertEquals(2, data.indexOf(b));
+        assertEquals(3, data.indexOf(c));
+        data.removeSequences(new int[] {2});
+        assertEquals(-1, data.indexOf(b));
+        assertEquals(2, data.indexOf(c));
+        assertEquals(-1, data.indexOf(null));
+    }
+
+    /**
+     * Inserts a batch of sequences into a Dataset, as a paste does.
+     **
+     * @param  data        the Dataset to insert the batch into.
+     * @param  step        the undo step of the paste.
+     * @param  y           the row to insert the batch at.
+     * @param  text        the FASTQ data of the batch.
+     * @throws IOException if the data cannot be read.
+     */
+    private static void insert(Dataset data, int step, int y, String text)
+                                                        throws IOException {
+        data.beginEdit(step);
+        try {
+            data.insertSequences(1, y, parse(text));
+        } finally {
+            data.endEdit();
+        }
+    }
+
+    /**
+     * Records the rows added to a data model.
+     **
+     * @param  data the data model to listen to.
+     * @return the list of events for the rows added.
+     */
+    private static List<ListDataEvent> listen(Dataset data) {
+        final List<ListDataEvent> result = new ArrayList<ListDataEvent>();
+
+        data.addListDataListener(new ListDataListener() {
+            public void intervalAdded(ListDataEvent e) {
+                result.add(e);
+            }
+
+            public void intervalRemoved(ListDataEvent e) {
+            }
+
+            public void contentsChanged(ListDataEvent e) {
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reads FASTQ data into a new Dataset (which does not record the
+     * sequences read in its undo history).
+     **
+     * @param  text        the FASTQ data.
+     * @return the new Dataset.
+     * @throws IOException if the data cannot be read.
+     */
+    private static Dataset fastq(String text) throws IOException {
+        final Dataset result = new Dataset();
+
+        result.beginLoad();
+        try {
+            DataFormat.FASTQ.convertFrom(result, new StringReader(text), 0, 0);
+        } finally {
+            result.endLoad();
+        }
+        return result;
+    }
+
+    /**
+     * Parses FASTQ data into a list of sequences (i.e. a batch).
+     **
+     * @param  text        the FASTQ data.
+     * @return the sequences parsed.
+     * @throws IOException if the data cannot be read.
+     */
+    private static List<Seq> parse(String text) throws IOException {
+        return Arrays.asList(fastq(text).toArray());
+    }
+
+    /**
+     * Returns the residues of every sequence in a Dataset.
+     **
+     * @param  data the Dataset.
+     * @return the residues of each sequence.
+     */
+    private static List<String> rows(Dataset data) {
+        final List<String> result = new ArrayList<String>();
+
+        for (int y = 0; y < data.getSize(); y++) {
+            result.add(data.getLine(y).sequence.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Writes every sequence in a Dataset as FASTQ data.
+     **
+     * @param  data        the Dataset to write.
+     * @return the FASTQ data.
+     * @throws IOException if the data cannot be written.
+     */
+    private static String write(Dataset data) throws IOException {
+        final StringBuilder result = new StringBuilder();
+        // The current sequence.
+        Seq seq;
+
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            DataFormat.FASTQ.convertTo(result, seq, 0,
+                    seq.sequence.length());
+        }
+        return result.toString();
+    }
+}
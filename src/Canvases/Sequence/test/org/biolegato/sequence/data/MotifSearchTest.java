@@ -0,0 +1,281 @@
+/*
+ * MotifSearchTest.java
+ *
+ * Created on October 20, 2026, 3:40 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests searching a Dataset for IUPAC motifs (MotifSearch), against a simple
+ * character-by-character search.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class MotifSearchTest {
+
+    /**
+     * The IUPAC nucleotide symbols, and the bases each symbol represents.
+     */
+    private static final String[] NUCLEOTIDES = {
+        "TU", "UT", "RAG", "YCTU", "SCG", "WATU", "KGTU", "MAC", "BCGTU",
+        "DAGTU", "HACTU", "VACG", "NACGTU",
+    };
+    /**
+     * The IUPAC degenerate protein symbols, and the residues each symbol
+     * represents.
+     */
+    private static final String[] PROTEINS = {"BDN", "ZEQ", "JIL"};
+
+    /**
+     * Tests degenerate nucleotide and protein symbols.
+     */
+    @Test
+    public void testSymbols() {
+        final Dataset data = dataset(new Seq(Seq.Type.DNA, "dna",
+                new StringBuffer("ggAUcgNT")), new Seq(Seq.Type.PROTEIN,
+                "protein", new StringBuffer("MKDNxQ*")));
+
+        assertEquals("0:2-4", hits(new MotifSearch("RT", false), data));
+        assertEquals("0:3-5", hits(new MotifSearch("TN", false), data));
+        assertEquals("1:2-4,1:3-5", hits(new MotifSearch("BX", false),
+                data));
+        assertEquals("1:5-7", hits(new MotifSearch("z*", false), data));
+    }
+
+    /**
+     * Tests that gaps are skipped only if requested, and that hits which span
+     * gaps begin at the column of their first residue.
+     */
+    @Test
+    public void testGaps() {
+        final Dataset data = dataset(new Seq(Seq.Type.DNA, "dna",
+                new StringBuffer("AC--G.TA~C")));
+
+        assertEquals("", hits(new MotifSearch("CGT", false), data));
+        assertEquals("0:1-7", hits(new MotifSearch("CGT", true), data));
+        assertEquals("0:0-2,0:7-10", hits(new MotifSearch("AC", true),
+                data));
+    }
+
+    /**
+     * Tests that invalid motifs are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        final char[] tooLong = new char[MotifSearch.MAX_LENGTH + 1];
+
+        Arrays.fill(tooLong, 'A');
+        for (String motif : new String[] {"", "AC-G", "A1",
+                    new String(tooLong)}) {
+            try {
+                new MotifSearch(motif, false);
+                fail("Accepted the motif: " + motif);
+            } catch (IllegalArgumentException iae) {
+            }
+        }
+    }
+
+    /**
+     * Tests that a search of many sequences (divided amongst several tasks)
+     * finds the same hits as a simple search, both with and without gaps.
+     */
+    @Test
+    public void testMatchesSimpleSearch() {
+        final Random random = new Random(10);
+        final Dataset data = new Dataset();
+        final StringBuilder residues = new StringBuilder();
+        // The type of the current sequence.
+        Seq.Type type;
+
+        for (int y = 0; y < 200; y++) {
+            type = (y % 3 == 0 ? Seq.Type.PROTEIN : Seq.Type.DNA);
+            residues.setLength(0);
+            for (int count = random.nextInt(300); count > 0; count--) {
+                residues.append((type == Seq.Type.DNA ? "ACGTU-Nr"
+                        : "ACDEIKLNQ-*").charAt(random.nextInt(
+                        type == Seq.Type.DNA ? 8 : 11)));
+            }
+            data.add(y, new Seq(type, "seq" + y,
+                    new StringBuffer(residues.toString())));
+        }
+
+        for (String motif : new String[] {"ACG", "RYN", "BZ", "XX*",
+                    "TUT", "A", "JLKD"}) {
+            for (boolean gaps : new boolean[] {false, true}) {
+                assertEquals(motif + " " + gaps, expected(data, motif, gaps),
+                        hits(new MotifSearch(motif, gaps), data));
+            }
+        }
+    }
+
+    /**
+     * Tests that a background search reports every hit to its listener, and
+     * then finishes.
+     **
+     * @throws InterruptedException if the test is interrupted.
+     */
+    @Test
+    public void testStart() throws InterruptedException {
+        final Dataset data = new Dataset();
+        final AtomicInteger found = new AtomicInteger();
+        final AtomicInteger total = new AtomicInteger(-1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final boolean[] cancelled = new boolean[1];
+
+        for (int y = 0; y < 100; y++) {
+            data.add(y, new Seq(Seq.Type.DNA, "seq" + y,
+                    new StringBuffer("ACGTACGT")));
+        }
+        new MotifSearch("CG", false).start(data, new MotifSearch.Listener() {
+            public void found(List<MotifSearch.Hit> hits) {
+                found.addAndGet(hits.size());
+            }
+
+            public void finished(int count, boolean stopped) {
+                total.set(count);
+                cancelled[0] = stopped;
+                finished.countDown();
+            }
+        });
+
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+        assertFalse(cancelled[0]);
+        assertEquals(200, found.get());
+        assertEquals(200, total.get());
+    }
+
+    /**
+     * Creates a Dataset containing sequences.
+     **
+     * @param  seqs the sequences to add.
+     * @return the new Dataset.
+     */
+    private static Dataset dataset(Seq... seqs) {
+        final Dataset result = new Dataset();
+
+        for (int y = 0; y < seqs.length; y++) {
+            result.add(y, seqs[y]);
+        }
+        return result;
+    }
+
+    /**
+     * Searches a Dataset, and describes the hits found (each hit is written
+     * as "row:start-end", and the hits are separated by commas).
+     **
+     * @param  search the search to perform.
+     * @param  data   the Dataset to search.
+     * @return the hits found.
+     */
+    private static String hits(MotifSearch search, Dataset data) {
+        final StringBuilder result = new StringBuilder();
+
+        for (MotifSearch.Hit hit : search.search(data)) {
+            describe(result, hit.row, hit.start, hit.end);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Searches a Dataset one character at a time, and describes the hits
+     * found (see hits).
+     **
+     * @param  data   the Dataset to search.
+     * @param  motif  the motif to search for.
+     * @param  gaps   whether to skip over gaps.
+     * @return the hits found.
+     */
+    private static String expected(Dataset data, String motif, boolean gaps) {
+        final StringBuilder result = new StringBuilder();
+        // The current sequence.
+        Seq seq;
+        // The residues of the current sequence.
+        String residues;
+        // The columns of the residues which are not skipped.
+        List<Integer> columns;
+        // Whether the motif matches at the current position.
+        boolean match;
+
+        for (int y = 0; y < data.getSize(); y++) {
+            seq = data.getLine(y);
+            residues = seq.sequence.toString();
+            columns = new ArrayList<Integer>();
+            for (int column = 0; column < residues.length(); column++) {
+                if (!gaps || "-.~ ".indexOf(residues.charAt(column)) < 0) {
+                    columns.add(column);
+                }
+            }
+            for (int start = 0; start + motif.length() <= columns.size();
+                    start++) {
+                match = true;
+                for (int count = 0; match && count < motif.length();
+                        count++) {
+                    match = matches(seq.type, motif.charAt(count),
+                            residues.charAt(columns.get(start + count)));
+                }
+                if (match) {
+                    describe(result, y, columns.get(start),
+                            columns.get(start + motif.length() - 1) + 1);
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Determines whether a motif symbol matches a residue.
+     **
+     * @param  type    the type of the sequence containing the residue.
+     * @param  symbol  the motif symbol.
+     * @param  residue the residue.
+     * @return whether the symbol matches the residue.
+     */
+    private static boolean matches(Seq.Type type, char symbol, char residue) {
+        // Whether the sequence is a nucleotide sequence.
+        final boolean nucleotide = (type == Seq.Type.DNA
+                || type == Seq.Type.RNA);
+        // Whether the symbol matches the residue.
+        boolean result;
+
+        symbol = Character.toUpperCase(symbol);
+        residue = Character.toUpperCase(residue);
+        result = (symbol == residue || (!nucleotide && symbol == 'X'
+                && residue >= 'A' && residue <= 'Z'));
+        for (String code : (nucleotide ? NUCLEOTIDES : PROTEINS)) {
+            if (code.charAt(0) == symbol && code.indexOf(residue, 1) > 0) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Appends the description of a hit to a string.
+     **
+     * @param result the string to append to.
+     * @param row    the row of the hit.
+     * @param start  the first column of the hit.
+     * @param end    the column after the last column of the hit.
+     */
+    private static void describe(StringBuilder result, int row, int start,
+            int end) {
+        if (result.length() > 0) {
+            result.append(',');
+        }
+        result.append(row).append(':').append(start).append('-').append(end);
+    }
+}
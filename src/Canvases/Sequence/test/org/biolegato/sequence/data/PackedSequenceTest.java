@@ -0,0 +1,167 @@
+/*
+ * PackedSequenceTest.java
+ *
+ * Created on October 20, 2026, 9:05 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the packed residue store (PackedSequence).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class PackedSequenceTest {
+
+    /**
+     * Tests that DNA is stored in the 4-bit encoding, and read back exactly.
+     */
+    @Test
+    public void testDNARoundTrip() {
+        final String dna = "ACGTRYSWKMBDHVN-ACGTACGTACGTACGTACGT";
+        final PackedSequence store = new PackedSequence(Seq.Type.DNA, dna);
+
+        assertEquals(PackedSequence.Encoding.DNA, store.getEncoding());
+        assertEquals(dna.length(), store.length());
+        assertEquals(dna, store.toString());
+        assertEquals(dna.substring(5, 20),
+                store.subSequence(5, 20).toString());
+    }
+
+    /**
+     * Tests that inserting characters which the current encoding cannot
+     * represent widens the store, without changing the existing residues.
+     */
+    @Test
+    public void testWiden() {
+        final PackedSequence store = new PackedSequence(Seq.Type.DNA, "ACGT");
+
+        store.insert(2, "acgt".toCharArray(), 0, 4);
+        assertEquals(PackedSequence.Encoding.DNA, store.getEncoding());
+        assertEquals("ACacgtGT", store.toString());
+
+        store.insert(4, "x".toCharArray(), 0, 1);
+        assertEquals(PackedSequence.Encoding.PROTEIN, store.getEncoding());
+        assertEquals("ACacxgtGT", store.toString());
+
+        store.insert(0, "\u00e9".toCharArray(), 0, 1);
+        assertEquals(PackedSequence.Encoding.BYTE, store.getEncoding());
+        assertEquals("\u00e9ACacxgtGT", store.toString());
+
+        store.append("\u03b1".toCharArray(), 0, 1);
+        assertEquals(PackedSequence.Encoding.CHAR, store.getEncoding());
+        assertEquals("\u00e9ACacxgtGT\u03b1", store.toString());
+    }
+
+    /**
+     * Tests that lower-case and soft-masked residues are stored in the 4-bit
+     * encoding, and read back in their original case.
+     */
+    @Test
+    public void testLowerCase() {
+        final String dna = "acgtnACGTNacgtACGTrywsACGTACGTACGTacgtacgt-";
+        final PackedSequence store = new PackedSequence(Seq.Type.DNA, dna);
+        // The characters read from the store.
+        final char[] copy = new char[dna.length() - 7];
+
+        assertEquals(PackedSequence.Encoding.DNA, store.getEncoding());
+        assertEquals(dna, store.toString());
+        assertEquals('a', store.charAt(10));
+        assertEquals('A', store.charAt(14));
+        store.getChars(3, dna.length() - 4, copy, 0);
+        assertEquals(dna.substring(3, dna.length() - 4), new String(copy));
+
+        // Deletions join, shorten and drop the lower-case runs.
+        store.delete(8, 12);
+        store.delete(14, 18);
+        store.delete(0, 2);
+        assertEquals("gtnACGgtACGTACGTACGTACGTacgtacgt-", store.toString());
+        store.delete(5, 6);
+        store.delete(3, 5);
+        assertEquals("gtngtACGTACGTACGTACGTacgtacgt-", store.toString());
+        store.trimToSize();
+        assertEquals("gtngtACGTACGTACGTACGTacgtacgt-", store.toString());
+        assertEquals('t', store.charAt(4));
+    }
+
+    /**
+     * Tests that residue classes are tested in the residues' original case,
+     * if the class table distinguishes between upper and lower case.
+     */
+    @Test
+    public void testLowerCaseClasses() {
+        final PackedSequence store = new PackedSequence(Seq.Type.DNA,
+                "ACGTACGTacgtACGT");
+        // The class table (only lower-case 'a' belongs to class 1).
+        final byte[] classes = new byte[129];
+
+        classes['a'] = 1;
+        assertEquals(false, store.containsClass(0, 8, classes, 1));
+        assertEquals(true, store.containsClass(4, 12, classes, 1));
+        assertEquals(false, store.containsClass(9, 16, classes, 1));
+
+        // Case-insensitive class tables (as used by Dataset).
+        classes['A'] = 1;
+        assertEquals(true, store.containsClass(0, 1, classes, 1));
+        assertEquals(true, store.containsClass(8, 9, classes, 1));
+        assertEquals(false, store.containsClass(9, 12, classes, 1));
+    }
+
+    /**
+     * Tests random insertions and deletions against a StringBuilder.
+     */
+    @Test
+    public void testRandomEdits() {
+        final Random random = new Random(1);
+        final char[] alphabet = "ACGTNacgtn-".toCharArray();
+        final StringBuilder expected = new StringBuilder();
+        final PackedSequence store = new PackedSequence(Seq.Type.DNA);
+        final char[] copy;
+        char[] text;
+        int position;
+        int end;
+
+        for (int edit = 0; edit < 2000; edit++) {
+            position = random.nextInt(expected.length() + 1);
+            if (expected.length() > 0 && random.nextInt(3) == 0) {
+                end = Math.min(expected.length(),
+                        position + random.nextInt(20));
+                expected.delete(position, end);
+                store.delete(position, end);
+            } else {
+                text = new char[1 + random.nextInt(30)];
+                for (int index = 0; index < text.length; index++) {
+                    text[index] = alphabet[random.nextInt(alphabet.length)];
+                }
+                expected.insert(position, text);
+                store.insert(position, text, 0, text.length);
+            }
+        }
+        assertEquals(expected.toString(), store.toString());
+        assertEquals(PackedSequence.Encoding.DNA, store.getEncoding());
+
+        copy = new char[expected.length()];
+        store.getChars(0, copy.length, copy, 0);
+        assertEquals(expected.toString(), new String(copy));
+
+        store.trimToSize();
+        assertEquals(expected.toString(), store.toString());
+    }
+
+    /**
+     * Tests that protein residues use the 5-bit encoding.
+     */
+    @Test
+    public void testProtein() {
+        final String protein = "MKV*LLA.-W";
+        final PackedSequence store = new PackedSequence(Seq.Type.PROTEIN,
+                protein);
+
+        assertEquals(PackedSequence.Encoding.PROTEIN, store.getEncoding());
+        assertEquals(protein, store.toString());
+    }
+}
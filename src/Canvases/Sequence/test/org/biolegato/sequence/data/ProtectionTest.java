@@ -0,0 +1,140 @@
+/*
+ * ProtectionTest.java
+ *
+ * Created on October 20, 2026, 2:15 PM
+ */
+package org.biolegato.sequence.data;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the table-driven protection checks (Dataset.isProtectionsOn), against
+ * the character classes used by GDE.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class ProtectionTest {
+
+    /**
+     * The character class of alignment characters (e.g. gaps).
+     */
+    private static final int ALIGN = 0;
+    /**
+     * The character class of ambiguous residues.
+     */
+    private static final int AMBIG = 1;
+    /**
+     * The character class of unambiguous residues.
+     */
+    private static final int UNAMBIG = 2;
+
+    /**
+     * Tests every ASCII character (and a non-ASCII character), for every
+     * sequence type and combination of protection settings.
+     */
+    @Test
+    public void testEveryCharacter() {
+        // The protection settings (align, ambig, unambig) to test.
+        boolean[] flags;
+        // The character class of the current character.
+        int kind;
+
+        for (Seq.Type type : Seq.Type.values()) {
+            for (int combination = 0; combination < 8; combination++) {
+                flags = new boolean[] {(combination & 4) != 0,
+                    (combination & 2) != 0, (combination & 1) != 0};
+                for (char c = 0; c <= 128; c++) {
+                    kind = classify(type, (c == 128 ? '\u00e9' : c));
+                    assertEquals(type + " " + combination + " " + (int) c,
+                            kind >= 0 && flags[kind],
+                            Dataset.isProtectionsOn(type, flags[0], flags[1],
+                            flags[2], new char[] {(c == 128 ? '\u00e9' : c)},
+                            0, 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that only the characters within the range given are tested
+     * (including the first and last characters of the array).
+     */
+    @Test
+    public void testRange() {
+        final char[] text = "-AC-".toCharArray();
+
+        assertTrue(Dataset.isProtectionsOn(Seq.Type.DNA, true, false, false,
+                text, 0, 4));
+        assertTrue(Dataset.isProtectionsOn(Seq.Type.DNA, true, false, false,
+                text, 3, 4));
+        assertTrue(Dataset.isProtectionsOn(Seq.Type.PROTEIN, true, false,
+                false, text, 3, 10));
+        assertFalse(Dataset.isProtectionsOn(Seq.Type.DNA, true, false, false,
+                text, 1, 3));
+        assertFalse(Dataset.isProtectionsOn(Seq.Type.PROTEIN, true, false,
+                false, text, 1, 3));
+        assertTrue(Dataset.isProtectionsOn(Seq.Type.PROTEIN, false, false,
+                true, text, 1, 2));
+    }
+
+    /**
+     * Tests that deletions are checked against the residues within the
+     * sequence (across the pieces of an edited sequence).
+     */
+    @Test
+    public void testDelete() {
+        final Dataset data = new Dataset();
+        final Seq seq = new Seq(Seq.Type.DNA, "seq",
+                new StringBuffer("AAAA"));
+
+        data.add(0, seq);
+        seq.protect_align = false;
+        seq.protect_ambig = true;
+        seq.protect_unambig = false;
+        data.insert(2, 0, "--N--".toCharArray(), 0, 5, false);
+
+        assertFalse(data.delete(3, 0, 3, true));
+        assertTrue(data.delete(0, 0, 4, true));
+        assertEquals("N--AA", seq.sequence.toString());
+        assertTrue(data.delete(1, 0, 4, true));
+        assertEquals("N", seq.sequence.toString());
+    }
+
+    /**
+     * Classifies a character for a sequence type, using the rules of GDE.
+     **
+     * @param  type the sequence type.
+     * @param  c    the character to classify.
+     * @return the character class (ALIGN, AMBIG or UNAMBIG), or -1 if the
+     *         sequence type has no protections.
+     */
+    private static int classify(Seq.Type type, char c) {
+        // The lower case character.
+        final char lower = Character.toLowerCase(c);
+        // The character class.
+        int result = -1;
+
+        if (type == Seq.Type.DNA || type == Seq.Type.RNA) {
+            if ("bdhikmnrsvwy".indexOf(lower) >= 0) {
+                result = AMBIG;
+            } else if ("acgtu".indexOf(lower) >= 0) {
+                result = UNAMBIG;
+            } else {
+                result = ALIGN;
+            }
+        } else if (type == Seq.Type.PROTEIN) {
+            if (" \n\t\r-".indexOf(lower) >= 0) {
+                result = ALIGN;
+            } else if ("bjxz*".indexOf(lower) >= 0) {
+                result = AMBIG;
+            } else {
+                result = UNAMBIG;
+            }
+        }
+        return result;
+    }
+}
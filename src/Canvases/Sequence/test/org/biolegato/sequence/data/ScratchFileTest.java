@@ -0,0 +1,258 @@
+/*
+ * ScratchFileTest.java
+ *
+ * Created on October 20, 2026, 10:10 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the memory-mapped scratch file (ScratchFile and MappedResidues), and
+ * spilling sequence buffers and Datasets into it.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class ScratchFileTest {
+
+    /**
+     * The directory to create the scratch files in.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that residues stored in the scratch file are read back exactly,
+     * for both packed and unpacked encodings.
+     **
+     * @throws IOException if the scratch file cannot be written.
+     */
+    @Test
+    public void testStore() throws IOException {
+        final ScratchFile scratch = new ScratchFile(folder.getRoot());
+        final String dna = random("ACGTN-", 100001, 1);
+        final String text = "ACGT\u03b1acgt";
+        final String masked = random("ACGTacgt", 70000, 4);
+        final char[] window = new char[30];
+        MappedResidues stored;
+
+        try {
+            stored = scratch.store(new PackedSequence(Seq.Type.DNA, dna),
+                    PackedSequence.Encoding.DNA);
+            assertEquals(dna.length(), stored.length());
+            assertEquals(dna.charAt(77777), stored.charAt(77777));
+            stored.getChars(65530, 65560, window, 0);
+            assertEquals(dna.substring(65530, 65560), new String(window));
+
+            stored = scratch.store(new PackedSequence(Seq.Type.DNA, masked),
+                    PackedSequence.Encoding.DNA);
+            assertEquals(masked, string(stored));
+            assertEquals(masked.charAt(65536), stored.charAt(65536));
+
+            stored = scratch.store(new PackedSequence(Seq.Type.DNA, text),
+                    PackedSequence.Encoding.CHAR);
+            stored.getChars(0, text.length(), window, 0);
+            assertEquals(text, new String(window, 0, text.length()));
+        } finally {
+            scratch.close();
+        }
+    }
+
+    /**
+     * Tests that released regions are merged with their neighbours, and
+     * reused by later stores.
+     **
+     * @throws IOException if the scratch file cannot be written.
+     */
+    @Test
+    public void testRelease() throws IOException {
+        final ScratchFile scratch = new ScratchFile(folder.getRoot());
+        final PackedSequence data = new PackedSequence(Seq.Type.DNA,
+                random("ACGT", 1600, 2));
+        final MappedResidues first;
+        final MappedResidues second;
+        final MappedResidues third;
+        MappedResidues merged;
+
+        try {
+            first = scratch.store(data, PackedSequence.Encoding.DNA);
+            second = scratch.store(data, PackedSequence.Encoding.DNA);
+            third = scratch.store(data, PackedSequence.Encoding.DNA);
+            assertEquals(3 * 800, scratch.extent());
+
+            // Two adjacent released regions can hold a store of twice the
+            // size, without growing the file.
+            scratch.release(second);
+            scratch.release(first);
+            merged = scratch.store(new PackedSequence(Seq.Type.DNA,
+                    random("ACGT", 3200, 3)), PackedSequence.Encoding.DNA);
+            assertEquals(0, merged.offset);
+            assertEquals(3 * 800, scratch.extent());
+            assertEquals(data.toString(), string(third));
+
+            // Releasing the last regions shrinks the used space.
+            scratch.release(third);
+            assertEquals(1600, scratch.extent());
+            scratch.release(merged);
+            assertEquals(0, scratch.extent());
+        } finally {
+            scratch.close();
+        }
+    }
+
+    /**
+     * Tests that repeatedly editing and compacting a spilled buffer reuses the
+     * space of its previous compactions, rather than growing the file.
+     **
+     * @throws IOException if the scratch file cannot be written.
+     */
+    @Test
+    public void testCompactReusesSpace() throws IOException {
+        final ScratchFile scratch = new ScratchFile(folder.getRoot());
+        final StringBuilder expected = new StringBuilder(
+                random("ACGT", 50000, 4));
+        final SequenceBuffer buffer = new SequenceBuffer(Seq.Type.DNA,
+                expected);
+        final long size;
+        SequenceBuffer snapshot;
+
+        try {
+            buffer.spill(scratch);
+            size = scratch.extent();
+            assertEquals(25000, size);
+
+            for (int cycle = 0; cycle < 50; cycle++) {
+                buffer.insert(cycle * 100, "GATTACA".toCharArray(), 0, 7);
+                expected.insert(cycle * 100, "GATTACA");
+                buffer.delete(cycle * 50, cycle * 50 + 7);
+                expected.delete(cycle * 50, cycle * 50 + 7);
+                buffer.compact();
+                assertEquals(1, buffer.pieceCount());
+                assertTrue(scratch.extent() <= 2 * size + 8);
+            }
+            assertEquals(expected.toString(), buffer.toString());
+
+            // Compacting a buffer with a snapshot must not release the region
+            // the snapshot reads.
+            snapshot = buffer.snapshot();
+            buffer.delete(0, 1000);
+            buffer.compact();
+            buffer.append("NNNN".toCharArray(), 0, 4);
+            buffer.compact();
+            assertEquals(expected.toString(), snapshot.toString());
+            assertEquals(expected.substring(1000) + "NNNN", buffer.toString());
+        } finally {
+            scratch.close();
+        }
+    }
+
+    /**
+     * Tests that spilling a Dataset moves long heap sequences into the
+     * scratch file, leaves lazily read sequences unread, and that closing the
+     * Dataset deletes the scratch file.
+     **
+     * @throws IOException if the scratch file cannot be written.
+     */
+    @Test
+    public void testDatasetSpill() throws IOException {
+        final Dataset data = new Dataset();
+        final String residues = random("ACGT", 10000, 5);
+        final CountingStore lazy = new CountingStore(residues);
+        final File directory = folder.newFolder("scratch");
+
+        data.setScratchDirectory(directory);
+        assertEquals(1, directory.list().length);
+
+        data.add(0, new Seq(Seq.Type.DNA, "heap", new StringBuffer(residues)));
+        data.add(1, new Seq(Seq.Type.DNA, "lazy",
+                new SequenceBuffer(Seq.Type.DNA, lazy), null));
+        assertEquals(0, lazy.reads);
+        assertEquals(residues, data.getLine(0).sequence.toString());
+
+        // Editing the lazy sequence does not read its residues.
+        data.insert(5, 1, "N".toCharArray(), 0, 1, false);
+        assertEquals(0, lazy.reads);
+
+        data.close();
+        assertEquals(0, directory.list().length);
+    }
+
+    /**
+     * Generates a random string.
+     **
+     * @param  alphabet the characters to generate the string from.
+     * @param  length   the length of the string.
+     * @param  seed     the random number seed.
+     * @return the random string.
+     */
+    private static String random(String alphabet, int length, long seed) {
+        final Random random = new Random(seed);
+        final char[] result = new char[length];
+
+        for (int index = 0; index < length; index++) {
+            result[index] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(result);
+    }
+
+    /**
+     * Reads all of the residues from a residue store.
+     **
+     * @param  store the residue store to read.
+     * @return the residues in the store.
+     */
+    private static String string(ResidueStore store) {
+        final char[] result = new char[store.length()];
+
+        store.getChars(0, result.length, result, 0);
+        return new String(result);
+    }
+
+    /**
+     * A residue store which counts how many times its residues are read
+     * (standing in for a lazily read sequence file).
+     */
+    private static final class CountingStore implements ResidueStore {
+
+        /**
+         * The residues in the store.
+         */
+        private final String residues;
+        /**
+         * The number of times residues have been read from the store.
+         */
+        int reads = 0;
+
+        /**
+         * Creates a new counting residue store.
+         **
+         * @param residues the residues in the store.
+         */
+        CountingStore(String residues) {
+            this.residues = residues;
+        }
+
+        public int length() {
+            return residues.length();
+        }
+
+        public char charAt(int index) {
+            reads++;
+            return residues.charAt(index);
+        }
+
+        public void getChars(int srcBegin, int srcEnd, char[] dst,
+                int dstBegin) {
+            reads++;
+            residues.getChars(srcBegin, srcEnd, dst, dstBegin);
+        }
+    }
+}
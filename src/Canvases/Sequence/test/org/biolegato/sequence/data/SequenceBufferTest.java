@@ -0,0 +1,202 @@
+/*
+ * SequenceBufferTest.java
+ *
+ * Created on October 20, 2026, 9:20 AM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the piece-table editing buffer (SequenceBuffer).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class SequenceBufferTest {
+
+    /**
+     * Tests that typing (consecutive single-character insertions) extends a
+     * single piece, rather than adding a piece for each keystroke.
+     */
+    @Test
+    public void testTypingCoalesces() {
+        final SequenceBuffer buffer = new SequenceBuffer(Seq.Type.DNA,
+                "AAAAAAAAAA");
+
+        for (int count = 0; count < 100; count++) {
+            buffer.insert(5 + count, new char[] {'C'}, 0, 1);
+        }
+        assertEquals(3, buffer.pieceCount());
+        assertEquals(110, buffer.length());
+        assertEquals('A', buffer.charAt(4));
+        assertEquals('C', buffer.charAt(5));
+        assertEquals('C', buffer.charAt(104));
+        assertEquals('A', buffer.charAt(105));
+    }
+
+    /**
+     * Tests random insertions and deletions against a StringBuilder, and
+     * that the number of pieces stays bounded (by compaction).
+     */
+    @Test
+    public void testRandomEdits() {
+        final Random random = new Random(2);
+        final char[] alphabet = "ACGT-".toCharArray();
+        final StringBuilder expected = new StringBuilder();
+        final SequenceBuffer buffer;
+        final char[] window = new char[50];
+        char[] text;
+        int position;
+        int end;
+
+        for (int count = 0; count < 5000; count++) {
+            expected.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        buffer = new SequenceBuffer(Seq.Type.DNA, expected);
+
+        for (int edit = 0; edit < 10000; edit++) {
+            position = random.nextInt(expected.length() + 1);
+            if (random.nextBoolean() && position < expected.length()) {
+                end = Math.min(expected.length(),
+                        position + 1 + random.nextInt(10));
+                expected.delete(position, end);
+                buffer.delete(position, end);
+            } else {
+                text = new char[1 + random.nextInt(10)];
+                for (int index = 0; index < text.length; index++) {
+                    text[index] = alphabet[random.nextInt(alphabet.length)];
+                }
+                expected.insert(position, text);
+                buffer.insert(position, text, 0, text.length);
+            }
+            assertTrue(buffer.pieceCount() <= 2048);
+        }
+        assertEquals(expected.length(), buffer.length());
+        assertEquals(expected.toString(), buffer.toString());
+
+        // Read a window spanning several pieces.
+        position = expected.length() / 2;
+        buffer.getChars(position, position + window.length, window, 0);
+        assertEquals(expected.substring(position, position + window.length),
+                new String(window));
+
+        buffer.compact();
+        assertEquals(1, buffer.pieceCount());
+        assertEquals(expected.toString(), buffer.toString());
+    }
+
+    /**
+     * Tests deleting the entire buffer, and inserting into an empty buffer.
+     */
+    @Test
+    public void testEmpty() {
+        final SequenceBuffer buffer = new SequenceBuffer(Seq.Type.DNA, "ACGT");
+
+        buffer.delete(0, 4);
+        assertEquals(0, buffer.length());
+        assertEquals("", buffer.toString());
+
+        buffer.append("GG".toCharArray(), 0, 2);
+        buffer.insert(0, "T".toCharArray(), 0, 1);
+        assertEquals("TGG", buffer.toString());
+    }
+
+    /**
+     * Tests that a snapshot is not affected by later edits to the buffer
+     * (including edits which widen the encoding of the inserted residues),
+     * or by compacting the buffer.
+     */
+    @Test
+    public void testSnapshot() {
+        final SequenceBuffer buffer = new SequenceBuffer(Seq.Type.DNA,
+                "ACGTACGT");
+        final SequenceBuffer snapshot;
+
+        buffer.insert(4, "GG".toCharArray(), 0, 2);
+        snapshot = buffer.snapshot();
+        buffer.insert(6, "CC".toCharArray(), 0, 2);
+        buffer.insert(8, "ac\u00e9".toCharArray(), 0, 3);
+        buffer.delete(0, 2);
+        assertEquals("ACGTGGACGT", snapshot.toString());
+        assertEquals("GTGGCCac\u00e9ACGT", buffer.toString());
+
+        // Typing after a snapshot extends a single piece again.
+        for (int count = 0; count < 10; count++) {
+            buffer.insert(9 + count, new char[] {'T'}, 0, 1);
+        }
+        assertEquals(4, buffer.pieceCount());
+        assertEquals("GTGGCCac\u00e9TTTTTTTTTTACGT", buffer.toString());
+
+        buffer.compact();
+        assertEquals("ACGTGGACGT", snapshot.toString());
+        assertEquals('G', snapshot.charAt(4));
+    }
+
+    /**
+     * Tests reading snapshots on other threads while the buffer is edited,
+     * as when the clipboard contents are written out while the user keeps
+     * typing.  Each edit widens the encoding of the inserted residues.
+     **
+     * @throws InterruptedException if the test is interrupted.
+     * @throws ExecutionException   if reading a snapshot fails.
+     */
+    @Test
+    public void testConcurrentSnapshots()
+            throws InterruptedException, ExecutionException {
+        final ExecutorService readers = Executors.newFixedThreadPool(3);
+        final List<Future<?>> reads = new ArrayList<Future<?>>();
+        final SequenceBuffer buffer = new SequenceBuffer(Seq.Type.DNA,
+                "ACGT");
+        final String[] edits = {"ACGTN", "acgtn", "\u00e9\u00e8"};
+        SequenceBuffer snapshot;
+
+        try {
+            for (int round = 0; round < 2000; round++) {
+                snapshot = buffer.snapshot();
+                reads.add(readers.submit(read(snapshot, snapshot.toString())));
+                for (String edit : edits) {
+                    buffer.append(edit.toCharArray(), 0, edit.length());
+                }
+            }
+            for (Future<?> read : reads) {
+                read.get();
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a task which reads a snapshot repeatedly, and checks that its
+     * residues never change.
+     **
+     * @param  snapshot the snapshot to read.
+     * @param  expected the residues of the snapshot when it was taken.
+     * @return the task.
+     */
+    private static Callable<Void> read(final SequenceBuffer snapshot,
+                                       final String expected) {
+        return new Callable<Void>() {
+            public Void call() {
+                final char[] window = new char[expected.length()];
+
+                for (int count = 0; count < 20; count++) {
+                    snapshot.getChars(0, window.length, window, 0);
+                    assertEquals(expected, new String(window));
+                }
+                return null;
+            }
+        };
+    }
+}
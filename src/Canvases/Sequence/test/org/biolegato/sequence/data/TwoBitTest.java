@@ -0,0 +1,249 @@
+/*
+ * TwoBitTest.java
+ *
+ * Created on October 20, 2026, 7:45 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests writing and reading UCSC 2bit files (TwoBitFile and
+ * TwoBitResidues).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class TwoBitTest {
+
+    /**
+     * The 2bit file format.
+     */
+    private static final TwoBitFile FORMAT = (TwoBitFile) DataFormat.TWOBIT;
+    /**
+     * The directory to write the test files into.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that sequences written to a 2bit file are read back in with the
+     * same residues (other than residues which cannot be stored, which are
+     * read back as N), and the same soft-masking.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Dataset data = new Dataset();
+        final File file = new File(folder.getRoot(), "test.2bit");
+        // The sequences read back in.
+        final Dataset read = new Dataset();
+
+        data.add(0, new Seq(Seq.Type.DNA, "short", new StringBuffer(
+                "ACGTnnNNacgtRY-tA")));
+        data.add(1, new Seq(Seq.Type.DNA, "long", new StringBuffer(
+                random(200000, 5))));
+        data.add(2, new Seq(Seq.Type.DNA, "odd", new StringBuffer("GGa")));
+        data.add(3, new Seq(Seq.Type.DNA, "empty", new StringBuffer()));
+        write(data, file);
+
+        assertTrue(TwoBitFile.isTwoBit(file));
+        FORMAT.readFile(read, file, 0);
+        assertEquals(data.getSize(), read.getSize());
+        for (int y = 0; y < data.getSize(); y++) {
+            assertEquals(data.getLine(y).getName(),
+                    read.getLine(y).getName());
+            assertEquals(data.getLine(y).getName(),
+                    stored(data.getLine(y).sequence.toString()),
+                    read.getLine(y).sequence.toString());
+        }
+        assertEquals("ACGTnnNNacgtNNNtA", read.getLine(0).sequence.toString());
+    }
+
+    /**
+     * Tests reading regions of the sequences in a 2bit file.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testRegions() throws IOException {
+        final String residues = stored(random(50000, 11));
+        final Dataset data = new Dataset();
+        final File file = new File(folder.getRoot(), "regions.2bit");
+        // The regions read.
+        final Dataset read = new Dataset();
+
+        data.add(0, new Seq(Seq.Type.DNA, "chr1", new StringBuffer(residues)));
+        data.add(1, new Seq(Seq.Type.DNA, "chr2", new StringBuffer("acgt")));
+        write(data, file);
+
+        FORMAT.forRegions("chr1:1-1 chr2 chr1:20,001-30,000 chr1:49999-"
+                + " chr3 chr1:60000-").readFile(read, file, 0);
+        assertEquals(4, read.getSize());
+        assertRegion("chr1:1-1", residues.substring(0, 1), read.getLine(0));
+        assertRegion("chr2", "acgt", read.getLine(1));
+        assertRegion("chr1:20001-30000", residues.substring(20000, 30000),
+                read.getLine(2));
+        assertRegion("chr1:49999-50000", residues.substring(49998),
+                read.getLine(3));
+    }
+
+    /**
+     * Tests reading a big-endian (version 0) 2bit file, with N-blocks and
+     * mask blocks, such as may be written on other platforms.
+     **
+     * @throws IOException if the test file cannot be written or read.
+     */
+    @Test
+    public void testBigEndian() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(128).order(
+                ByteOrder.BIG_ENDIAN);
+        final File file = new File(folder.getRoot(), "big.2bit");
+        final OutputStream out = new FileOutputStream(file);
+        // The sequences read.
+        final Dataset read = new Dataset();
+
+        // The header, and the index (one sequence named "be").
+        buffer.putInt(0x1A412743).putInt(0).putInt(1).putInt(0);
+        buffer.put((byte) 2).put("be".getBytes("US-ASCII")).putInt(16 + 7);
+        // The sequence record: 10 residues, N at 3-4, masked at 6-9.
+        buffer.putInt(10);
+        buffer.putInt(1).putInt(3).putInt(2);
+        buffer.putInt(1).putInt(6).putInt(4);
+        buffer.putInt(0);
+        // TCAG TCAG TC (T=0, C=1, A=2, G=3; first base in the high bits).
+        buffer.put((byte) 0x1B).put((byte) 0x1B).put((byte) 0x10);
+        try {
+            out.write(buffer.array(), 0, buffer.position());
+        } finally {
+            out.close();
+        }
+
+        assertTrue(TwoBitFile.isTwoBit(file));
+        FORMAT.readFile(read, file, 0);
+        assertEquals(1, read.getSize());
+        assertRegion("be", "TCANNCagtc", read.getLine(0));
+    }
+
+    /**
+     * Tests detecting 2bit data, and that 2bit data cannot be written to (or
+     * read from) text streams.
+     **
+     * @throws IOException if the test file cannot be written.
+     */
+    @Test
+    public void testDetection() throws IOException {
+        final File file = new File(folder.getRoot(), "text.2bit");
+        final OutputStream out = new FileOutputStream(file);
+
+        try {
+            out.write(">seq\nACGT\n".getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        assertFalse(TwoBitFile.isTwoBit(file));
+        assertTrue(FORMAT.isFormat(new char[] {0x43, 0x27, 0x41, 0x1A}, 4));
+        assertTrue(FORMAT.isFormat(new char[] {0x1A, 0x41, 0x27, 0x43}, 4));
+        assertFalse(FORMAT.isFormat(new char[] {0x1A, 0x41, 0x27}, 3));
+        try {
+            FORMAT.convertTo(new StringBuilder(), new Seq(Seq.Type.DNA,
+                    "seq", new StringBuffer("ACGT")), 0, 4);
+            fail("2bit data was written to a text stream");
+        } catch (IOException ioe) {
+        }
+    }
+
+    /**
+     * Asserts that a sequence read is a region of a 2bit sequence.
+     **
+     * @param name      the expected name of the sequence.
+     * @param residues  the expected residues of the sequence.
+     * @param seq       the sequence read.
+     */
+    private static void assertRegion(String name, String residues, Seq seq) {
+        assertEquals(name, seq.getName());
+        assertEquals(name, residues, seq.sequence.toString());
+    }
+
+    /**
+     * Writes the sequences in a data model to a 2bit file.
+     **
+     * @param  data        the sequences to write.
+     * @param  file        the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void write(Dataset data, File file) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+
+        try {
+            FORMAT.writeFile(data, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the residues of a sequence, as stored in a 2bit file (residues
+     * other than A, C, G and T become N, keeping their case).
+     **
+     * @param  residues the residues of the sequence.
+     * @return the residues read back from a 2bit file.
+     */
+    private static String stored(String residues) {
+        final StringBuilder result = new StringBuilder(residues.length());
+
+        for (char c : residues.toCharArray()) {
+            if ("ACGTacgt".indexOf(c) >= 0) {
+                result.append(c);
+            } else {
+                result.append(Character.isLowerCase(c) ? 'n' : 'N');
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Generates a random nucleotide sequence, with runs of N residues and of
+     * lower-case (soft-masked) residues.
+     **
+     * @param  length   the length of the sequence.
+     * @param  seed     the seed for the random number generator.
+     * @return the residues of the sequence.
+     */
+    private static String random(int length, long seed) {
+        final Random random = new Random(seed);
+        final StringBuilder result = new StringBuilder(length);
+        // Whether the current run is soft-masked.
+        boolean masked = false;
+        // Whether the current run is of N residues.
+        boolean unknown = false;
+        // The residue to add.
+        char c;
+
+        for (int index = 0; index < length; index++) {
+            if (random.nextInt(100) == 0) {
+                masked = !masked;
+            }
+            if (random.nextInt(150) == 0) {
+                unknown = !unknown;
+            }
+            c = (unknown ? 'N' : "ACGT".charAt(random.nextInt(4)));
+            result.append(masked ? Character.toLowerCase(c) : c);
+        }
+        return result.toString();
+    }
+}
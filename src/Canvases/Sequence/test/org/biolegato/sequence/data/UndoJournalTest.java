@@ -0,0 +1,199 @@
+/*
+ * UndoJournalTest.java
+ *
+ * Created on October 20, 2026, 1:30 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the undo/redo history of a Dataset (UndoJournal), including its
+ * memory accounting.
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class UndoJournalTest {
+
+    /**
+     * Tests undoing and redoing insertions, deletions and row removals.
+     */
+    @Test
+    public void testUndoRedo() {
+        final Dataset data = dataset("ACGT", "TTTT", "GGGG");
+
+        data.insert(2, 0, "NN".toCharArray(), 0, 2, false);
+        data.delete(0, 1, 2, false);
+        data.removeSequences(new int[] {2});
+        assertEquals("ACNNGT,TT", contents(data));
+
+        assertTrue(data.undo());
+        assertEquals("ACNNGT,TT,GGGG", contents(data));
+        assertTrue(data.undo());
+        assertTrue(data.undo());
+        assertEquals("ACGT,TTTT,GGGG", contents(data));
+        assertFalse(data.undo());
+
+        assertTrue(data.redo());
+        assertTrue(data.redo());
+        assertTrue(data.redo());
+        assertEquals("ACNNGT,TT", contents(data));
+        assertFalse(data.redo());
+    }
+
+    /**
+     * Tests that consecutive keystrokes are undone as one step, and that a
+     * new edit clears the redo history.
+     */
+    @Test
+    public void testTypingCoalesces() {
+        final Dataset data = dataset("AAAA");
+
+        for (int count = 0; count < 5; count++) {
+            data.beginEdit(true);
+            data.insert(2 + count, 0, "C".toCharArray(), 0, 1, false);
+            data.endEdit();
+        }
+        assertEquals("AACCCCCAA", contents(data));
+        assertTrue(data.undo());
+        assertEquals("AAAA", contents(data));
+
+        data.insert(0, 0, "G".toCharArray(), 0, 1, false);
+        assertFalse(data.redo());
+    }
+
+    /**
+     * Tests that the sequences of an undone addition count against the
+     * memory limit (the journal is then their only owner), so a large
+     * undone addition is discarded rather than kept in the redo history.
+     */
+    @Test
+    public void testUndoneAdditionCounted() {
+        final Dataset data = dataset("ACGT");
+        final Seq large = new Seq(Seq.Type.DNA, "large",
+                new StringBuffer(repeat('A', 50000)));
+
+        data.setUndoLimit(10000);
+        data.addSequences(1, Collections.singletonList(large));
+        assertEquals(2, data.getSize());
+        assertTrue(data.undo());
+        assertEquals(1, data.getSize());
+        assertFalse(data.redo());
+
+        // With enough memory, the addition can be redone.
+        data.setUndoLimit(1 << 20);
+        data.addSequences(1, Collections.singletonList(large));
+        assertTrue(data.undo());
+        assertTrue(data.redo());
+        assertEquals(2, data.getSize());
+    }
+
+    /**
+     * Tests that removed sequences count against the memory limit only while
+     * they are removed, so undoing a large removal does not cause later undo
+     * steps to discard it from the redo history.
+     */
+    @Test
+    public void testUndoneRemovalReleased() {
+        final Dataset data = dataset("ACGT", repeat('C', 40000));
+
+        data.setUndoLimit(100000);
+        data.addSequences(2, Collections.singletonList(new Seq(Seq.Type.DNA,
+                "large", new StringBuffer(repeat('A', 70000)))));
+        data.removeSequences(new int[] {1});
+
+        // Undoing the removal returns its sequence to the Dataset; undoing
+        // the addition then leaves the journal holding only the added
+        // sequence (which fits within the limit).
+        assertTrue(data.undo());
+        assertTrue(data.undo());
+        assertEquals(2, data.getSize());
+
+        assertTrue(data.redo());
+        assertTrue(data.redo());
+        assertEquals(2, data.getSize());
+        assertEquals(70000, data.getLine(1).sequence.length());
+    }
+
+    /**
+     * Tests that sequences loaded from a file are not recorded in the undo
+     * history, while edits made during the load are.
+     */
+    @Test
+    public void testLoadNotRecorded() {
+        final Dataset data = dataset("ACGT");
+
+        data.beginLoad();
+        try {
+            data.addSequences(1, Arrays.asList(
+                    new Seq(Seq.Type.DNA, "a", new StringBuffer("AAAA")),
+                    new Seq(Seq.Type.DNA, "b", new StringBuffer("CCCC"))));
+            data.insert(0, 0, "G".toCharArray(), 0, 1, false);
+        } finally {
+            data.endLoad();
+        }
+        assertEquals(3, data.getSize());
+        assertFalse(data.undo());
+
+        data.insert(0, 0, "G".toCharArray(), 0, 1, false);
+        assertTrue(data.undo());
+        assertEquals("GACGT,AAAA,CCCC", contents(data));
+    }
+
+    /**
+     * Creates a Dataset containing DNA sequences.
+     **
+     * @param  residues the residues of each sequence.
+     * @return the new Dataset.
+     */
+    private static Dataset dataset(String... residues) {
+        final Dataset result = new Dataset();
+
+        result.setUndoLimit(0);
+        for (int y = 0; y < residues.length; y++) {
+            result.add(y, new Seq(Seq.Type.DNA, "seq" + y,
+                    new StringBuffer(residues[y])));
+        }
+        result.setUndoLimit(1 << 20);
+        return result;
+    }
+
+    /**
+     * Returns the residues of every sequence in a Dataset, separated by
+     * commas.
+     **
+     * @param  data the Dataset to read.
+     * @return the residues of the Dataset.
+     */
+    private static String contents(Dataset data) {
+        final StringBuilder result = new StringBuilder();
+
+        for (int y = 0; y < data.getSize(); y++) {
+            if (y > 0) {
+                result.append(',');
+            }
+            result.append(data.getLine(y).sequence);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns a string made of a single repeated character.
+     **
+     * @param  c      the character to repeat.
+     * @param  length the length of the string.
+     * @return the string.
+     */
+    private static String repeat(char c, int length) {
+        final char[] result = new char[length];
+
+        Arrays.fill(result, c);
+        return new String(result);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * WriterTest.java
+ *
+ * Created on October 20, 2026, 6:55 PM
+ */
+package org.biolegato.sequence.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests writing sequence data without creating intermediate strings (the
+ * output helpers in DataFormat, DateStamp, and the convertTo methods which
+ * use them).
+ **
+ * @author Graham Alvare
+ * @author Brian Fristensky
+ */
+public class WriterTest {
+
+    /**
+     * Tests that numbers are formatted the same way as String.format.
+     */
+    @Test
+    public void testFormatNumber() {
+        final long[] values = new long[] {
+            0, 1, -1, 9, 10, -10, 12345, -98765, Integer.MAX_VALUE,
+            Long.MAX_VALUE, Long.MIN_VALUE
+        };
+        final char[] buffer = new char[40];
+        // The end of the formatted number.
+        int end;
+
+        for (long value : values) {
+            for (int width = 0; width <= 25; width++) {
+                end = DataFormat.formatNumber(value, width, buffer, 3);
+                assertEquals(String.format(
+                        "%" + (width > 0 ? width : "") + "d", value),
+                        new String(buffer, 3, end - 3));
+            }
+        }
+    }
+
+    /**
+     * Tests that the output helpers write the same text to writers, string
+     * builders and other Appendable objects.
+     **
+     * @throws IOException if the text cannot be written.
+     */
+    @Test
+    public void testAppendables() throws IOException {
+        final SequenceBuffer sequence = new SequenceBuffer(
+                Seq.Type.DNA, GenBankReaderTest.repeat("ACGT-", 5000));
+        final StringWriter writer = new StringWriter();
+        final StringBuilder builder = new StringBuilder();
+        final StringBuffer buffer = new StringBuffer();
+
+        DataFormat.write(writer, sequence, 7, sequence.length() - 3);
+        DataFormat.write(builder, sequence, 7, sequence.length() - 3);
+        DataFormat.write(buffer, sequence, 7, sequence.length() - 3);
+        assertEquals(sequence.toString().substring(7, sequence.length() - 3),
+                writer.toString());
+        assertEquals(writer.toString(), builder.toString());
+        assertEquals(writer.toString(), buffer.toString());
+
+        // Writing an empty range writes nothing.
+        DataFormat.write(builder, sequence, 5, 5);
+        assertEquals(writer.toString(), builder.toString());
+    }
+
+    /**
+     * Tests that each date stamp matches the current date, formatted by
+     * SimpleDateFormat.
+     */
+    @Test
+    public void testDateStamp() {
+        assertDateStamp("MM/dd/yy kk:mm:ss", Calendar.SECOND, false);
+        assertDateStamp("dd-MMM-yyyy", Calendar.DATE, true);
+        assertDateStamp("kk:mm", Calendar.MINUTE, false);
+    }
+
+    /**
+     * Tests that each file format writes the same text to a writer as to a
+     * string builder, and that the text written can be read back in.
+     **
+     * @throws IOException if the sequences cannot be written or read.
+     */
+    @Test
+    public void testFormats() throws IOException {
+        final Seq[] seqs = new Seq[] {
+            new Seq(Seq.Type.DNA, "dna", new StringBuffer(
+                    GenBankReaderTest.repeat("acgtn", 2000))),
+            new Seq(Seq.Type.PROTEIN, "protein", new StringBuffer(
+                    GenBankReaderTest.repeat("MKLF-", 300))),
+            new Seq(Seq.Type.RNA, "rna", new StringBuffer("acgu"))
+        };
+        final DataFormat[] formats = new DataFormat[] {
+            DataFormat.FASTA, DataFormat.GDEFILE, DataFormat.GENBANK
+        };
+        // The sequences read back in.
+        Dataset data;
+        // The text written to a writer.
+        StringWriter writer;
+        // The text written to a string builder.
+        StringBuilder builder;
+
+        for (DataFormat format : formats) {
+            writer = new StringWriter();
+            builder = new StringBuilder();
+            for (Seq seq : seqs) {
+                format.convertTo(writer, seq, 0, seq.sequence.length());
+                format.convertTo(builder, seq, 0, seq.sequence.length());
+            }
+            assertEquals(format.toString(), writer.toString(),
+                    builder.toString());
+
+            data = new Dataset();
+            format.convertFrom(data, new StringReader(writer.toString()),
+                    0, 0);
+            assertEquals(format.toString(), seqs.length, data.getSize());
+            for (int y = 0; y < seqs.length; y++) {
+                assertEquals(format.toString(), seqs[y].getName(),
+                        data.getLine(y).getName());
+                assertEquals(format.toString(),
+                        seqs[y].sequence.toString().toLowerCase(),
+                        data.getLine(y).sequence.toString().toLowerCase());
+            }
+        }
+    }
+
+    /**
+     * Asserts that a date stamp is the current date, formatted by
+     * SimpleDateFormat, and that repeated calls return the same text until
+     * the date changes.
+     **
+     * @param pattern   the SimpleDateFormat pattern for the date stamp.
+     * @param field     the smallest calendar field shown by the pattern.
+     * @param upperCase whether the date stamp is converted to upper-case.
+     */
+    private static void assertDateStamp(String pattern, int field,
+                                        boolean upperCase) {
+        final DateStamp stamp = new DateStamp(pattern, field, upperCase);
+        final SimpleDateFormat format = new SimpleDateFormat(pattern);
+        // The date formatted before the date stamp is made.
+        String before;
+        // The date stamp.
+        String text;
+        // The date formatted after the date stamp is made.
+        String after;
+
+        do {
+            before = format.format(new Date());
+            text = stamp.get();
+            after = format.format(new Date());
+        } while (!before.equals(after));
+
+        assertEquals(upperCase ? after.toUpperCase() : after, text);
+        assertTrue(text == stamp.get() || !after.equals(
+                format.format(new Date())));
+    }
+}
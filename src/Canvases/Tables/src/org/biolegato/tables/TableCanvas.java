@@ -5,7 +5,7 @@ import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.io.File;
-import java.io.FileReader;
+import java.io.Reader;
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.ResultSet;
@@ -28,6 +28,7 @@ import javax.swing.filechooser.FileFilter;
 import javax.swing.table.DefaultTableModel;
 import org.biolegato.main.BLMain;
 import org.biolegato.main.DataCanvas;
+import org.biopcd.parser.CompressedIO;
 import org.biopcd.parser.PCD;
 
 /*
@@ -654,6 +655,10 @@ public class TableCanvas extends DataCanvas {
      */
     public void readFile(String format, Reader in, boolean overwrite, boolean forceall)
                                                             throws IOException {
+        // Ignore any compression suffix (e.g. "csv.gz"); the reader passed
+        // is already decompressed (see CompressedIO).
+        format = CompressedIO.baseFormat(format);
+
         // TODO: add more formats
         if (format.equalsIgnoreCase("csv")) {
             CSVFile.readFile(this, in, overwrite, forceall);
@@ -685,6 +690,10 @@ public class TableCanvas extends DataCanvas {
      */
     public void writeFile(String format, Appendable out, boolean forceall)
                                                             throws IOException {
+        // Ignore any compression suffix (e.g. "csv.gz"); compression is
+        // handled by whoever opened the Appendable (see CompressedIO).
+        format = CompressedIO.baseFormat(format);
+
         if (format.equalsIgnoreCase("csv")) {
             CSVFile.writeFile(out, getData(forceall));
         } else if (format.equalsIgnoreCase("tsv")) {
@@ -922,10 +931,17 @@ public class TableCanvas extends DataCanvas {
                                 try {
                                     // Read the file into the table canvas,
                                     // using the appropriate file filter (csv,
-                                    // or tsv).
-                                    readFile((openDlg.getFileFilter()
-                                            == CSV_FILTER ? "csv" : "tsv"),
-                                        new FileReader(opf), false,false);
+                                    // or tsv).  Gzip-compressed files are
+                                    // decompressed as they are read.
+                                    Reader reader
+                                            = CompressedIO.openReader(opf);
+                                    try {
+                                        readFile((openDlg.getFileFilter()
+                                                == CSV_FILTER ? "csv" : "tsv"),
+                                            reader, false,false);
+                                    } finally {
+                                        reader.close();
+                                    }
                                 } catch (IOException ioe) {
                                     // Print a stack trace if any error occurs.
                                     ioe.printStackTrace(System.err);
@@ -9,8 +9,6 @@ import java.awt.Desktop;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
@@ -31,6 +29,7 @@ import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JScrollPane;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
 import org.biopcd.parser.CommandThread;
 import org.biopcd.parser.PCD;
 import org.biopcd.parser.PCDObject;
@@ -469,11 +468,15 @@ public class BLMain {
      * <ol>
      *   <li>Initialize the canvas.</li>
      *   <li>Read initial canvas data -- read any files (such as GenBANK or
-     *      FASTA DNA/Protein sequences) to initialize the canvas with).</li>
+     *      FASTA DNA/Protein sequences) to initialize the canvas with).  If
+     *      the canvas reads files in the background, the files are read in
+     *      step 6 instead.</li>
      *   <li>Add the initial BioLegato menu headings (e.g. File, Edit).</li>
      *   <li>Read in the custom PCD menus.</li>
      *   <li>Add the default trailing menu items.</li>
      *   <li>DONE: Display the new BioLegato instance.</li>
+     *   <li>Read the files in the background, if the canvas supports it
+     *      (see DataCanvas.isBackgroundLoad).</li>
      * </ol>
      **
      * @param canvasClass the DataCanvas to load BioLegato with.
@@ -510,17 +513,11 @@ public class BLMain {
                 }
             }
 
-            for (File file : dataAdd) {
-                try {
-                    if (file != null && file.exists() && file.isFile()
-                            && file.length() > 0) {
-                        canvas.readFile("", new FileReader(file), false,false);
-                    }
-                } catch (FileNotFoundException ex) {
-                    ex.printStackTrace(System.err);
-                } catch (IOException ex) {
-                    ex.printStackTrace(System.err);
-                }
+            // Read the files specified on the command line.  If the canvas
+            // reads files in the background, the files are instead read once
+            // the canvas is displayed (see step 6 below).
+            if (!canvas.isBackgroundLoad()) {
+                canvas.readFiles(dataAdd);
             }
 
 ///////////////////////////////////////
@@ -557,6 +554,25 @@ public class BLMain {
 ///////////////////////////////////////////////////
 
             canvas.createJFrame();
+
+///////////////////////////////////////////
+//***************************************//
+//* 6. READ THE FILES IN THE BACKGROUND *//
+//***************************************//
+///////////////////////////////////////////
+
+            // Start reading the files specified on the command line (the
+            // canvas's window and menus may be used while they are read).
+            if (canvas.isBackgroundLoad() && !dataAdd.isEmpty()) {
+                final DataCanvas loader = canvas;
+                final List<File> files = dataAdd;
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        loader.readFiles(files);
+                    }
+                });
+            }
         } catch (Exception ex) {
             ex.printStackTrace(System.err);
         }
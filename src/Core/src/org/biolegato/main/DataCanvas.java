@@ -15,8 +15,11 @@ package org.biolegato.main;
 
 import java.awt.BorderLayout;
 import java.awt.Component;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Pattern;
@@ -29,6 +32,7 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import org.biopcd.parser.CompressedIO;
 import org.biopcd.parser.PCDIO;
 
 /**
@@ -434,6 +438,59 @@ public abstract class DataCanvas extends JApplet implements PCDIO {
         window.setVisible(true);
         window.setLocationRelativeTo(null);
         window.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        // destroy the canvas (releasing any resources it holds), once the
+        // window has been closed.
+        window.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                destroy();
+            }
+        });
+    }
+
+    /**
+     * Reads a list of files (e.g. the files specified on the command line)
+     * into the canvas.  By default, the files are read one after another, by
+     * readFile, with their formats auto-detected; gzip-compressed files are
+     * decompressed as they are read.  Canvases which can read files in the
+     * background (see isBackgroundLoad) should override this method.
+     **
+     * @param files the files to read.
+     */
+    public void readFiles(List<File> files) {
+        // The reader used to read each file.
+        Reader reader;
+
+        for (File file : files) {
+            try {
+                if (file != null && file.exists() && file.isFile()
+                        && file.length() > 0) {
+                    // Gzip-compressed files are decompressed as they are read.
+                    reader = CompressedIO.openReader(file);
+                    try {
+                        readFile("", reader, false, false);
+                    } finally {
+                        reader.close();
+                    }
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+            }
+        }
+    }
+
+    /**
+     * Determines whether the canvas reads files in the background.  If so,
+     * BLMain displays the canvas before calling readFiles (from the Swing event
+     * thread), rather than reading the files before the canvas is displayed;
+     * thus, the canvas's window and menus can be used while the files are
+     * read.  By default, files are not read in the background.
+     **
+     * @return whether readFiles reads the files in the background.
+     */
+    public boolean isBackgroundLoad() {
+        return false;
     }
 
     /**